@@ -0,0 +1,228 @@
+package nl.rug.ai.oop.rpg.benchmark;
+
+import nl.rug.ai.oop.rpg.HeadlessMain;
+import nl.rug.ai.oop.rpg.controler.CommandController;
+import nl.rug.ai.oop.rpg.model.engine.GameEngine;
+import nl.rug.ai.oop.rpg.model.engine.GameStorage;
+import nl.rug.ai.oop.rpg.model.inventory.MapItems;
+import nl.rug.ai.oop.rpg.model.locations.GameLocation;
+import nl.rug.ai.oop.rpg.model.locations.LocationData;
+import nl.rug.ai.oop.rpg.model.locations.LocationLoader;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+/**
+ * Game world generated for the benchmarks, in a temporary folder.
+ * The island is a square of grass of the given size, with the player in its centre, and the bag contains the given number of
+ * different items. The other locations, the shops and the enemies are copied from the game resources.
+ * The generated files are always the same for the same parameters, so that the results of different runs can be compared.
+ *
+ * @version 1.0
+ */
+public final class BenchmarkWorld {
+    private static final String[] COPIED_RESOURCES = {
+            "/locations/compiled/player_house.loc", "/locations/compiled/npc_house.loc", "/locations/compiled/armory.loc",
+            "/locations/compiled/potions.loc", "/locations/compiled/underground.loc",
+            "/inventory/textfiles/potionsItems.txt", "/inventory/textfiles/armoryItems.txt",
+            "/npc_setup/enemy_setup.txt"
+    };
+    private static final int MAP_ITEM_IDENTIFIER = 100;
+    private static final int FIRST_BAG_IDENTIFIER = 1000;
+
+    private final Path root;
+    private final GameStorage storage;
+    private final int mapSize;
+    private final int inventorySize;
+
+    /**
+     * Generates the files of the world
+     * @param mapSize number of columns and rows of the island, at least 16
+     * @param inventorySize number of different items in the bag, and number of items on the map, smaller than (mapSize - 8)²
+     * @throws IOException if the files could not be written
+     */
+    public BenchmarkWorld(int mapSize, int inventorySize) throws IOException {
+        this.mapSize = mapSize;
+        this.inventorySize = inventorySize;
+        this.root = Files.createTempDirectory("rpg-benchmark");
+        Path resources = root.resolve("resources");
+        this.storage = new GameStorage(resources, root.resolve("saves"));
+        Files.createDirectories(storage.saveRoot());
+        for (String resource : COPIED_RESOURCES) {
+            Path target = resources.resolve(resource.substring(1));
+            Files.createDirectories(target.getParent());
+            try (InputStream input = Objects.requireNonNull(BenchmarkWorld.class.getResourceAsStream(resource), resource)) {
+                Files.copy(input, target);
+            }
+        }
+        writeIsland(resources.resolve("locations/compiled/island.loc"));
+        writeItems(resources.resolve("inventory/textfiles"));
+    }
+
+    /**
+     * @return storage containing the generated resources and the save files
+     */
+    public GameStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * @return number of columns and rows of the island
+     */
+    public int getMapSize() {
+        return mapSize;
+    }
+
+    /**
+     * @return number of different items in the bag
+     */
+    public int getInventorySize() {
+        return inventorySize;
+    }
+
+    /**
+     * @return identifier of the first generated bag item, the others following it
+     */
+    public int getFirstBagIdentifier() {
+        return FIRST_BAG_IDENTIFIER;
+    }
+
+    /**
+     * Creates a game from the files of the world. If no game was saved yet, the player is built, so that the game is walking.
+     * @param mapItems the map items model of the game
+     * @return the game engine
+     */
+    public GameEngine createGame(MapItems mapItems) {
+        GameEngine gameEngine = HeadlessMain.createGameEngine(storage, mapItems);
+        if (gameEngine.getGameState() == GameEngine.GameState.BUILDING_PLAYER) {
+            CommandController commandController = new CommandController(gameEngine, mapItems);
+            commandController.execute("name Benchmark");
+            commandController.execute("faction fire");
+        }
+        return gameEngine;
+    }
+
+    /**
+     * Saves a game and waits until all the save files have been written
+     * @param gameEngine the game to be saved
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public static void saveAndWait(GameEngine gameEngine) throws InterruptedException {
+        CountDownLatch saved = new CountDownLatch(1);
+        gameEngine.save(saved::countDown, e -> {
+            System.out.println("Failed save: " + e.getMessage());
+            saved.countDown();
+        });
+        saved.await();
+    }
+
+    /**
+     * Deletes the save files, so that the next game starts from the original resources
+     * @throws IOException if a file could not be deleted
+     */
+    public void deleteSaves() throws IOException {
+        try (Stream<Path> files = Files.list(storage.saveRoot())) {
+            for (Path file : files.toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Deletes all the files of the world
+     * @throws IOException if a file could not be deleted
+     */
+    public void delete() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    /**
+     * Writes a compiled island made of grass, surrounded by a row of water
+     * @param file path of the compiled location file
+     * @throws IOException if the file could not be written
+     */
+    private void writeIsland(Path file) throws IOException {
+        ByteBuffer tiles = ByteBuffer.allocate(mapSize * mapSize);
+        for (int y = 0; y < mapSize; y++) {
+            for (int x = 0; x < mapSize; x++) {
+                boolean border = x == 0 || y == 0 || x == mapSize - 1 || y == mapSize - 1;
+                tiles.put((byte) (border ? GameLocation.Entity.WATER : GameLocation.Entity.GRASS).ordinal());
+            }
+        }
+        tiles.flip();
+        LocationData island = new LocationData(mapSize, mapSize, mapSize / 2, mapSize / 2, "Benchmark island", "Benchmarkeiland", tiles);
+        Files.createDirectories(file.getParent());
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(file))) {
+            LocationLoader.writeCompiled(island, output);
+        }
+    }
+
+    /**
+     * Writes the bag items with their quantities, the map items and their possible positions.
+     * The bag items alternate between healing items and attack boosts, which are the effects handled by useItem.
+     * @param folder folder of the item text files
+     * @throws IOException if a file could not be written
+     */
+    private void writeItems(Path folder) throws IOException {
+        Files.createDirectories(folder);
+        StringBuilder playerItems = new StringBuilder();
+        StringBuilder quantities = new StringBuilder();
+        for (int index = 0; index < inventorySize; index++) {
+            int identifier = FIRST_BAG_IDENTIFIER + index;
+            if (index > 0) {
+                playerItems.append('\n');
+            }
+            appendItem(playerItems, identifier, "Item " + index, index % 2 == 0 ? "healing" : "attackboost");
+            quantities.append(identifier).append(" 5\n");
+        }
+        Files.writeString(folder.resolve("playerItems.txt"), playerItems, StandardCharsets.UTF_8);
+        // The files are read until their last line, hence they must not end with a new line
+        Files.writeString(folder.resolve("quantities.txt"), quantities.toString().stripTrailing(), StandardCharsets.UTF_8);
+
+        StringBuilder mapItems = new StringBuilder().append(inventorySize).append('\n');
+        appendItem(mapItems, MAP_ITEM_IDENTIFIER, "Apple", "healing");
+        Files.writeString(folder.resolve("mapItems.txt"), mapItems, StandardCharsets.UTF_8);
+
+        // Every item needs its own position on the island, away from the enemies placed on (3, 4) and (5, 6)
+        Random random = new Random(mapSize * 31L + inventorySize);
+        HashSet<Integer> tiles = new HashSet<>();
+        StringBuilder positions = new StringBuilder();
+        while (tiles.size() < inventorySize) {
+            int x = 7 + random.nextInt(mapSize - 8);
+            int y = 7 + random.nextInt(mapSize - 8);
+            if (tiles.add(y * mapSize + x)) {
+                positions.append(x).append(' ').append(y).append('\n');
+            }
+        }
+        Files.writeString(folder.resolve("possibleLocations.txt"), positions.toString().stripTrailing(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends an item in the format of the item text files, without the empty line separating it from the next item
+     * @param file content of the file
+     * @param identifier identifier of the item
+     * @param name name of the item, in both languages
+     * @param effect effect of the item, as written in the item text files
+     */
+    private static void appendItem(StringBuilder file, int identifier, String name, String effect) {
+        file.append(identifier).append('\n')
+                .append(name).append('\n').append(name).append('\n')
+                .append(name).append('\n').append(name).append('\n')
+                .append(effect).append('\n')
+                .append("1\n")
+                .append("10\n");
+    }
+}
@@ -0,0 +1,119 @@
+package nl.rug.ai.oop.rpg.benchmark;
+
+import nl.rug.ai.oop.rpg.model.engine.EventBus;
+import nl.rug.ai.oop.rpg.model.engine.GameEngine;
+import nl.rug.ai.oop.rpg.model.engine.SaveJournal;
+import nl.rug.ai.oop.rpg.model.inventory.BagInventory;
+import nl.rug.ai.oop.rpg.model.inventory.Item;
+import nl.rug.ai.oop.rpg.model.inventory.ItemCatalog;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the bag: adding an item, using an item and notifying the views of a change.
+ * The event bus is flushed in every benchmark, so that the delivery of the events is measured too.
+ * Every change of the bag is recorded in the save journal, as in the game: the time of adding or using an item includes
+ * the journal entry, and a full save every time the journal has reached its compaction threshold (256 entries).
+ * That part is measured alone by recording a journal entry, so that the time of the bag itself is the difference.
+ * The notification is private to the bag, hence it is called through a method handle.
+ *
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InventoryBenchmark {
+
+    /**
+     * Items of the bag used by the benchmarks
+     */
+    @State(Scope.Thread)
+    public static class BagState {
+        GameEngine gameEngine;
+        BagInventory bag;
+        Item addedItem;
+        SaveJournal.BagItem journalEntry;
+        EventBus events;
+        BagInventory.ItemChange change;
+        MethodHandle notifyListenersInventoryChange;
+
+        @Setup(Level.Trial)
+        public void findItems(WorldState state) throws ReflectiveOperationException {
+            gameEngine = state.gameEngine;
+            bag = state.gameEngine.getInventory();
+            events = state.gameEngine.getEvents();
+            // The last item of the bag, which is the last one to be found when looking for an item
+            addedItem = ItemCatalog.getCatalog(state.world.getStorage()).createItem(state.world.getFirstBagIdentifier() + state.inventorySize - 1);
+            // The entry recorded when the last item is added
+            journalEntry = new SaveJournal.BagItem(addedItem.getIdentifier(), addedItem.getEffect(), 1, true, addedItem.getBoost(), false, 0);
+            // An update of the first item, which does not change the bag
+            change = new BagInventory.ItemChange(BagInventory.ChangeKind.UPDATED, 0, bag.getCurrentArrayOfItemRecords().get(0));
+            notifyListenersInventoryChange = MethodHandles.privateLookupIn(BagInventory.class, MethodHandles.lookup())
+                    .findVirtual(BagInventory.class, "notifyListenersInventoryChange", MethodType.methodType(void.class, BagInventory.ItemChange.class));
+        }
+    }
+
+    /**
+     * Item which is used and put back in the bag, of which the bag holds two copies,
+     * so that the item stays in the bag and keeps its place in the list
+     */
+    @State(Scope.Thread)
+    public static class UsedItemState {
+        @Param({"healing", "attackboost"})
+        public String effect;
+
+        Item usedItem;
+
+        @Setup(Level.Trial)
+        public void stockItem(WorldState state, BagState bagState) {
+            int identifier = state.world.getFirstBagIdentifier() + (effect.equals("healing") ? 0 : 1);
+            bagState.bag.addItem(ItemCatalog.getCatalog(state.world.getStorage()).createItem(identifier));
+            for (BagInventory.ItemRecord record : bagState.bag.getCurrentArrayOfItemRecords()) {
+                if (record.item().getIdentifier() == identifier) {
+                    usedItem = record.item();
+                }
+            }
+            while (bagState.bag.getQuantityofItem(usedItem) < 2) {
+                bagState.bag.addItem(usedItem);
+            }
+        }
+    }
+
+    @Benchmark
+    public BagInventory addItem(BagState bagState) {
+        bagState.bag.addItem(bagState.addedItem);
+        bagState.events.flush();
+        return bagState.bag;
+    }
+
+    /**
+     * Uses an item and puts a copy back, without a setup before every invocation, which would cost more than the use itself:
+     * the time of {@link #addItem(BagState)} has to be subtracted to get the time of the use
+     */
+    @Benchmark
+    public BagInventory useAndRestockItem(BagState bagState, UsedItemState usedItemState) {
+        bagState.bag.useItem(usedItemState.usedItem);
+        bagState.bag.addItem(usedItemState.usedItem);
+        bagState.events.flush();
+        return bagState.bag;
+    }
+
+    @Benchmark
+    public GameEngine recordJournalEntry(BagState bagState) {
+        bagState.gameEngine.record(bagState.journalEntry);
+        return bagState.gameEngine;
+    }
+
+    @Benchmark
+    public BagInventory notifyListenersInventoryChange(BagState bagState) throws Throwable {
+        bagState.notifyListenersInventoryChange.invokeExact(bagState.bag, bagState.change);
+        bagState.events.flush();
+        return bagState.bag;
+    }
+}
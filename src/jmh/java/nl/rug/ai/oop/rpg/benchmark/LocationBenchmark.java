@@ -0,0 +1,46 @@
+package nl.rug.ai.oop.rpg.benchmark;
+
+import nl.rug.ai.oop.rpg.model.locations.GameLocation;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the location model: moving the player, loading a location and searching a path across the island.
+ * The location is loaded through {@link GameLocation#restorePosition}, which is how a saved position is loaded.
+ *
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocationBenchmark {
+
+    @Benchmark
+    public int[] moveEastAndWest(WorldState state) {
+        GameLocation location = state.gameEngine.getLocation();
+        location.move(GameLocation.Direction.EAST);
+        location.move(GameLocation.Direction.WEST);
+        state.gameEngine.getEvents().flush();
+        return location.getPlayerCoordinates();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int findPathAcrossIsland(WorldState state) {
+        GameLocation location = state.gameEngine.getLocation();
+        int last = state.mapSize - 2;
+        return location.findPath(1, 1, last, last).getPathLength();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int[] loadLocation(WorldState state) {
+        GameLocation location = state.gameEngine.getLocation();
+        int centre = state.mapSize / 2;
+        location.restorePosition(GameLocation.Location.ISLAND, centre, centre, -1, -1);
+        return location.getDimensions();
+    }
+}
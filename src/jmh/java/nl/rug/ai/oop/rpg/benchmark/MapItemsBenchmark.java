@@ -0,0 +1,54 @@
+package nl.rug.ai.oop.rpg.benchmark;
+
+import nl.rug.ai.oop.rpg.model.inventory.Item;
+import nl.rug.ai.oop.rpg.model.inventory.MapItems;
+import nl.rug.ai.oop.rpg.model.locations.GameLocation;
+import nl.rug.ai.oop.rpg.model.locations.LocationObject;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of putting all the map items on the island.
+ * Putting the items uses up their possible positions, hence the items are read again, and removed from the island, around every call.
+ *
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapItemsBenchmark {
+
+    /**
+     * Map items that have not been put on the island yet
+     */
+    @State(Scope.Thread)
+    public static class MapItemsState {
+        MapItems mapItems;
+
+        @Setup(Level.Invocation)
+        public void readItems(WorldState state) {
+            mapItems = new MapItems(state.world.getStorage());
+            mapItems.setGameEngine(state.gameEngine);
+            mapItems.initialiseMapItems(false);
+        }
+
+        @TearDown(Level.Invocation)
+        public void removeItems(WorldState state) {
+            GameLocation location = state.gameEngine.getLocation();
+            for (LocationObject object : location.getObjectsInCurrentLocation()) {
+                if (object.object() instanceof Item) {
+                    location.removeObject(object.object());
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public MapItems putAllItems(MapItemsState mapItemsState) {
+        mapItemsState.mapItems.putAllItems();
+        return mapItemsState.mapItems;
+    }
+}
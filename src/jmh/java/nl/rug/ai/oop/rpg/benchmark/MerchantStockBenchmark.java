@@ -0,0 +1,67 @@
+package nl.rug.ai.oop.rpg.benchmark;
+
+import nl.rug.ai.oop.rpg.model.inventory.MerchantStock;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of a stock shared by many games: every thread reserves copies of a product and puts them back, as a purchase followed by a sale.
+ * With a single product, all the threads update the same counter; with many products, they mostly update different ones,
+ * which is how the throughput should scale with the number of threads (run with -t 1, 2, 4, ... to compare).
+ *
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(Threads.MAX)
+public class MerchantStockBenchmark {
+
+    /**
+     * Stock shared by all the threads
+     */
+    @State(Scope.Benchmark)
+    public static class StockState {
+        @Param({"1", "64"})
+        public int productCount;
+
+        MerchantStock stock;
+
+        @Setup(Level.Trial)
+        public void fillStock() {
+            HashMap<Integer, Integer> levels = new HashMap<>();
+            for (int identifier = 0; identifier < productCount; identifier++) {
+                levels.put(identifier, 1000);
+            }
+            stock = new MerchantStock(levels);
+        }
+    }
+
+    /**
+     * Products chosen by one thread
+     */
+    @State(Scope.Thread)
+    public static class BuyerState {
+        SplittableRandom random;
+
+        @Setup(Level.Trial)
+        public void createRandom() {
+            random = new SplittableRandom(Thread.currentThread().getId());
+        }
+    }
+
+    @Benchmark
+    public boolean reserveAndRestock(StockState stockState, BuyerState buyerState) {
+        int identifier = buyerState.random.nextInt(stockState.productCount);
+        boolean isReserved = stockState.stock.reserve(identifier, 1);
+        if (isReserved) {
+            stockState.stock.restock(identifier, 1);
+        }
+        return isReserved;
+    }
+}
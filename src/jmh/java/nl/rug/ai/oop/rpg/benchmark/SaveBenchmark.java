@@ -0,0 +1,48 @@
+package nl.rug.ai.oop.rpg.benchmark;
+
+import nl.rug.ai.oop.rpg.model.engine.GameEngine;
+import nl.rug.ai.oop.rpg.model.inventory.MapItems;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of a full save, until all the files are written, and of loading a game from the save files.
+ *
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SaveBenchmark {
+
+    /**
+     * Game loaded by the benchmark, which is closed after every load so that its save thread stops
+     */
+    @State(Scope.Thread)
+    public static class LoadedGameState {
+        GameEngine loadedGame;
+
+        @TearDown(Level.Invocation)
+        public void closeGame() {
+            if (loadedGame != null) {
+                loadedGame.close();
+                loadedGame = null;
+            }
+        }
+    }
+
+    @Benchmark
+    public GameEngine save(WorldState state) throws InterruptedException {
+        BenchmarkWorld.saveAndWait(state.gameEngine);
+        return state.gameEngine;
+    }
+
+    @Benchmark
+    public GameEngine load(WorldState state, LoadedGameState loadedGameState) {
+        loadedGameState.loadedGame = state.world.createGame(new MapItems(state.world.getStorage()));
+        return loadedGameState.loadedGame;
+    }
+}
@@ -0,0 +1,45 @@
+package nl.rug.ai.oop.rpg.benchmark;
+
+import nl.rug.ai.oop.rpg.model.engine.GameEngine;
+import nl.rug.ai.oop.rpg.model.inventory.MapItems;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+
+/**
+ * Benchmark state shared by all the benchmarks: a walking game in a {@link BenchmarkWorld}, for every map size and inventory size.
+ * The pending saves are written at the end of each iteration, so that the save thread does not fall behind across iterations.
+ *
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+public class WorldState {
+    @Param({"64", "1024"})
+    public int mapSize;
+
+    @Param({"16", "256"})
+    public int inventorySize;
+
+    public BenchmarkWorld world;
+    public MapItems mapItems;
+    public GameEngine gameEngine;
+
+    @Setup(Level.Trial)
+    public void createGame() throws IOException, InterruptedException {
+        world = new BenchmarkWorld(mapSize, inventorySize);
+        mapItems = new MapItems(world.getStorage());
+        gameEngine = world.createGame(mapItems);
+        BenchmarkWorld.saveAndWait(gameEngine);
+    }
+
+    @TearDown(Level.Iteration)
+    public void writePendingSaves() throws InterruptedException {
+        BenchmarkWorld.saveAndWait(gameEngine);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteGame() throws IOException {
+        gameEngine.close();
+        world.delete();
+    }
+}
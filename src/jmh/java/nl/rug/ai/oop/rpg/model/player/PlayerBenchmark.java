@@ -0,0 +1,59 @@
+package nl.rug.ai.oop.rpg.model.player;
+
+import nl.rug.ai.oop.rpg.benchmark.WorldState;
+import nl.rug.ai.oop.rpg.model.character.Character;
+import nl.rug.ai.oop.rpg.model.engine.EventBus;
+import nl.rug.ai.oop.rpg.model.npc.Enemy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the player: one attack in a fight against an enemy, and the notification of the views.
+ * It is in the package of {@link PlayerModel}, since the notification is only visible to the player package.
+ *
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerBenchmark {
+
+    /**
+     * Fight which is started again before every attack, with a new enemy and a healed player, so that it never finishes
+     */
+    @State(Scope.Thread)
+    public static class FightState {
+        PlayerModel player;
+        FightNPCModel fight;
+        EventBus events;
+
+        @Setup(Level.Invocation)
+        public void startFight(WorldState state) {
+            player = state.gameEngine.getPlayerModel();
+            events = state.gameEngine.getEvents();
+            player.restoreStats(player.getMoney(), player.getHealth().getMaxHp(), player.getHealth().getMaxHp(), player.getDefence(),
+                    player.getAttackStrength(Character.Faction.FIRE), player.getAttackStrength(Character.Faction.WOOD), player.getAttackStrength(Character.Faction.WATER));
+            fight = new FightNPCModel();
+            fight.setNPC(new Enemy());
+            state.gameEngine.getEvents().flush();
+        }
+    }
+
+    @Benchmark
+    public FightNPCModel playerAttack(FightState fightState) {
+        fightState.fight.playerAttack(Character.Faction.FIRE, fightState.player);
+        fightState.events.flush();
+        return fightState.fight;
+    }
+
+    @Benchmark
+    public PlayerModel notifyListeners(WorldState state) {
+        PlayerModel player = state.gameEngine.getPlayerModel();
+        player.notifyListeners();
+        state.gameEngine.getEvents().flush();
+        return player;
+    }
+}
@@ -0,0 +1,99 @@
+package nl.rug.ai.oop.rpg.view.location;
+
+import nl.rug.ai.oop.rpg.benchmark.WorldState;
+import nl.rug.ai.oop.rpg.model.character.Character;
+import nl.rug.ai.oop.rpg.model.locations.GameLocation;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the map views: setting the location of a map, looking up the images of the tiles shown on screen,
+ * and painting a frame of the {@link LocationView} after the player has moved, in an off-screen image at the scale of a HiDPI screen.
+ * It is in the package of {@link Map}, since these methods are only visible to the maps.
+ *
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class MapBenchmark {
+    private static final int VISIBLE_TILES = 20;
+
+    /**
+     * Map without any painting, exposing the methods shared by all the maps
+     */
+    private static final class BenchmarkMap extends Map {
+    }
+
+    @State(Scope.Thread)
+    public static class MapState {
+        Map map;
+
+        @Setup(Level.Trial)
+        public void createMap(WorldState state) {
+            map = new BenchmarkMap();
+            map.setGameLocationImages(state.gameEngine.getLocation());
+        }
+    }
+
+    /**
+     * Location view painted in an off-screen image of a full HD window
+     */
+    @State(Scope.Thread)
+    public static class LocationViewState {
+        @Param({"1", "2"})
+        public int screenScale;
+
+        LocationView locationView;
+        BufferedImage screen;
+        GameLocation.Direction direction = GameLocation.Direction.EAST;
+
+        @Setup(Level.Trial)
+        public void createView(WorldState state) {
+            locationView = new LocationView();
+            locationView.setup(state.gameEngine.getLocation(), null, state.gameEngine.getEvents());
+            locationView.setPlayerImage(Character.Faction.FIRE);
+            locationView.setSize(1920, 1080);
+            screen = new BufferedImage(1920 * screenScale, 1080 * screenScale, BufferedImage.TYPE_INT_RGB);
+        }
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public BufferedImage moveAndPaint(WorldState state, LocationViewState viewState) {
+        state.gameEngine.getLocation().move(viewState.direction);
+        state.gameEngine.getEvents().flush();
+        viewState.direction = viewState.direction == GameLocation.Direction.EAST ? GameLocation.Direction.WEST : GameLocation.Direction.EAST;
+        Graphics2D g = viewState.screen.createGraphics();
+        g.scale(viewState.screenScale, viewState.screenScale);
+        viewState.locationView.paint(g);
+        return viewState.screen;
+    }
+
+    @Benchmark
+    public Map setGameLocationImages(WorldState state, MapState mapState) {
+        mapState.map.setGameLocationImages(state.gameEngine.getLocation());
+        return mapState.map;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void visibleTileImages(WorldState state, MapState mapState, Blackhole blackhole) {
+        GameLocation location = state.gameEngine.getLocation();
+        int minX = Math.max(0, location.getPlayerCoordinates()[0] - VISIBLE_TILES / 2);
+        int minY = Math.max(0, location.getPlayerCoordinates()[1] - VISIBLE_TILES / 2);
+        int maxX = Math.min(mapState.map.columns, minX + VISIBLE_TILES);
+        int maxY = Math.min(mapState.map.rows, minY + VISIBLE_TILES);
+        for (int y = minY; y < maxY; y++) {
+            for (int x = minX; x < maxX; x++) {
+                blackhole.consume(mapState.map.getTileImage(x, y));
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package nl.rug.ai.oop.rpg;
+
+import nl.rug.ai.oop.rpg.controler.CommandController;
+import nl.rug.ai.oop.rpg.controler.CommandRecorder;
+import nl.rug.ai.oop.rpg.controler.CommandReplay;
+import nl.rug.ai.oop.rpg.host.GameServer;
+import nl.rug.ai.oop.rpg.host.SessionHost;
+import nl.rug.ai.oop.rpg.model.engine.GameEngine;
+import nl.rug.ai.oop.rpg.model.engine.GameRandom;
+import nl.rug.ai.oop.rpg.model.engine.GameStorage;
+import nl.rug.ai.oop.rpg.model.inventory.BagInventory;
+import nl.rug.ai.oop.rpg.model.inventory.MapItems;
+import nl.rug.ai.oop.rpg.model.inventory.MerchantStock;
+import nl.rug.ai.oop.rpg.model.inventory.ProductInventory;
+import nl.rug.ai.oop.rpg.model.locations.GameLocation;
+import nl.rug.ai.oop.rpg.model.npc.Enemy;
+import nl.rug.ai.oop.rpg.model.player.PlayerModel;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+
+/**
+ * Main class running the game without a display.
+ * The commands of {@link CommandController} are read line by line from a file, or from the standard input if no file is given,
+ * and the game is saved when all the commands have been executed.
+ * Usage: HeadlessMain [--resources folder] [--saves folder] [--seed seed] [--record log] [--replay log] [--server port] [commands file]
+ * By default, the resources are read from the classpath and the save files are stored in src/main/resources/saving_data.
+ * With --seed, the random numbers of the game are always the same. With --record, the commands are recorded in a log
+ * (see {@link CommandRecorder}); with --replay, the commands of such a log are played instead of the commands file (see {@link CommandReplay}),
+ * which gives the same game as the recorded one if the save folder is a copy of the one the recorded game started from.
+ * With --server, the games are instead played by remote clients through a {@link GameServer} on the loopback interface,
+ * every session being saved in its own folder of the save folder, until the standard input is closed.
+ *
+ * @version 1.0
+ */
+public class HeadlessMain {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        System.setProperty("java.awt.headless", "true");
+        Path resourceRoot = GameStorage.DEFAULT.resourceRoot();
+        Path saveRoot = GameStorage.DEFAULT.saveRoot();
+        String commandsFile = null;
+        int serverPort = -1;
+        GameRandom random = new GameRandom();
+        Path recordLog = null;
+        Path replayLog = null;
+        for (int index = 0; index < args.length; index++) {
+            switch (args[index]) {
+                case "--resources" -> resourceRoot = Path.of(args[++index]);
+                case "--saves" -> saveRoot = Path.of(args[++index]);
+                case "--server" -> serverPort = Integer.parseInt(args[++index]);
+                case "--seed" -> random = new GameRandom(Long.parseLong(args[++index]));
+                case "--record" -> recordLog = Path.of(args[++index]);
+                case "--replay" -> replayLog = Path.of(args[++index]);
+                default -> commandsFile = args[index];
+            }
+        }
+        Files.createDirectories(saveRoot);
+        if (serverPort >= 0) {
+            serve(resourceRoot, saveRoot, serverPort);
+            return;
+        }
+
+        GameStorage storage = new GameStorage(resourceRoot, saveRoot);
+        MapItems mapItems = new MapItems(storage);
+        if (replayLog != null) {
+            random = CommandReplay.readRandom(replayLog);
+        }
+        GameEngine gameEngine = createGameEngine(storage, mapItems, null, random);
+        CommandController commandController = new CommandController(gameEngine, mapItems);
+
+        if (replayLog != null) {
+            int commandCount = CommandReplay.replay(replayLog, gameEngine, commandController);
+            System.out.println("Replayed " + commandCount + " commands until tick " + gameEngine.getTick());
+        } else {
+            CommandRecorder recorder = recordLog == null ? null : new CommandRecorder(gameEngine, recordLog);
+            commandController.setRecorder(recorder);
+            try {
+                play(commandsFile, commandController);
+            } finally {
+                if (recorder != null) {
+                    recorder.close();
+                }
+            }
+        }
+
+        CountDownLatch saved = new CountDownLatch(1);
+        gameEngine.save(saved::countDown, e -> {
+            System.out.println("Failed save: " + e.getMessage());
+            saved.countDown();
+        });
+        saved.await();
+    }
+
+    /**
+     * Executes the commands read line by line from a file, or from the standard input
+     * @param commandsFile the file, or null to read the standard input
+     * @param commandController the controller executing the commands
+     * @throws IOException if the commands could not be read
+     */
+    private static void play(String commandsFile, CommandController commandController) throws IOException {
+        try (BufferedReader input = new BufferedReader(commandsFile == null
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : new InputStreamReader(new FileInputStream(commandsFile), StandardCharsets.UTF_8))) {
+            String command;
+            while ((command = input.readLine()) != null) {
+                if (!command.isBlank() && !commandController.execute(command)) {
+                    System.out.println("Unknown command: " + command);
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a game server until the standard input is closed, then saves all the sessions.
+     * @param resourceRoot the folder containing the resources, or null to use the classpath
+     * @param saveRoot the folder containing the save folders of the sessions
+     * @param port the port of the server, or 0 for any free port
+     * @throws IOException if the server could not be started
+     */
+    private static void serve(Path resourceRoot, Path saveRoot, int port) throws IOException {
+        try (SessionHost host = new SessionHost(resourceRoot, saveRoot);
+             GameServer server = new GameServer(host, new InetSocketAddress(InetAddress.getLoopbackAddress(), port))) {
+            System.out.println("Game server listening on " + server.getAddress());
+            while (System.in.read() >= 0) {
+                //waits until the standard input is closed
+            }
+        }
+    }
+
+    /**
+     * Creates all the models of the game and the game engine, without any view.
+     * @param storage the storage containing the resource files and the save files
+     * @param mapItems the map items model, which is needed by the {@link CommandController}
+     * @return the game engine
+     */
+    public static GameEngine createGameEngine(GameStorage storage, MapItems mapItems) {
+        return createGameEngine(storage, mapItems, null);
+    }
+
+    /**
+     * Creates all the models of the game and the game engine, without any view, whose saves are written by the given executor.
+     * @param storage the storage containing the resource files and the save files
+     * @param mapItems the map items model, which is needed by the {@link CommandController}
+     * @param saveExecutor the executor writing the saves one after the other, or null to use a save thread of its own
+     * @return the game engine
+     */
+    public static GameEngine createGameEngine(GameStorage storage, MapItems mapItems, Executor saveExecutor) {
+        return createGameEngine(storage, mapItems, saveExecutor, new GameRandom());
+    }
+
+    /**
+     * Creates all the models of the game and the game engine, without any view, drawing the random numbers of the game from the given source.
+     * @param storage the storage containing the resource files and the save files
+     * @param mapItems the map items model, which is needed by the {@link CommandController}
+     * @param saveExecutor the executor writing the saves one after the other, or null to use a save thread of its own
+     * @param random the source of the random numbers of the game
+     * @return the game engine
+     */
+    public static GameEngine createGameEngine(GameStorage storage, MapItems mapItems, Executor saveExecutor, GameRandom random) {
+        return createGameEngine(storage, mapItems, saveExecutor, random, null, null);
+    }
+
+    /**
+     * Creates all the models of the game and the game engine, without any view, whose merchants trade from the given stocks.
+     * The stocks are set before the game is loaded, hence they are neither restored nor saved by the game.
+     * @param storage the storage containing the resource files and the save files
+     * @param mapItems the map items model, which is needed by the {@link CommandController}
+     * @param saveExecutor the executor writing the saves one after the other, or null to use a save thread of its own
+     * @param random the source of the random numbers of the game
+     * @param potionsStock the stock of the potion shop, e.g. shared with other games, or null to use a stock saved with the game
+     * @param armoryStock the stock of the armory, e.g. shared with other games, or null to use a stock saved with the game
+     * @return the game engine
+     */
+    public static GameEngine createGameEngine(GameStorage storage, MapItems mapItems, Executor saveExecutor, GameRandom random,
+                                              MerchantStock potionsStock, MerchantStock armoryStock) {
+        GameLocation location = new GameLocation(storage);
+        BagInventory inventory = new BagInventory("player", storage);
+        ProductInventory armory = new ProductInventory("armory", storage);
+        ProductInventory potions = new ProductInventory("potions", storage);
+        if (potionsStock != null) {
+            potions.setStock(potionsStock);
+        }
+        if (armoryStock != null) {
+            armory.setStock(armoryStock);
+        }
+        Enemy enemy = new Enemy();
+        PlayerModel playerModel = new PlayerModel(storage);
+        return new GameEngine(storage, saveExecutor, random, location, inventory, enemy, playerModel, mapItems, potions, armory);
+    }
+}
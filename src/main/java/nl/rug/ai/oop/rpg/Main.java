@@ -1,5 +1,6 @@
 package nl.rug.ai.oop.rpg;
 
+import nl.rug.ai.oop.rpg.controler.GameLoop;
 import nl.rug.ai.oop.rpg.controler.InventoryController;
 import nl.rug.ai.oop.rpg.controler.LocationController;
 import nl.rug.ai.oop.rpg.controler.ShopController;
@@ -26,6 +27,8 @@ import java.awt.*;
  */
 public class Main {
     private final static Dimension FRAME_DIMENSION = new Dimension(1024, 768);
+    private final static int TICKS_PER_SECOND = 30;
+    private final static int FRAMES_PER_SECOND = 60;
     public static void main(String[] args) {
 
         JFrame frame = new JFrame("Game");
@@ -43,13 +46,16 @@ public class Main {
         Enemy enemy = new Enemy();
         PlayerModel playerModel = new PlayerModel();
         GameEngine gameEngine = new GameEngine(location, inventory, enemy, playerModel, mapItems, potions, armory);
+        /* The views are updated once per Swing event, after all the changes it made to the models */
+        gameEngine.getEvents().setScheduler(SwingUtilities::invokeLater);
 
-        /* Controllers */
-        LocationController locationController = new LocationController(location);
+        /* Controllers, the movements being run by the game loop on the Swing event thread */
+        GameLoop gameLoop = new GameLoop(TICKS_PER_SECOND, FRAMES_PER_SECOND, SwingUtilities::invokeLater);
+        LocationController locationController = new LocationController(gameEngine, gameLoop);
         InventoryController inventoryController = new InventoryController(gameEngine, inventory, mapItems);
         ShopController potionsController = new ShopController(potions);
         ShopController armoryController = new ShopController(armory);
-        EnemyController enemyController = new EnemyController(enemy);
+        EnemyController enemyController = new EnemyController(enemy, gameEngine, gameLoop);
         PlayerController playerController = new PlayerController(playerModel, gameEngine);
         PlayerBuilderController playerBuilderController = new PlayerBuilderController(gameEngine.getPlayerModel(), gameEngine);
 
@@ -58,5 +64,6 @@ public class Main {
         frame.add(mainView);
         playerModel.takeDamage(0);
         frame.setVisible(true);
+        gameLoop.start();
     }
 }
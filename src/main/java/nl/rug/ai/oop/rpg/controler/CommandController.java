@@ -0,0 +1,375 @@
+package nl.rug.ai.oop.rpg.controler;
+
+import nl.rug.ai.oop.rpg.model.character.Character;
+import nl.rug.ai.oop.rpg.model.engine.GameEngine;
+import nl.rug.ai.oop.rpg.model.inventory.BagInventory;
+import nl.rug.ai.oop.rpg.model.inventory.Item;
+import nl.rug.ai.oop.rpg.model.inventory.MapItems;
+import nl.rug.ai.oop.rpg.model.inventory.ProductInventory;
+import nl.rug.ai.oop.rpg.model.locations.GameLocation;
+import nl.rug.ai.oop.rpg.model.locations.LocationObject;
+import nl.rug.ai.oop.rpg.model.player.PlayerModel;
+
+/**
+ * Controller executing text commands, so that the game can be played without a display (e.g. by simulations or scripts).
+ * It performs the same calls on the models as the Swing controllers and views, and does not use any AWT class.
+ * The supported commands are:
+ * <ul>
+ *     <li>name [name] - sets the name of the player while building it</li>
+ *     <li>faction [fire|wood|water] - sets the faction of the player while building it</li>
+ *     <li>move [north|south|west|east] - moves the player one tile</li>
+ *     <li>pickup - picks up the item the player is standing on</li>
+ *     <li>leave - leaves the item the player is standing on, or a shop</li>
+ *     <li>state [walking|map|inventory] - opens or closes the map or the inventory</li>
+ *     <li>use [identifier] and discard [identifier] - uses or discards an item of the bag</li>
+ *     <li>buy [potions|armory] [identifier] [quantity] and sell [potions|armory] [identifier] [quantity] - trades copies of an item
+ *     with the shop the player is in, one copy if no quantity is given</li>
+ *     <li>attack [fire|wood|water] and continue - plays a fight, continue being only valid once the fight is over</li>
+ *     <li>language - switches the language</li>
+ *     <li>save - saves the game</li>
+ *     <li>wait [ticks] - lets the world run for a number of ticks of the game loop, in which the enemies move</li>
+ * </ul>
+ * The commands can be recorded with a {@link CommandRecorder}, to play the game again with a {@link CommandReplay}.
+ *
+ * @version 1.0
+ */
+public class CommandController {
+    /**
+     * Maximum number of ticks of a single wait command, so that a remote client cannot keep its session busy for long
+     */
+    public static final int MAX_WAIT_TICKS = 10000;
+
+    private final GameEngine gameEngine;
+    private final MapItems mapItems;
+    private Item itemAtPlayerCoordinates;
+    private CommandRecorder recorder;
+
+    /**
+     * Creates the controller and subscribes to the location, to know when an item can be picked up or a fight starts
+     * @param gameEngine - general model of the game
+     * @param mapItems - items on the map
+     */
+    public CommandController(GameEngine gameEngine, MapItems mapItems) {
+        this.gameEngine = gameEngine;
+        this.mapItems = mapItems;
+        gameEngine.getEvents().subscribe(GameLocation.ObjectReached.class, gameEngine.getLocation(), event -> {
+            LocationObject object = event.getObject();
+            itemAtPlayerCoordinates = object.object() instanceof Item item ? item : null;
+        });
+        gameEngine.getEvents().subscribe(GameLocation.ObjectBumped.class, gameEngine.getLocation(), event -> {
+            if (event.getObject().reference().equals("Enemy")) {
+                gameEngine.demoFight();
+            }
+        });
+    }
+
+    /**
+     * Executes a command. Commands that are not allowed in the current state of the game have no effect.
+     * The event bus is flushed after every command, hence the subscribers see the state of the game after the whole command.
+     * @param command - the command, with its arguments separated by spaces
+     * @return true if the command exists and its arguments are valid, otherwise false, as for a continue while the fight is not over
+     */
+    public boolean execute(String command) {
+        String[] words = command.trim().split("\\s+");
+        try {
+            switch (words[0].toLowerCase()) {
+                case "name" -> setName(command.trim().substring(words[0].length()).trim());
+                case "faction" -> setFaction(Character.Faction.valueOf(words[1].toUpperCase()));
+                case "move" -> move(GameLocation.Direction.valueOf(words[1].toUpperCase()));
+                case "pickup" -> pickUp();
+                case "leave" -> leave();
+                case "state" -> setGameState(GameEngine.GameState.valueOf(words[1].toUpperCase()));
+                case "use" -> useItem(Integer.parseInt(words[1]));
+                case "discard" -> discardItem(Integer.parseInt(words[1]));
+                case "buy" -> buy(getShop(words[1]), Integer.parseInt(words[2]), words.length > 3 ? Integer.parseInt(words[3]) : 1);
+                case "sell" -> sell(getShop(words[1]), Integer.parseInt(words[2]), words.length > 3 ? Integer.parseInt(words[3]) : 1);
+                case "attack" -> attack(Character.Faction.valueOf(words[1].toUpperCase()));
+                case "continue" -> {
+                    if (!continueGame()) {
+                        return false;
+                    }
+                }
+                case "language" -> changeLanguage();
+                case "save" -> save();
+                case "wait" -> waitTicks(Integer.parseInt(words[1]));
+                default -> {
+                    return false;
+                }
+            }
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            return false;
+        } finally {
+            gameEngine.getEvents().flush();
+        }
+        return true;
+    }
+
+    /**
+     * Sets the recorder to which the commands are given, with the tick of the world at which they are executed.
+     * Waiting is not recorded as a command, since the ticks of the recorded commands already tell how long the world has run.
+     * @param recorder - the recorder, or null to stop recording
+     */
+    public void setRecorder(CommandRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /*
+     * The methods below perform one command each, without flushing the event bus, so that other controllers
+     * (e.g. the game server) can execute commands without formatting them as text
+     */
+
+    /**
+     * Sets the name of the player while building it
+     * @param name - the name
+     */
+    public void setName(String name) {
+        record("name " + name);
+        gameEngine.getPlayerModel().setName(name);
+        gameEngine.checkPlayerState();
+    }
+
+    /**
+     * Sets the faction of the player while building it
+     * @param faction - the faction
+     */
+    public void setFaction(Character.Faction faction) {
+        record("faction " + faction.name().toLowerCase());
+        gameEngine.getPlayerModel().setFaction(faction);
+        gameEngine.checkPlayerState();
+    }
+
+    /**
+     * Moves the player one tile, if the player is walking
+     * @param direction - direction of the move
+     */
+    public void move(GameLocation.Direction direction) {
+        record("move " + direction.name().toLowerCase());
+        if (gameEngine.getGameState() == GameEngine.GameState.WALKING) {
+            gameEngine.getLocation().move(direction);
+        }
+    }
+
+    /**
+     * Picks up the item the player is standing on, if any
+     */
+    public void pickUp() {
+        record("pickup");
+        if (gameEngine.getGameState() == GameEngine.GameState.PICKUP && itemAtPlayerCoordinates != null) {
+            mapItems.removeItem(itemAtPlayerCoordinates);
+            gameEngine.getInventory().addItem(itemAtPlayerCoordinates);
+            itemAtPlayerCoordinates = null;
+            gameEngine.setGameState(GameEngine.GameState.WALKING);
+        }
+    }
+
+    /**
+     * Leaves the item the player is standing on, or the shop the player is in
+     */
+    public void leave() {
+        record("leave");
+        GameEngine.GameState state = gameEngine.getGameState();
+        if (state == GameEngine.GameState.PICKUP || state == GameEngine.GameState.POTIONS || state == GameEngine.GameState.ARMORY) {
+            gameEngine.setGameState(GameEngine.GameState.WALKING);
+        }
+    }
+
+    /**
+     * Changes the state of the game as the player can, i.e. opening or closing the map or the inventory while walking,
+     * and leaving an item or a shop. The other states are only entered by the game itself.
+     * @param state - the new state
+     * @return true if the player can change to that state, otherwise false
+     */
+    public boolean setGameState(GameEngine.GameState state) {
+        record("state " + state.name().toLowerCase());
+        GameEngine.GameState current = gameEngine.getGameState();
+        boolean isAllowed = switch (state) {
+            case WALKING -> current == GameEngine.GameState.MAP || current == GameEngine.GameState.INVENTORY
+                    || current == GameEngine.GameState.PICKUP || current == GameEngine.GameState.POTIONS || current == GameEngine.GameState.ARMORY;
+            case MAP, INVENTORY -> current == GameEngine.GameState.WALKING || current == GameEngine.GameState.MAP || current == GameEngine.GameState.INVENTORY;
+            default -> false;
+        };
+        if (isAllowed) {
+            gameEngine.setGameState(state);
+        }
+        return isAllowed;
+    }
+
+    /**
+     * Uses an item of the bag
+     * @param identifier - identifier of the item
+     */
+    public void useItem(int identifier) {
+        record("use " + identifier);
+        Item item = findInBag(identifier);
+        if (item != null) {
+            gameEngine.getInventory().useItem(item);
+        }
+    }
+
+    /**
+     * Discards an item of the bag
+     * @param identifier - identifier of the item
+     */
+    public void discardItem(int identifier) {
+        record("discard " + identifier);
+        Item item = findInBag(identifier);
+        if (item != null) {
+            gameEngine.getInventory().removeItem(item);
+        }
+    }
+
+    /**
+     * Buys copies of an item from a shop, if the player is at its table, can pay for all of them and the shop has them in stock
+     * @param shop - inventory of the shop
+     * @param identifier - identifier of the item
+     * @param quantity - number of copies, which is positive
+     */
+    public void buy(ProductInventory shop, int identifier, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Invalid quantity: " + quantity);
+        }
+        record("buy " + getShopName(shop) + " " + identifier + " " + quantity);
+        Item item = findInShop(shop, identifier);
+        if (item != null && isInShop(shop)) {
+            shop.sell(item, quantity);
+        }
+    }
+
+    /**
+     * Sells copies of an item of the bag to a shop, if the player is at its table and has all of them
+     * @param shop - inventory of the shop
+     * @param identifier - identifier of the item
+     * @param quantity - number of copies, which is positive
+     */
+    public void sell(ProductInventory shop, int identifier, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Invalid quantity: " + quantity);
+        }
+        record("sell " + getShopName(shop) + " " + identifier + " " + quantity);
+        Item item = findInBag(identifier);
+        if (item != null && isInShop(shop)) {
+            shop.buy(item, quantity);
+        }
+    }
+
+    /**
+     * Attacks the opponent of the current fight
+     * @param faction - faction of the attack
+     */
+    public void attack(Character.Faction faction) {
+        record("attack " + faction.name().toLowerCase());
+        gameEngine.getPlayerModel().attack(faction);
+        gameEngine.checkPlayerState();
+    }
+
+    /**
+     * Continues the game after a fight, once the fight is over
+     * @return true if the fight was over, otherwise false
+     */
+    public boolean continueGame() {
+        if (gameEngine.getPlayerModel().getState() != PlayerModel.State.WAIT_TO_CONTINUE) {
+            return false;
+        }
+        record("continue");
+        gameEngine.getPlayerModel().continueGame();
+        gameEngine.checkPlayerState();
+        return true;
+    }
+
+    /**
+     * Switches the language of the game
+     */
+    public void changeLanguage() {
+        record("language");
+        gameEngine.changeLanguage();
+    }
+
+    /**
+     * Saves the game
+     */
+    public void save() {
+        record("save");
+        gameEngine.save();
+    }
+
+    /**
+     * Lets the world run for a number of ticks, as the game loop does while the game is displayed:
+     * the enemies take a step every {@link GameEngine#TICKS_PER_ENEMY_STEP} ticks
+     * @param ticks - number of ticks, at most {@link #MAX_WAIT_TICKS}
+     */
+    public void waitTicks(int ticks) {
+        if (ticks < 0 || ticks > MAX_WAIT_TICKS) {
+            throw new IllegalArgumentException("Invalid number of ticks: " + ticks);
+        }
+        for (int tick = 0; tick < ticks; tick++) {
+            gameEngine.advanceTick();
+        }
+    }
+
+    /**
+     * @param shop - name of the shop (potions or armory)
+     * @return the inventory of the shop
+     */
+    public ProductInventory getShop(String shop) {
+        return switch (shop.toLowerCase()) {
+            case "potions" -> gameEngine.getPotions();
+            case "armory" -> gameEngine.getArmory();
+            default -> throw new IllegalArgumentException("Unknown shop: " + shop);
+        };
+    }
+
+    /**
+     * @param shop - inventory of the shop
+     * @return the name of the shop, as given in the commands
+     */
+    private String getShopName(ProductInventory shop) {
+        return shop == gameEngine.getPotions() ? "potions" : "armory";
+    }
+
+    /**
+     * Gives a command to the recorder, if the commands are recorded
+     * @param command - the command, as text
+     */
+    private void record(String command) {
+        if (recorder != null) {
+            recorder.record(command);
+        }
+    }
+
+    /**
+     * @param shop - inventory of the shop
+     * @return true if the player is at the table of the shop, otherwise false
+     */
+    private boolean isInShop(ProductInventory shop) {
+        GameEngine.GameState state = gameEngine.getGameState();
+        return (shop == gameEngine.getPotions() && state == GameEngine.GameState.POTIONS)
+                || (shop == gameEngine.getArmory() && state == GameEngine.GameState.ARMORY);
+    }
+
+    /**
+     * @param identifier - identifier of the item
+     * @return the item of the bag with the given identifier, or null if the bag does not contain it
+     */
+    private Item findInBag(int identifier) {
+        for (BagInventory.ItemRecord record : gameEngine.getInventory().getCurrentArrayOfItemRecords()) {
+            if (record.item().getIdentifier() == identifier) {
+                return record.item();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param shop - inventory of the shop
+     * @param identifier - identifier of the item
+     * @return the product of the shop with the given identifier, or null if the shop does not sell it
+     */
+    private Item findInShop(ProductInventory shop, int identifier) {
+        for (ProductInventory.ProductRecord record : shop.getCurrentArrayOfProductRecords()) {
+            if (record.item().getIdentifier() == identifier) {
+                return record.item();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,69 @@
+package nl.rug.ai.oop.rpg.controler;
+
+import nl.rug.ai.oop.rpg.model.engine.GameEngine;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Log of the commands executed by a {@link CommandController}, from which the game can be played again with a {@link CommandReplay}.
+ * The first line of the log is the seed of the random numbers of the game, then every line is a command preceded by the tick of the world
+ * at which it was executed, and the last line is the tick at which the recording ended:
+ * <pre>
+ * seed -4962768465676381896
+ * 0 name Alice
+ * 0 faction fire
+ * 12 move north
+ * end 40
+ * </pre>
+ * The recorder must be set before any command is executed, and the game must not be changed by anything else than the commands and the ticks,
+ * e.g. by the Swing controllers. Like the models, it is only used by the thread of its game.
+ *
+ * @version 1.0
+ */
+public final class CommandRecorder implements Closeable {
+    private final GameEngine gameEngine;
+    private final BufferedWriter output;
+
+    /**
+     * Creates the log, replacing any existing file, and writes the seed of the game
+     * @param gameEngine the game engine whose commands are recorded
+     * @param file the file of the log
+     * @throws IOException if the file could not be created
+     */
+    public CommandRecorder(GameEngine gameEngine, Path file) throws IOException {
+        this.gameEngine = gameEngine;
+        this.output = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        output.write("seed " + gameEngine.getRandom().getSeed());
+        output.newLine();
+    }
+
+    /**
+     * Records a command at the current tick of the world
+     * @param command the command, as text
+     */
+    public void record(String command) {
+        try {
+            output.write(gameEngine.getTick() + " " + command);
+            output.newLine();
+        } catch (IOException e) {
+            System.out.println("The command could not be recorded: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records the current tick of the world as the end of the game, and closes the log
+     * @throws IOException if the log could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        try (output) {
+            output.write("end " + gameEngine.getTick());
+            output.newLine();
+        }
+    }
+}
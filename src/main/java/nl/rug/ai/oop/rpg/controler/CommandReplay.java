@@ -0,0 +1,99 @@
+package nl.rug.ai.oop.rpg.controler;
+
+import nl.rug.ai.oop.rpg.model.engine.GameEngine;
+import nl.rug.ai.oop.rpg.model.engine.GameRandom;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Plays a game again from the log of a {@link CommandRecorder}, as fast as possible:
+ * the world is run tick after tick until the tick of the next command, without waiting for the game loop, then the command is executed.
+ * A game created with the seed of the log (see {@link #readRandom(Path)}) from a copy of the save files the recorded game started from,
+ * e.g. an empty save folder for a new game, ends in exactly the same state as the recorded game.
+ *
+ * @version 1.0
+ */
+public final class CommandReplay {
+    private CommandReplay() {
+    }
+
+    /**
+     * @param log the file of the log
+     * @return the random numbers of the recorded game, to create the game to play again
+     * @throws IOException if the log could not be read or does not start with the seed
+     */
+    public static GameRandom readRandom(Path log) throws IOException {
+        try (BufferedReader input = Files.newBufferedReader(log, StandardCharsets.UTF_8)) {
+            String header = input.readLine();
+            if (header == null || !header.startsWith("seed ")) {
+                throw new IOException("The log does not start with the seed of the game");
+            }
+            return new GameRandom(parseNumber(header.substring("seed ".length())));
+        }
+    }
+
+    /**
+     * Plays the commands of the log
+     * @param log the file of the log
+     * @param gameEngine the game engine of the game to play, created with the random numbers of the log
+     * @param commandController the controller executing the commands
+     * @return the number of commands executed
+     * @throws IOException if the log could not be read, or if it does not match the game
+     */
+    public static int replay(Path log, GameEngine gameEngine, CommandController commandController) throws IOException {
+        int commandCount = 0;
+        try (BufferedReader input = Files.newBufferedReader(log, StandardCharsets.UTF_8)) {
+            input.readLine(); //seed, see readRandom
+            String line;
+            while ((line = input.readLine()) != null) {
+                int space = line.indexOf(' ');
+                if (space < 0) {
+                    throw new IOException("Invalid line of the log: " + line);
+                }
+                if (line.startsWith("end ")) {
+                    runUntil(gameEngine, parseNumber(line.substring(space + 1)));
+                    return commandCount;
+                }
+                runUntil(gameEngine, parseNumber(line.substring(0, space)));
+                if (!commandController.execute(line.substring(space + 1))) {
+                    throw new IOException("Invalid command of the log: " + line);
+                }
+                commandCount++;
+            }
+        }
+        return commandCount; //the recording was not closed, e.g. the game crashed
+    }
+
+    /**
+     * Runs the world until the given tick
+     * @param gameEngine the game engine
+     * @param tick the tick
+     * @throws IOException if the world is already past the tick, i.e. the log does not match the game
+     */
+    private static void runUntil(GameEngine gameEngine, long tick) throws IOException {
+        if (gameEngine.getTick() > tick) {
+            throw new IOException("The log does not match the game: tick " + tick + " is already past");
+        }
+        while (gameEngine.getTick() < tick) {
+            gameEngine.advanceTick();
+            gameEngine.getEvents().flush();
+        }
+    }
+
+    /**
+     * @param text a number of the log
+     * @return the number
+     * @throws IOException if the text is not a number
+     */
+    private static long parseNumber(String text) throws IOException {
+        try {
+            return Long.parseLong(text.trim());
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid number in the log: " + text);
+        }
+    }
+}
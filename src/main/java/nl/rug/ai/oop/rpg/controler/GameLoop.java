@@ -0,0 +1,142 @@
+package nl.rug.ai.oop.rpg.controler;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Fixed-timestep game loop. A dedicated thread paces the frames, and every frame is run by an executor (e.g. the Swing event thread),
+ * so that the models are only changed on that thread.
+ * At every frame, the game is advanced by as many ticks of fixed duration as the time elapsed since the previous frame,
+ * then the frame listeners are called with the fraction of a tick elapsed since the last tick, so that they can interpolate between two ticks.
+ * Hence the speed of the game only depends on the tick rate, and not on the frame rate or on the rate of the input events.
+ *
+ * @version 1.0
+ */
+public class GameLoop {
+    /**
+     * Maximum time simulated in one frame, so that the game does not try to catch up after a long pause (e.g. a save or a hidden window)
+     */
+    private static final long MAX_FRAME_NANOS = 250_000_000L;
+
+    private final long tickNanos;
+    private final long frameNanos;
+    private final Executor executor;
+    private final ArrayList<Runnable> tickListeners = new ArrayList<>();
+    private final ArrayList<DoubleConsumer> frameListeners = new ArrayList<>();
+    private final AtomicBoolean isFrameQueued = new AtomicBoolean(false);
+    private volatile boolean isRunning = false;
+    private Thread thread;
+
+    /* Only used by the executor */
+    private long lastFrameTime;
+    private long unsimulatedNanos;
+
+    /**
+     * Creates a game loop, which is started with {@link #start()}
+     * @param ticksPerSecond number of ticks simulated per second
+     * @param framesPerSecond maximum number of frames per second
+     * @param executor executor running the ticks and the frames, e.g. SwingUtilities::invokeLater
+     */
+    public GameLoop(int ticksPerSecond, int framesPerSecond, Executor executor) {
+        this.tickNanos = 1_000_000_000L / ticksPerSecond;
+        this.frameNanos = 1_000_000_000L / framesPerSecond;
+        this.executor = executor;
+    }
+
+    /**
+     * Adds a listener called at every tick, on the thread of the executor
+     * @param listener the listener
+     */
+    public void addTickListener(Runnable listener) {
+        executor.execute(() -> tickListeners.add(listener));
+    }
+
+    /**
+     * Adds a listener called at every frame, on the thread of the executor, with the fraction of a tick (between 0 and 1)
+     * elapsed since the last tick
+     * @param listener the listener
+     */
+    public void addFrameListener(DoubleConsumer listener) {
+        executor.execute(() -> frameListeners.add(listener));
+    }
+
+    /**
+     * Starts the thread pacing the frames
+     */
+    public synchronized void start() {
+        if (isRunning) {
+            return;
+        }
+        isRunning = true;
+        executor.execute(() -> {
+            lastFrameTime = System.nanoTime();
+            unsimulatedNanos = 0;
+        });
+        thread = new Thread(this::run, "game-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the thread pacing the frames, and waits for it to end
+     */
+    public synchronized void stop() {
+        if (!isRunning) {
+            return;
+        }
+        isRunning = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Queues a frame at a fixed rate. A frame is not queued while the previous one has not been run yet,
+     * so that frames do not pile up when the executor is busy.
+     */
+    private void run() {
+        long nextFrameTime = System.nanoTime();
+        while (isRunning) {
+            if (isFrameQueued.compareAndSet(false, true)) {
+                executor.execute(this::frame);
+            }
+            nextFrameTime += frameNanos;
+            long waitingTime = nextFrameTime - System.nanoTime();
+            if (waitingTime > 0) {
+                LockSupport.parkNanos(this, waitingTime);
+            } else {
+                // Late, the next frame is paced from now instead of trying to catch up
+                nextFrameTime = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Simulates the ticks elapsed since the previous frame, then lets the frame listeners render the game
+     */
+    private void frame() {
+        try {
+            long now = System.nanoTime();
+            unsimulatedNanos += Math.min(now - lastFrameTime, MAX_FRAME_NANOS);
+            lastFrameTime = now;
+            while (unsimulatedNanos >= tickNanos) {
+                unsimulatedNanos -= tickNanos;
+                for (int index = 0; index < tickListeners.size(); index++) {
+                    tickListeners.get(index).run();
+                }
+            }
+            double alpha = (double) unsimulatedNanos / tickNanos;
+            for (int index = 0; index < frameListeners.size(); index++) {
+                frameListeners.get(index).accept(alpha);
+            }
+        } finally {
+            isFrameQueued.set(false);
+        }
+    }
+}
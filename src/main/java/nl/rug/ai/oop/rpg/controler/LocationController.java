@@ -1,39 +1,206 @@
 package nl.rug.ai.oop.rpg.controler;
 
+import nl.rug.ai.oop.rpg.model.engine.GameEngine;
 import nl.rug.ai.oop.rpg.model.locations.GameLocation;
+import nl.rug.ai.oop.rpg.model.locations.PathFinder;
 
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
+import java.util.ArrayDeque;
+import java.util.function.DoubleConsumer;
 
 /**
  * Controller for the GameLocation model.
+ * The arrow keys are not applied when they are pressed, but buffered and consumed at the ticks of the {@link GameLoop}:
+ * a step from one tile to the next one takes {@link #TICKS_PER_STEP} ticks, and the player keeps walking while a key is held down.
+ * Hence the speed of the player does not depend on the key repeat settings of the system.
+ * The player can also be sent to a tile, e.g. clicked on the map: it then follows the shortest path to it at the same speed,
+ * until it arrives, an arrow key is pressed or it reaches an object.
+ * The keys only move the player while it is walking, and a path is only followed while walking or looking at the map:
+ * e.g. a fight, a shop or the inventory stops the player and drops the steps it had left.
  *
  * @author Luca Colli
  * @version 1.0
  */
 public class LocationController extends KeyAdapter {
+    /**
+     * Number of ticks needed to walk from one tile to the next one
+     */
+    public static final int TICKS_PER_STEP = 4;
+
+    /**
+     * Maximum number of key presses remembered between two steps
+     */
+    private static final int MAX_BUFFERED_STEPS = 2;
+
+    private final GameEngine gameEngine;
     private final GameLocation gameLocation;
+    private final GameLoop gameLoop;
+
+    /* Arrow keys held down, the last one pressed at the end, and key presses which have not been consumed by a step yet */
+    private final ArrayDeque<GameLocation.Direction> heldDirections = new ArrayDeque<>();
+    private final ArrayDeque<GameLocation.Direction> bufferedSteps = new ArrayDeque<>();
+
+    /* Steps left of the path to the tile the player was sent to */
+    private final ArrayDeque<GameLocation.Direction> plannedSteps = new ArrayDeque<>();
+
+    /* Current step: tile the player comes from and number of ticks before the player reaches the next tile */
+    private final int[] stepOrigin = new int[2];
+    private int stepTicksLeft = 0;
+
+    /**
+     * Creates a controller for the GameLocation model of a game, moving the player at the ticks of the game loop
+     * @param gameEngine the game engine, whose state tells when the player can move
+     * @param gameLoop the game loop of the game
+     */
+    public LocationController(GameEngine gameEngine, GameLoop gameLoop) {
+        this.gameEngine = gameEngine;
+        this.gameLocation = gameEngine.getLocation();
+        this.gameLoop = gameLoop;
+        gameLoop.addTickListener(this::tick);
+    }
 
     /**
-     * Creates a controller for a GameLocation model
-     * @param gameLocation the GameLocation model
+     * Adds a listener called at every frame of the game loop, e.g. to render the movement of the player
+     * @param listener the listener, receiving the fraction of a tick elapsed since the last tick
      */
-    public LocationController(GameLocation gameLocation) {
-        this.gameLocation = gameLocation;
+    public void addFrameListener(DoubleConsumer listener) {
+        gameLoop.addFrameListener(listener);
     }
 
     /**
-     * When an arrow key is pressed, the model is updated so that player moves in the same direction as the arrow.
+     * When an arrow key is pressed, the direction is buffered until the next step of the player.
+     * The repeated events of a key held down are ignored.
      * @param e the event to be processed
      */
     @Override
     public void keyPressed(KeyEvent e) {
         super.keyPressed(e);
-        switch (e.getKeyCode()) {
-            case 37 -> gameLocation.move(GameLocation.Direction.WEST);
-            case 38 -> gameLocation.move(GameLocation.Direction.NORTH);
-            case 39 -> gameLocation.move(GameLocation.Direction.EAST);
-            case 40 -> gameLocation.move(GameLocation.Direction.SOUTH);
+        GameLocation.Direction direction = getDirection(e);
+        if (direction == null || heldDirections.contains(direction)) {
+            return;
+        }
+        heldDirections.addLast(direction);
+        plannedSteps.clear();
+        if (bufferedSteps.size() < MAX_BUFFERED_STEPS) {
+            bufferedSteps.addLast(direction);
+        }
+    }
+
+    /**
+     * When an arrow key is released, the player stops walking in its direction after the current step.
+     * @param e the event to be processed
+     */
+    @Override
+    public void keyReleased(KeyEvent e) {
+        super.keyReleased(e);
+        heldDirections.remove(getDirection(e));
+    }
+
+    /**
+     * Forgets the keys held down and the path the player was sent along, e.g. when the map loses the focus and the key releases are not received anymore.
+     */
+    public void releaseKeys() {
+        heldDirections.clear();
+        bufferedSteps.clear();
+        plannedSteps.clear();
+    }
+
+    /**
+     * Sends the player to a tile of the current location, along the shortest walkable path.
+     * Nothing happens if the tile cannot be reached.
+     * @param x x coordinate of the tile
+     * @param y y coordinate of the tile
+     */
+    public void walkTo(int x, int y) {
+        int[] playerCoordinates = gameLocation.getPlayerCoordinates();
+        PathFinder path = gameLocation.findPath(playerCoordinates[0], playerCoordinates[1], x, y);
+        if (path.getPathLength() < 0) {
+            return;
+        }
+        plannedSteps.clear();
+        bufferedSteps.clear();
+        for (int step = 0; step < path.getPathLength(); step++) {
+            plannedSteps.addLast(path.getDirection(step));
+        }
+    }
+
+    /**
+     * @param e key event
+     * @return direction of the arrow key, or null if the key is not an arrow
+     */
+    private GameLocation.Direction getDirection(KeyEvent e) {
+        return switch (e.getKeyCode()) {
+            case KeyEvent.VK_LEFT -> GameLocation.Direction.WEST;
+            case KeyEvent.VK_UP -> GameLocation.Direction.NORTH;
+            case KeyEvent.VK_RIGHT -> GameLocation.Direction.EAST;
+            case KeyEvent.VK_DOWN -> GameLocation.Direction.SOUTH;
+            default -> null;
+        };
+    }
+
+    /**
+     * Advances the current step and, once the player has reached its tile, starts the next step:
+     * first the buffered key presses, then the last key held down, then the path the player was sent along.
+     * The model is updated so that player moves one tile in that direction.
+     * The keys are only used while walking and the path while walking or looking at the map; in the other states, the steps left are dropped.
+     */
+    private void tick() {
+        if (stepTicksLeft > 0) {
+            stepTicksLeft--;
+            if (stepTicksLeft > 0) {
+                return;
+            }
+        }
+        GameEngine.GameState state = gameEngine.getGameState();
+        if (state != GameEngine.GameState.WALKING) {
+            bufferedSteps.clear();
+            if (state != GameEngine.GameState.MAP) {
+                plannedSteps.clear();
+                return;
+            }
+        }
+        GameLocation.Direction direction = null;
+        if (state == GameEngine.GameState.WALKING) {
+            direction = !bufferedSteps.isEmpty() ? bufferedSteps.pollFirst() : heldDirections.peekLast();
+        }
+        if (direction == null) {
+            direction = plannedSteps.pollFirst();
+            if (direction == null) {
+                return;
+            }
+        }
+        GameLocation.Location location = gameLocation.getLocation();
+        int[] playerCoordinates = gameLocation.getPlayerCoordinates();
+        int x = playerCoordinates[0];
+        int y = playerCoordinates[1];
+        gameLocation.move(direction);
+        playerCoordinates = gameLocation.getPlayerCoordinates();
+        // Only a step to a neighbouring tile is animated, not entering a building or a teleport
+        if (location == gameLocation.getLocation() && Math.abs(playerCoordinates[0] - x) + Math.abs(playerCoordinates[1] - y) == 1) {
+            stepOrigin[0] = x;
+            stepOrigin[1] = y;
+            stepTicksLeft = TICKS_PER_STEP;
+            if (gameLocation.getObjectAt(playerCoordinates[0], playerCoordinates[1]) != null) {
+                plannedSteps.clear();
+            }
+        } else {
+            // The path is not valid anymore, e.g. an object appeared on it or the player entered a building
+            plannedSteps.clear();
+        }
+    }
+
+    /**
+     * Gives the position at which the player should be drawn, relative to its tile, while it is walking from the previous tile.
+     * @param alpha fraction of a tick elapsed since the last tick
+     * @return x and y offsets, in tiles, from the tile of the player to the position of the player on screen
+     */
+    public double[] getStepOffset(double alpha) {
+        if (stepTicksLeft == 0) {
+            return new double[]{0, 0};
         }
+        int[] playerCoordinates = gameLocation.getPlayerCoordinates();
+        double remaining = Math.max(0, Math.min(1, (stepTicksLeft - alpha) / TICKS_PER_STEP));
+        return new double[]{(stepOrigin[0] - playerCoordinates[0]) * remaining, (stepOrigin[1] - playerCoordinates[1]) * remaining};
     }
 }
@@ -22,17 +22,28 @@ public class ShopController {
     /**
      * Method for the merchant to sell an item
      * @param item Item sold by the merchant
+     * @return Boolean that indicates if the item was sold
      */
-    public void buyFromMerchant(Item item) {
-        shop.sell(item);
+    public boolean buyFromMerchant(Item item) {
+        return shop.sell(item);
     }
 
     /**
      * Method for the merchant to buy an item
      * @param item Item sold bought the merchant
+     * @return Boolean that indicates if the item was bought
      */
-    public void sellToMerchant(Item item) {
-        shop.buy(item);
+    public boolean sellToMerchant(Item item) {
+        return shop.buy(item);
+    }
+
+    /**
+     * Getter for the number of copies of an item the merchant still has
+     * @param item Item sold by the merchant
+     * @return Number of copies in stock
+     */
+    public int getStock(Item item) {
+        return shop.getStock().getStock(item.getIdentifier());
     }
 
     /**
@@ -1,5 +1,7 @@
 package nl.rug.ai.oop.rpg.controler.npc;
 
+import nl.rug.ai.oop.rpg.controler.GameLoop;
+import nl.rug.ai.oop.rpg.model.engine.GameEngine;
 import nl.rug.ai.oop.rpg.model.npc.Enemy;
 import nl.rug.ai.oop.rpg.model.player.PlayerModel;
 
@@ -13,6 +15,17 @@ public class EnemyController implements ActionListener {
         this.enemy = enemy;
     }
 
+    /**
+     * Creates the controller of the enemies, which advances the world at every tick of the game loop, so that the enemies chase the player
+     * @param enemy the enemy model
+     * @param gameEngine the game engine, holding the enemies of the island
+     * @param gameLoop the game loop of the game
+     */
+    public EnemyController(Enemy enemy, GameEngine gameEngine, GameLoop gameLoop) {
+        this.enemy = enemy;
+        gameLoop.addTickListener(gameEngine::advanceTick);
+    }
+
     public void startFight(PlayerModel player){
         player.fightNPC(this.enemy);
     }
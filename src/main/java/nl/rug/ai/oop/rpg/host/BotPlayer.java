@@ -0,0 +1,328 @@
+package nl.rug.ai.oop.rpg.host;
+
+import nl.rug.ai.oop.rpg.model.character.Character;
+import nl.rug.ai.oop.rpg.model.engine.GameEngine;
+import nl.rug.ai.oop.rpg.model.engine.GameStorage;
+import nl.rug.ai.oop.rpg.model.locations.GameLocation;
+import nl.rug.ai.oop.rpg.model.locations.PathFinder;
+import nl.rug.ai.oop.rpg.model.locations.WalkabilityGrid;
+import nl.rug.ai.oop.rpg.model.player.PlayerModel;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Scripted player of the {@link LoadTest}, sending one command at a time and measuring how long every command takes.
+ * The bot builds its player, then walks around the location it is in, either one random step at a time or along A* routes
+ * towards random tiles; it picks up the items it walks on, buys and sells in the shops it enters, whose stock is shared by all the bots, uses items of its bag,
+ * and fights the enemies it bumps into until the fight is over.
+ * Every command returns the state of the game after it, in the same round trip, hence the bot never asks for the state separately
+ * and the measured commands are all the load it puts on the host, in the same process as through a socket.
+ * The routes are searched on a {@link GameLocation} of its own, which only knows the map, hence a route can be blocked by an object:
+ * the bot then searches another one.
+ *
+ * @version 1.0
+ */
+final class BotPlayer {
+    private static final GameLocation.Direction[] DIRECTIONS = GameLocation.Direction.values();
+    private static final Character.Faction[] FACTIONS = Character.Faction.values();
+    private static final int ROUTE_RADIUS = 16;
+    private static final int MAX_TRADED_COPIES = 3;
+
+    private final Connection connection;
+    private final Random random;
+    private final GameLocation planner;
+    private final int[] potions;
+    private final int[] armory;
+    private final ArrayDeque<GameLocation.Direction> route = new ArrayDeque<>();
+    private boolean hasSentName = false;
+
+    /* Latency of every command, in nanoseconds, and number of commands per kind */
+    private final long[] latencies;
+    private int commandCount = 0;
+    private final int[] kindCounts = new int[Kind.values().length];
+
+    /**
+     * Kinds of commands sent by the bots
+     */
+    enum Kind {
+        BUILD, MOVE, PICKUP, TRADE, USE, FIGHT, LEAVE
+    }
+
+    /**
+     * State of the game of a bot, as seen by its client
+     * @param gameState state of the game
+     * @param playerState state of the player, which tells when a fight is over
+     * @param location location of the player
+     * @param x x coordinate of the player
+     * @param y y coordinate of the player
+     * @param items identifiers of the items of the bag
+     */
+    record Observation(GameEngine.GameState gameState, PlayerModel.State playerState, GameLocation.Location location, int x, int y, int[] items) {
+    }
+
+    /**
+     * Connection of a bot to its game, in the same process or through a socket
+     */
+    interface Connection extends AutoCloseable {
+        /**
+         * Executes a command
+         * @param command the command, as text (see {@link nl.rug.ai.oop.rpg.controler.CommandController})
+         * @return the state of the game after the command
+         * @throws IOException if the connection failed
+         */
+        Observation execute(String command) throws IOException;
+
+        /**
+         * @return the current state of the game, only asked once before the first command
+         */
+        Observation observe();
+
+        @Override
+        void close() throws IOException;
+    }
+
+    /**
+     * Connection to a session of a {@link nl.rug.ai.oop.rpg.host.SessionHost} in the same process
+     */
+    static final class SessionConnection implements Connection {
+        private final GameSession session;
+
+        SessionConnection(GameSession session) {
+            this.session = session;
+        }
+
+        @Override
+        public Observation execute(String command) {
+            return session.execute(command, SessionConnection::observe).join();
+        }
+
+        @Override
+        public Observation observe() {
+            return session.submit(SessionConnection::observe).join();
+        }
+
+        /**
+         * @param engine game engine of the session, in a task of its mailbox
+         * @return the current state of the game
+         */
+        private static Observation observe(GameEngine engine) {
+            int[] coordinates = engine.getLocation().getPlayerCoordinates();
+            int[] items = engine.getInventory().getCurrentArrayOfItemRecords().stream()
+                    .mapToInt(record -> record.item().getIdentifier()).toArray();
+            return new Observation(engine.getGameState(), engine.getPlayerModel().getState(), engine.getLocation().getLocation(),
+                    coordinates[0], coordinates[1], items);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Connection to a session of a {@link nl.rug.ai.oop.rpg.host.GameServer}, through a {@link GameClient}.
+     * The commands with a request of their own in the {@link GameProtocol} are sent as such, the others as text.
+     */
+    static final class SocketConnection implements Connection {
+        private final GameClient client;
+
+        SocketConnection(GameClient client) {
+            this.client = client;
+        }
+
+        @Override
+        public Observation execute(String command) throws IOException {
+            String[] words = command.split(" ");
+            switch (words[0]) {
+                case "move" -> client.move(GameLocation.Direction.valueOf(words[1].toUpperCase()));
+                case "use" -> client.useItem(Integer.parseInt(words[1]));
+                case "buy" -> client.buy(words[1].equals("potions") ? GameProtocol.POTIONS : GameProtocol.ARMORY,
+                        Integer.parseInt(words[2]), Integer.parseInt(words[3]));
+                case "sell" -> client.sell(words[1].equals("potions") ? GameProtocol.POTIONS : GameProtocol.ARMORY,
+                        Integer.parseInt(words[2]), Integer.parseInt(words[3]));
+                case "attack" -> client.attack(Character.Faction.valueOf(words[1].toUpperCase()));
+                case "leave" -> client.setGameState(GameEngine.GameState.WALKING);
+                default -> client.command(command);
+            }
+            return observe();
+        }
+
+        @Override
+        public Observation observe() {
+            int[] items = client.getItems().stream().mapToInt(GameClient.ItemCount::identifier).toArray();
+            return new Observation(client.getGameState(), client.getPlayerState(), client.getLocation(), client.getX(), client.getY(), items);
+        }
+
+        @Override
+        public void close() throws IOException {
+            client.close();
+        }
+    }
+
+    /**
+     * Creates a bot
+     * @param connection connection to its game
+     * @param seed seed of its random choices
+     * @param storage storage containing the resources, used to search the routes, or null to walk randomly
+     * @param potions identifiers of the products of the potion shop
+     * @param armory identifiers of the products of the armory
+     * @param commands number of commands the bot sends
+     */
+    BotPlayer(Connection connection, long seed, GameStorage storage, int[] potions, int[] armory, int commands) {
+        this.connection = connection;
+        this.random = new Random(seed);
+        this.planner = storage == null ? null : new GameLocation(storage);
+        this.potions = potions;
+        this.armory = armory;
+        this.latencies = new long[commands];
+    }
+
+    /**
+     * Plays until all the commands have been sent or the player has died
+     * @throws IOException if the connection failed
+     */
+    void play() throws IOException {
+        Observation observation = connection.observe();
+        while (commandCount < latencies.length) {
+            observation = switch (observation.gameState()) {
+                case BUILDING_PLAYER -> build();
+                case WALKING -> walk(observation);
+                case PICKUP -> send(Kind.PICKUP, "pickup");
+                case POTIONS -> trade("potions", potions, observation);
+                case ARMORY -> trade("armory", armory, observation);
+                case FIGHTING -> fight(observation);
+                case MAP, INVENTORY -> send(Kind.LEAVE, "leave");
+                case DEATH -> null;
+            };
+            if (observation == null) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return latencies of the commands sent, in nanoseconds
+     */
+    long[] getLatencies() {
+        return Arrays.copyOf(latencies, commandCount);
+    }
+
+    /**
+     * @return number of commands sent per {@link Kind}
+     */
+    int[] getKindCounts() {
+        return kindCounts;
+    }
+
+    /**
+     * Builds the player: sends its name, then a random faction
+     * @return state of the game after the command, or null if all the commands have been sent
+     * @throws IOException if the connection failed
+     */
+    private Observation build() throws IOException {
+        if (!hasSentName) {
+            hasSentName = true;
+            return send(Kind.BUILD, "name Bot");
+        }
+        return send(Kind.BUILD, "faction " + FACTIONS[random.nextInt(FACTIONS.length)].name().toLowerCase());
+    }
+
+    /**
+     * Walks one step, sometimes using an item of the bag instead
+     * @param observation state of the game
+     * @return state of the game after the command, or null if all the commands have been sent
+     * @throws IOException if the connection failed
+     */
+    private Observation walk(Observation observation) throws IOException {
+        if (observation.items().length > 0 && random.nextInt(50) == 0) {
+            return send(Kind.USE, "use " + observation.items()[random.nextInt(observation.items().length)]);
+        }
+        GameLocation.Direction direction = nextStep(observation);
+        Observation after = send(Kind.MOVE, "move " + direction.name().toLowerCase());
+        if (after != null && after.location() == observation.location() && after.x() == observation.x() && after.y() == observation.y()) {
+            route.clear(); //blocked by an object, or entered a building and came back
+        }
+        return after;
+    }
+
+    /**
+     * @param observation state of the game
+     * @return direction of the next step: the next step of the route, searching a new route if needed, or a random step
+     */
+    private GameLocation.Direction nextStep(Observation observation) {
+        if (planner == null || random.nextInt(10) == 0) {
+            route.clear();
+            return DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+        }
+        if (route.isEmpty()) {
+            if (planner.getLocation() != observation.location()) {
+                planner.restorePosition(observation.location(), observation.x(), observation.y(), observation.x(), observation.y());
+            }
+            WalkabilityGrid grid = planner.getWalkabilityGrid(observation.location());
+            for (int attempt = 0; attempt < 8 && route.isEmpty(); attempt++) {
+                int goalX = observation.x() + random.nextInt(2 * ROUTE_RADIUS + 1) - ROUTE_RADIUS;
+                int goalY = observation.y() + random.nextInt(2 * ROUTE_RADIUS + 1) - ROUTE_RADIUS;
+                if (grid == null || !grid.isWalkable(goalX, goalY)) {
+                    continue;
+                }
+                PathFinder path = planner.findPath(observation.x(), observation.y(), goalX, goalY);
+                for (int step = 0; step < path.getPathLength(); step++) {
+                    route.add(path.getDirection(step));
+                }
+            }
+        }
+        GameLocation.Direction direction = route.poll();
+        return direction != null ? direction : DIRECTIONS[random.nextInt(DIRECTIONS.length)];
+    }
+
+    /**
+     * Buys or sells one to {@link #MAX_TRADED_COPIES} copies of an item, or leaves the shop
+     * @param shop name of the shop
+     * @param products identifiers of the products of the shop
+     * @param observation state of the game
+     * @return state of the game after the command, or null if all the commands have been sent
+     * @throws IOException if the connection failed
+     */
+    private Observation trade(String shop, int[] products, Observation observation) throws IOException {
+        int choice = random.nextInt(4);
+        if (choice == 0 && products.length > 0) {
+            return send(Kind.TRADE, "buy " + shop + " " + products[random.nextInt(products.length)] + " " + (1 + random.nextInt(MAX_TRADED_COPIES)));
+        } else if (choice == 1 && observation.items().length > 0) {
+            return send(Kind.TRADE, "sell " + shop + " " + observation.items()[random.nextInt(observation.items().length)] + " " + (1 + random.nextInt(MAX_TRADED_COPIES)));
+        }
+        return send(Kind.LEAVE, "leave");
+    }
+
+    /**
+     * Attacks until the fight is over, then continues the game
+     * @param observation state of the game
+     * @return state of the game after the command, or null if all the commands have been sent
+     * @throws IOException if the connection failed
+     */
+    private Observation fight(Observation observation) throws IOException {
+        if (observation.playerState() == PlayerModel.State.WAIT_TO_CONTINUE) {
+            return send(Kind.FIGHT, "continue");
+        }
+        return send(Kind.FIGHT, "attack " + FACTIONS[random.nextInt(FACTIONS.length)].name().toLowerCase());
+    }
+
+    /**
+     * Sends a command and measures how long it takes, including the state of the game sent back
+     * @param kind kind of the command
+     * @param command the command
+     * @return state of the game after the command, or null if all the commands have been sent
+     * @throws IOException if the connection failed
+     */
+    private Observation send(Kind kind, String command) throws IOException {
+        if (commandCount == latencies.length) {
+            return null;
+        }
+        long start = System.nanoTime();
+        Observation observation = connection.execute(command);
+        latencies[commandCount++] = System.nanoTime() - start;
+        kindCounts[kind.ordinal()]++;
+        return observation;
+    }
+}
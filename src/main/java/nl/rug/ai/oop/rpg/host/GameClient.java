@@ -0,0 +1,365 @@
+package nl.rug.ai.oop.rpg.host;
+
+import nl.rug.ai.oop.rpg.model.character.Character;
+import nl.rug.ai.oop.rpg.model.engine.GameEngine;
+import nl.rug.ai.oop.rpg.model.locations.GameLocation;
+import nl.rug.ai.oop.rpg.model.player.PlayerModel;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thin client of a {@link GameServer}: it sends the requests of the {@link GameProtocol} and keeps a copy of the state of the game,
+ * updated with the changes received in the replies, which is all a view needs to render the game.
+ * Every request waits for its reply. A client is not thread safe.
+ *
+ * @version 1.0
+ */
+public final class GameClient implements AutoCloseable {
+    private static final GameLocation.Location[] LOCATIONS = GameLocation.Location.values();
+    private static final GameEngine.GameState[] GAME_STATES = GameEngine.GameState.values();
+    private static final PlayerModel.State[] PLAYER_STATES = PlayerModel.State.values();
+
+    private final SocketChannel channel;
+    private final ByteBuffer request = ByteBuffer.allocate(1024);
+    private ByteBuffer reply = ByteBuffer.allocate(1024);
+
+    /* Copy of the state of the game */
+    private GameEngine.GameState gameState;
+    private GameLocation.Location location;
+    private int x;
+    private int y;
+    private int money;
+    private int hp;
+    private int maxHp;
+    private PlayerModel.State playerState;
+    private final ArrayList<ItemCount> items = new ArrayList<>();
+
+    /**
+     * Item of the bag, as known by the client
+     * @param identifier identifier of the item
+     * @param quantity number of items
+     */
+    public record ItemCount(int identifier, int quantity) {
+    }
+
+    /**
+     * Connects to a server
+     * @param address address of the server
+     * @throws IOException if the connection failed
+     */
+    public GameClient(InetSocketAddress address) throws IOException {
+        channel = SocketChannel.open(address);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+    }
+
+    /**
+     * Opens a session, which must be done before any other request, and receives the whole state of its game
+     * @param id identifier of the session
+     * @return true if the session is open, false if the identifier is not valid
+     * @throws IOException if the connection failed, or the session is used by another client
+     */
+    public boolean open(String id) throws IOException {
+        begin(GameProtocol.OPEN);
+        GameProtocol.writeString(request, id);
+        return send();
+    }
+
+    /**
+     * Moves the player one tile
+     * @param direction direction of the move
+     * @return true if the request is valid, otherwise false
+     * @throws IOException if the connection failed
+     */
+    public boolean move(GameLocation.Direction direction) throws IOException {
+        begin(GameProtocol.MOVE);
+        request.put((byte) direction.ordinal());
+        return send();
+    }
+
+    /**
+     * Uses an item of the bag
+     * @param identifier identifier of the item
+     * @return true if the request is valid, otherwise false
+     * @throws IOException if the connection failed
+     */
+    public boolean useItem(int identifier) throws IOException {
+        begin(GameProtocol.USE_ITEM);
+        request.putInt(identifier);
+        return send();
+    }
+
+    /**
+     * Buys an item from the shop the player is in
+     * @param shop {@link GameProtocol#POTIONS} or {@link GameProtocol#ARMORY}
+     * @param identifier identifier of the item
+     * @return true if the request is valid, otherwise false
+     * @throws IOException if the connection failed
+     */
+    public boolean buy(byte shop, int identifier) throws IOException {
+        return buy(shop, identifier, 1);
+    }
+
+    /**
+     * Buys copies of an item from the shop the player is in, all of them or none
+     * @param shop {@link GameProtocol#POTIONS} or {@link GameProtocol#ARMORY}
+     * @param identifier identifier of the item
+     * @param quantity number of copies, which is positive
+     * @return true if the request is valid, otherwise false
+     * @throws IOException if the connection failed
+     */
+    public boolean buy(byte shop, int identifier, int quantity) throws IOException {
+        begin(GameProtocol.BUY);
+        request.put(shop);
+        request.putInt(identifier);
+        request.putInt(quantity);
+        return send();
+    }
+
+    /**
+     * Sells an item of the bag to the shop the player is in
+     * @param shop {@link GameProtocol#POTIONS} or {@link GameProtocol#ARMORY}
+     * @param identifier identifier of the item
+     * @return true if the request is valid, otherwise false
+     * @throws IOException if the connection failed
+     */
+    public boolean sell(byte shop, int identifier) throws IOException {
+        return sell(shop, identifier, 1);
+    }
+
+    /**
+     * Sells copies of an item of the bag to the shop the player is in, all of them or none
+     * @param shop {@link GameProtocol#POTIONS} or {@link GameProtocol#ARMORY}
+     * @param identifier identifier of the item
+     * @param quantity number of copies, which is positive
+     * @return true if the request is valid, otherwise false
+     * @throws IOException if the connection failed
+     */
+    public boolean sell(byte shop, int identifier, int quantity) throws IOException {
+        begin(GameProtocol.SELL);
+        request.put(shop);
+        request.putInt(identifier);
+        request.putInt(quantity);
+        return send();
+    }
+
+    /**
+     * Attacks the opponent of the current fight
+     * @param faction faction of the attack
+     * @return true if the request is valid, otherwise false
+     * @throws IOException if the connection failed
+     */
+    public boolean attack(Character.Faction faction) throws IOException {
+        begin(GameProtocol.ATTACK);
+        request.put((byte) faction.ordinal());
+        return send();
+    }
+
+    /**
+     * Changes the state of the game, e.g. to leave a shop (see {@link nl.rug.ai.oop.rpg.controler.CommandController#setGameState})
+     * @param state the new state
+     * @return true if the player can change to that state, otherwise false
+     * @throws IOException if the connection failed
+     */
+    public boolean setGameState(GameEngine.GameState state) throws IOException {
+        begin(GameProtocol.SET_GAME_STATE);
+        request.put((byte) state.ordinal());
+        return send();
+    }
+
+    /**
+     * Executes a text command of the {@link nl.rug.ai.oop.rpg.controler.CommandController}
+     * @param command the command
+     * @return true if the command exists and its arguments are valid, otherwise false
+     * @throws IOException if the connection failed
+     */
+    public boolean command(String command) throws IOException {
+        begin(GameProtocol.COMMAND);
+        GameProtocol.writeString(request, command);
+        return send();
+    }
+
+    /**
+     * @return state of the game, or null before the session is open
+     */
+    public GameEngine.GameState getGameState() {
+        return gameState;
+    }
+
+    /**
+     * @return location of the player, or null before the session is open
+     */
+    public GameLocation.Location getLocation() {
+        return location;
+    }
+
+    /**
+     * @return x coordinate of the player
+     */
+    public int getX() {
+        return x;
+    }
+
+    /**
+     * @return y coordinate of the player
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * @return money of the player
+     */
+    public int getMoney() {
+        return money;
+    }
+
+    /**
+     * @return hit points of the player
+     */
+    public int getHp() {
+        return hp;
+    }
+
+    /**
+     * @return maximum hit points of the player
+     */
+    public int getMaxHp() {
+        return maxHp;
+    }
+
+    /**
+     * @return state of the player, e.g. {@link PlayerModel.State#WAIT_TO_CONTINUE} once a fight is over, or null before the session is open
+     */
+    public PlayerModel.State getPlayerState() {
+        return playerState;
+    }
+
+    /**
+     * @return items of the bag, in the order of the bag
+     */
+    public List<ItemCount> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
+    /**
+     * Closes the connection. The session stays open on the server.
+     * @throws IOException if the connection could not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Starts a request, leaving room for its length
+     * @param operation operation code of the request
+     */
+    private void begin(byte operation) {
+        request.clear();
+        request.putInt(0);
+        request.put(operation);
+    }
+
+    /**
+     * Sends the request, then waits for its reply and applies its changes
+     * @return true if the status of the reply is {@link GameProtocol#OK}, false if it is {@link GameProtocol#INVALID}
+     * @throws IOException if the connection failed or the request failed on the server
+     */
+    private boolean send() throws IOException {
+        request.putInt(0, request.position() - 4);
+        request.flip();
+        while (request.hasRemaining()) {
+            channel.write(request);
+        }
+
+        int length = readInt();
+        if (length < 1 || length > GameProtocol.MAX_FRAME_LENGTH) {
+            throw new IOException("Invalid frame length: " + length);
+        }
+        if (reply.capacity() < length) {
+            reply = ByteBuffer.allocate(length);
+        }
+        reply.clear().limit(length);
+        readFully(reply);
+        reply.flip();
+
+        byte status = reply.get();
+        if (status == GameProtocol.FAILED) {
+            throw new IOException("The request failed on the server");
+        }
+        apply(reply);
+        return status == GameProtocol.OK;
+    }
+
+    /**
+     * Applies the changes of a reply to the copy of the state of the game
+     * @param changes the reply, after its status
+     */
+    private void apply(ByteBuffer changes) {
+        while (changes.hasRemaining()) {
+            byte tag = changes.get();
+            switch (tag) {
+                case GameProtocol.GAME_STATE -> gameState = GAME_STATES[changes.get()];
+                case GameProtocol.POSITION -> {
+                    location = LOCATIONS[changes.get()];
+                    x = changes.getInt();
+                    y = changes.getInt();
+                }
+                case GameProtocol.PLAYER -> {
+                    money = changes.getInt();
+                    hp = changes.getInt();
+                    maxHp = changes.getInt();
+                    playerState = PLAYER_STATES[changes.get()];
+                }
+                case GameProtocol.ITEM_INSERTED -> {
+                    int index = changes.getInt();
+                    items.add(index, new ItemCount(changes.getInt(), changes.getInt()));
+                }
+                case GameProtocol.ITEM_UPDATED -> {
+                    int index = changes.getInt();
+                    items.set(index, new ItemCount(changes.getInt(), changes.getInt()));
+                }
+                case GameProtocol.ITEM_REMOVED -> items.remove(changes.getInt());
+                case GameProtocol.ITEMS -> {
+                    items.clear();
+                    int count = changes.getInt();
+                    for (int index = 0; index < count; index++) {
+                        items.add(new ItemCount(changes.getInt(), changes.getInt()));
+                    }
+                }
+                default -> throw new IllegalStateException("Unknown change: " + tag);
+            }
+        }
+    }
+
+    /**
+     * @return the next int of the connection
+     * @throws IOException if the connection failed
+     */
+    private int readInt() throws IOException {
+        ByteBuffer buffer = reply.clear().limit(4);
+        readFully(buffer);
+        return buffer.getInt(0);
+    }
+
+    /**
+     * Reads until the buffer is full
+     * @param buffer the buffer
+     * @throws IOException if the connection failed or was closed
+     */
+    private void readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("The server closed the connection");
+            }
+        }
+    }
+}
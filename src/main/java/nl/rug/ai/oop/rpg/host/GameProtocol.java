@@ -0,0 +1,93 @@
+package nl.rug.ai.oop.rpg.host;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary protocol between the {@link GameServer} and its thin clients, such as {@link GameClient}.
+ * Every message is a frame made of its length, as an int, followed by that many bytes; the numbers are big-endian.
+ * A request starts with its operation code, followed by its arguments:
+ * <ul>
+ *     <li>{@link #OPEN} - the identifier of the session (see {@link #writeString}), which must be sent first</li>
+ *     <li>{@link #MOVE} - the ordinal of the {@link nl.rug.ai.oop.rpg.model.locations.GameLocation.Direction}, as a byte</li>
+ *     <li>{@link #USE_ITEM} - the identifier of the item, as an int</li>
+ *     <li>{@link #BUY} and {@link #SELL} - {@link #POTIONS} or {@link #ARMORY}, as a byte, then the identifier of the item, as an int,
+ *     optionally followed by the number of copies, as an int (one copy if it is missing)</li>
+ *     <li>{@link #ATTACK} - the ordinal of the {@link nl.rug.ai.oop.rpg.model.character.Character.Faction}, as a byte</li>
+ *     <li>{@link #SET_GAME_STATE} - the ordinal of the {@link nl.rug.ai.oop.rpg.model.engine.GameEngine.GameState}, as a byte</li>
+ *     <li>{@link #COMMAND} - any text command of the {@link nl.rug.ai.oop.rpg.controler.CommandController}, e.g. to build the player</li>
+ * </ul>
+ * Every request is answered, in the order of the requests, by a reply starting with a status byte,
+ * followed by the changes of the state of the game since the previous reply, each starting with its tag:
+ * <ul>
+ *     <li>{@link #GAME_STATE} - the ordinal of the game state, as a byte</li>
+ *     <li>{@link #POSITION} - the ordinal of the location, as a byte, then the x and y coordinates of the player, as ints</li>
+ *     <li>{@link #PLAYER} - the money, hit points and maximum hit points of the player, as ints,
+ *     then the ordinal of its {@link nl.rug.ai.oop.rpg.model.player.PlayerModel.State}, as a byte, e.g. to know when a fight is over</li>
+ *     <li>{@link #ITEM_INSERTED} and {@link #ITEM_UPDATED} - the index of the record in the bag, the identifier of the item and its quantity, as ints</li>
+ *     <li>{@link #ITEM_REMOVED} - the index of the record in the bag, as an int</li>
+ *     <li>{@link #ITEMS} - the number of records of the bag, then the identifier and quantity of every record, as ints</li>
+ * </ul>
+ * The reply to {@link #OPEN} contains the whole state, the bag being sent as {@link #ITEMS}; the next replies only contain what has changed.
+ *
+ * @version 1.0
+ */
+public final class GameProtocol {
+    /**
+     * Maximum length of a frame, in bytes
+     */
+    public static final int MAX_FRAME_LENGTH = 1 << 20;
+
+    /* Operation codes of the requests */
+    public static final byte OPEN = 1;
+    public static final byte MOVE = 2;
+    public static final byte USE_ITEM = 3;
+    public static final byte BUY = 4;
+    public static final byte SELL = 5;
+    public static final byte ATTACK = 6;
+    public static final byte SET_GAME_STATE = 7;
+    public static final byte COMMAND = 8;
+
+    /* Shops of the requests BUY and SELL */
+    public static final byte POTIONS = 0;
+    public static final byte ARMORY = 1;
+
+    /* Statuses of the replies */
+    public static final byte OK = 0;
+    public static final byte INVALID = 1;
+    public static final byte FAILED = 2;
+
+    /* Tags of the changes of the replies */
+    public static final byte GAME_STATE = 1;
+    public static final byte POSITION = 2;
+    public static final byte PLAYER = 3;
+    public static final byte ITEM_INSERTED = 4;
+    public static final byte ITEM_UPDATED = 5;
+    public static final byte ITEM_REMOVED = 6;
+    public static final byte ITEMS = 7;
+
+    private GameProtocol() {
+    }
+
+    /**
+     * Writes a string as its length in bytes, as a short, followed by its UTF-8 bytes
+     * @param buffer the buffer
+     * @param text the string
+     */
+    public static void writeString(ByteBuffer buffer, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #writeString}
+     * @param buffer the buffer
+     * @return the string
+     */
+    public static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
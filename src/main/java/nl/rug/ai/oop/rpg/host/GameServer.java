@@ -0,0 +1,479 @@
+package nl.rug.ai.oop.rpg.host;
+
+import nl.rug.ai.oop.rpg.controler.CommandController;
+import nl.rug.ai.oop.rpg.model.character.Character;
+import nl.rug.ai.oop.rpg.model.engine.GameEngine;
+import nl.rug.ai.oop.rpg.model.locations.GameLocation;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Predicate;
+
+/**
+ * Server running the games of the sessions of a {@link SessionHost} for remote thin clients, which only render the state they receive.
+ * The clients send the requests of the {@link GameProtocol} over TCP, and receive the changes of the state of their game in the replies.
+ * All the connections are handled by a single thread with non-blocking sockets; the requests are executed in the mailbox of their session,
+ * which writes the reply itself when the socket can take it, so that a request does not wait for the thread of the server.
+ * A session is used by one connection at a time; it stays open in the host when its connection is closed, so that the client can come back.
+ * A client which does not read its replies cannot make the server buffer them without limit: the server stops reading its requests
+ * while too many of its requests are unanswered or too many bytes of its replies are waiting for the socket, until the client catches up.
+ *
+ * @version 1.0
+ */
+public final class GameServer implements AutoCloseable {
+    private static final GameLocation.Direction[] DIRECTIONS = GameLocation.Direction.values();
+    private static final Character.Faction[] FACTIONS = Character.Faction.values();
+    private static final GameEngine.GameState[] GAME_STATES = GameEngine.GameState.values();
+    /**
+     * Number of bytes of replies waiting for the socket of a connection above which its requests are not read anymore
+     */
+    private static final int MAX_QUEUED_BYTES = 1 << 20;
+    /**
+     * Number of requests of a connection being executed or waiting for their reply to be written, at which its requests are not read anymore
+     */
+    private static final int MAX_UNANSWERED_REQUESTS = 64;
+
+    private final SessionHost host;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Thread thread;
+    private volatile boolean isRunning = true;
+
+    /* Connections whose replies could not be written at once or which can be read again, or whose socket failed, given to the thread of the server */
+    private final Queue<Connection> changedConnections = new ConcurrentLinkedQueue<>();
+    private final Queue<Connection> failedConnections = new ConcurrentLinkedQueue<>();
+
+    /* Only used by the thread of the server: connection of every session in use */
+    private final HashMap<String, Connection> attachedConnections = new HashMap<>();
+
+    /**
+     * Connection of a client
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private ByteBuffer input = ByteBuffer.allocate(256);
+        private final ArrayDeque<ByteBuffer> output = new ArrayDeque<>(); //guarded by the connection
+        private int queuedBytes = 0; //guarded by the connection, bytes of the replies in the output
+        private int unansweredRequests = 0; //guarded by the connection
+        private boolean isReadPaused = false; //guarded by the connection, set by the thread of the server
+        private GameSession session; //only used by the thread of the server
+        private boolean isClosed = false; //guarded by the connection
+
+        private Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Counts a request read from the socket, which is answered by exactly one call to {@link #send(ByteBuffer)}
+         */
+        private synchronized void expectReply() {
+            unansweredRequests++;
+        }
+
+        /**
+         * @return true if the client has fallen too far behind, so that its requests must not be read
+         */
+        private synchronized boolean isBackedUp() {
+            return queuedBytes > MAX_QUEUED_BYTES || unansweredRequests >= MAX_UNANSWERED_REQUESTS;
+        }
+
+        /**
+         * Writes the reply of a request, or queues it if the socket cannot take it yet. It can be called by any thread.
+         * @param reply frame of the reply
+         */
+        private void send(ByteBuffer reply) {
+            synchronized (this) {
+                if (isClosed) {
+                    return;
+                }
+                unansweredRequests--;
+                if (output.isEmpty()) {
+                    try {
+                        channel.write(reply);
+                    } catch (IOException e) {
+                        isClosed = true;
+                        failedConnections.add(this);
+                        selector.wakeup();
+                        return;
+                    }
+                    if (!reply.hasRemaining() && !isReadPaused) {
+                        return;
+                    }
+                }
+                if (reply.hasRemaining()) {
+                    output.add(reply);
+                    queuedBytes += reply.remaining();
+                }
+            }
+            changedConnections.add(this);
+            selector.wakeup();
+        }
+
+        /**
+         * Writes the queued replies, as far as the socket can take them
+         * @return true if all the replies have been written, otherwise false
+         * @throws IOException if the socket failed
+         */
+        private synchronized boolean flush() throws IOException {
+            ByteBuffer reply;
+            while ((reply = output.peek()) != null) {
+                queuedBytes -= channel.write(reply);
+                if (reply.hasRemaining()) {
+                    return false;
+                }
+                output.poll();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Starts a server, accepting connections on a background thread
+     * @param host host of the sessions
+     * @param address address of the server, e.g. new InetSocketAddress(InetAddress.getLoopbackAddress(), 0) for any free local port
+     * @throws IOException if the server socket could not be opened
+     */
+    public GameServer(SessionHost host, InetSocketAddress address) throws IOException {
+        this.host = host;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.thread = new Thread(this::run, "game-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return address the server is listening to, e.g. to know the port chosen by the system
+     * @throws IOException if the address cannot be read
+     */
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Stops the server and closes all the connections. The sessions stay open in the host.
+     */
+    @Override
+    public void close() {
+        isRunning = false;
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Loop of the thread of the server
+     */
+    private void run() {
+        try {
+            while (isRunning) {
+                selector.select();
+                Connection connection;
+                while ((connection = failedConnections.poll()) != null) {
+                    disconnect(connection);
+                }
+                while ((connection = changedConnections.poll()) != null) {
+                    SelectionKey key = connection.channel.keyFor(selector);
+                    if (key != null && key.isValid()) {
+                        try {
+                            updateInterest(key, connection);
+                        } catch (IOException e) {
+                            disconnect(connection);
+                        }
+                    }
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("The game server stopped: " + e.getMessage());
+        } finally {
+            for (SelectionKey key : List.copyOf(selector.keys())) {
+                if (key.attachment() instanceof Connection connection) {
+                    disconnect(connection);
+                }
+            }
+            try {
+                serverChannel.close();
+                selector.close();
+            } catch (IOException e) {
+                System.out.println("The game server could not be closed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Accepts, reads or writes, depending on what the channel of a key is ready for
+     * @param key the selected key
+     * @throws IOException if the server socket failed
+     */
+    private void handle(SelectionKey key) throws IOException {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            SocketChannel channel = serverChannel.accept();
+            if (channel != null) {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.register(selector, SelectionKey.OP_READ, new Connection(channel));
+            }
+            return;
+        }
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isWritable()) {
+                connection.flush();
+            }
+            if (key.isValid() && key.isReadable()) {
+                read(connection);
+            }
+            if (key.isValid()) {
+                updateInterest(key, connection);
+            }
+        } catch (IOException e) {
+            disconnect(connection);
+        }
+    }
+
+    /**
+     * Chooses what the channel of a connection is waiting for: writing while replies are queued,
+     * and reading unless the client has fallen too far behind. When reading resumes, the requests already received are handled first.
+     * @param key the key of the connection
+     * @param connection the connection
+     * @throws IOException if the client sent an invalid frame
+     */
+    private void updateInterest(SelectionKey key, Connection connection) throws IOException {
+        boolean wasReadPaused;
+        synchronized (connection) {
+            wasReadPaused = connection.isReadPaused;
+            connection.isReadPaused = connection.isBackedUp();
+        }
+        if (wasReadPaused && !connection.isReadPaused) {
+            handleRequests(connection);
+        }
+        synchronized (connection) {
+            connection.isReadPaused = connection.isBackedUp();
+            int interestOps = connection.isReadPaused ? 0 : SelectionKey.OP_READ;
+            key.interestOps(connection.output.isEmpty() ? interestOps : interestOps | SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Reads the available bytes of a connection and handles its complete requests
+     * @param connection the connection
+     * @throws IOException if the socket failed or the client sent an invalid frame
+     */
+    private void read(Connection connection) throws IOException {
+        if (connection.channel.read(connection.input) < 0) {
+            throw new IOException("The connection was closed by the client");
+        }
+        handleRequests(connection);
+    }
+
+    /**
+     * Handles the complete requests received from a connection, as long as the client has not fallen too far behind
+     * @param connection the connection
+     * @throws IOException if the client sent an invalid frame
+     */
+    private void handleRequests(Connection connection) throws IOException {
+        ByteBuffer input = connection.input;
+        input.flip();
+        while (input.remaining() >= 4 && !connection.isBackedUp()) {
+            int length = input.getInt(input.position());
+            if (length < 1 || length > GameProtocol.MAX_FRAME_LENGTH) {
+                throw new IOException("Invalid frame length: " + length);
+            }
+            if (input.remaining() < 4 + length) {
+                break;
+            }
+            int end = input.position() + 4 + length;
+            ByteBuffer request = input.slice(input.position() + 4, length);
+            input.position(end);
+            handle(connection, request);
+        }
+        input.compact();
+        if (input.remaining() == 0 && !connection.isBackedUp()) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.min(input.capacity() * 2, GameProtocol.MAX_FRAME_LENGTH + 4));
+            input.flip();
+            larger.put(input);
+            connection.input = larger;
+        }
+    }
+
+    /**
+     * Handles a request: decodes it on the thread of the server and executes it in the mailbox of its session.
+     * A request which cannot be decoded is answered with {@link GameProtocol#INVALID}, after the previous requests.
+     * @param connection connection of the client
+     * @param request the request, without its length
+     */
+    private void handle(Connection connection, ByteBuffer request) {
+        connection.expectReply();
+        byte operation = request.get();
+        if (operation == GameProtocol.OPEN && connection.session == null) {
+            open(connection, request);
+            return;
+        }
+        if (connection.session == null) {
+            connection.send(encodeStatus(GameProtocol.INVALID));
+            return;
+        }
+        Predicate<CommandController> command;
+        try {
+            command = decode(operation, request);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            command = controller -> false;
+        }
+        reply(connection, connection.session.request(command));
+    }
+
+    /**
+     * Attaches a connection to its session, opening the session if needed
+     * @param connection connection of the client
+     * @param request the request, after its operation code
+     */
+    private void open(Connection connection, ByteBuffer request) {
+        GameSession session;
+        try {
+            String id = GameProtocol.readString(request);
+            if (attachedConnections.containsKey(id)) {
+                connection.send(encodeStatus(GameProtocol.FAILED));
+                return;
+            }
+            session = host.open(id);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            connection.send(encodeStatus(GameProtocol.INVALID));
+            return;
+        }
+        connection.session = session;
+        attachedConnections.put(session.getId(), connection);
+        reply(connection, session.attach());
+    }
+
+    /**
+     * @param operation operation code of the request
+     * @param request the request, after its operation code
+     * @return the command of the request, returning true if it is valid, otherwise false
+     */
+    private static Predicate<CommandController> decode(byte operation, ByteBuffer request) {
+        switch (operation) {
+            case GameProtocol.MOVE -> {
+                GameLocation.Direction direction = DIRECTIONS[request.get()];
+                return controller -> {
+                    controller.move(direction);
+                    return true;
+                };
+            }
+            case GameProtocol.USE_ITEM -> {
+                int identifier = request.getInt();
+                return controller -> {
+                    controller.useItem(identifier);
+                    return true;
+                };
+            }
+            case GameProtocol.BUY, GameProtocol.SELL -> {
+                byte shop = request.get();
+                int identifier = request.getInt();
+                int quantity = request.hasRemaining() ? request.getInt() : 1;
+                if ((shop != GameProtocol.POTIONS && shop != GameProtocol.ARMORY) || quantity <= 0) {
+                    return controller -> false;
+                }
+                String shopName = shop == GameProtocol.POTIONS ? "potions" : "armory";
+                if (operation == GameProtocol.BUY) {
+                    return controller -> {
+                        controller.buy(controller.getShop(shopName), identifier, quantity);
+                        return true;
+                    };
+                }
+                return controller -> {
+                    controller.sell(controller.getShop(shopName), identifier, quantity);
+                    return true;
+                };
+            }
+            case GameProtocol.ATTACK -> {
+                Character.Faction faction = FACTIONS[request.get()];
+                return controller -> {
+                    controller.attack(faction);
+                    return true;
+                };
+            }
+            case GameProtocol.SET_GAME_STATE -> {
+                GameEngine.GameState state = GAME_STATES[request.get()];
+                return controller -> controller.setGameState(state);
+            }
+            case GameProtocol.COMMAND -> {
+                String command = GameProtocol.readString(request);
+                return controller -> controller.execute(command);
+            }
+            default -> {
+                return controller -> false;
+            }
+        }
+    }
+
+    /**
+     * Sends the reply of a request once it has been executed, or {@link GameProtocol#FAILED} if it failed
+     * @param connection connection of the client
+     * @param reply the reply
+     */
+    private static void reply(Connection connection, CompletableFuture<ByteBuffer> reply) {
+        reply.whenComplete((frame, failure) -> connection.send(failure == null ? frame : encodeStatus(GameProtocol.FAILED)));
+    }
+
+    /**
+     * @param status status of the reply
+     * @return frame of a reply without any change
+     */
+    private static ByteBuffer encodeStatus(byte status) {
+        ByteBuffer buffer = ByteBuffer.allocate(5);
+        buffer.putInt(1);
+        buffer.put(status);
+        return buffer.flip();
+    }
+
+    /**
+     * Closes a connection and detaches it from its session
+     * @param connection the connection
+     */
+    private void disconnect(Connection connection) {
+        synchronized (connection) {
+            connection.isClosed = true;
+        }
+        if (connection.session != null && attachedConnections.get(connection.session.getId()) == connection) {
+            attachedConnections.remove(connection.session.getId());
+        }
+        SelectionKey key = connection.channel.keyFor(selector);
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            connection.channel.close();
+        } catch (IOException e) {
+            System.out.println("A connection could not be closed: " + e.getMessage());
+        }
+    }
+}
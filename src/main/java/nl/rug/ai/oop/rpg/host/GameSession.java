@@ -0,0 +1,218 @@
+package nl.rug.ai.oop.rpg.host;
+
+import nl.rug.ai.oop.rpg.HeadlessMain;
+import nl.rug.ai.oop.rpg.controler.CommandController;
+import nl.rug.ai.oop.rpg.model.engine.GameEngine;
+import nl.rug.ai.oop.rpg.model.engine.GameRandom;
+import nl.rug.ai.oop.rpg.model.engine.GameStorage;
+import nl.rug.ai.oop.rpg.model.engine.SerialExecutor;
+import nl.rug.ai.oop.rpg.model.inventory.MapItems;
+import nl.rug.ai.oop.rpg.model.inventory.MerchantStock;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Game of one player hosted by a {@link SessionHost}, with its own models and save folder.
+ * A session is an actor: its models are only used by the tasks of its mailbox, which are run one after the other on the threads
+ * shared by all the sessions, hence a session needs no thread of its own and no lock.
+ * The models are created by the first task of the mailbox, so that opening a session does not wait for the files to be read.
+ * The saves are written on another serial executor, so that a session keeps running while its files are written.
+ *
+ * @version 1.0
+ */
+public final class GameSession {
+    private final String id;
+    private final GameStorage storage;
+    private final SerialExecutor mailbox;
+
+    /* Only used by the tasks of the mailbox */
+    private GameEngine gameEngine;
+    private CommandController commandController;
+    private StateDeltas deltas;
+    private boolean isClosed = false;
+    private Throwable creationFailure; //why the models could not be created, if they could not
+
+    /**
+     * Creates a session and queues the creation of its models
+     * @param id identifier of the session
+     * @param storage storage containing the shared resources and the save folder of the session
+     * @param executor executor running the mailboxes of the sessions
+     * @param saveExecutor executor writing the saves of the sessions
+     * @param potionsStock stock of the potion shop, shared by the sessions
+     * @param armoryStock stock of the armory, shared by the sessions
+     */
+    GameSession(String id, GameStorage storage, Executor executor, Executor saveExecutor, MerchantStock potionsStock, MerchantStock armoryStock) {
+        this.id = id;
+        this.storage = storage;
+        this.mailbox = new SerialExecutor(executor);
+        SerialExecutor saves = new SerialExecutor(saveExecutor);
+        mailbox.execute(() -> {
+            try {
+                Files.createDirectories(storage.saveRoot());
+            } catch (IOException e) {
+                System.out.println("The save folder of the session could not be created: " + id);
+            }
+            try {
+                MapItems mapItems = new MapItems(storage);
+                GameEngine createdEngine = HeadlessMain.createGameEngine(storage, mapItems, saves, new GameRandom(), potionsStock, armoryStock);
+                commandController = new CommandController(createdEngine, mapItems);
+                gameEngine = createdEngine;
+            } catch (Throwable e) {
+                creationFailure = e;
+                System.out.println("The game of the session could not be created: " + id + ": " + e);
+            }
+        });
+    }
+
+    /**
+     * @return identifier of the session
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return storage of the session
+     */
+    public GameStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Queues a text command (see {@link CommandController#execute(String)})
+     * @param command the command
+     * @return future completed with true if the command exists and its arguments are valid, otherwise false
+     */
+    public CompletableFuture<Boolean> execute(String command) {
+        return queue(() -> commandController.execute(command));
+    }
+
+    /**
+     * Queues a text command followed by a task reading the state of the game, in the same task of the mailbox,
+     * so that the state after the command is known in a single round trip, as a client of the {@link GameServer} knows it from the reply.
+     * The task must not keep the models, nor give them to another thread.
+     * @param command the command
+     * @param query the task, given the game engine of the session after the command
+     * @param <T> type of the result of the task
+     * @return future completed with the result of the task, or exceptionally if the task failed or the session is closed
+     */
+    public <T> CompletableFuture<T> execute(String command, Function<GameEngine, T> query) {
+        return queue(() -> {
+            commandController.execute(command);
+            return query.apply(gameEngine);
+        });
+    }
+
+    /**
+     * Queues commands given to the controller of the session, e.g. {@link CommandController#move}.
+     * The event bus is flushed after the task, like after a text command.
+     * @param task the task, given the command controller of the session
+     * @param <T> type of the result of the task
+     * @return future completed with the result of the task, or exceptionally if the task failed or the session is closed
+     */
+    public <T> CompletableFuture<T> control(Function<CommandController, T> task) {
+        return queue(() -> {
+            try {
+                return task.apply(commandController);
+            } finally {
+                gameEngine.getEvents().flush();
+            }
+        });
+    }
+
+    /**
+     * Queues a task using the models of the session, e.g. to read their state after some commands.
+     * The task must not keep the models, nor give them to another thread.
+     * @param task the task, given the game engine of the session
+     * @param <T> type of the result of the task
+     * @return future completed with the result of the task, or exceptionally if the task failed or the session is closed
+     */
+    public <T> CompletableFuture<T> submit(Function<GameEngine, T> task) {
+        return queue(() -> task.apply(gameEngine));
+    }
+
+    /**
+     * Queues the attachment of a client of the {@link GameServer}: the reply contains the whole state of the game, and the next replies only its changes.
+     * @return future completed with the frame of the reply
+     */
+    CompletableFuture<ByteBuffer> attach() {
+        return queue(() -> {
+            if (deltas == null) {
+                deltas = new StateDeltas(gameEngine);
+            }
+            deltas.reset();
+            return deltas.encodeReply(GameProtocol.OK);
+        });
+    }
+
+    /**
+     * Queues a request of the client of the {@link GameServer}, after {@link #attach()}
+     * @param command the command, returning true if it is valid, otherwise false
+     * @return future completed with the frame of the reply, containing the changes of the state of the game since the previous reply
+     */
+    CompletableFuture<ByteBuffer> request(Predicate<CommandController> command) {
+        return queue(() -> {
+            boolean isValid;
+            try {
+                isValid = command.test(commandController);
+            } finally {
+                gameEngine.getEvents().flush();
+            }
+            return deltas.encodeReply(isValid ? GameProtocol.OK : GameProtocol.INVALID);
+        });
+    }
+
+    /**
+     * @param task task using the models of the session
+     * @param <T> type of the result of the task
+     * @return future completed with the result of the task, or exceptionally if the task failed, the models could not be created or the session is closed.
+     * An error of the task, e.g. a stack overflow, completes the future too, then is thrown again.
+     */
+    private <T> CompletableFuture<T> queue(Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        mailbox.execute(() -> {
+            if (creationFailure != null) {
+                result.completeExceptionally(new IllegalStateException("The game of the session could not be created: " + id, creationFailure));
+                return;
+            }
+            if (isClosed || gameEngine == null) {
+                result.completeExceptionally(new IllegalStateException("The session is closed: " + id));
+                return;
+            }
+            try {
+                result.complete(task.get());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+                throw e;
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Saves the game and closes the session; the tasks queued afterwards fail.
+     * @return future completed once the save has been written, or exceptionally if it failed
+     */
+    CompletableFuture<Void> close() {
+        CompletableFuture<Void> saved = new CompletableFuture<>();
+        mailbox.execute(() -> {
+            if (isClosed || gameEngine == null) {
+                isClosed = true;
+                saved.complete(null);
+                return;
+            }
+            isClosed = true;
+            gameEngine.save(() -> saved.complete(null), saved::completeExceptionally);
+        });
+        return saved;
+    }
+}
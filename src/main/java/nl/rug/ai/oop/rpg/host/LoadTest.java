@@ -0,0 +1,175 @@
+package nl.rug.ai.oop.rpg.host;
+
+import nl.rug.ai.oop.rpg.model.engine.GameStorage;
+import nl.rug.ai.oop.rpg.model.inventory.ProductInventory;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+/**
+ * Load generator playing many games at the same time with {@link BotPlayer}s, to size the hardware needed by a number of players.
+ * Every bot plays in its own session of a {@link SessionHost}, either directly in the same process or through a local {@link GameServer},
+ * and every bot runs on its own thread, sending its next command once the previous one has been answered.
+ * At the end, the throughput and the percentiles of the latency of the commands are reported.
+ * Usage: LoadTest [--bots count] [--commands count per bot] [--threads count of the host] [--socket] [--random] [--resources folder]
+ * By default, 100 bots send 1000 commands each to sessions in the same process, walk along A* routes, and use the resources of the classpath.
+ * The games are saved in a temporary folder, which is deleted at the end.
+ *
+ * @version 1.0
+ */
+public final class LoadTest {
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        System.setProperty("java.awt.headless", "true");
+        int bots = 100;
+        int commands = 1000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean isUsingSocket = false;
+        boolean isWalkingRandomly = false;
+        Path resourceRoot = null;
+        for (int index = 0; index < args.length; index++) {
+            switch (args[index]) {
+                case "--bots" -> bots = Integer.parseInt(args[++index]);
+                case "--commands" -> commands = Integer.parseInt(args[++index]);
+                case "--threads" -> threads = Integer.parseInt(args[++index]);
+                case "--socket" -> isUsingSocket = true;
+                case "--random" -> isWalkingRandomly = true;
+                case "--resources" -> resourceRoot = Path.of(args[++index]);
+                default -> throw new IllegalArgumentException("Unknown argument: " + args[index]);
+            }
+        }
+
+        Path root = Files.createTempDirectory("rpg-load-test");
+        GameStorage plannerStorage = new GameStorage(resourceRoot, root.resolve("planner"));
+        int[] potions = getProducts("potions", plannerStorage);
+        int[] armory = getProducts("armory", plannerStorage);
+        List<BotPlayer> players = new ArrayList<>();
+        List<BotPlayer.Connection> connections = new ArrayList<>();
+        long elapsed;
+        try (SessionHost host = new SessionHost(resourceRoot, root.resolve("sessions"), threads);
+             GameServer server = isUsingSocket ? new GameServer(host, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)) : null) {
+            for (int index = 0; index < bots; index++) {
+                BotPlayer.Connection connection;
+                if (server != null) {
+                    GameClient client = new GameClient(server.getAddress());
+                    client.open("bot-" + index);
+                    connection = new BotPlayer.SocketConnection(client);
+                } else {
+                    connection = new BotPlayer.SessionConnection(host.open("bot-" + index));
+                }
+                connections.add(connection);
+                players.add(new BotPlayer(connection, index, isWalkingRandomly ? null : plannerStorage, potions, armory, commands));
+            }
+            elapsed = play(players);
+            for (BotPlayer.Connection connection : connections) {
+                connection.close();
+            }
+        } finally {
+            delete(root);
+        }
+        report(players, elapsed);
+    }
+
+    /**
+     * Runs every bot on its own thread, starting them all at the same time
+     * @param players the bots
+     * @return time spent until the last bot is done, in nanoseconds
+     * @throws InterruptedException if interrupted while waiting for the bots
+     */
+    private static long play(List<BotPlayer> players) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int index = 0; index < players.size(); index++) {
+            BotPlayer player = players.get(index);
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    player.play();
+                } catch (IOException e) {
+                    System.out.println("A bot lost its connection: " + e.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "bot-" + index);
+            thread.start();
+            threads.add(thread);
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return System.nanoTime() - begin;
+    }
+
+    /**
+     * Prints the number of commands, the throughput and the percentiles of the latency of the commands
+     * @param players the bots, once they are done
+     * @param elapsed time spent by the bots, in nanoseconds
+     */
+    private static void report(List<BotPlayer> players, long elapsed) {
+        long[] latencies = players.stream().flatMapToLong(player -> Arrays.stream(player.getLatencies())).sorted().toArray();
+        int[] kindCounts = new int[BotPlayer.Kind.values().length];
+        for (BotPlayer player : players) {
+            for (int kind = 0; kind < kindCounts.length; kind++) {
+                kindCounts[kind] += player.getKindCounts()[kind];
+            }
+        }
+        System.out.printf("bots %d, commands %d in %.2f s, throughput %.0f commands/s%n",
+                players.size(), latencies.length, elapsed / 1e9, latencies.length / (elapsed / 1e9));
+        if (latencies.length > 0) {
+            System.out.printf("latency p50 %.1f us, p99 %.1f us, p99.9 %.1f us, max %.1f us%n",
+                    percentile(latencies, 0.5), percentile(latencies, 0.99), percentile(latencies, 0.999), latencies[latencies.length - 1] / 1e3);
+        }
+        StringBuilder kinds = new StringBuilder("commands per kind:");
+        for (BotPlayer.Kind kind : BotPlayer.Kind.values()) {
+            kinds.append(' ').append(kind.name().toLowerCase()).append(' ').append(kindCounts[kind.ordinal()]);
+        }
+        System.out.println(kinds);
+    }
+
+    /**
+     * @param sortedLatencies latencies, sorted, in nanoseconds
+     * @param fraction fraction of the latencies below the percentile, e.g. 0.99
+     * @return the percentile, in microseconds
+     */
+    private static double percentile(long[] sortedLatencies, double fraction) {
+        int index = (int) Math.min(sortedLatencies.length - 1, Math.ceil(fraction * sortedLatencies.length) - 1);
+        return sortedLatencies[Math.max(0, index)] / 1e3;
+    }
+
+    /**
+     * @param owner owner of the shop
+     * @param storage storage containing the item files
+     * @return identifiers of the products of the shop
+     */
+    private static int[] getProducts(String owner, GameStorage storage) {
+        ProductInventory shop = new ProductInventory(owner, storage);
+        shop.initialiseOriginalInventory(false);
+        return shop.getCurrentArrayOfProductRecords().stream().mapToInt(record -> record.item().getIdentifier()).toArray();
+    }
+
+    /**
+     * Deletes a folder and all its files
+     * @param root the folder
+     * @throws IOException if a file could not be deleted
+     */
+    private static void delete(Path root) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package nl.rug.ai.oop.rpg.host;
+
+import nl.rug.ai.oop.rpg.model.engine.GameStorage;
+import nl.rug.ai.oop.rpg.model.inventory.MerchantStock;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Host running many isolated games in the same process, each in a {@link GameSession} with its own save folder.
+ * The sessions share the data which never changes, i.e. the maps and walkable terrain of the locations and the item definitions,
+ * which are loaded once per resource folder; only the state of the game is kept per session.
+ * The merchants are shared too: all the sessions buy from and sell to the same {@link MerchantStock}s.
+ * They are saved in the save root by the host when it is closed (the sessions do not save them), and restored when a host is created on the same save root,
+ * otherwise they start full.
+ * All the sessions are run by a fixed pool of threads, and their saves by another one, whatever the number of sessions.
+ *
+ * @version 1.0
+ */
+public final class SessionHost implements AutoCloseable {
+    private static final Pattern SESSION_ID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+
+    private final Path resourceRoot;
+    private final Path saveRoot;
+    private final GameStorage stockStorage; //storage of the shared stocks, saved in the save root
+    private final ExecutorService executor;
+    private final ExecutorService saveExecutor;
+    private final ConcurrentHashMap<String, GameSession> sessions = new ConcurrentHashMap<>();
+    private final MerchantStock potionsStock;
+    private final MerchantStock armoryStock;
+
+    /**
+     * Creates a host running the sessions on one thread per processor
+     * @param resourceRoot folder containing the resources, or null to use the classpath
+     * @param saveRoot folder containing the save folders of the sessions
+     */
+    public SessionHost(Path resourceRoot, Path saveRoot) {
+        this(resourceRoot, saveRoot, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a host
+     * @param resourceRoot folder containing the resources, or null to use the classpath
+     * @param saveRoot folder containing the save folders of the sessions
+     * @param threads number of threads running the sessions, and of threads writing their saves
+     */
+    public SessionHost(Path resourceRoot, Path saveRoot, int threads) {
+        this.resourceRoot = resourceRoot;
+        this.saveRoot = saveRoot;
+        this.executor = Executors.newFixedThreadPool(threads, createThreadFactory("session"));
+        this.saveExecutor = Executors.newFixedThreadPool(threads, createThreadFactory("session-save"));
+        this.stockStorage = new GameStorage(resourceRoot, saveRoot);
+        this.potionsStock = loadStock("potions");
+        this.armoryStock = loadStock("armory");
+    }
+
+    /**
+     * @param owner owner of the shop, e.g. potions
+     * @return {@link MerchantStock} stock of the shop, as saved by the last host on the same save root if there was one
+     */
+    private MerchantStock loadStock(String owner) {
+        if (Files.exists(Path.of(stockStorage.getSavePath(owner + "Stock.txt")))) {
+            return MerchantStock.loadSaved(owner, stockStorage);
+        }
+        return MerchantStock.load(owner, stockStorage);
+    }
+
+    /**
+     * Gives a session, opening it if it is not open yet. The game of a new session is loaded from its save folder, if any.
+     * @param id identifier of the session, made of letters, digits, dashes and underscores, which is also the name of its save folder
+     * @return {@link GameSession} the session
+     * @throws IllegalArgumentException if the identifier is not valid
+     */
+    public GameSession open(String id) {
+        if (!SESSION_ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("Invalid session identifier: " + id);
+        }
+        return sessions.computeIfAbsent(id, key -> new GameSession(key, new GameStorage(resourceRoot, saveRoot.resolve(key)), executor, saveExecutor,
+                potionsStock, armoryStock));
+    }
+
+    /**
+     * @param id identifier of the session
+     * @return {@link GameSession} the session, or null if it is not open
+     */
+    public GameSession get(String id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * @return {@link MerchantStock} stock of the potion shop, shared by all the sessions
+     */
+    public MerchantStock getPotionsStock() {
+        return potionsStock;
+    }
+
+    /**
+     * @return {@link MerchantStock} stock of the armory, shared by all the sessions
+     */
+    public MerchantStock getArmoryStock() {
+        return armoryStock;
+    }
+
+    /**
+     * @return number of open sessions
+     */
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * Saves and closes a session
+     * @param id identifier of the session
+     * @return future completed once the session has been saved, immediately if it was not open
+     */
+    public CompletableFuture<Void> close(String id) {
+        GameSession session = sessions.remove(id);
+        return session == null ? CompletableFuture.completedFuture(null) : session.close();
+    }
+
+    /**
+     * Saves and closes all the sessions and saves the shared stocks, then stops the threads of the host
+     */
+    @Override
+    public void close() {
+        List<CompletableFuture<Void>> saved = new ArrayList<>();
+        for (String id : List.copyOf(sessions.keySet())) {
+            saved.add(close(id).exceptionally(e -> {
+                System.out.println("Failed save of the session " + id + ": " + e.getMessage());
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(saved.toArray(new CompletableFuture<?>[0])).join();
+        try {
+            Files.createDirectories(saveRoot);
+            potionsStock.snapshot(stockStorage.getSavePath("potionsStock.txt")).write();
+            armoryStock.snapshot(stockStorage.getSavePath("armoryStock.txt")).write();
+        } catch (IOException e) {
+            System.out.println("Failed save of the stocks of the merchants: " + e.getMessage());
+        }
+        executor.shutdown();
+        saveExecutor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES) || !saveExecutor.awaitTermination(1, TimeUnit.MINUTES)) {
+                System.out.println("The sessions could not be stopped in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param name prefix of the names of the threads
+     * @return factory of daemon threads, numbered after the prefix
+     */
+    private static ThreadFactory createThreadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
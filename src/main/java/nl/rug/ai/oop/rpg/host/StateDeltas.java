@@ -0,0 +1,126 @@
+package nl.rug.ai.oop.rpg.host;
+
+import nl.rug.ai.oop.rpg.model.engine.GameEngine;
+import nl.rug.ai.oop.rpg.model.inventory.BagInventory;
+import nl.rug.ai.oop.rpg.model.locations.GameLocation;
+import nl.rug.ai.oop.rpg.model.player.PlayerModel;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * Changes of the state of a session since the last reply sent to its client, encoded in the replies of the {@link GameProtocol}.
+ * The changes are collected from the events of the models, hence a reply only contains what has changed,
+ * e.g. the changed records of the bag instead of the whole array of item records.
+ * Like the models, it is only used by the tasks of the mailbox of its session.
+ *
+ * @version 1.0
+ */
+final class StateDeltas {
+    private final GameEngine gameEngine;
+    private boolean hasGameStateChanged = false;
+    private boolean hasPositionChanged = false;
+    private boolean hasPlayerChanged = false;
+    private boolean hasItemsReset = false;
+    private final ArrayList<BagInventory.ItemChange> itemChanges = new ArrayList<>();
+
+    /**
+     * Subscribes to the events of the models of a session
+     * @param gameEngine game engine of the session
+     */
+    StateDeltas(GameEngine gameEngine) {
+        this.gameEngine = gameEngine;
+        gameEngine.getEvents().subscribe(GameEngine.GameStateChanged.class, gameEngine, event -> hasGameStateChanged = true);
+        gameEngine.getEvents().subscribe(GameLocation.PositionChanged.class, gameEngine.getLocation(), event -> hasPositionChanged = true);
+        gameEngine.getEvents().subscribe(PlayerModel.PlayerChanged.class, gameEngine.getPlayerModel(), event -> hasPlayerChanged = true);
+        gameEngine.getEvents().subscribe(PlayerModel.PlayerDied.class, gameEngine.getPlayerModel(), event -> hasPlayerChanged = true);
+        gameEngine.getEvents().subscribe(BagInventory.ContentChanged.class, gameEngine.getInventory(), event -> {
+            if (!hasItemsReset) {
+                itemChanges.addAll(event.getChanges());
+            }
+        });
+    }
+
+    /**
+     * Marks the whole state as changed, so that the next reply contains all of it, e.g. for a new client
+     */
+    void reset() {
+        hasGameStateChanged = true;
+        hasPositionChanged = true;
+        hasPlayerChanged = true;
+        hasItemsReset = true;
+        itemChanges.clear();
+    }
+
+    /**
+     * Encodes a reply with the changes since the previous reply, and forgets them
+     * @param status status of the reply
+     * @return buffer containing the frame of the reply, ready to be written
+     */
+    ByteBuffer encodeReply(byte status) {
+        ArrayList<BagInventory.ItemRecord> records = gameEngine.getInventory().getCurrentArrayOfItemRecords();
+        int length = 1;
+        length += hasGameStateChanged ? 2 : 0;
+        length += hasPositionChanged ? 10 : 0;
+        length += hasPlayerChanged ? 14 : 0;
+        if (hasItemsReset) {
+            length += 5 + 8 * records.size();
+        } else {
+            for (BagInventory.ItemChange change : itemChanges) {
+                length += change.kind() == BagInventory.ChangeKind.REMOVED ? 5 : 13;
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(4 + length);
+        buffer.putInt(length);
+        buffer.put(status);
+        if (hasGameStateChanged) {
+            buffer.put(GameProtocol.GAME_STATE);
+            buffer.put((byte) gameEngine.getGameState().ordinal());
+        }
+        if (hasPositionChanged) {
+            int[] coordinates = gameEngine.getLocation().getPlayerCoordinates();
+            buffer.put(GameProtocol.POSITION);
+            buffer.put((byte) gameEngine.getLocation().getLocation().ordinal());
+            buffer.putInt(coordinates[0]);
+            buffer.putInt(coordinates[1]);
+        }
+        if (hasPlayerChanged) {
+            PlayerModel player = gameEngine.getPlayerModel();
+            buffer.put(GameProtocol.PLAYER);
+            buffer.putInt(player.getMoney());
+            buffer.putInt(player.getHealth().getHp());
+            buffer.putInt(player.getHealth().getMaxHp());
+            buffer.put((byte) player.getState().ordinal());
+        }
+        if (hasItemsReset) {
+            buffer.put(GameProtocol.ITEMS);
+            buffer.putInt(records.size());
+            for (BagInventory.ItemRecord record : records) {
+                buffer.putInt(record.item().getIdentifier());
+                buffer.putInt(record.quantity());
+            }
+        } else {
+            for (BagInventory.ItemChange change : itemChanges) {
+                buffer.put(switch (change.kind()) {
+                    case INSERTED -> GameProtocol.ITEM_INSERTED;
+                    case UPDATED -> GameProtocol.ITEM_UPDATED;
+                    case REMOVED -> GameProtocol.ITEM_REMOVED;
+                });
+                buffer.putInt(change.index());
+                if (change.kind() != BagInventory.ChangeKind.REMOVED) {
+                    buffer.putInt(change.record().item().getIdentifier());
+                    buffer.putInt(change.record().quantity());
+                }
+            }
+        }
+        buffer.flip();
+
+        hasGameStateChanged = false;
+        hasPositionChanged = false;
+        hasPlayerChanged = false;
+        hasItemsReset = false;
+        itemChanges.clear();
+        return buffer;
+    }
+}
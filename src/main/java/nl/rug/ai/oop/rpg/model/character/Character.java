@@ -1,9 +1,9 @@
 package nl.rug.ai.oop.rpg.model.character;
 
-import java.beans.PropertyChangeListener;
+import nl.rug.ai.oop.rpg.model.engine.EventBus;
+
 import java.io.Serial;
 import java.io.Serializable;
-import java.util.ArrayList;
 import java.util.HashMap;
 
 /**
@@ -26,7 +26,7 @@ public abstract class Character implements Serializable {
     protected int money = 1;
 
 
-    transient protected ArrayList<PropertyChangeListener> listeners = new ArrayList<>(); //array list containing the listeners
+    transient protected EventBus events; //event bus to which the changes are posted
 
     /**
      * Default constructor, fills the hashmap
@@ -126,19 +126,11 @@ public abstract class Character implements Serializable {
     abstract public Faction getAttackType();
 
     /**
-     * Add a listener to the arraylist of listeners
-     * @param listener the listener to add
-     */
-    public void addListener(PropertyChangeListener listener) {
-        listeners.add(listener);
-    }
-
-    /**
-     * remove a listener of this player
-     * @param listener a property change listener to be removed
+     * Set the event bus to which the changes of the character are posted
+     * @param events the event bus of the game
      */
-    public void removeListener(PropertyChangeListener listener) {
-        listeners.remove(listener);
+    public void setEventBus(EventBus events) {
+        this.events = events;
     }
 
     /**
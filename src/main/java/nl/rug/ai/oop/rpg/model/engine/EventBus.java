@@ -0,0 +1,151 @@
+package nl.rug.ai.oop.rpg.model.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Central bus delivering the changes of the models to the views, the controllers and the game engine.
+ * The subscribers choose the type of event they want to receive, and optionally the model it comes from.
+ * Events are not delivered when they are posted, but when the bus is flushed at the end of a tick: an event posted several times
+ * during a tick is delivered only once to each subscriber, in the order in which the events were first posted.
+ * A tick ends when {@link #flush()} is called, e.g. after every text command, or automatically through the scheduler given
+ * to {@link #setScheduler(Executor)}, e.g. at the end of the current Swing event.
+ *
+ * @version 1.0
+ */
+public final class EventBus {
+    private final HashMap<Class<? extends GameEvent>, CopyOnWriteArrayList<Subscription<?>>> subscriptions = new HashMap<>(); //copied when a subscriber is added, so that the delivery does not hold the lock
+    private ArrayList<GameEvent> pending = new ArrayList<>();
+    private ArrayList<GameEvent> delivering = new ArrayList<>();
+    private Executor scheduler = null;
+    private boolean isFlushScheduled = false;
+    private boolean isFlushing = false;
+
+    /**
+     * Subscriber of a type of event, optionally only from one model
+     * @param source the model whose events are delivered, or null for all the models
+     * @param subscriber the subscriber
+     */
+    private record Subscription<E extends GameEvent>(Object source, Consumer<? super E> subscriber) {
+        private void deliver(GameEvent event) {
+            if (source == null || source == event.getSource()) {
+                @SuppressWarnings("unchecked")
+                E typedEvent = (E) event;
+                subscriber.accept(typedEvent);
+            }
+        }
+    }
+
+    /**
+     * Sets the executor flushing the bus after the first event of a tick has been posted, e.g. SwingUtilities::invokeLater.
+     * Without a scheduler, the bus is only flushed by calling {@link #flush()}.
+     * @param scheduler the executor, or null
+     */
+    public synchronized void setScheduler(Executor scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Subscribes to a type of event, from all the models
+     * @param type the type of event
+     * @param subscriber the subscriber
+     */
+    public <E extends GameEvent> void subscribe(Class<E> type, Consumer<? super E> subscriber) {
+        subscribe(type, null, subscriber);
+    }
+
+    /**
+     * Subscribes to a type of event, from one model only
+     * @param type the type of event
+     * @param source the model whose events are delivered
+     * @param subscriber the subscriber
+     */
+    public synchronized <E extends GameEvent> void subscribe(Class<E> type, Object source, Consumer<? super E> subscriber) {
+        subscriptions.computeIfAbsent(type, key -> new CopyOnWriteArrayList<>()).add(new Subscription<>(source, subscriber));
+    }
+
+    /**
+     * Posts an event, which is delivered when the bus is flushed. Posting an event which has not been delivered yet has no effect.
+     * @param event the event
+     */
+    public void post(GameEvent event) {
+        Executor flushScheduler;
+        synchronized (this) {
+            if (event.pending) {
+                return;
+            }
+            event.pending = true;
+            pending.add(event);
+            if (scheduler == null || isFlushScheduled) {
+                return;
+            }
+            isFlushScheduled = true;
+            flushScheduler = scheduler;
+        }
+        flushScheduler.execute(this::flush);
+    }
+
+    /**
+     * Delivers the pending events to their subscribers. Events posted by the subscribers are delivered in the same flush.
+     * If the bus is already being flushed, the events are left to that flush.
+     */
+    public void flush() {
+        synchronized (this) {
+            if (isFlushing) {
+                return;
+            }
+            isFlushing = true;
+        }
+        try {
+            ArrayList<GameEvent> events;
+            while ((events = takePending()) != null) {
+                try {
+                    for (GameEvent event : events) {
+                        deliver(event);
+                    }
+                } finally {
+                    events.clear();
+                }
+            }
+        } finally {
+            synchronized (this) {
+                isFlushing = false;
+            }
+        }
+    }
+
+    /**
+     * Swaps the list of pending events with the empty list of delivered events, so that no list is allocated at every tick
+     * @return the events to be delivered, or null if there are none
+     */
+    private synchronized ArrayList<GameEvent> takePending() {
+        isFlushScheduled = false;
+        if (pending.isEmpty()) {
+            return null;
+        }
+        ArrayList<GameEvent> events = pending;
+        pending = delivering;
+        delivering = events;
+        for (GameEvent event : events) {
+            event.pending = false;
+        }
+        return events;
+    }
+
+    /**
+     * @param event the event to be delivered to its subscribers
+     */
+    private void deliver(GameEvent event) {
+        CopyOnWriteArrayList<Subscription<?>> subscribers;
+        synchronized (this) {
+            subscribers = subscriptions.get(event.getClass());
+        }
+        // Subscribers can be added during the delivery, hence the size is read again at every step
+        for (int index = 0; subscribers != null && index < subscribers.size(); index++) {
+            subscribers.get(index).deliver(event);
+        }
+    }
+}
@@ -7,15 +7,20 @@ import nl.rug.ai.oop.rpg.model.inventory.MapItems;
 import nl.rug.ai.oop.rpg.model.inventory.ProductInventory;
 import nl.rug.ai.oop.rpg.model.locations.GameLocation;
 import nl.rug.ai.oop.rpg.model.npc.Enemy;
+import nl.rug.ai.oop.rpg.model.npc.NpcSimulation;
 import nl.rug.ai.oop.rpg.model.player.FightNPCModel;
 import nl.rug.ai.oop.rpg.model.player.PlayerModel;
 
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * General class for the game engine that runs our game.
@@ -26,7 +31,21 @@ public class GameEngine {
     //TODO Xu remember to address this NPCs list
     List<Character> NPCs = new ArrayList<>();
 
-    private final Collection<PropertyChangeListener> listeners = new ArrayList<>();
+    private final EventBus events = new EventBus();
+    private final GameStateChanged gameStateChanged = new GameStateChanged();
+    private final LanguageChanged languageChanged = new LanguageChanged();
+    private final Executor saveExecutor; //runs the saves one after the other
+    private final ExecutorService ownSaveExecutor; //save thread of the engine, or null if the save executor is shared
+    private static final int COMPACTION_THRESHOLD = 256;
+    /**
+     * Number of ticks between two steps of the enemies, twice the ticks of a step of the player so that the player can escape
+     */
+    public static final int TICKS_PER_ENEMY_STEP = 8;
+    private final GameStorage storage;
+    private final SaveJournal journal;
+    private boolean hasFullSave = false;
+    private SaveJournal.Position lastPosition;
+    private SaveJournal.PlayerStats lastPlayerStats;
 
     /**
      * Enumeration of possible game languages
@@ -44,12 +63,47 @@ public class GameEngine {
     }
     private GameState gameState;
 
+    /**
+     * Event posted when the game state has changed
+     */
+    public final class GameStateChanged extends GameEvent {
+        private GameStateChanged() {
+            super(GameEngine.this);
+        }
+
+        /**
+         * @return the new game state
+         */
+        public GameState getGameState() {
+            return gameState;
+        }
+    }
+
+    /**
+     * Event posted when the language has changed
+     */
+    public final class LanguageChanged extends GameEvent {
+        private LanguageChanged() {
+            super(GameEngine.this);
+        }
+
+        /**
+         * @return the new language
+         */
+        public Language getLanguage() {
+            return language;
+        }
+    }
 
     /* All the models of our game */
     private final PlayerModel playerModel;
     private final GameLocation location;
     private final BagInventory inventory;
     private Enemy enemy; //TODO Xu remember to address this variable
+    private final ArrayList<Enemy> enemies = new ArrayList<>(); //enemies placed on the map
+    private final NpcSimulation npcSimulation;
+    private final GameRandom random;
+    private long tick = 0;
     private final MapItems mapItems;
     private final ProductInventory potions;
     private final ProductInventory armory;
@@ -67,6 +121,30 @@ public class GameEngine {
         return gameState;
     }
 
+    /**
+     * Getter for the source of the random numbers of the game
+     * @return {@link GameRandom} Random numbers of our game
+     */
+    public GameRandom getRandom() {
+        return random;
+    }
+
+    /**
+     * Getter for the number of ticks of the world since the game engine was created, i.e. the number of calls to {@link #advanceTick()}
+     * @return Current tick of our game
+     */
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Getter for the event bus through which the models notify the views
+     * @return {@link EventBus} Event bus of our game
+     */
+    public EventBus getEvents() {
+        return events;
+    }
+
     /**
      * Getter for the player model
      * @author Otto Bervoets
@@ -113,6 +191,21 @@ public class GameEngine {
     }
 
 
+    /**
+     * Generates a game engine for the game, using the resource files and the save files of the game.
+     * See {@link #GameEngine(GameStorage, GameLocation, BagInventory, Enemy, PlayerModel, MapItems, ProductInventory, ProductInventory)}.
+     * @param location Location model
+     * @param inventory Inventory model
+     * @param enemy Enemy model
+     * @param playerModel Player model
+     * @param mapItems Map items model
+     * @param potions Potion shop model
+     * @param armory Armory shop model
+     */
+    public GameEngine(GameLocation location, BagInventory inventory, Enemy enemy, PlayerModel playerModel, MapItems mapItems, ProductInventory potions, ProductInventory armory) {
+        this(GameStorage.DEFAULT, location, inventory, enemy, playerModel, mapItems, potions, armory);
+    }
+
     /**
      * Generates a game engine for the game which is a way for our models to communicate
      * Sets all models as variables of this class.
@@ -120,7 +213,9 @@ public class GameEngine {
      * or if we are using the saved data.
      * Passes this game engine to the models that need it.
      * Adds remaining data that needs to be added.
+     * The models should have been created with the same storage as the game engine.
      * @author Aurélie Gallet
+     * @param storage Storage containing the resource files and the save files
      * @param location Location model
      * @param inventory Inventory model
      * @param enemy Enemy model
@@ -129,7 +224,58 @@ public class GameEngine {
      * @param potions Potion shop model
      * @param armory Armory shop model
      */
-    public GameEngine(GameLocation location, BagInventory inventory, Enemy enemy, PlayerModel playerModel, MapItems mapItems, ProductInventory potions, ProductInventory armory) {
+    public GameEngine(GameStorage storage, GameLocation location, BagInventory inventory, Enemy enemy, PlayerModel playerModel, MapItems mapItems, ProductInventory potions, ProductInventory armory) {
+        this(storage, null, location, inventory, enemy, playerModel, mapItems, potions, armory);
+    }
+
+    /**
+     * Generates a game engine whose saves are written by the given executor instead of a save thread of its own,
+     * so that many games can be run in the same process without one thread per game (see {@link SerialExecutor}).
+     * See {@link #GameEngine(GameStorage, GameLocation, BagInventory, Enemy, PlayerModel, MapItems, ProductInventory, ProductInventory)}.
+     * @param storage Storage containing the resource files and the save files
+     * @param saveExecutor Executor writing the saves, which must run its tasks one after the other, or null to use a save thread of its own
+     * @param location Location model
+     * @param inventory Inventory model
+     * @param enemy Enemy model
+     * @param playerModel Player model
+     * @param mapItems Map items model
+     * @param potions Potion shop model
+     * @param armory Armory shop model
+     */
+    public GameEngine(GameStorage storage, Executor saveExecutor, GameLocation location, BagInventory inventory, Enemy enemy, PlayerModel playerModel, MapItems mapItems, ProductInventory potions, ProductInventory armory) {
+        this(storage, saveExecutor, new GameRandom(), location, inventory, enemy, playerModel, mapItems, potions, armory);
+    }
+
+    /**
+     * Generates a game engine drawing all its random numbers from the given source, so that the game can be played again identically
+     * from the same save files (see {@link nl.rug.ai.oop.rpg.controler.CommandReplay}).
+     * See {@link #GameEngine(GameStorage, Executor, GameLocation, BagInventory, Enemy, PlayerModel, MapItems, ProductInventory, ProductInventory)}.
+     * @param storage Storage containing the resource files and the save files
+     * @param saveExecutor Executor writing the saves, which must run its tasks one after the other, or null to use a save thread of its own
+     * @param random Source of the random numbers of the game
+     * @param location Location model
+     * @param inventory Inventory model
+     * @param enemy Enemy model
+     * @param playerModel Player model
+     * @param mapItems Map items model
+     * @param potions Potion shop model
+     * @param armory Armory shop model
+     */
+    public GameEngine(GameStorage storage, Executor saveExecutor, GameRandom random, GameLocation location, BagInventory inventory, Enemy enemy, PlayerModel playerModel, MapItems mapItems, ProductInventory potions, ProductInventory armory) {
+        this.random = random;
+        if (saveExecutor == null) {
+            this.ownSaveExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "save-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.saveExecutor = ownSaveExecutor;
+        } else {
+            this.ownSaveExecutor = null;
+            this.saveExecutor = saveExecutor;
+        }
+        this.storage = storage;
+        this.journal = new SaveJournal(storage.getSavePath("journal.txt"));
         this.location = location;
         this.inventory = inventory;
         this.playerModel = playerModel;
@@ -148,15 +294,99 @@ public class GameEngine {
             potions.initialiseOriginalInventory(false);
             armory.initialiseOriginalInventory(false);
             mapItems.initialiseMapItems(false);
+            execute(journal.clear());
         } else {
             gameState = GameState.WALKING;
             inventory.initialiseSavedInventory();
             potions.initialiseSavedInventory();
             armory.initialiseSavedInventory();
             mapItems.initialiseSavedMapItems();
+            replayJournal();
         }
         mapItems.putAllItems();
         addEnemy();
+        enemy.setRandom(random.get(GameRandom.Stream.ENEMIES));
+        playerModel.setRandom(random.get(GameRandom.Stream.FIGHTS));
+        npcSimulation = new NpcSimulation(location, enemies, random.get(GameRandom.Stream.NPC_SIMULATION).nextLong());
+        location.setEventBus(events);
+        inventory.setEventBus(events);
+        mapItems.setEventBus(events);
+        potions.setEventBus(events);
+        armory.setEventBus(events);
+        playerModel.setEventBus(events);
+        enemy.setEventBus(events);
+        events.subscribe(GameLocation.PositionChanged.class, location, event -> recordPosition());
+        events.subscribe(PlayerModel.PlayerChanged.class, playerModel, event -> recordPlayerStats());
+        events.subscribe(PlayerModel.PlayerDied.class, playerModel, event -> recordPlayerStats());
+        if (gameState == GameState.WALKING) {
+            save(); // compacts the replayed journal
+        }
+    }
+
+    /**
+     * Applies the entries of the save journal to the models loaded from the last full save.
+     */
+    private void replayJournal() {
+        try {
+            for (SaveJournal.Entry entry : journal.read()) {
+                if (entry instanceof SaveJournal.Position position) {
+                    location.restorePosition(position.location(), position.x(), position.y(), position.lastIslandX(), position.lastIslandY());
+                } else if (entry instanceof SaveJournal.PlayerStats stats) {
+                    playerModel.restoreStats(stats.money(), stats.hp(), stats.maxHp(), stats.defence(), stats.fireAttack(), stats.woodAttack(), stats.waterAttack());
+                } else if (entry instanceof SaveJournal.BagItem item) {
+                    inventory.restoreItem(item);
+                } else if (entry instanceof SaveJournal.MapItemCount count) {
+                    mapItems.restoreItemCount(count);
+                } else if (entry instanceof SaveJournal.StockLevel stock) {
+                    potions.restoreStock(stock);
+                    armory.restoreStock(stock);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println("The save journal could not be replayed completely: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records a change of the game state in the save journal, so that it is saved without saving the whole game.
+     * If there is no full save to apply the journal to yet, or if the journal has become too long, the whole game is saved instead.
+     * Nothing is recorded while the player is being built.
+     * @param entry the journal entry describing the change
+     */
+    public void record(SaveJournal.Entry entry) {
+        if (playerModel.getState() == PlayerModel.State.BUILDING) {
+            return;
+        }
+        if (!hasFullSave || journal.size() >= COMPACTION_THRESHOLD) {
+            save();
+        } else {
+            execute(journal.append(entry));
+        }
+    }
+
+    /**
+     * Records the position of the player in the save journal, if it has changed.
+     */
+    private void recordPosition() {
+        int[] coordinates = location.getPlayerCoordinates();
+        int[] lastIslandCoordinates = location.getLastIslandCoordinates();
+        SaveJournal.Position position = new SaveJournal.Position(location.getLocation(), coordinates[0], coordinates[1], lastIslandCoordinates[0], lastIslandCoordinates[1]);
+        if (!position.equals(lastPosition)) {
+            lastPosition = position;
+            record(position);
+        }
+    }
+
+    /**
+     * Records the statistics of the player in the save journal, if they have changed.
+     */
+    private void recordPlayerStats() {
+        SaveJournal.PlayerStats stats = new SaveJournal.PlayerStats(playerModel.getMoney(), playerModel.getHealth().getHp(), playerModel.getHealth().getMaxHp(),
+                playerModel.getDefence(), playerModel.getAttackStrength(Character.Faction.FIRE), playerModel.getAttackStrength(Character.Faction.WOOD), playerModel.getAttackStrength(Character.Faction.WATER));
+        if (!stats.equals(lastPlayerStats)) {
+            lastPlayerStats = stats;
+            record(stats);
+        }
     }
 
     /**
@@ -192,7 +422,7 @@ public class GameEngine {
             System.out.println("set state death");
             gameState = GameState.DEATH;
         }
-        notifyListenersGameState(gameState);
+        events.post(gameStateChanged);
     }
 
     /**
@@ -206,7 +436,7 @@ public class GameEngine {
         }
         gameState = GameState.FIGHTING;
         playerModel.fightNPC(NPC);
-        notifyListenersGameState(gameState);
+        events.post(gameStateChanged);
     }
 
     /**
@@ -219,7 +449,7 @@ public class GameEngine {
         }
         gameState = GameState.FIGHTING;
         playerModel.testFight();
-        notifyListenersGameState(gameState);
+        events.post(gameStateChanged);
     }
 
     /**
@@ -231,7 +461,7 @@ public class GameEngine {
         if (gameState != changeGameState) {
             gameState = changeGameState;
         }
-        notifyListenersGameState(gameState);
+        events.post(gameStateChanged);
     }
 
     /**
@@ -244,23 +474,50 @@ public class GameEngine {
 
     public void addEnemy() {
         try (Scanner fileInput = new Scanner(Objects.requireNonNull(
-                BagInventory.class.getResourceAsStream("/npc_setup/enemy_setup.txt")))) {
+                storage.openResource("/npc_setup/enemy_setup.txt")))) {
             while (fileInput.hasNextLine()) {
                 int xLocation = fileInput.nextInt();
                 int yLocation = fileInput.nextInt();
                 String imagePath = "/skins/redguy.png";
-                location.addObject("Enemy", this,
+                Enemy enemyOnMap = new Enemy();
+                enemyOnMap.setRandom(random.get(GameRandom.Stream.ENEMIES));
+                enemyOnMap.place(GameLocation.Location.ISLAND, xLocation, yLocation);
+                enemies.add(enemyOnMap);
+                location.addObject("Enemy", enemyOnMap,
                         GameLocation.Location.ISLAND, xLocation,  yLocation, imagePath, false);
             }
         }
     }
 
+    /**
+     * Advances the world by one tick, which is one tick of the game loop while the game is displayed.
+     * Every {@link #TICKS_PER_ENEMY_STEP} ticks, the enemies take a step.
+     */
+    public void advanceTick() {
+        tick++;
+        if (tick % TICKS_PER_ENEMY_STEP == 0) {
+            moveEnemies();
+        }
+    }
+
+    /**
+     * Advances the enemies of all the locations by one step (see {@link NpcSimulation}):
+     * the enemies in the location of the player chase it, the other ones wander around, also while the player is indoors.
+     * The enemies do not move while the player is being built, fighting or dead.
+     */
+    private void moveEnemies() {
+        if (gameState == GameState.BUILDING_PLAYER || gameState == GameState.FIGHTING || gameState == GameState.DEATH) {
+            return;
+        }
+        npcSimulation.step();
+    }
+
 
     /* Saving, updating and notifying */
 
     /**
      * Switches to a different language, updating the language of each model.
-     * The listeners are then notified.
+     * The subscribers are then notified.
      * @author Luca Colli
      */
     public void changeLanguage() {
@@ -273,52 +530,95 @@ public class GameEngine {
         playerModel.updateLanguage(language);
         potions.updateLanguage(language);
         armory.updateLanguage(language);
-        notifyListenersLanguage(language);
+        events.post(languageChanged);
     }
 
     /**
-     * Saves the current game progress by calling the save function of each model.
+     * Saves the current game progress in the background. A failed save is reported on the standard output.
+     * Once the save has been written, the save journal is cleared.
      * @author Luca Colli
      */
     public void save() {
-        location.save();
-        inventory.save();
-        mapItems.save();
-        playerModel.save();
-        potions.save();
-        armory.save();
+        save(() -> {}, e -> System.out.println("Failed save: " + e.getMessage()));
     }
 
     /**
-     * Allows a view to listen to model changes by adding itself as a listener
-     * @author Aurélie Gallet
-     * @param listener View that is listening to the game engine
+     * Saves the current game progress without blocking the game.
+     * A snapshot of each model is taken immediately on the calling thread, which must be the thread that modifies the models.
+     * The snapshots are then serialized and written by the save thread, one save after the other.
+     * The callbacks are executed on the save thread.
+     * @param onCompletion executed when all the files have been written
+     * @param onFailure executed with the first error if at least one file could not be written
      */
-    public void addListener(PropertyChangeListener listener) {
-        listeners.add(listener);
+    public void save(Runnable onCompletion, Consumer<Exception> onFailure) {
+        List<SaveTask> snapshots = List.of(location.snapshot(), inventory.snapshot(), mapItems.snapshot(),
+                playerModel.snapshot(), potions.snapshot(), armory.snapshot());
+        SaveTask clearJournal = journal.clear();
+        hasFullSave = true;
+        saveExecutor.execute(() -> {
+            Exception failure = null;
+            for (SaveTask snapshot : snapshots) {
+                try {
+                    snapshot.write();
+                } catch (IOException | RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+            if (failure == null) {
+                try {
+                    clearJournal.write();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+            if (failure == null) {
+                onCompletion.run();
+            } else {
+                onFailure.accept(failure);
+            }
+        });
     }
 
     /**
-     * Notifies listeners if the game state has been changed
-     * @author Aurélie Gallet
-     * @param gameState New value of the game state
+     * Stops the save thread and waits until the pending saves have been written.
+     * Used when several games are created in the same process (e.g. by benchmarks), since the save thread is otherwise kept alive.
+     * If the save executor is shared, it is not stopped, but the pending saves of this game are still waited for.
+     * The game cannot be saved anymore afterwards.
      */
-    private void notifyListenersGameState(GameState gameState) {
-        PropertyChangeEvent event = new PropertyChangeEvent(this, "gameState", null, gameState);
-        for (PropertyChangeListener listener: listeners) {
-            listener.propertyChange(event);
+    public void close() {
+        try {
+            boolean isWritten;
+            if (ownSaveExecutor != null) {
+                ownSaveExecutor.shutdown();
+                isWritten = ownSaveExecutor.awaitTermination(1, TimeUnit.MINUTES);
+            } else {
+                CountDownLatch written = new CountDownLatch(1);
+                saveExecutor.execute(written::countDown);
+                isWritten = written.await(1, TimeUnit.MINUTES);
+            }
+            if (!isWritten) {
+                System.out.println("The pending saves could not be written in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
     /**
-     * Notifies listeners if the language has been changed
-     * @author Aurélie Gallet
-     * @param language New value of the language
+     * Writes a save task on the save thread. A failure is reported on the standard output.
+     * @param task the task to be written
      */
-    private void notifyListenersLanguage(Language language) {
-        PropertyChangeEvent event = new PropertyChangeEvent(this, "language", null, language);
-        for (PropertyChangeListener listener: listeners) {
-            listener.propertyChange(event);
-        }
+    private void execute(SaveTask task) {
+        saveExecutor.execute(() -> {
+            try {
+                task.write();
+            } catch (IOException e) {
+                System.out.println("Failed save: " + e.getMessage());
+            }
+        });
     }
 }
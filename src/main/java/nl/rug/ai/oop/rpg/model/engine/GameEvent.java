@@ -0,0 +1,40 @@
+package nl.rug.ai.oop.rpg.model.engine;
+
+/**
+ * Change of a model, delivered to the subscribers by the {@link EventBus}.
+ * Every model creates its events once and posts the same objects again at every change, hence an event only says which part of a model
+ * has changed: the subscribers read the new values from the model (or from the getters of the event) when the event is delivered.
+ * Events telling that something happened rather than what the state is, e.g. that the player bumped into an object, are created at every post instead,
+ * so that none of them is merged with the next one.
+ *
+ * @version 1.0
+ */
+public abstract class GameEvent {
+    private final Object source;
+
+    /**
+     * True from the moment the event is posted until it is delivered, so that it is only delivered once per tick
+     */
+    boolean pending = false;
+
+    /**
+     * @param source the model posting the event
+     */
+    protected GameEvent(Object source) {
+        this.source = source;
+    }
+
+    /**
+     * @return true if the event has been posted and not delivered yet, e.g. so that a model can accumulate the details of its changes until they are delivered
+     */
+    public boolean isPending() {
+        return pending;
+    }
+
+    /**
+     * @return the model posting the event
+     */
+    public Object getSource() {
+        return source;
+    }
+}
@@ -0,0 +1,73 @@
+package nl.rug.ai.oop.rpg.model.engine;
+
+import java.util.SplittableRandom;
+
+/**
+ * Source of all the random numbers of a game, derived from a single seed, so that a game can be played again identically
+ * (see {@link nl.rug.ai.oop.rpg.controler.CommandReplay}).
+ * Every part of the game using random numbers has its own {@link Stream}, derived from the seed and the stream only:
+ * the numbers drawn by one part do not depend on how many numbers the other parts have drawn, nor on the order in which the streams are first used.
+ * Like the models, a game random is only used by the thread of its game; parallel code should split its stream
+ * (see {@link SplittableRandom#split()}) or draw a seed from it.
+ *
+ * @version 1.0
+ */
+public final class GameRandom {
+    /**
+     * Parts of the game drawing random numbers, each from its own stream
+     */
+    public enum Stream {
+        MAP_ITEMS, ENEMIES, FIGHTS, NPC_SIMULATION
+    }
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final long seed;
+    private final SplittableRandom[] streams = new SplittableRandom[Stream.values().length];
+
+    /**
+     * Creates the random numbers of a game with a random seed
+     */
+    public GameRandom() {
+        this(new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Creates the random numbers of a game
+     * @param seed the seed, which gives the same numbers every time it is used
+     */
+    public GameRandom(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @return the seed of the game
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @param stream part of the game drawing the numbers
+     * @return the stream of random numbers of that part, which is the same object every time
+     */
+    public SplittableRandom get(Stream stream) {
+        SplittableRandom random = streams[stream.ordinal()];
+        if (random == null) {
+            random = new SplittableRandom(mix(seed + (stream.ordinal() + 1) * GOLDEN_GAMMA));
+            streams[stream.ordinal()] = random;
+        }
+        return random;
+    }
+
+    /**
+     * Scrambles the bits of a number (the finalizer of SplitMix64), so that the seeds of the streams are unrelated
+     * @param value the number
+     * @return the scrambled number
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
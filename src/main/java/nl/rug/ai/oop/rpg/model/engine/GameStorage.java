@@ -0,0 +1,65 @@
+package nl.rug.ai.oop.rpg.model.engine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Location of the files used by the models: the resource files (maps, items, ...) and the save files.
+ * The resources are read from the classpath, unless a resource folder is given.
+ * This makes it possible to run several games, or simulations, with their own files.
+ * It contains:
+ * <ul>
+ *     <li>{@link Path} resourceRoot - folder containing the resources, or null to use the classpath</li>
+ *     <li>{@link Path} saveRoot - folder containing the save files</li>
+ * </ul>
+ *
+ * @version 1.0
+ */
+public record GameStorage(Path resourceRoot, Path saveRoot) {
+    /**
+     * Storage used by the game: resources from the classpath and save files in src/main/resources/saving_data
+     */
+    public static final GameStorage DEFAULT = new GameStorage(null, Path.of("src/main/resources/saving_data"));
+
+    /**
+     * @param name name of the resource, starting with a slash (e.g. "/inventory/textfiles/mapItems.txt")
+     * @return URL of the resource, or null if it does not exist
+     */
+    public URL getResource(String name) {
+        if (resourceRoot == null) {
+            return GameStorage.class.getResource(name);
+        }
+        Path file = resourceRoot.resolve(name.substring(1));
+        try {
+            return Files.exists(file) ? file.toUri().toURL() : null;
+        } catch (MalformedURLException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @param name name of the resource, starting with a slash (e.g. "/inventory/textfiles/mapItems.txt")
+     * @return stream of the resource, or null if it does not exist
+     */
+    public InputStream openResource(String name) {
+        URL resource = getResource(name);
+        try {
+            return resource == null ? null : resource.openStream();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param name name of the save file (e.g. "location.txt")
+     * @return path of the save file, as used by the file streams
+     */
+    public String getSavePath(String name) {
+        return saveRoot.resolve(name).toString();
+    }
+}
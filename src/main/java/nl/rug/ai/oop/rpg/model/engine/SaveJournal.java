@@ -0,0 +1,197 @@
+package nl.rug.ai.oop.rpg.model.engine;
+
+import nl.rug.ai.oop.rpg.model.inventory.Item;
+import nl.rug.ai.oop.rpg.model.locations.GameLocation;
+
+import java.io.*;
+import java.util.ArrayList;
+
+/**
+ * Append-only journal of the changes made since the last full save.
+ * Every entry assigns the new value of a small part of the game state (the position of the player, the statistics of the player,
+ * one item of the bag, the number of copies of an item left on the map or in stock at a merchant), so that writing an entry costs as much as the change itself.
+ * Replaying an entry twice has the same effect as replaying it once, hence the journal can be replayed over any full save taken after
+ * the journal was last cleared.
+ * Each entry is written as its type followed by its values.
+ *
+ * @version 1.0
+ */
+public final class SaveJournal {
+    private static final byte POSITION = 1;
+    private static final byte PLAYER_STATS = 2;
+    private static final byte MAP_ITEM_COUNT = 4;
+    private static final byte BAG_ITEM = 5;
+    private static final byte STOCK_LEVEL = 6;
+    private static final GameLocation.Location[] LOCATIONS = GameLocation.Location.values();
+    private static final Item.Effect[] EFFECTS = Item.Effect.values();
+
+    private final String path;
+    private int size = 0;
+
+    /**
+     * Entry of the journal
+     */
+    public sealed interface Entry permits Position, PlayerStats, BagItem, MapItemCount, StockLevel {
+    }
+
+    /**
+     * Position of the player
+     */
+    public record Position(GameLocation.Location location, int x, int y, int lastIslandX, int lastIslandY) implements Entry {
+    }
+
+    /**
+     * Statistics of the player
+     */
+    public record PlayerStats(int money, int hp, int maxHp, int defence, int fireAttack, int woodAttack, int waterAttack) implements Entry {
+    }
+
+    /**
+     * State of one item of the bag: its effect (which tells the definitions of the identifier apart, or null for the first one),
+     * its quantity, its boost in the item list and its boost when it is worn
+     */
+    public record BagItem(int identifier, Item.Effect effect, int quantity, boolean inInventory, int boost, boolean worn, int wornBoost) implements Entry {
+    }
+
+    /**
+     * Number of copies of an item that are still on the map
+     */
+    public record MapItemCount(int identifier, int count) implements Entry {
+    }
+
+    /**
+     * Number of copies of an item that a merchant (e.g. potions) still has in stock
+     */
+    public record StockLevel(String merchant, int identifier, int level) implements Entry {
+    }
+
+    /**
+     * Creates a journal
+     * @param path path of the journal file
+     */
+    SaveJournal(String path) {
+        this.path = path;
+    }
+
+    /**
+     * @return number of entries appended since the journal was last cleared
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Encodes an entry, which can then be appended to the journal file on another thread.
+     * @param entry the entry to be appended
+     * @return {@link SaveTask} appending the entry
+     */
+    SaveTask append(Entry entry) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            write(output, entry);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // not thrown by a byte array stream
+        }
+        size++;
+        return () -> {
+            try (FileOutputStream file = new FileOutputStream(path, true)) {
+                file.write(bytes.toByteArray());
+            }
+        };
+    }
+
+    /**
+     * Empties the journal, after all of its entries have been included in a full save.
+     * @return {@link SaveTask} emptying the journal file
+     */
+    SaveTask clear() {
+        size = 0;
+        return () -> new FileOutputStream(path).close();
+    }
+
+    /**
+     * Reads all the entries of the journal file.
+     * An entry that was not completely written (e.g. because the game was closed while writing) is ignored.
+     * @return list of the entries, in the order in which they were appended
+     * @throws IOException if the journal file exists but cannot be read, or it contains an unknown entry
+     */
+    ArrayList<Entry> read() throws IOException {
+        ArrayList<Entry> entries = new ArrayList<>();
+        File file = new File(path);
+        if (!file.exists()) {
+            return entries;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int type;
+            while ((type = input.read()) != -1) {
+                entries.add(switch (type) {
+                    case POSITION -> new Position(LOCATIONS[input.readByte()], input.readInt(), input.readInt(), input.readInt(), input.readInt());
+                    case PLAYER_STATS -> new PlayerStats(input.readInt(), input.readInt(), input.readInt(), input.readInt(), input.readInt(), input.readInt(), input.readInt());
+                    case BAG_ITEM -> new BagItem(input.readInt(), readEffect(input), input.readInt(), input.readBoolean(), input.readInt(), input.readBoolean(), input.readInt());
+                    case MAP_ITEM_COUNT -> new MapItemCount(input.readInt(), input.readInt());
+                    case STOCK_LEVEL -> new StockLevel(input.readUTF(), input.readInt(), input.readInt());
+                    default -> throw new IOException("Unknown journal entry: " + type);
+                });
+            }
+        } catch (EOFException e) {
+            System.out.println("The last journal entry was incomplete and has been ignored");
+        }
+        return entries;
+    }
+
+    /**
+     * @param output stream where the entry is written
+     * @param entry the entry to be written
+     * @throws IOException if it was not possible to write the entry
+     */
+    private static void write(DataOutputStream output, Entry entry) throws IOException {
+        if (entry instanceof Position position) {
+            output.writeByte(POSITION);
+            output.writeByte(position.location().ordinal());
+            output.writeInt(position.x());
+            output.writeInt(position.y());
+            output.writeInt(position.lastIslandX());
+            output.writeInt(position.lastIslandY());
+        } else if (entry instanceof PlayerStats stats) {
+            output.writeByte(PLAYER_STATS);
+            output.writeInt(stats.money());
+            output.writeInt(stats.hp());
+            output.writeInt(stats.maxHp());
+            output.writeInt(stats.defence());
+            output.writeInt(stats.fireAttack());
+            output.writeInt(stats.woodAttack());
+            output.writeInt(stats.waterAttack());
+        } else if (entry instanceof BagItem item) {
+            output.writeByte(BAG_ITEM);
+            output.writeInt(item.identifier());
+            output.writeByte(item.effect() != null ? item.effect().ordinal() : -1);
+            output.writeInt(item.quantity());
+            output.writeBoolean(item.inInventory());
+            output.writeInt(item.boost());
+            output.writeBoolean(item.worn());
+            output.writeInt(item.wornBoost());
+        } else if (entry instanceof MapItemCount count) {
+            output.writeByte(MAP_ITEM_COUNT);
+            output.writeInt(count.identifier());
+            output.writeInt(count.count());
+        } else if (entry instanceof StockLevel stock) {
+            output.writeByte(STOCK_LEVEL);
+            output.writeUTF(stock.merchant());
+            output.writeInt(stock.identifier());
+            output.writeInt(stock.level());
+        }
+    }
+
+    /**
+     * @param input stream from which the effect of an item is read
+     * @return the effect, or null if none was written
+     * @throws IOException if the effect could not be read or is unknown
+     */
+    private static Item.Effect readEffect(DataInputStream input) throws IOException {
+        byte ordinal = input.readByte();
+        if (ordinal >= EFFECTS.length) {
+            throw new IOException("Unknown item effect: " + ordinal);
+        }
+        return ordinal >= 0 ? EFFECTS[ordinal] : null;
+    }
+}
@@ -0,0 +1,19 @@
+package nl.rug.ai.oop.rpg.model.engine;
+
+import java.io.IOException;
+
+/**
+ * Snapshot of the state of a model, ready to be written to its save file.
+ * The snapshot is taken on the thread that modifies the model, and it does not refer to any mutable object of the model,
+ * so that it can be written on another thread while the game continues.
+ *
+ * @version 1.0
+ */
+@FunctionalInterface
+public interface SaveTask {
+    /**
+     * Serializes the snapshot and writes it to the save file.
+     * @throws IOException if it was not possible to write the save file
+     */
+    void write() throws IOException;
+}
@@ -0,0 +1,72 @@
+package nl.rug.ai.oop.rpg.model.engine;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Executor running its tasks one after the other, in the order in which they were submitted, on a shared executor.
+ * It behaves like a single thread without owning one: many serial executors (e.g. one per game) can share a small pool of threads,
+ * and a task always sees the changes made by the previous tasks, even if they were run by another thread of the pool.
+ * A task which throws an exception does not prevent the next tasks from being run.
+ *
+ * @version 1.0
+ */
+public final class SerialExecutor implements Executor {
+    /**
+     * Maximum number of tasks run before the thread is given back to the shared executor, so that a busy serial executor does not starve the others
+     */
+    private static final int MAX_TASKS_PER_RUN = 64;
+
+    private final Executor executor;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean isScheduled = new AtomicBoolean(false);
+
+    /**
+     * Creates a serial executor
+     * @param executor the executor actually running the tasks, e.g. a thread pool
+     */
+    public SerialExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Queues a task, which is run after all the tasks queued before it
+     * @param task the task
+     */
+    @Override
+    public void execute(Runnable task) {
+        tasks.add(task);
+        schedule();
+    }
+
+    /**
+     * Submits a run of the queued tasks to the shared executor, unless one is already submitted or running
+     */
+    private void schedule() {
+        if (!tasks.isEmpty() && isScheduled.compareAndSet(false, true)) {
+            executor.execute(this::run);
+        }
+    }
+
+    /**
+     * Runs the queued tasks, up to {@link #MAX_TASKS_PER_RUN}, then lets another run be scheduled.
+     * A task queued between the last poll and the end of the run schedules the next run itself, or is picked up by the check at the end.
+     */
+    private void run() {
+        try {
+            Runnable task;
+            for (int count = 0; count < MAX_TASKS_PER_RUN && (task = tasks.poll()) != null; count++) {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    System.out.println("A task failed: " + e);
+                }
+            }
+        } finally {
+            isScheduled.set(false);
+            schedule();
+        }
+    }
+}
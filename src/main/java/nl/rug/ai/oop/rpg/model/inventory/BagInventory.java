@@ -1,7 +1,10 @@
 package nl.rug.ai.oop.rpg.model.inventory;
 
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
+import nl.rug.ai.oop.rpg.model.engine.GameEvent;
+import nl.rug.ai.oop.rpg.model.engine.GameStorage;
+import nl.rug.ai.oop.rpg.model.engine.SaveJournal;
+import nl.rug.ai.oop.rpg.model.engine.SaveTask;
+
 import java.io.*;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -11,12 +14,77 @@ import java.util.stream.Collectors;
  * @author Aurélie Gallet
  * @version 1.0
  */
-public class BagInventory extends Inventory implements Serializable {
-    private HashMap<Integer,Integer> quantities = new HashMap<>(); //To store item quantities
+public class BagInventory extends Inventory {
+    private ItemStacks quantities = new ItemStacks(); //To store item quantities and the listed item of every type
     private ArrayList<Item> clothesList = new ArrayList<>();
-    private transient ArrayList<ItemRecord> currentArrayOfClothingRecord = new ArrayList<>();
-    private transient ArrayList<ItemRecord> currentArrayOfItemRecords = new ArrayList<>();
-    private transient boolean hasUndergroundTicket = false;
+    private ArrayList<ItemRecord> currentArrayOfClothingRecord = new ArrayList<>();
+    private ArrayList<ItemRecord> currentArrayOfItemRecords = new ArrayList<>();
+    private final ArrayList<ItemChange> itemChanges = new ArrayList<>(); //Changes of the item records not delivered yet
+    private boolean areClothingRecordsOutdated = false;
+    private boolean hasUndergroundTicket = false;
+    private final ContentChanged contentChanged = new ContentChanged();
+    private final ClothingChanged clothingChanged = new ClothingChanged();
+    private final InspectedItemChanged inspectedItemChanged = new InspectedItemChanged();
+
+    /**
+     * Event posted when items have been added to or removed from the inventory
+     */
+    public final class ContentChanged extends GameEvent {
+        private ContentChanged() {
+            super(BagInventory.this);
+        }
+
+        /**
+         * @return {@link ArrayList<ItemRecord>} Array of items in the inventory
+         */
+        public ArrayList<ItemRecord> getItemRecords() {
+            return getCurrentArrayOfItemRecords();
+        }
+
+        /**
+         * The changes of the item records since the previous delivery of this event, in the order in which they happened
+         * Applying them to the previous array of items gives the current one
+         * @return {@link List<ItemChange>} Changes of the item records
+         */
+        public List<ItemChange> getChanges() {
+            return List.copyOf(itemChanges);
+        }
+    }
+
+    /**
+     * Event posted when the worn clothing has been changed
+     */
+    public final class ClothingChanged extends GameEvent {
+        private ClothingChanged() {
+            super(BagInventory.this);
+        }
+
+        /**
+         * @return {@link ArrayList<ItemRecord>} Array of worn clothing
+         */
+        public ArrayList<ItemRecord> getClothingRecords() {
+            return getCurrentArrayOfClothingRecords();
+        }
+    }
+
+    /**
+     * Event posted when the inspected item has been changed
+     */
+    public final class InspectedItemChanged extends GameEvent {
+        private InspectedItemChanged() {
+            super(BagInventory.this);
+        }
+
+        /**
+         * @return {@link ItemRecord} Inspected item with its quantity, or an empty record if no item is inspected
+         */
+        public ItemRecord getItemRecord() {
+            if (inspectedItem != null) {
+                return new ItemRecord(inspectedItem, getQuantityofItem(inspectedItem));
+            }
+            return new ItemRecord(null, 0);
+        }
+    }
 
     /**
      * Generates an inventory according to a specific owner and what he owns
@@ -26,20 +94,29 @@ public class BagInventory extends Inventory implements Serializable {
         super(owner);
     }
 
+    /**
+     * Generates an inventory according to a specific owner and what he owns, using the given files
+     * @param owner Owner of the inventory
+     * @param storage Storage containing the item files and the save files
+     */
+    public BagInventory(String owner, GameStorage storage) {
+        super(owner, storage);
+    }
+
     /**
      * Method to initialise additional elements according to what type of inventory it is
      */
     protected void initialiseAdditional() {
-        try (Scanner fileInput = new Scanner(Objects.requireNonNull(BagInventory.class.getResourceAsStream("/inventory/textfiles/quantities.txt")))) {
+        try (Scanner fileInput = new Scanner(Objects.requireNonNull(storage.openResource("/inventory/textfiles/quantities.txt")))) {
             while (fileInput.hasNextLine()) {
                 int identifier = fileInput.nextInt();
                 int quantity = fileInput.nextInt();
-                quantities.put(identifier, quantity);
+                quantities.setQuantity(identifier, quantity);
             }
         } catch (NullPointerException e) {
             System.out.println("Inventory quantities could not be loaded");
         }
-        this.currentArrayOfItemRecords = makeArrayOfRecordItems(inventoryList);
+        resetItemRecords();
     }
 
 
@@ -52,6 +129,22 @@ public class BagInventory extends Inventory implements Serializable {
     public record ItemRecord(Item item, int quantity) {
     }
 
+    /**
+     * Kinds of changes of the array of item records
+     */
+    public enum ChangeKind {
+        INSERTED, UPDATED, REMOVED
+    }
+
+    /**
+     * Change of one item record, so that the views only update what has changed instead of the whole inventory
+     * @param kind Kind of change
+     * @param index Index of the record in the array: after the change for an insertion or an update, before the change for a removal
+     * @param record New record, or the removed record
+     */
+    public record ItemChange(ChangeKind kind, int index, ItemRecord record) {
+    }
+
     /**
      * Method to make an array of Item Records for the items
      * @return {@link ArrayList<ItemRecord>} Array of item records
@@ -66,6 +159,8 @@ public class BagInventory extends Inventory implements Serializable {
 
     /**
      * Method to get the current array of items
+     * The array is kept up to date one record at a time, in the same order as the item list:
+     * the record of an item has the index of the item in the item list, which is kept in its stack
      * @return {@link ArrayList<ItemRecord>} Array of items in the inventory
      */
     public ArrayList<ItemRecord> getCurrentArrayOfItemRecords() {
@@ -74,9 +169,14 @@ public class BagInventory extends Inventory implements Serializable {
 
     /**
      * Method to get the current array of worn clothing
+     * The array is only made again when it is needed after a change
      * @return {@link ArrayList<ItemRecord>} Array of worn clothing
      */
     public ArrayList<ItemRecord> getCurrentArrayOfClothingRecords() {
+        if (areClothingRecordsOutdated) {
+            currentArrayOfClothingRecord = makeArrayOfRecordItems(clothesList);
+            areClothingRecordsOutdated = false;
+        }
         return currentArrayOfClothingRecord;
     }
 
@@ -84,10 +184,10 @@ public class BagInventory extends Inventory implements Serializable {
     /* Getters */
 
     /**
-     * Getter for the quantity hashmap
-     * @return Quantity hashmap
+     * Getter for the item stacks
+     * @return {@link ItemStacks} Quantities by item identifier
      */
-    private HashMap<Integer, Integer> getQuantities() {
+    private ItemStacks getQuantities() {
         return quantities;
     }
 
@@ -97,13 +197,34 @@ public class BagInventory extends Inventory implements Serializable {
      * @return Quantity of the specified item
      */
     public int getQuantityofItem(Item item) {
-        if (inventoryList.contains(item) || clothesList.contains(item)) {
-            return quantities.get(item.getIdentifier());
+        if (isListed(item) || clothesList.contains(item)) {
+            return quantities.getQuantity(item.getIdentifier());
         } else {
             return 0;
         }
     }
 
+    /**
+     * Getter for if an item is the one shown in the item list for its type
+     * Makes code more readable
+     * @param item Item for which we request if it is in the item list
+     * @return Boolean that indicates if the item is in the item list
+     */
+    private boolean isListed(Item item) {
+        return item != null && quantities.getListedItem(item.getIdentifier()) == item;
+    }
+
+    /**
+     * Getter for if copies of an item can be taken out of the inventory, e.g. to sell them
+     * Worn clothes and the subway ticket cannot be
+     * @param item Item to be taken out
+     * @param quantity Number of copies to be taken out
+     * @return Boolean that indicates if the inventory has that many copies of the item and allows them to be removed
+     */
+    public boolean canRemove(Item item, int quantity) {
+        return isListed(item) && getCanBeModified(item) && quantities.getQuantity(item.getIdentifier()) >= quantity;
+    }
+
     /**
      * Getter for if the inventory contains the subway ticket
      * @return Boolean that indicates if the subway ticket is in the inventory
@@ -145,19 +266,52 @@ public class BagInventory extends Inventory implements Serializable {
 
     /**
      * Removes an item from the inventory while updating the quantities hashmap accordingly
+     * When the last copy is removed, the last item of the list takes its place (see {@link #removeFromItemList(int)}),
+     * hence the views receive the update of that record followed by the removal of the last one
      * @param item Item to be removed
      */
     private void removeWithQuantityUpdate(Item item) {
-        int newQuantity = quantities.get(item.getIdentifier()) - 1;
+        int newQuantity = quantities.addQuantity(item.getIdentifier(), -1);
+        int index = isListed(item) ? quantities.getRecordIndex(item.getIdentifier()) : -1;
         if (newQuantity == 0) {
-            quantities.replace(item.getIdentifier(), 0);
-            inventoryList.remove(item);
             inspectedItem = null;
-            notifyListeners("inspectedItemChange");
-        } else {
-            quantities.replace(item.getIdentifier(), newQuantity);
+            notifyInspectedItemChange();
+            if (index >= 0) {
+                quantities.setListedItem(item.getIdentifier(), null, -1);
+                int lastIndex = inventoryList.size() - 1;
+                removeFromItemList(index);
+                ItemRecord removedRecord = currentArrayOfItemRecords.get(index);
+                ItemRecord lastRecord = currentArrayOfItemRecords.remove(lastIndex);
+                if (index != lastIndex) {
+                    currentArrayOfItemRecords.set(index, lastRecord);
+                    notifyListenersInventoryChange(new ItemChange(ChangeKind.UPDATED, index, lastRecord));
+                }
+                notifyListenersInventoryChange(new ItemChange(ChangeKind.REMOVED, lastIndex, removedRecord));
+            } else {
+                inventoryList.remove(item);
+            }
+        } else if (index >= 0) {
+            ItemRecord record = new ItemRecord(item, newQuantity);
+            currentArrayOfItemRecords.set(index, record);
+            notifyListenersInventoryChange(new ItemChange(ChangeKind.UPDATED, index, record));
+        }
+        journalItem(item.getIdentifier());
+    }
+
+    /**
+     * Method to remove an item from the item list by moving the last item of the list into its place,
+     * so that only the moved item gets a new index instead of all the items after the removed one
+     * @param index Index of the item in the item list
+     */
+    private void removeFromItemList(int index) {
+        int lastIndex = inventoryList.size() - 1;
+        Item lastItem = inventoryList.remove(lastIndex);
+        if (index != lastIndex) {
+            inventoryList.set(index, lastItem);
+            if (isListed(lastItem)) {
+                quantities.setRecordIndex(lastItem.getIdentifier(), index);
+            }
         }
-        notifyListenersInventoryChange();
     }
 
     /**
@@ -165,21 +319,27 @@ public class BagInventory extends Inventory implements Serializable {
      * @param item Item being picked up
      */
     public void addItem(Item item) {
-        ArrayList<Item> correspondingItem = inventoryList.stream().filter(item1 -> item1.getIdentifier().equals(item.getIdentifier())).collect(Collectors.toCollection(ArrayList::new));
-        if (!correspondingItem.isEmpty()) {
-            quantities.replace(item.getIdentifier(), quantities.get(item.getIdentifier()) + 1);
-        } else {
+        //An item of the same type already in the list only gets its quantity increased
+        Item listedItem = quantities.getListedItem(item.getIdentifier());
+        int newQuantity = quantities.addQuantity(item.getIdentifier(), 1);
+        if (listedItem == null) {
             inventoryList.add(item);
-            if(quantities.containsKey(item.getIdentifier())){
-                quantities.replace(item.getIdentifier(), quantities.get(item.getIdentifier()) + 1);
-            } else {
-                quantities.put(item.getIdentifier(), 1);
+            quantities.setListedItem(item.getIdentifier(), item, inventoryList.size() - 1);
+            ItemRecord record = new ItemRecord(item, newQuantity);
+            currentArrayOfItemRecords.add(record);
+            notifyListenersInventoryChange(new ItemChange(ChangeKind.INSERTED, currentArrayOfItemRecords.size() - 1, record));
+        } else {
+            int index = quantities.getRecordIndex(item.getIdentifier());
+            if (index >= 0) {
+                ItemRecord record = new ItemRecord(listedItem, newQuantity);
+                currentArrayOfItemRecords.set(index, record);
+                notifyListenersInventoryChange(new ItemChange(ChangeKind.UPDATED, index, record));
             }
         }
         if (item.getIdentifier() == 200) {
             hasUndergroundTicket = true;
         }
-        notifyListenersInventoryChange();
+        journalItem(item.getIdentifier());
     }
 
     /**
@@ -188,7 +348,7 @@ public class BagInventory extends Inventory implements Serializable {
      * @param item Item being discarded
      */
     public void removeItem(Item item) {
-        if (inventoryList.contains(item) && getCanBeModified(item)) {
+        if (isListed(item) && getCanBeModified(item)) {
             removeWithQuantityUpdate(item);
         }
     }
@@ -202,7 +362,7 @@ public class BagInventory extends Inventory implements Serializable {
      * @param item Item being used
      */
     public void useItem (Item item) {
-        if (inventoryList.contains(item) && getCanBeModified(item)) {
+        if (isListed(item) && getCanBeModified(item)) {
             if (!getIsWearable(item)) {
                 if (item.getEffect() == Item.Effect.HEALING || item.getEffect() == Item.Effect.HEALTH_BOOST){
                     gameEngine.updateBoost(item.getEffect(), item.getBoost());
@@ -210,12 +370,14 @@ public class BagInventory extends Inventory implements Serializable {
                     for (Item clothing:clothesList) {
                         if (clothing.getEffect() == Item.Effect.DEFENDING) {
                             clothing.setBoost(clothing.getBoost()+item.getBoost());
+                            journalItem(clothing.getIdentifier());
                         }
                     }
                 } else if (item.getEffect() == Item.Effect.ATTACK_BOOST) {
                     for (Item clothing:clothesList) {
                         if (clothing.getEffect() == Item.Effect.ATTACKING) {
                             clothing.setBoost(clothing.getBoost()+item.getBoost());
+                            journalItem(clothing.getIdentifier());
                         }
                     }
                 }
@@ -242,7 +404,7 @@ public class BagInventory extends Inventory implements Serializable {
         ArrayList<Item> correspondingClothes = clothesList.stream().filter(item1 -> item1.getName().equals(item.getName())).collect(Collectors.toCollection(ArrayList::new));
         if (getQuantityofItem(item) == 1) {
             inspectedItem = null;
-            notifyListeners("inspectedItemChange");
+            notifyInspectedItemChange();
         }
         if (correspondingClothes.isEmpty()) {
             clothesList.add(item);
@@ -254,38 +416,150 @@ public class BagInventory extends Inventory implements Serializable {
             removeWithQuantityUpdate(item);
             clothesList.add(item);
             gameEngine.updateBoost(item.getEffect(), item.getBoost()-correspondingClothes.get(0).getBoost());
+            journalItem(correspondingClothes.get(0).getIdentifier());
         }
-        notifyListeners("clothingChange");
-        notifyListenersInventoryChange();
+        journalItem(item.getIdentifier());
+        notifyListenersClothingChange();
+    }
+
+    /**
+     * Method to record the current state of an item in the save journal of the game engine
+     * @param identifier Identifier of the item
+     */
+    private void journalItem(int identifier) {
+        Item listedItem = quantities.getListedItem(identifier);
+        Item wornItem = findByIdentifier(clothesList, identifier);
+        Item.Effect effect = listedItem != null ? listedItem.getEffect() : wornItem != null ? wornItem.getEffect() : null;
+        gameEngine.record(new SaveJournal.BagItem(identifier, effect, quantities.getQuantity(identifier),
+                listedItem != null, listedItem != null ? listedItem.getBoost() : 0,
+                wornItem != null, wornItem != null ? wornItem.getBoost() : 0));
+    }
+
+    /**
+     * Method to restore the state of an item recorded in the save journal
+     * @param entry Journal entry of the item
+     */
+    public void restoreItem(SaveJournal.BagItem entry) {
+        Item listedItem = quantities.getListedItem(entry.identifier());
+        if (!entry.inInventory()) {
+            int index = quantities.getRecordIndex(entry.identifier());
+            if (index >= 0) {
+                removeFromItemList(index);
+            }
+            quantities.setListedItem(entry.identifier(), null, -1);
+            listedItem = null;
+        } else if (listedItem == null) {
+            listedItem = ItemCatalog.getCatalog(storage).createItem(entry.identifier(), entry.effect());
+            if (listedItem != null) {
+                listedItem.updateLanguage(language);
+                inventoryList.add(listedItem);
+                quantities.setListedItem(entry.identifier(), listedItem, inventoryList.size() - 1);
+            }
+        }
+        if (listedItem != null) {
+            listedItem.setBoost(entry.boost());
+        }
+
+        Item wornItem = findByIdentifier(clothesList, entry.identifier());
+        clothesList.remove(wornItem);
+        if (entry.worn()) {
+            if (listedItem != null && entry.boost() == entry.wornBoost()) {
+                wornItem = listedItem;
+            } else if (wornItem == null || wornItem == listedItem) {
+                wornItem = ItemCatalog.getCatalog(storage).createItem(entry.identifier(), entry.effect());
+            }
+            if (wornItem != null) {
+                wornItem.setBoost(entry.wornBoost());
+                wornItem.updateLanguage(language);
+                clothesList.add(wornItem);
+            }
+        }
+
+        quantities.setQuantity(entry.identifier(), entry.quantity());
+        hasUndergroundTicket = quantities.getQuantity(200) > 0;
+        this.currentArrayOfClothingRecord = makeArrayOfRecordItems(clothesList);
+        resetItemRecords();
+    }
+
+    /**
+     * Method to index the item shown in the item list for every item type, with its index in the item list,
+     * after the item list has been replaced
+     */
+    private void indexListedItems() {
+        quantities.clearListedItems();
+        for (int index = 0; index < inventoryList.size(); index++) {
+            Item item = inventoryList.get(index);
+            if (quantities.getListedItem(item.getIdentifier()) == null) {
+                quantities.setListedItem(item.getIdentifier(), item, index);
+            }
+        }
+    }
+
+    /**
+     * Method to find an item in a list by its identifier
+     * @param list List of items
+     * @param identifier Identifier of the item
+     * @return {@link Item} First item with the identifier, or null if there is none
+     */
+    private static Item findByIdentifier(ArrayList<Item> list, int identifier) {
+        for (Item item : list) {
+            if (item.getIdentifier() == identifier) {
+                return item;
+            }
+        }
+        return null;
     }
 
     /**
      * Retrieves the inventory from the saved files according to the owner
+     * The items are rebuilt from the {@link ItemCatalog} with their saved boost.
+     * A worn item that was also still in the item list is shared again by both lists.
      */
     public void initialiseSavedInventory() {
-        try (ObjectInputStream input = new ObjectInputStream(new FileInputStream("src/main/resources/saving_data/" + owner + "Inventory.txt"))) {
-            BagInventory temporary = (BagInventory)input.readObject();
-            inventoryList = temporary.getInventoryList();
-            clothesList = temporary.getClothesList();
-            quantities = temporary.getQuantities();
-        } catch (IOException | ClassNotFoundException e) {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(storage.getSavePath(owner + "Inventory.txt"))))) {
+            ItemSaveFormat.readHeader(input);
+            ArrayList<Item> savedInventoryList = ItemSaveFormat.readItems(input, ItemCatalog.getCatalog(storage));
+            ArrayList<Item> savedClothesList = ItemSaveFormat.readItems(input, ItemCatalog.getCatalog(storage));
+            ItemStacks savedQuantities = ItemSaveFormat.readQuantities(input);
+            for (int index = 0; index < savedClothesList.size(); index++) {
+                Item clothing = savedClothesList.get(index);
+                for (Item item : savedInventoryList) {
+                    if (item.getIdentifier() == clothing.getIdentifier() && item.getEffect() == clothing.getEffect() && item.getBoost() == clothing.getBoost()) {
+                        savedClothesList.set(index, item);
+                        break;
+                    }
+                }
+            }
+            inventoryList = savedInventoryList;
+            clothesList = savedClothesList;
+            quantities = savedQuantities;
+            hasUndergroundTicket = quantities.getQuantity(200) > 0;
+        } catch (IOException e) {
             System.out.println("An inventory save file could not be retrieved properly.");
             initialiseOriginalInventory(true);
         }
         this.currentArrayOfClothingRecord = makeArrayOfRecordItems(clothesList);
-        this.currentArrayOfItemRecords = makeArrayOfRecordItems(inventoryList);
+        resetItemRecords();
     }
 
     /**
-     * Method to save the game
-     * Uses the fact that arraylists and hashmaps are serializable
+     * Method to take a snapshot of the inventory, which can be written to the save file on another thread
+     * Only the identifiers, boosts and quantities of the items are saved, see {@link ItemSaveFormat}
+     * @return {@link SaveTask} Snapshot of the inventory
      */
-    public void save() {
-        try (ObjectOutputStream output = new ObjectOutputStream(new FileOutputStream("src/main/resources/saving_data/" + owner + "Inventory.txt"))){
-            output.writeObject(this);
-        } catch (IOException e) {
-            System.out.println("Failed save.");
-        }
+    public SaveTask snapshot() {
+        ArrayList<ItemSaveFormat.Entry> inventoryEntries = ItemSaveFormat.toEntries(inventoryList);
+        ArrayList<ItemSaveFormat.Entry> clothesEntries = ItemSaveFormat.toEntries(clothesList);
+        ItemStacks savedQuantities = quantities.copy();
+        String path = storage.getSavePath(owner + "Inventory.txt");
+        return () -> {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+                ItemSaveFormat.writeHeader(output);
+                ItemSaveFormat.writeEntries(output, inventoryEntries);
+                ItemSaveFormat.writeEntries(output, clothesEntries);
+                ItemSaveFormat.writeQuantities(output, savedQuantities);
+            }
+        };
     }
 
     /**
@@ -297,46 +571,45 @@ public class BagInventory extends Inventory implements Serializable {
     }
 
     /**
-     * Method to notify listeners if the inventory has been changed
-     * The lists of item records are updated before being sent
+     * Method to make the array of item records again, e.g. after the inventory has been loaded
+     * The listed items are indexed again, and the changes which have not been delivered are dropped, as they do not apply to the new array
      */
-    private void notifyListenersInventoryChange() {
+    private void resetItemRecords() {
+        indexListedItems();
         this.currentArrayOfItemRecords = makeArrayOfRecordItems(inventoryList);
-        PropertyChangeEvent inventoryChange = new PropertyChangeEvent(this, "inventoryChange", null, currentArrayOfItemRecords);
-        for (PropertyChangeListener listener: listeners) {
-            listener.propertyChange(inventoryChange);
-        }
+        itemChanges.clear();
     }
 
     /**
-     * Method to notify listeners if additional parts of the model have been changed
-     * Such as language change, displayed item change or a clothing change
-     * The lists of item records are updated before being sent
-     * @param event String description of the additionally changed event
+     * Method to notify the views that the inventory has been changed
+     * The changes are accumulated until the event is delivered, so that a view can apply all of them at once
+     * @param change Change of the array of item records
      */
-    @Override
-    protected void notifyListeners(String event) {
-        PropertyChangeEvent eventChange = null;
-        switch (event) {
-            case "languageChange" -> eventChange = new PropertyChangeEvent(this, "languageChange", null, language);
-            case "inspectedItemChange" -> {
-                ItemRecord inspectedItemRecord;
-                if (inspectedItem != null) {
-                    inspectedItemRecord = new ItemRecord(inspectedItem, getQuantityofItem(inspectedItem));
-                } else {
-                    inspectedItemRecord = new ItemRecord(null, 0);
-                }
-                eventChange = new PropertyChangeEvent(this, "inspectedItemChange", null, inspectedItemRecord);
-            }
-            case "clothingChange" -> {
-                this.currentArrayOfClothingRecord = makeArrayOfRecordItems(clothesList);
-                eventChange = new PropertyChangeEvent(this, "clothingChange", null, currentArrayOfClothingRecord);
-            }
+    private void notifyListenersInventoryChange(ItemChange change) {
+        if (events == null) {
+            return;
         }
-        for (PropertyChangeListener listener: listeners) {
-            if (eventChange != null) {
-                listener.propertyChange(eventChange);
-            }
+        if (!contentChanged.isPending()) {
+            itemChanges.clear(); //The previous changes have been delivered
         }
+        itemChanges.add(change);
+        post(contentChanged);
+    }
+
+    /**
+     * Method to notify the views that the worn clothing has been changed
+     * The list of clothing records is made again when it is read
+     */
+    private void notifyListenersClothingChange() {
+        areClothingRecordsOutdated = true;
+        post(clothingChanged);
+    }
+
+    /**
+     * Method to notify the views that the inspected item has been changed
+     */
+    @Override
+    protected void notifyInspectedItemChange() {
+        post(inspectedItemChanged);
     }
 }
@@ -1,7 +1,11 @@
 package nl.rug.ai.oop.rpg.model.inventory;
 
+import nl.rug.ai.oop.rpg.model.engine.EventBus;
 import nl.rug.ai.oop.rpg.model.engine.GameEngine;
-import java.beans.PropertyChangeListener;
+import nl.rug.ai.oop.rpg.model.engine.GameEvent;
+import nl.rug.ai.oop.rpg.model.engine.GameStorage;
+import nl.rug.ai.oop.rpg.model.engine.SaveTask;
+
 import java.io.*;
 import java.util.*;
 
@@ -10,21 +14,50 @@ import java.util.*;
  * @author Aurélie Gallet
  * @version 1.0
  */
-public abstract class Inventory implements Serializable {
-    protected transient final String owner;
-    protected transient GameEngine.Language language = GameEngine.Language.ENGLISH;
-    protected transient GameEngine gameEngine;
-    protected transient final Collection<PropertyChangeListener> listeners = new ArrayList<>();
-    protected transient Item inspectedItem; //The inventory knows if one of its items is being inspected by the player
+public abstract class Inventory {
+    protected final String owner;
+    protected final GameStorage storage;
+    protected GameEngine.Language language = GameEngine.Language.ENGLISH;
+    protected GameEngine gameEngine;
+    protected EventBus events;
+    private final LanguageChanged languageChanged = new LanguageChanged();
+    protected Item inspectedItem; //The inventory knows if one of its items is being inspected by the player
     protected ArrayList<Item> inventoryList = new ArrayList<>();
 
 
+    /**
+     * Event posted when the language of the inventory has changed
+     */
+    public final class LanguageChanged extends GameEvent {
+        private LanguageChanged() {
+            super(Inventory.this);
+        }
+
+        /**
+         * @return {@link GameEngine.Language} New language of the inventory
+         */
+        public GameEngine.Language getLanguage() {
+            return language;
+        }
+    }
+
+
     /**
      * Generates an inventory according to a specific owner and what he owns
      * @param owner Owner of the inventory
      */
     public Inventory(String owner) {
+        this(owner, GameStorage.DEFAULT);
+    }
+
+    /**
+     * Generates an inventory according to a specific owner and what he owns, using the given files
+     * @param owner Owner of the inventory
+     * @param storage Storage containing the item files and the save files
+     */
+    public Inventory(String owner, GameStorage storage) {
         this.owner = owner;
+        this.storage = storage;
     }
 
     /**
@@ -32,9 +65,10 @@ public abstract class Inventory implements Serializable {
      * @param hasPreviousTryFailed Boolean for if the previous inventory has failed to load
      */
     public void initialiseOriginalInventory(boolean hasPreviousTryFailed) {
-        try (Scanner fileInput = new Scanner(Objects.requireNonNull(Inventory.class.getResourceAsStream("/inventory/textfiles/" + owner + "Items.txt")))) {
+        ItemCatalog catalog = ItemCatalog.getCatalog(storage);
+        try (Scanner fileInput = new Scanner(Objects.requireNonNull(storage.openResource("/inventory/textfiles/" + owner + "Items.txt")))) {
             while (fileInput.hasNextLine()) {
-                inventoryList.add(Item.initialiseAnItem(fileInput));
+                inventoryList.add(catalog.readItem(fileInput));
                 fileInput.nextLine();
             }
             if (hasPreviousTryFailed) {
@@ -73,7 +107,7 @@ public abstract class Inventory implements Serializable {
      */
     public void setInspectedItem(Item item) {
         inspectedItem = item;
-        notifyListeners("inspectedItemChange");
+        notifyInspectedItemChange();
     }
 
 
@@ -91,11 +125,21 @@ public abstract class Inventory implements Serializable {
     /* Additional */
 
     /**
-     * Method that allows to add the views to be added as listeners for model changes
-     * @param listener Listener to model changes to be added
+     * Method to set the event bus through which the model changes are posted to the views
+     * @param events Event bus of the game
+     */
+    public void setEventBus(EventBus events) {
+        this.events = events;
+    }
+
+    /**
+     * Method to post a model change, if the inventory is part of a game
+     * @param event Event describing the change
      */
-    public void addListener(PropertyChangeListener listener) {
-        listeners.add(listener);
+    protected void post(GameEvent event) {
+        if (events != null) {
+            events.post(event);
+        }
     }
 
     /**
@@ -107,14 +151,26 @@ public abstract class Inventory implements Serializable {
         for (Item item:inventoryList) {
             item.updateLanguage(language);
         }
-        notifyListeners("languageChange");
+        post(languageChanged);
     }
 
     /**
      * Method to save the game
-     * Uses the fact that arraylists and hashmaps are serializable
+     * The items are saved by identifier, see {@link ItemSaveFormat}
+     */
+    public void save() {
+        try {
+            snapshot().write();
+        } catch (IOException e) {
+            System.out.println("Failed save.");
+        }
+    }
+
+    /**
+     * Method to take a snapshot of the inventory, which can be written to the save file on another thread
+     * @return {@link SaveTask} Snapshot of the inventory
      */
-    public abstract void save();
+    public abstract SaveTask snapshot();
 
     /**
      * Method to make to generate a string of the inventory -- also for serializable
@@ -123,8 +179,7 @@ public abstract class Inventory implements Serializable {
     public abstract String toString();
 
     /**
-     * Method to notify listeners if the model has been changed
-     * @param event String description of the additionally changed event
+     * Method to notify the views that the inspected item has been changed
      */
-    protected abstract void notifyListeners(String event);
+    protected abstract void notifyInspectedItemChange();
 }
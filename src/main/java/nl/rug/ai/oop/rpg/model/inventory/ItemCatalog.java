@@ -0,0 +1,169 @@
+package nl.rug.ai.oop.rpg.model.inventory;
+
+import nl.rug.ai.oop.rpg.model.engine.GameStorage;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.Scanner;
+
+/**
+ * Catalog of the item definitions of our game, indexed by item identifier.
+ * The definitions are read once from the item text files, so that an item can be rebuilt from its identifier only.
+ * The files may give the same identifier different effects (e.g. the potions sold by the merchant heal, while the same potions of the player
+ * boost the health), hence an identifier has one definition per effect, and an item read from a file keeps the effect given by that file.
+ * All the items created by the catalog share these definitions: only their boost is stored per item.
+ * There is one catalog per resource folder, shared by all the games reading it, whatever their save folder.
+ * @version 1.0
+ */
+public final class ItemCatalog {
+    private static final String[] OWNERS = {"player", "potions", "armory"};
+    private static final HashMap<Path, ItemCatalog> CATALOGS = new HashMap<>();
+    private final GameStorage storage;
+    private final HashMap<Integer, ArrayList<ItemDefinition>> definitions; //variants of every identifier, in the order in which they were read
+
+    /**
+     * Generates a catalog by reading the definition files of a storage
+     * @param storage Storage containing the item text files
+     */
+    private ItemCatalog(GameStorage storage) {
+        this.storage = storage;
+        this.definitions = loadDefinitions(storage);
+    }
+
+    /**
+     * Method to get the catalog of the game resources
+     * @return {@link ItemCatalog} Catalog of the default storage
+     */
+    public static ItemCatalog getCatalog() {
+        return getCatalog(GameStorage.DEFAULT);
+    }
+
+    /**
+     * Method to get the catalog of the resources of a storage, reading its definition files the first time
+     * @param storage Storage containing the item text files
+     * @return {@link ItemCatalog} Catalog of the resource folder of the storage
+     */
+    public static synchronized ItemCatalog getCatalog(GameStorage storage) {
+        return CATALOGS.computeIfAbsent(storage.resourceRoot(), root -> new ItemCatalog(storage));
+    }
+
+    /**
+     * Method to create a new item from its definition
+     * The item is a new instance, so that its boost can be modified without modifying the definition
+     * @param identifier Identifier of the item
+     * @return {@link Item} New item with the first definition of the identifier, or null if no item has this identifier
+     */
+    public Item createItem(int identifier) {
+        return createItem(identifier, null);
+    }
+
+    /**
+     * Method to create a new item from the definition with a given effect
+     * @param identifier Identifier of the item
+     * @param effect Effect of the item, or null for the first definition of the identifier
+     * @return {@link Item} New item, or null if no item has this identifier
+     */
+    public Item createItem(int identifier, Item.Effect effect) {
+        ItemDefinition definition = getDefinition(identifier, effect);
+        return definition == null ? null : new Item(definition);
+    }
+
+    /**
+     * Method to get the definition of an item type
+     * @param identifier Identifier of the item
+     * @return {@link ItemDefinition} First definition of the identifier, or null if no item has this identifier
+     */
+    public ItemDefinition getDefinition(int identifier) {
+        return getDefinition(identifier, null);
+    }
+
+    /**
+     * Method to get the definition of an item type with a given effect
+     * @param identifier Identifier of the item
+     * @param effect Effect of the item, or null for the first definition of the identifier
+     * @return {@link ItemDefinition} Definition with the effect, or the first definition of the identifier if none has this effect,
+     * or null if no item has this identifier
+     */
+    public ItemDefinition getDefinition(int identifier, Item.Effect effect) {
+        ItemDefinition definition = findDefinition(definitions, identifier, effect);
+        if (definition == null && definitions.containsKey(identifier)) {
+            definition = definitions.get(identifier).get(0);
+        }
+        return definition;
+    }
+
+    /**
+     * Method to read an item from a text file
+     * The item shares the definition of the catalog with the effect given in the file, but keeps the boost given in the file
+     * @param fileInput file to be read
+     * @return {@link Item} New item
+     */
+    public Item readItem(Scanner fileInput) {
+        ItemDefinition readDefinition = ItemDefinition.read(fileInput, storage);
+        ItemDefinition definition = findDefinition(definitions, readDefinition.getIdentifier(), readDefinition.getEffect());
+        return new Item(definition != null ? definition : readDefinition, readDefinition.getBoost());
+    }
+
+    /**
+     * Method to find the definition of an identifier with a given effect
+     * @param definitions Definitions by item identifier
+     * @param identifier Identifier of the item
+     * @param effect Effect of the item, or null for the first definition of the identifier
+     * @return {@link ItemDefinition} Definition, or null if the identifier has no definition with this effect
+     */
+    private static ItemDefinition findDefinition(HashMap<Integer, ArrayList<ItemDefinition>> definitions, int identifier, Item.Effect effect) {
+        ArrayList<ItemDefinition> variants = definitions.get(identifier);
+        if (variants == null) {
+            return null;
+        }
+        for (ItemDefinition variant : variants) {
+            if (effect == null || variant.getEffect() == effect) {
+                return variant;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Method to add a definition read from a file, unless the identifier already has a definition with the same effect
+     * @param definitions Definitions by item identifier
+     * @param definition Definition read
+     */
+    private static void addDefinition(HashMap<Integer, ArrayList<ItemDefinition>> definitions, ItemDefinition definition) {
+        if (findDefinition(definitions, definition.getIdentifier(), definition.getEffect()) == null) {
+            definitions.computeIfAbsent(definition.getIdentifier(), identifier -> new ArrayList<>()).add(definition);
+        }
+    }
+
+    /**
+     * Method to read the definitions of the inventory files and of the map items file
+     * If an identifier is defined more than once with the same effect, the first definition is kept
+     * @param storage Storage containing the item text files
+     * @return {@link HashMap} Definitions by item identifier, in the order in which they were read
+     */
+    private static HashMap<Integer, ArrayList<ItemDefinition>> loadDefinitions(GameStorage storage) {
+        HashMap<Integer, ArrayList<ItemDefinition>> loadedDefinitions = new HashMap<>();
+        for (String owner : OWNERS) {
+            try (Scanner fileInput = new Scanner(Objects.requireNonNull(storage.openResource("/inventory/textfiles/" + owner + "Items.txt")))) {
+                while (fileInput.hasNextLine()) {
+                    addDefinition(loadedDefinitions, ItemDefinition.read(fileInput, storage));
+                    fileInput.nextLine();
+                }
+            } catch (NullPointerException e) {
+                System.out.println("Item definition file not found: " + owner);
+            }
+        }
+        try (Scanner fileInput = new Scanner(Objects.requireNonNull(storage.openResource("/inventory/textfiles/mapItems.txt")))) {
+            while (fileInput.hasNextLine()) {
+                fileInput.nextInt(); //skips the quantity
+                addDefinition(loadedDefinitions, ItemDefinition.read(fileInput, storage));
+                fileInput.nextLine();
+            }
+        } catch (NullPointerException e) {
+            System.out.println("Item definition file not found: mapItems");
+        }
+        return loadedDefinitions;
+    }
+}
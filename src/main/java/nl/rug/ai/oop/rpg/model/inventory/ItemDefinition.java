@@ -0,0 +1,212 @@
+package nl.rug.ai.oop.rpg.model.inventory;
+
+import nl.rug.ai.oop.rpg.model.engine.GameEngine;
+import nl.rug.ai.oop.rpg.model.engine.GameStorage;
+
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.net.URL;
+import java.util.Scanner;
+
+/**
+ * Definition of a type of item: the properties shared by all the items with the same identifier.
+ * Definitions are immutable and read only once by the {@link ItemCatalog}, so that all the {@link Item} of a type share
+ * the same names, descriptions and image instead of having their own copies.
+ * @version 1.0
+ */
+public final class ItemDefinition {
+    private final int identifier;
+    private final String nameEN;
+    private final String nameNL;
+    private final String descriptionEN;
+    private final String descriptionNL;
+    private final Item.Effect effect;
+    private final int boost;
+    private final int price;
+    private final GameStorage storage; //contains the item image
+    private volatile ImageIcon itemImage; //loaded when it is first displayed
+
+    /**
+     * Generates an item definition according to its properties
+     * @param identifier Unique item type identifier
+     * @param nameEN English item name
+     * @param nameNL Dutch item name
+     * @param descriptionEN English item description
+     * @param descriptionNL Dutch item description
+     * @param effect Effect of the item
+     * @param boost Default boost of the item
+     * @param price Value of the item
+     * @param storage Storage containing the item image
+     */
+    ItemDefinition(int identifier, String nameEN, String nameNL, String descriptionEN, String descriptionNL, Item.Effect effect, int boost, int price, GameStorage storage) {
+        this.identifier = identifier;
+        this.nameEN = nameEN;
+        this.nameNL = nameNL;
+        this.descriptionEN = descriptionEN;
+        this.descriptionNL = descriptionNL;
+        this.effect = effect;
+        this.boost = boost;
+        this.price = price;
+        this.storage = storage;
+    }
+
+    /**
+     * Method to read item properties from a text file
+     * @param fileInput file to be read
+     * @param storage Storage containing the item image
+     * @return {@link ItemDefinition} Corresponding definition
+     */
+    static ItemDefinition read(Scanner fileInput, GameStorage storage) {
+        int identification = fileInput.nextInt();
+        fileInput.nextLine(); //goes to next line
+        String nameEN = fileInput.nextLine();
+        String nameNL = fileInput.nextLine();
+        String descriptionEN = fileInput.nextLine();
+        String descriptionNL = fileInput.nextLine();
+        Item.Effect effect = null;
+        String effectString = fileInput.nextLine();
+        switch (effectString) {
+            case "attack" -> effect = Item.Effect.ATTACKING;
+            case "attackboost" -> effect = Item.Effect.ATTACK_BOOST;
+            case "defense" -> effect = Item.Effect.DEFENDING;
+            case "defenseboost" -> effect = Item.Effect.DEFENSE_BOOST;
+            case "healing" -> effect = Item.Effect.HEALING;
+            case "health" -> effect = Item.Effect.HEALTH_BOOST;
+            case "subway" -> effect = Item.Effect.SUBWAY;
+        }
+        int boost = fileInput.nextInt();
+        int price = fileInput.nextInt();
+        return new ItemDefinition(identification, nameEN, nameNL, descriptionEN, descriptionNL, effect, boost, price, storage);
+    }
+
+
+    /* Getters */
+
+    /**
+     * Getter for the item identifier
+     * @return item identifier
+     */
+    public int getIdentifier() {
+        return identifier;
+    }
+
+    /**
+     * Getter for the item name in a language
+     * @param language Language of the name
+     * @return {@link String} item name
+     */
+    public String getName(GameEngine.Language language) {
+        if (language == GameEngine.Language.ENGLISH) {
+            return nameEN;
+        } else if (language == GameEngine.Language.DUTCH) {
+            return nameNL;
+        }
+        return null;
+    }
+
+    /**
+     * Getter for the item description in a language
+     * @param language Language of the description
+     * @return {@link String} item description
+     */
+    public String getDescription(GameEngine.Language language) {
+        if (language == GameEngine.Language.ENGLISH) {
+            return descriptionEN;
+        } else if (language == GameEngine.Language.DUTCH) {
+            return descriptionNL;
+        }
+        return null;
+    }
+
+    /**
+     * Getter for the item effect
+     * @return {@link Item.Effect} item effect
+     */
+    public Item.Effect getEffect() {
+        return effect;
+    }
+
+    /**
+     * Getter for the item effect string in a language
+     * @param language Language of the effect string
+     * @return {@link String} item effect string
+     */
+    public String getEffectString(GameEngine.Language language) {
+        String effectString = null;
+        if (language == GameEngine.Language.ENGLISH) {
+            switch (effect) {
+                case ATTACKING -> effectString = "Attack";
+                case ATTACK_BOOST -> effectString = "General Attack Boost";
+                case DEFENDING -> effectString = "Defense";
+                case DEFENSE_BOOST -> effectString = "General Defense Boost";
+                case HEALING -> effectString = "Healing";
+                case HEALTH_BOOST -> effectString = "General Health Boost";
+                case SUBWAY -> effectString = "Subway";
+            }
+        } else {
+            switch (effect) {
+                case ATTACKING -> effectString = "Aanval";
+                case ATTACK_BOOST -> effectString = "Algemene aanvalsboost";
+                case DEFENDING -> effectString = "Verdediging";
+                case DEFENSE_BOOST -> effectString = "Algemene defensieboost";
+                case HEALING -> effectString = "Genezing";
+                case HEALTH_BOOST -> effectString = "Algemene gezondheidsboost";
+                case SUBWAY -> effectString = "Metro";
+            }
+        }
+        return effectString;
+    }
+
+    /**
+     * Getter for the default item effect boost, which the items can modify
+     * @return default item effect boost
+     */
+    public int getBoost() {
+        return boost;
+    }
+
+    /**
+     * Getter for the item price
+     * @return item price
+     */
+    public int getPrice() {
+        return price;
+    }
+
+    /**
+     * Getter for the item image path
+     * @return {@link String} item image path
+     */
+    public String getItemImagePath() {
+        return "/inventory/items/" + identifier + ".png";
+    }
+
+    /**
+     * Getter for the item image, shared by all the items of this type
+     * The image is only loaded the first time it is requested, so that items can be used without a display
+     * It is read from the storage of the item files; if it is missing, an empty image is displayed instead
+     * @return {@link ImageIcon} item image
+     */
+    public ImageIcon getItemImage() {
+        ImageIcon image = itemImage;
+        if (image == null) {
+            URL resource = storage.getResource(getItemImagePath());
+            if (resource != null) {
+                image = new ImageIcon(resource);
+            } else {
+                System.out.println("Item image not found: " + getItemImagePath());
+                image = new ImageIcon(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB));
+            }
+            itemImage = image;
+        }
+        return image;
+    }
+
+    /**
+     * Method to generate a string of the item definition
+     * @return {@link String} item definition string with all parameters
+     */
+    public String toString() {
+        return identifier + " " + nameEN + " " + nameNL + " " + descriptionEN + " " + descriptionNL + " " + boost + " " + price;
+    }
+}
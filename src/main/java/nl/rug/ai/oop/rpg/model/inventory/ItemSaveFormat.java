@@ -0,0 +1,160 @@
+package nl.rug.ai.oop.rpg.model.inventory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary format of the saved inventories and map items.
+ * Instead of the items themselves, only their identifier, their effect (which tells the definitions of an identifier apart)
+ * and their boost (the only property that can change) are stored, and the items are rebuilt from the {@link ItemCatalog} when the save is loaded.
+ * A save file starts with the magic number and the version, followed by the content written by its model:
+ * <ul>
+ *     <li>a list of items, stored as {@link Entry} entries - the number of entries, then per entry the identifier, the effect, the boost and the number of repetitions</li>
+ *     <li>a quantity table - the number of entries, then per entry the identifier and the quantity</li>
+ * </ul>
+ * Consecutive identical items of a list share one entry and are loaded back as a single instance, as in the original list.
+ * @version 1.0
+ */
+final class ItemSaveFormat {
+    private static final int MAGIC = 0x52504749; // "RPGI"
+    private static final short VERSION = 2;
+    private static final Item.Effect[] EFFECTS = Item.Effect.values();
+
+    /**
+     * The format only has static members
+     */
+    private ItemSaveFormat() {
+    }
+
+    /**
+     * Method to write the header of a save file
+     * @param output stream of the save file
+     * @throws IOException if it was not possible to write the header
+     */
+    static void writeHeader(DataOutputStream output) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeShort(VERSION);
+    }
+
+    /**
+     * Method to check the header of a save file
+     * @param input stream of the save file
+     * @throws IOException if the file is not a save file of the current version
+     */
+    static void readHeader(DataInputStream input) throws IOException {
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not an item save file");
+        }
+        short version = input.readShort();
+        if (version != VERSION) {
+            throw new IOException("Unknown item save file version: " + version);
+        }
+    }
+
+    /**
+     * Entry of a saved list of items
+     * Holds copies of the values, so that the items can still be modified while the entry is being written
+     */
+    record Entry(int identifier, Item.Effect effect, int boost, int repetitions) {
+    }
+
+    /**
+     * Method to turn a list of items into entries, merging consecutive identical items
+     * @param items items to be saved
+     * @return {@link ArrayList<Entry>} entries of the list
+     */
+    static ArrayList<Entry> toEntries(List<Item> items) {
+        ArrayList<Entry> entries = new ArrayList<>();
+        Item previous = null;
+        for (Item item : items) {
+            int last = entries.size() - 1;
+            if (item == previous) {
+                Entry entry = entries.get(last);
+                entries.set(last, new Entry(entry.identifier(), entry.effect(), entry.boost(), entry.repetitions() + 1));
+            } else {
+                entries.add(new Entry(item.getIdentifier(), item.getEffect(), item.getBoost(), 1));
+            }
+            previous = item;
+        }
+        return entries;
+    }
+
+    /**
+     * Method to write the entries of a list of items
+     * @param output stream of the save file
+     * @param entries entries to be written
+     * @throws IOException if it was not possible to write the entries
+     */
+    static void writeEntries(DataOutputStream output, List<Entry> entries) throws IOException {
+        output.writeInt(entries.size());
+        for (Entry entry : entries) {
+            output.writeInt(entry.identifier());
+            output.writeByte(entry.effect() != null ? entry.effect().ordinal() : -1);
+            output.writeInt(entry.boost());
+            output.writeInt(entry.repetitions());
+        }
+    }
+
+    /**
+     * Method to read a list of items and rebuild them from the {@link ItemCatalog}
+     * @param input stream of the save file
+     * @param catalog catalog containing the item definitions
+     * @return {@link ArrayList<Item>} items read
+     * @throws IOException if the items could not be read or if an identifier is unknown
+     */
+    static ArrayList<Item> readItems(DataInputStream input, ItemCatalog catalog) throws IOException {
+        int numberOfEntries = input.readInt();
+        ArrayList<Item> items = new ArrayList<>();
+        for (int entry = 0; entry < numberOfEntries; entry++) {
+            int identifier = input.readInt();
+            byte effectOrdinal = input.readByte();
+            if (effectOrdinal >= EFFECTS.length) {
+                throw new IOException("Unknown item effect: " + effectOrdinal);
+            }
+            Item.Effect effect = effectOrdinal >= 0 ? EFFECTS[effectOrdinal] : null;
+            int boost = input.readInt();
+            int repetitions = input.readInt();
+            Item item = catalog.createItem(identifier, effect);
+            if (item == null) {
+                throw new IOException("Unknown item identifier: " + identifier);
+            }
+            item.setBoost(boost);
+            for (int repetition = 0; repetition < repetitions; ++repetition) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Method to write a quantity table
+     * @param output stream of the save file
+     * @param quantities quantities by item identifier
+     * @throws IOException if it was not possible to write the quantities
+     */
+    static void writeQuantities(DataOutputStream output, ItemStacks quantities) throws IOException {
+        output.writeInt(quantities.size());
+        for (int index = 0; index < quantities.size(); index++) {
+            output.writeInt(quantities.getIdentifierAt(index));
+            output.writeInt(quantities.getQuantityAt(index));
+        }
+    }
+
+    /**
+     * Method to read a quantity table
+     * @param input stream of the save file
+     * @return {@link ItemStacks} quantities by item identifier
+     * @throws IOException if the quantities could not be read
+     */
+    static ItemStacks readQuantities(DataInputStream input) throws IOException {
+        int numberOfEntries = input.readInt();
+        ItemStacks quantities = new ItemStacks();
+        for (int entry = 0; entry < numberOfEntries; entry++) {
+            quantities.setQuantity(input.readInt(), input.readInt());
+        }
+        return quantities;
+    }
+}
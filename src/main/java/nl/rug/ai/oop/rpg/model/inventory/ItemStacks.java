@@ -0,0 +1,228 @@
+package nl.rug.ai.oop.rpg.model.inventory;
+
+import java.util.Arrays;
+
+/**
+ * Stacks of the player's inventory, indexed by item identifier: the quantity of every item type, and the item shown in the item list for it
+ * together with its index in the item list, which is also the index of its record in the array of item records.
+ * The stacks are stored in arrays, in the order in which the identifiers were first added, and found through an open-addressing hash table,
+ * so that adding, removing, counting and looking up an item or its record take a constant time without boxing the identifiers and the quantities.
+ * A stack is never removed: its quantity goes back to 0, as in the save files.
+ * @version 1.0
+ */
+final class ItemStacks {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] identifiers = new int[INITIAL_CAPACITY];
+    private int[] quantities = new int[INITIAL_CAPACITY];
+    private Item[] listedItems = new Item[INITIAL_CAPACITY];
+    private int[] recordIndices = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    /* Hash table of the stack indices plus one, 0 being an empty slot; at most half full */
+    private int[] table = new int[2 * INITIAL_CAPACITY];
+
+    /**
+     * Getter for the number of stacks, including the empty ones
+     * @return number of stacks
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Getter for the identifier of a stack
+     * @param index Index of the stack, in the order in which the stacks were added
+     * @return identifier of the stack
+     */
+    int getIdentifierAt(int index) {
+        return identifiers[index];
+    }
+
+    /**
+     * Getter for the quantity of a stack
+     * @param index Index of the stack, in the order in which the stacks were added
+     * @return quantity of the stack
+     */
+    int getQuantityAt(int index) {
+        return quantities[index];
+    }
+
+    /**
+     * Getter for if there is a stack for an item type, even an empty one
+     * @param identifier Identifier of the item
+     * @return Boolean that indicates if there is a stack
+     */
+    boolean contains(int identifier) {
+        return indexOf(identifier) >= 0;
+    }
+
+    /**
+     * Getter for the quantity of an item type
+     * @param identifier Identifier of the item
+     * @return quantity, or 0 if there is no stack
+     */
+    int getQuantity(int identifier) {
+        int index = indexOf(identifier);
+        return index >= 0 ? quantities[index] : 0;
+    }
+
+    /**
+     * Setter for the quantity of an item type, adding its stack if needed
+     * @param identifier Identifier of the item
+     * @param quantity New quantity
+     */
+    void setQuantity(int identifier, int quantity) {
+        int index = indexOfOrAdd(identifier); //before reading the array, which can be replaced when a stack is added
+        quantities[index] = quantity;
+    }
+
+    /**
+     * Method to add to the quantity of an item type, adding its stack if needed
+     * @param identifier Identifier of the item
+     * @param difference Quantity added, negative to remove items
+     * @return new quantity
+     */
+    int addQuantity(int identifier, int difference) {
+        int index = indexOfOrAdd(identifier);
+        quantities[index] += difference;
+        return quantities[index];
+    }
+
+    /**
+     * Getter for the item shown in the item list for an item type
+     * @param identifier Identifier of the item
+     * @return {@link Item} listed item, or null if the item type is not in the item list
+     */
+    Item getListedItem(int identifier) {
+        int index = indexOf(identifier);
+        return index >= 0 ? listedItems[index] : null;
+    }
+
+    /**
+     * Getter for the index of the item shown in the item list for an item type
+     * @param identifier Identifier of the item
+     * @return index of the listed item in the item list, or -1 if the item type is not in the item list
+     */
+    int getRecordIndex(int identifier) {
+        int index = indexOf(identifier);
+        return index >= 0 ? recordIndices[index] : -1;
+    }
+
+    /**
+     * Setter for the item shown in the item list for an item type, adding its stack if needed
+     * @param identifier Identifier of the item
+     * @param item Listed item, or null if the item type is removed from the item list
+     * @param recordIndex Index of the listed item in the item list, or -1 if the item type is removed from the item list
+     */
+    void setListedItem(int identifier, Item item, int recordIndex) {
+        int index = indexOfOrAdd(identifier);
+        listedItems[index] = item;
+        recordIndices[index] = recordIndex;
+    }
+
+    /**
+     * Setter for the index of the item shown in the item list for an item type, e.g. after it has been moved into the place of a removed item
+     * @param identifier Identifier of the item, which has a stack
+     * @param recordIndex New index of the listed item in the item list
+     */
+    void setRecordIndex(int identifier, int recordIndex) {
+        recordIndices[indexOf(identifier)] = recordIndex;
+    }
+
+    /**
+     * Method to forget the listed items, e.g. before the item list is replaced
+     */
+    void clearListedItems() {
+        Arrays.fill(listedItems, 0, size, null);
+        Arrays.fill(recordIndices, 0, size, -1);
+    }
+
+    /**
+     * Method to copy the stacks, e.g. to save them on another thread
+     * @return {@link ItemStacks} copy of the stacks
+     */
+    ItemStacks copy() {
+        ItemStacks copy = new ItemStacks();
+        copy.identifiers = identifiers.clone();
+        copy.quantities = quantities.clone();
+        copy.listedItems = listedItems.clone();
+        copy.recordIndices = recordIndices.clone();
+        copy.size = size;
+        copy.table = table.clone();
+        return copy;
+    }
+
+    /**
+     * @param identifier Identifier of the item
+     * @return slot of the hash table where the identifier is, or the empty slot where it would be
+     */
+    private int slotOf(int identifier) {
+        int mask = table.length - 1;
+        int hash = identifier * 0x9E3779B9;
+        int slot = (hash ^ hash >>> 16) & mask;
+        while (table[slot] != 0 && identifiers[table[slot] - 1] != identifier) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * @param identifier Identifier of the item
+     * @return index of the stack, or -1 if there is none
+     */
+    private int indexOf(int identifier) {
+        return table[slotOf(identifier)] - 1;
+    }
+
+    /**
+     * @param identifier Identifier of the item
+     * @return index of the stack, which is added if there is none
+     */
+    private int indexOfOrAdd(int identifier) {
+        int slot = slotOf(identifier);
+        if (table[slot] != 0) {
+            return table[slot] - 1;
+        }
+        if (size == identifiers.length) {
+            grow();
+            slot = slotOf(identifier);
+        }
+        identifiers[size] = identifier;
+        quantities[size] = 0;
+        listedItems[size] = null;
+        recordIndices[size] = -1;
+        table[slot] = ++size;
+        return size - 1;
+    }
+
+    /**
+     * Method to double the capacity of the arrays and to rebuild the hash table
+     */
+    private void grow() {
+        int capacity = identifiers.length * 2;
+        identifiers = Arrays.copyOf(identifiers, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        listedItems = Arrays.copyOf(listedItems, capacity);
+        recordIndices = Arrays.copyOf(recordIndices, capacity);
+        table = new int[2 * capacity];
+        for (int index = 0; index < size; index++) {
+            table[slotOf(identifiers[index])] = index + 1;
+        }
+    }
+
+    /**
+     * Method to generate a string of the quantities
+     * @return {@link String} quantities by identifier
+     */
+    public String toString() {
+        StringBuilder string = new StringBuilder("{");
+        for (int index = 0; index < size; index++) {
+            if (index > 0) {
+                string.append(", ");
+            }
+            string.append(identifiers[index]).append('=').append(quantities[index]);
+        }
+        return string.append('}').toString();
+    }
+}
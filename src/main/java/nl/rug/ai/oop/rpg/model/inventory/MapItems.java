@@ -1,10 +1,14 @@
 package nl.rug.ai.oop.rpg.model.inventory;
 
+import nl.rug.ai.oop.rpg.model.engine.EventBus;
 import nl.rug.ai.oop.rpg.model.engine.GameEngine;
+import nl.rug.ai.oop.rpg.model.engine.GameEvent;
+import nl.rug.ai.oop.rpg.model.engine.GameRandom;
+import nl.rug.ai.oop.rpg.model.engine.GameStorage;
+import nl.rug.ai.oop.rpg.model.engine.SaveJournal;
+import nl.rug.ai.oop.rpg.model.engine.SaveTask;
 import nl.rug.ai.oop.rpg.model.locations.GameLocation;
 
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
 import java.io.*;
 import java.util.*;
 
@@ -13,13 +17,21 @@ import java.util.*;
  * @author Aurélie Gallet
  * @version 1.0
  */
-public class MapItems implements Serializable {
+public class MapItems {
+    private final GameStorage storage;
     private GameEngine gameEngine;
-    private final Collection<PropertyChangeListener> listeners = new ArrayList<>();
+    private EventBus events;
+    private final ContentChanged contentChanged = new ContentChanged();
     private ArrayList<Item> mapItems = new ArrayList<>();
     private final ArrayList<int[]> possibleLocations = new ArrayList<>();
-    public void addListener(PropertyChangeListener listener){
-        listeners.add(listener);
+
+    /**
+     * Event posted when the map items have been changed
+     */
+    public final class ContentChanged extends GameEvent {
+        private ContentChanged() {
+            super(MapItems.this);
+        }
     }
 
 
@@ -27,16 +39,26 @@ public class MapItems implements Serializable {
      * Generates a repertoire of map items
      */
     public MapItems(){
+        this(GameStorage.DEFAULT);
+    }
+
+    /**
+     * Generates a repertoire of map items, using the given files
+     * @param storage Storage containing the item files and the save files
+     */
+    public MapItems(GameStorage storage) {
+        this.storage = storage;
     }
 
     /**
      * Method to initialise all items and their possible locations
      */
     public void initialiseMapItems(boolean hasPreviousTryFailed) {
-        try (Scanner fileInput = new Scanner(Objects.requireNonNull(MapItems.class.getResourceAsStream("/inventory/textfiles/mapItems.txt")))) {
+        ItemCatalog catalog = ItemCatalog.getCatalog(storage);
+        try (Scanner fileInput = new Scanner(Objects.requireNonNull(storage.openResource("/inventory/textfiles/mapItems.txt")))) {
             while (fileInput.hasNextLine()) {
                 int quantity = fileInput.nextInt();
-                Item item = Item.initialiseAnItem(fileInput);
+                Item item = catalog.readItem(fileInput);
                 for (int repetition = 0; repetition < quantity; ++repetition) {
                     mapItems.add(item);
                 }
@@ -55,10 +77,11 @@ public class MapItems implements Serializable {
      * Method to initialise all saved map items and their possible locations
      */
     public void initialiseSavedMapItems() {
-        try (ObjectInputStream input = new ObjectInputStream(new FileInputStream("src/main/resources/saving_data/mapItems.txt"))) {
-            this.mapItems = (ArrayList<Item>) input.readObject();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(storage.getSavePath("mapItems.txt"))))) {
+            ItemSaveFormat.readHeader(input);
+            this.mapItems = ItemSaveFormat.readItems(input, ItemCatalog.getCatalog(storage));
             notifyListeners();
-        } catch (IOException | ClassNotFoundException e) {
+        } catch (IOException e) {
             System.out.println("The map items could not be retrieved.");
             initialiseMapItems(true);
         }
@@ -69,7 +92,7 @@ public class MapItems implements Serializable {
      * Initialises the possible positions for the items
      */
     private void initialisePossiblePositions() {
-        try (Scanner fileInput = new Scanner(Objects.requireNonNull(MapItems.class.getResourceAsStream("/inventory/textfiles/possibleLocations.txt")))) {
+        try (Scanner fileInput = new Scanner(Objects.requireNonNull(storage.openResource("/inventory/textfiles/possibleLocations.txt")))) {
             while (fileInput.hasNextLine()) {
                 int[] coordinates = new int[2];
                 coordinates[0] = fileInput.nextInt();
@@ -91,16 +114,16 @@ public class MapItems implements Serializable {
     }
 
     /**
-     * Method to put all items on the map
+     * Method to put all items on the map, at positions drawn from the random numbers of the game
      */
     public void putAllItems() {
         if (!possibleLocations.isEmpty()) {
+            SplittableRandom random = gameEngine.getRandom().get(GameRandom.Stream.MAP_ITEMS);
             for (Item item:mapItems) {
-                Random random = new Random();
                 int positionIndex = random.nextInt(possibleLocations.size());
                 int[] position = possibleLocations.get(positionIndex);
                 possibleLocations.remove(positionIndex);
-                gameEngine.getLocation().addObject(item.getIdentifier().toString(), item, GameLocation.Location.ISLAND, position[0], position[1], item.getItemImagePath(),true);
+                gameEngine.getLocation().addObject(String.valueOf(item.getIdentifier()), item, GameLocation.Location.ISLAND, position[0], position[1], item.getItemImagePath(),true);
             }
         }
     }
@@ -111,26 +134,80 @@ public class MapItems implements Serializable {
     public void removeItem(Item item) {
         mapItems.remove(item);
         gameEngine.getLocation().removeObjectAtPlayerCoordinates();
+        gameEngine.record(new SaveJournal.MapItemCount(item.getIdentifier(), countItems(item.getIdentifier())));
+    }
+
+    /**
+     * Method to restore the number of copies of an item recorded in the save journal
+     * Copies are only removed, as items never get back on the map
+     * @param entry Journal entry of the item
+     */
+    public void restoreItemCount(SaveJournal.MapItemCount entry) {
+        int toBeRemoved = countItems(entry.identifier()) - entry.count();
+        for (int index = mapItems.size() - 1; index >= 0 && toBeRemoved > 0; index--) {
+            if (mapItems.get(index).getIdentifier() == entry.identifier()) {
+                mapItems.remove(index);
+                toBeRemoved--;
+            }
+        }
+    }
+
+    /**
+     * Method to count the copies of an item that are still on the map
+     * @param identifier Identifier of the item
+     * @return Number of copies
+     */
+    private int countItems(int identifier) {
+        int count = 0;
+        for (Item item : mapItems) {
+            if (item.getIdentifier() == identifier) {
+                count++;
+            }
+        }
+        return count;
     }
 
     /**
      * Method to save the remaining items that should be on the map
      */
     public void save() {
-        try (ObjectOutputStream output = new ObjectOutputStream(new FileOutputStream("src/main/resources/saving_data/mapItems.txt"))){
-            output.writeObject(mapItems);
+        try {
+            snapshot().write();
         } catch (IOException e) {
             System.out.println("Failed save.");
         }
     }
 
     /**
-     * Method to notify listeners if the map content has changed
+     * Method to take a snapshot of the remaining items, which can be written to the save file on another thread
+     * Only the identifiers and boosts of the items are saved, see {@link ItemSaveFormat}
+     * @return {@link SaveTask} Snapshot of the map items
+     */
+    public SaveTask snapshot() {
+        ArrayList<ItemSaveFormat.Entry> entries = ItemSaveFormat.toEntries(mapItems);
+        String path = storage.getSavePath("mapItems.txt");
+        return () -> {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+                ItemSaveFormat.writeHeader(output);
+                ItemSaveFormat.writeEntries(output, entries);
+            }
+        };
+    }
+
+    /**
+     * Method to set the event bus through which the model changes are posted to the views
+     * @param events Event bus of the game
+     */
+    public void setEventBus(EventBus events) {
+        this.events = events;
+    }
+
+    /**
+     * Method to notify the views if the map content has changed
      */
     private void notifyListeners() {
-        PropertyChangeEvent event = new PropertyChangeEvent(this, "mapContent", null, null);
-        for (PropertyChangeListener listener: listeners) {
-            listener.propertyChange(event);
+        if (events != null) {
+            events.post(contentChanged);
         }
     }
 }
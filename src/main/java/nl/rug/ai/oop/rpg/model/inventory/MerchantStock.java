@@ -0,0 +1,221 @@
+package nl.rug.ai.oop.rpg.model.inventory;
+
+import nl.rug.ai.oop.rpg.model.engine.GameStorage;
+import nl.rug.ai.oop.rpg.model.engine.SaveTask;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Objects;
+import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Class for the stock of the products of a merchant, i.e. how many copies of every product it still has.
+ * A stock can be shared by the shops of many games, e.g. all the sessions of a host, from any thread:
+ * the copies are reserved without any lock, with a compare-and-set on the counter of the product only,
+ * so that a product is never sold more often than it is in stock, and games trading different products never wait for each other.
+ * The counters are kept on separate cache lines, so that threads updating different products do not slow each other down either.
+ * The levels are saved in the same format as the stock files of the merchants: a line "identifier quantity" per product.
+ * @version 1.0
+ */
+public final class MerchantStock {
+    /**
+     * Number of copies of a product which is not listed in the stock file of its merchant
+     */
+    public static final int DEFAULT_STOCK = 10;
+
+    /**
+     * Distance between two counters, in ints: 16 ints are 64 bytes, the size of a cache line
+     */
+    private static final int STRIDE = 16;
+
+    private final int[] identifiers; //sorted, the counter of identifiers[i] is levels[i * STRIDE]
+    private final AtomicIntegerArray levels;
+
+    /**
+     * Generates a stock
+     * @param initialLevels Number of copies in stock by item identifier
+     */
+    public MerchantStock(HashMap<Integer, Integer> initialLevels) {
+        identifiers = initialLevels.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+        levels = new AtomicIntegerArray(identifiers.length * STRIDE);
+        for (int index = 0; index < identifiers.length; index++) {
+            levels.set(index * STRIDE, Math.max(0, initialLevels.get(identifiers[index])));
+        }
+    }
+
+    /**
+     * Method to generate the stock of a merchant at the start of the game: every product of its item file is in stock,
+     * with the number of copies given by its stock file (a line "identifier quantity" per product), or {@link #DEFAULT_STOCK}
+     * @param owner Owner of the shop, e.g. potions
+     * @param storage Storage containing the item text files
+     * @return {@link MerchantStock} Stock of the merchant
+     */
+    public static MerchantStock load(String owner, GameStorage storage) {
+        return new MerchantStock(loadInitialLevels(owner, storage));
+    }
+
+    /**
+     * Method to retrieve the stock of a merchant from its save file, which is written by {@link #snapshot(String)}
+     * The products missing from the save file, e.g. because they were added to the item file since, start with their initial stock
+     * @param owner Owner of the shop, e.g. potions
+     * @param storage Storage containing the item text files and the save files
+     * @return {@link MerchantStock} Stock of the merchant
+     */
+    public static MerchantStock loadSaved(String owner, GameStorage storage) {
+        HashMap<Integer, Integer> levels = loadInitialLevels(owner, storage);
+        try (Scanner fileInput = new Scanner(new File(storage.getSavePath(owner + "Stock.txt")))) {
+            readLevels(fileInput, levels);
+        } catch (FileNotFoundException e) {
+            System.out.println("Stock save file not found, the stock of the merchant was set back to its original form: " + owner);
+        }
+        return new MerchantStock(levels);
+    }
+
+    /**
+     * @param owner Owner of the shop, e.g. potions
+     * @param storage Storage containing the item text files
+     * @return Number of copies in stock at the start of the game by item identifier
+     */
+    private static HashMap<Integer, Integer> loadInitialLevels(String owner, GameStorage storage) {
+        HashMap<Integer, Integer> initialLevels = new HashMap<>();
+        ItemCatalog catalog = ItemCatalog.getCatalog(storage);
+        ArrayList<Item> products = new ArrayList<>();
+        try (Scanner fileInput = new Scanner(Objects.requireNonNull(storage.openResource("/inventory/textfiles/" + owner + "Items.txt")))) {
+            while (fileInput.hasNextLine()) {
+                products.add(catalog.readItem(fileInput));
+                fileInput.nextLine();
+            }
+        } catch (NullPointerException e) {
+            System.out.println("Original inventory file not found");
+        }
+        for (Item product : products) {
+            initialLevels.put(product.getIdentifier(), DEFAULT_STOCK);
+        }
+        try (Scanner fileInput = new Scanner(Objects.requireNonNull(storage.openResource("/inventory/textfiles/" + owner + "Stock.txt")))) {
+            readLevels(fileInput, initialLevels);
+        } catch (NullPointerException e) {
+            System.out.println("Stock file not found, every product is in stock " + DEFAULT_STOCK + " times: " + owner);
+        }
+        return initialLevels;
+    }
+
+    /**
+     * Method to read the lines "identifier quantity" of a stock file, ignoring the items that are not products of the merchant
+     * and a last line that was not completely written
+     * @param fileInput Scanner of the stock file
+     * @param levels Number of copies in stock by item identifier, which is updated
+     */
+    private static void readLevels(Scanner fileInput, HashMap<Integer, Integer> levels) {
+        while (fileInput.hasNextInt()) {
+            int identifier = fileInput.nextInt();
+            if (!fileInput.hasNextInt()) {
+                break;
+            }
+            int quantity = fileInput.nextInt();
+            if (levels.containsKey(identifier)) {
+                levels.put(identifier, quantity);
+            }
+        }
+    }
+
+    /**
+     * Method to take a snapshot of the stock, which can be written to the save file on another thread
+     * The level of every product is read atomically, but the products are not read at the same instant:
+     * the snapshot is only consistent if no other thread trades with the merchant meanwhile
+     * @param path Path of the save file
+     * @return {@link SaveTask} Snapshot of the stock
+     */
+    public SaveTask snapshot(String path) {
+        StringBuilder text = new StringBuilder();
+        for (int index = 0; index < identifiers.length; index++) {
+            text.append(identifiers[index]).append(' ').append(levels.get(index * STRIDE)).append('\n');
+        }
+        String content = text.toString();
+        return () -> {
+            try (Writer output = new OutputStreamWriter(new FileOutputStream(path), StandardCharsets.UTF_8)) {
+                output.write(content);
+            }
+        };
+    }
+
+    /**
+     * Getter for the number of copies of an item in stock
+     * @param identifier Identifier of the item
+     * @return Number of copies in stock, 0 if the merchant does not sell the item
+     */
+    public int getStock(int identifier) {
+        int index = Arrays.binarySearch(identifiers, identifier);
+        return index >= 0 ? levels.get(index * STRIDE) : 0;
+    }
+
+    /**
+     * Method to take copies of an item out of the stock, atomically: either all of them are taken, or none
+     * @param identifier Identifier of the item
+     * @param quantity Number of copies, which is positive
+     * @return Boolean that indicates if the copies were in stock and have been taken
+     * @throws IllegalArgumentException if the quantity is not positive
+     */
+    public boolean reserve(int identifier, int quantity) {
+        checkQuantity(quantity);
+        int index = Arrays.binarySearch(identifiers, identifier);
+        if (index < 0) {
+            return false;
+        }
+        int slot = index * STRIDE;
+        int level = levels.get(slot);
+        while (level >= quantity) {
+            int witness = levels.compareAndExchange(slot, level, level - quantity);
+            if (witness == level) {
+                return true;
+            }
+            level = witness; //another game has traded the same item in the meantime
+        }
+        return false;
+    }
+
+    /**
+     * Method to put copies of an item back in the stock, e.g. when the merchant buys them from a player
+     * Nothing happens if the merchant does not sell the item
+     * @param identifier Identifier of the item
+     * @param quantity Number of copies, which is positive
+     * @throws IllegalArgumentException if the quantity is not positive
+     */
+    public void restock(int identifier, int quantity) {
+        checkQuantity(quantity);
+        int index = Arrays.binarySearch(identifiers, identifier);
+        if (index >= 0) {
+            levels.getAndUpdate(index * STRIDE, level -> level > Integer.MAX_VALUE - quantity ? Integer.MAX_VALUE : level + quantity);
+        }
+    }
+
+    /**
+     * Method to set the number of copies of an item in stock, e.g. when it is restored from the save journal
+     * Nothing happens if the merchant does not sell the item
+     * @param identifier Identifier of the item
+     * @param level Number of copies in stock, a negative level counts as 0
+     */
+    public void setStock(int identifier, int level) {
+        int index = Arrays.binarySearch(identifiers, identifier);
+        if (index >= 0) {
+            levels.set(index * STRIDE, Math.max(0, level));
+        }
+    }
+
+    /**
+     * @param quantity Number of copies traded
+     * @throws IllegalArgumentException if the quantity is not positive
+     */
+    private static void checkQuantity(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("The quantity must be positive: " + quantity);
+        }
+    }
+}
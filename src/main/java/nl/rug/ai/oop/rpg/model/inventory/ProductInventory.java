@@ -1,7 +1,10 @@
 package nl.rug.ai.oop.rpg.model.inventory;
 
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
+import nl.rug.ai.oop.rpg.model.engine.GameEvent;
+import nl.rug.ai.oop.rpg.model.engine.GameStorage;
+import nl.rug.ai.oop.rpg.model.engine.SaveJournal;
+import nl.rug.ai.oop.rpg.model.engine.SaveTask;
+
 import java.io.*;
 import java.util.ArrayList;
 
@@ -10,8 +13,35 @@ import java.util.ArrayList;
  * @author Aurélie Gallet
  * @version 1.0
  */
-public class ProductInventory extends Inventory implements Serializable {
-    private transient ArrayList<ProductRecord> currentArrayOfProductRecords;
+public class ProductInventory extends Inventory {
+    private ArrayList<ProductRecord> currentArrayOfProductRecords;
+    private final InspectedItemChanged inspectedItemChanged = new InspectedItemChanged();
+    private MerchantStock stock; //loaded when first needed, unless a shared stock is set
+    private boolean isStockShared = false; //a shared stock is saved by its owner, not by the shop
+    private boolean isSavedGame = false; //the stock is then loaded from the save file
+
+    /**
+     * Event posted when the inspected product has been changed
+     */
+    public final class InspectedItemChanged extends GameEvent {
+        private InspectedItemChanged() {
+            super(ProductInventory.this);
+        }
+
+        /**
+         * @return {@link ProductRecord} Inspected product
+         */
+        public ProductRecord getProductRecord() {
+            return new ProductRecord(inspectedItem);
+        }
+
+        /**
+         * @return Number of copies of the inspected product in stock, 0 if no product is inspected
+         */
+        public int getStock() {
+            return inspectedItem != null ? ProductInventory.this.getStock().getStock(inspectedItem.getIdentifier()) : 0;
+        }
+    }
 
     /**
      * Generates a product inventory according to a specific owner and what he owns
@@ -21,6 +51,15 @@ public class ProductInventory extends Inventory implements Serializable {
         super(owner);
     }
 
+    /**
+     * Generates a product inventory according to a specific owner and what he owns, using the given files
+     * @param owner Owner of the inventory
+     * @param storage Storage containing the item files and the save files
+     */
+    public ProductInventory(String owner, GameStorage storage) {
+        super(owner, storage);
+    }
+
     /**
      * Method to initialise additional elements according to what type of inventory it is
      */
@@ -28,26 +67,138 @@ public class ProductInventory extends Inventory implements Serializable {
         this.currentArrayOfProductRecords = makeArrayOfRecordProducts(inventoryList);
     }
 
+    /**
+     * Setter for the stock of the merchant, e.g. one shared by the shops of all the games of a host
+     * A shared stock is neither saved nor journaled by the shop, it has to be saved by the one sharing it
+     * @param stock Stock of the merchant
+     */
+    public void setStock(MerchantStock stock) {
+        this.stock = stock;
+        this.isStockShared = true;
+    }
+
+    /**
+     * Getter for the stock of the merchant
+     * Unless a shared stock is set, it is loaded from the save file if the game was saved, otherwise it starts full
+     * @return {@link MerchantStock} Stock of the merchant
+     */
+    public MerchantStock getStock() {
+        if (stock == null) {
+            stock = isSavedGame ? MerchantStock.loadSaved(owner, storage) : MerchantStock.load(owner, storage);
+        }
+        return stock;
+    }
+
+    /**
+     * Method to record the number of copies of an item in stock in the save journal, after it has been traded
+     * @param identifier Identifier of the item
+     */
+    private void recordStock(int identifier) {
+        if (!isStockShared) {
+            gameEngine.record(new SaveJournal.StockLevel(owner, identifier, getStock().getStock(identifier)));
+        }
+    }
+
+    /**
+     * Method to restore the number of copies of an item in stock recorded in the save journal
+     * The entry is ignored if it belongs to another merchant, or if the stock is shared
+     * @param entry Journal entry of the stock
+     */
+    public void restoreStock(SaveJournal.StockLevel entry) {
+        if (entry.merchant().equals(owner) && !isStockShared) {
+            getStock().setStock(entry.identifier(), entry.level());
+        }
+    }
+
     /**
      * Method that enables a merchant to sell an item to a player
-     * The merchant's inventory does not get updated because he should have infinity amount of everything
      * @param item Item that is sold by the merchant
+     * @return Boolean that indicates if the item was sold
+     */
+    public boolean sell(Item item) {
+        return sell(item, 1);
+    }
+
+    /**
+     * Method that enables a merchant to sell copies of an item to a player, as one transaction:
+     * either the player pays for all the copies and gets all of them, or nothing happens.
+     * The money and the bag of the player are only used by the thread of its game, hence they cannot change during the transaction,
+     * while the stock may be shared with other games: the copies are reserved first, and nothing can fail once they are.
+     * If the item is the inspected product, the views are notified, so that they show its new stock, whether it was sold or not.
+     * @param item Item that is sold by the merchant
+     * @param quantity Number of copies sold
+     * @return Boolean that indicates if the copies were sold
+     */
+    public boolean sell(Item item, int quantity) {
+        boolean isSold = sellCopies(item, quantity);
+        if (item != null && item == inspectedItem) {
+            notifyInspectedItemChange();
+        }
+        return isSold;
+    }
+
+    /**
+     * Method that sells copies of an item to a player, see {@link #sell(Item, int)}
+     * @param item Item that is sold by the merchant
+     * @param quantity Number of copies sold
+     * @return Boolean that indicates if the copies were sold
      */
-    public void sell(Item item) {
-        if (inventoryList.contains(item) && gameEngine.getPlayerModel().canSpend(item.getPrice())) {
+    private boolean sellCopies(Item item, int quantity) {
+        if (quantity <= 0 || !inventoryList.contains(item)) {
+            return false;
+        }
+        int price;
+        try {
+            price = Math.multiplyExact(item.getPrice(), quantity);
+        } catch (ArithmeticException e) {
+            return false;
+        }
+        if (!gameEngine.getPlayerModel().canSpend(price) || !getStock().reserve(item.getIdentifier(), quantity)) {
+            return false;
+        }
+        recordStock(item.getIdentifier());
+        gameEngine.getPlayerModel().spendMoney(price);
+        for (int copy = 0; copy < quantity; copy++) {
             gameEngine.getInventory().addItem(item);
-            gameEngine.getPlayerModel().spendMoney(item.getPrice());
         }
+        return true;
     }
 
     /**
      * Method that enables a merchant to buy an item from a player
-     * The merchant's inventory does not get updated because he should have infinity amount of everything
      * @param item Item that is bought by the merchant
+     * @return Boolean that indicates if the item was bought
      */
-    public void buy(Item item) {
-        gameEngine.getPlayerModel().addMoney(item.getPrice()*3/4);
-        gameEngine.getInventory().removeItem(item);
+    public boolean buy(Item item) {
+        return buy(item, 1);
+    }
+
+    /**
+     * Method that enables a merchant to buy copies of an item from a player, for three quarters of its price, as one transaction:
+     * either the player gives all the copies and gets paid for all of them, or nothing happens.
+     * The copies are put back in the stock, if the merchant sells that item.
+     * @param item Item that is bought by the merchant
+     * @param quantity Number of copies bought
+     * @return Boolean that indicates if the copies were bought
+     */
+    public boolean buy(Item item, int quantity) {
+        BagInventory bag = gameEngine.getInventory();
+        if (quantity <= 0 || !bag.canRemove(item, quantity)) {
+            return false;
+        }
+        int price;
+        try {
+            price = Math.multiplyExact(item.getPrice() * 3 / 4, quantity);
+        } catch (ArithmeticException e) {
+            return false;
+        }
+        for (int copy = 0; copy < quantity; copy++) {
+            bag.removeItem(item);
+        }
+        gameEngine.getPlayerModel().addMoney(price);
+        getStock().restock(item.getIdentifier(), quantity);
+        recordStock(item.getIdentifier());
+        return true;
     }
 
 
@@ -84,9 +235,11 @@ public class ProductInventory extends Inventory implements Serializable {
      * Retrieves the inventory from the saved files according to the owner
      */
     public void initialiseSavedInventory() {
-        try (ObjectInputStream input = new ObjectInputStream(new FileInputStream("src/main/resources/saving_data/" + owner + "Inventory.txt"))) {
-            inventoryList = (ArrayList<Item>)input.readObject();
-        } catch (IOException | ClassNotFoundException e) {
+        isSavedGame = true;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(storage.getSavePath(owner + "Inventory.txt"))))) {
+            ItemSaveFormat.readHeader(input);
+            inventoryList = ItemSaveFormat.readItems(input, ItemCatalog.getCatalog(storage));
+        } catch (IOException e) {
             System.out.println("An inventory save file could not be retrieved properly.");
             initialiseOriginalInventory(true);
         }
@@ -94,15 +247,23 @@ public class ProductInventory extends Inventory implements Serializable {
     }
 
     /**
-     * Method to save the game
-     * Uses the fact that arraylists and hashmaps are serializable
+     * Method to take a snapshot of the inventory and of the stock of the merchant, which can be written to the save files on another thread
+     * Only the identifiers and boosts of the products are saved, see {@link ItemSaveFormat}; a shared stock is not saved
+     * @return {@link SaveTask} Snapshot of the inventory
      */
-    public void save() {
-        try (ObjectOutputStream output = new ObjectOutputStream(new FileOutputStream("src/main/resources/saving_data/" + owner + "Inventory.txt"))){
-            output.writeObject(inventoryList);
-        } catch (IOException e) {
-            System.out.println("Failed save.");
-        }
+    public SaveTask snapshot() {
+        ArrayList<ItemSaveFormat.Entry> entries = ItemSaveFormat.toEntries(inventoryList);
+        String path = storage.getSavePath(owner + "Inventory.txt");
+        SaveTask stockSnapshot = isStockShared ? null : getStock().snapshot(storage.getSavePath(owner + "Stock.txt"));
+        return () -> {
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+                ItemSaveFormat.writeHeader(output);
+                ItemSaveFormat.writeEntries(output, entries);
+            }
+            if (stockSnapshot != null) {
+                stockSnapshot.write();
+            }
+        };
     }
 
     /**
@@ -114,25 +275,10 @@ public class ProductInventory extends Inventory implements Serializable {
     }
 
     /**
-     * Method to notify listeners if the model has been changed in terms of language or inspected item
-     * The list of product records is updated before being sent
-     * @param eventName String description of the changed event
+     * Method to notify the views that the inspected product has been changed
      */
     @Override
-    protected void notifyListeners(String eventName) {
-        PropertyChangeEvent event = null;
-        if (eventName.equals("languageChange")) {
-            event = new PropertyChangeEvent(this, "languageChange", null, language);
-        } else if (eventName.equals("inspectedItemChange")) {
-            ProductRecord item = new ProductRecord(inspectedItem);
-            event = new PropertyChangeEvent(this, "inspectedItemChange", null, item);
-        }
-        for (PropertyChangeListener listener: listeners) {
-            if (eventName.equals("languageChange")) {
-                listener.propertyChange(event);
-            } else if (eventName.equals("inspectedItemChange")) {
-                listener.propertyChange(event);
-            }
-        }
+    protected void notifyInspectedItemChange() {
+        post(inspectedItemChanged);
     }
 }
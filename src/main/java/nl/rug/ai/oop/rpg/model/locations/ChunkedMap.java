@@ -0,0 +1,162 @@
+package nl.rug.ai.oop.rpg.model.locations;
+
+import nl.rug.ai.oop.rpg.model.engine.GameStorage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Matrix of entities of a location, divided in square chunks of {@link #CHUNK_SIZE} tiles.
+ * The entities are read straight from the tiles of the {@link LocationData}, one byte per tile, without any lock or copy:
+ * a compiled location is memory-mapped, so that only the pages around the player are in memory and the memory used by a location
+ * does not depend on its size. When the player enters a new chunk, the pages of the chunks next to it are read on a background thread,
+ * so that the player does not wait for them to be loaded from the disk.
+ * The map of a location never changes, hence it is shared by all the games reading the same resources (see {@link #get(GameLocation.Location, GameStorage)}),
+ * together with its walkable terrain.
+ *
+ * @version 1.0
+ */
+class ChunkedMap {
+    /**
+     * Width and height of a chunk in tiles
+     */
+    static final int CHUNK_SIZE = 32;
+    private static final int PREFETCH_RADIUS = 1;
+    private static final int PAGE_SIZE = 4096;
+    private static final ExecutorService CHUNK_LOADER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "chunk-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static volatile int prefetchedTiles; //read by nobody, so that the reads of the prefetch are not optimised away
+
+    private static final HashMap<Path, EnumMap<GameLocation.Location, ChunkedMap>> MAPS = new HashMap<>();
+
+    private final LocationData data;
+    private long[] terrain;
+    private volatile long prefetchedChunk = -1; //chunk around which the pages were last read
+
+    /**
+     * Creates the chunked matrix of a location
+     * @param data content of the location
+     */
+    ChunkedMap(LocationData data) {
+        this.data = data;
+    }
+
+    /**
+     * Gives the map of a location, shared by all the storages with the same resource folder.
+     * The location file is only loaded the first time.
+     * @param location the location
+     * @param storage storage containing the location files
+     * @return {@link ChunkedMap} map of the location
+     * @throws IOException if the location file cannot be read
+     */
+    static ChunkedMap get(GameLocation.Location location, GameStorage storage) throws IOException {
+        synchronized (MAPS) {
+            EnumMap<GameLocation.Location, ChunkedMap> maps = MAPS.computeIfAbsent(storage.resourceRoot(), root -> new EnumMap<>(GameLocation.Location.class));
+            ChunkedMap map = maps.get(location);
+            if (map == null) {
+                map = new ChunkedMap(LocationLoader.load(location, storage));
+                maps.put(location, map);
+            }
+            return map;
+        }
+    }
+
+    /**
+     * @return {@link LocationData} content of the location
+     */
+    LocationData data() {
+        return data;
+    }
+
+    /**
+     * Gives the walkable terrain of the map, one bit per tile, row after row, computed the first time.
+     * The returned array is shared and must not be modified.
+     * @return bits of the tiles whose {@link GameLocation.Entity} is walkable
+     */
+    synchronized long[] getTerrain() {
+        if (terrain == null) {
+            int width = data.width();
+            int height = data.height();
+            long[] bits = new long[(int) (((long) width * height + 63) >>> 6)];
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    if (GameLocation.isWalkable(data.getEntity(x, y))) {
+                        int tile = y * width + x;
+                        bits[tile >>> 6] |= 1L << tile;
+                    }
+                }
+            }
+            terrain = bits;
+        }
+        return terrain;
+    }
+
+    /**
+     * Returns the entity at the given coordinates
+     * @param x x coordinate of the tile, between 0 and the width of the map
+     * @param y y coordinate of the tile, between 0 and the height of the map
+     * @return {@link GameLocation.Entity} at the given coordinates
+     */
+    GameLocation.Entity getEntity(int x, int y) {
+        return data.getEntity(x, y);
+    }
+
+    /**
+     * Reads on a background thread the pages of the chunks around the given coordinates, if the player has entered another chunk.
+     * Nothing is read if the tiles are not memory-mapped, since they are then already in memory.
+     * @param x x coordinate of the player
+     * @param y y coordinate of the player
+     */
+    void prefetchAround(int x, int y) {
+        if (!data.tiles().isDirect()) {
+            return;
+        }
+        int centerX = x / CHUNK_SIZE;
+        int centerY = y / CHUNK_SIZE;
+        long key = getKey(centerX, centerY);
+        if (prefetchedChunk == key) {
+            return;
+        }
+        prefetchedChunk = key;
+        CHUNK_LOADER.execute(() -> readPages(centerX, centerY));
+    }
+
+    /**
+     * Reads one tile per page of the rows of the chunks around a chunk, so that the system loads these pages in memory
+     * @param centerX x coordinate of the chunk
+     * @param centerY y coordinate of the chunk
+     */
+    private void readPages(int centerX, int centerY) {
+        ByteBuffer tiles = data.tiles();
+        int width = data.width();
+        int firstX = Math.max(0, (centerX - PREFETCH_RADIUS) * CHUNK_SIZE);
+        int lastX = Math.min(width, (centerX + PREFETCH_RADIUS + 1) * CHUNK_SIZE) - 1;
+        int lastY = Math.min(data.height(), (centerY + PREFETCH_RADIUS + 1) * CHUNK_SIZE) - 1;
+        int sum = 0;
+        for (int y = Math.max(0, (centerY - PREFETCH_RADIUS) * CHUNK_SIZE); y <= lastY && firstX <= lastX; y++) {
+            int rowEnd = y * width + lastX;
+            for (int tile = y * width + firstX; tile < rowEnd; tile += PAGE_SIZE) {
+                sum += tiles.get(tile);
+            }
+            sum += tiles.get(rowEnd);
+        }
+        prefetchedTiles = sum;
+    }
+
+    /**
+     * @param chunkX x coordinate of the chunk
+     * @param chunkY y coordinate of the chunk
+     * @return key of the chunk, with both coordinates packed in a long
+     */
+    private static long getKey(int chunkX, int chunkY) {
+        return ((long) chunkX << 32) | (chunkY & 0xFFFFFFFFL);
+    }
+}
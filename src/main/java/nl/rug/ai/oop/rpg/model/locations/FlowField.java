@@ -0,0 +1,159 @@
+package nl.rug.ai.oop.rpg.model.locations;
+
+import java.util.Arrays;
+
+/**
+ * Distance map of the current location towards the player, which any number of chasers can follow downhill.
+ * The distances are computed by a single breadth-first search from the tile of the player over the walkable terrain,
+ * up to {@link #MAX_DISTANCE} tiles away, instead of one path search per chaser.
+ * The search is only done again once the player has changed tile or another location has been loaded, hence a chaser step only
+ * compares the distances of the four neighbouring tiles, whatever the number of chasers.
+ * Like {@link PathFinder}, the search reuses its arrays, stamped with the number of the search instead of being cleared.
+ * The objects are ignored by the search, so that the chasers moving around do not change the distances;
+ * they are only taken into account when a chaser steps, as a chaser only steps on walkable tiles without any object, e.g. another chaser or an item.
+ *
+ * @version 1.0
+ */
+public final class FlowField {
+    /**
+     * Maximum distance, in steps, at which the player is chased
+     */
+    public static final int MAX_DISTANCE = 64;
+
+    private static final int[] STEP_X = {0, 0, -1, 1};
+    private static final int[] STEP_Y = {-1, 1, 0, 0};
+    private static final GameLocation.Direction[] DIRECTIONS = {GameLocation.Direction.NORTH, GameLocation.Direction.SOUTH, GameLocation.Direction.WEST, GameLocation.Direction.EAST};
+
+    private final GameLocation gameLocation;
+
+    /* Per tile: number of the search which reached it and distance to the player; queue of the breadth-first search */
+    private int[] stamps = new int[0];
+    private int[] distances = new int[0];
+    private int[] queue = new int[0];
+    private int stamp = 0;
+
+    /* Grid and tile of the player of the last search */
+    private WalkabilityGrid grid;
+    private int playerTile = -1;
+
+    /**
+     * Creates the flow field of a GameLocation model
+     * @param gameLocation the GameLocation model
+     */
+    FlowField(GameLocation gameLocation) {
+        this.gameLocation = gameLocation;
+    }
+
+    /**
+     * @param x x coordinate of a tile
+     * @param y y coordinate of a tile
+     * @return number of steps from the tile to the player, ignoring the objects, or -1 if the player is further than {@link #MAX_DISTANCE} or cannot be reached
+     */
+    public int getDistance(int x, int y) {
+        update();
+        if (x < 0 || x >= grid.getWidth() || y < 0 || y >= grid.getHeight()) {
+            return -1;
+        }
+        int tile = y * grid.getWidth() + x;
+        return stamps[tile] == stamp ? distances[tile] : -1;
+    }
+
+    /**
+     * Gives the step a chaser standing on a tile should take to get closer to the player:
+     * towards the free walkable neighbouring tile which is the closest to the player.
+     * The chaser does not step on the tile of the player, and waits if all the tiles closer to the player are taken.
+     * @param x x coordinate of the chaser
+     * @param y y coordinate of the chaser
+     * @return {@link GameLocation.Direction} of the step, or null if the chaser should not move
+     */
+    public GameLocation.Direction getStepTowardsPlayer(int x, int y) {
+        int distance = getDistance(x, y);
+        if (distance <= 1) {
+            return null;
+        }
+        int width = grid.getWidth();
+        GameLocation.Direction best = null;
+        int bestDistance = distance;
+        for (int direction = 0; direction < 4; direction++) {
+            int nextX = x + STEP_X[direction];
+            int nextY = y + STEP_Y[direction];
+            if (!grid.isWalkable(nextX, nextY)) {
+                continue;
+            }
+            int next = nextY * width + nextX;
+            if (stamps[next] == stamp && distances[next] < bestDistance && gameLocation.getObjectAt(nextX, nextY) == null) {
+                best = DIRECTIONS[direction];
+                bestDistance = distances[next];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Searches the distances again if the player has changed tile or another location has been loaded since the last search.
+     */
+    private void update() {
+        WalkabilityGrid currentGrid = gameLocation.getWalkabilityGrid();
+        int[] playerCoordinates = gameLocation.getPlayerCoordinates();
+        int currentPlayerTile = playerCoordinates[1] * currentGrid.getWidth() + playerCoordinates[0];
+        if (currentGrid == grid && currentPlayerTile == playerTile) {
+            return;
+        }
+        grid = currentGrid;
+        playerTile = currentPlayerTile;
+        search(playerCoordinates[0], playerCoordinates[1]);
+    }
+
+    /**
+     * Breadth-first search of the distances from the player, up to {@link #MAX_DISTANCE}.
+     * @param playerX x coordinate of the player
+     * @param playerY y coordinate of the player
+     */
+    private void search(int playerX, int playerY) {
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+        int tiles = width * height;
+        if (stamps.length < tiles) {
+            stamps = new int[tiles];
+            distances = new int[tiles];
+            queue = new int[tiles];
+            stamp = 0;
+        }
+        stamp++;
+        if (stamp == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+        if (playerX < 0 || playerX >= width || playerY < 0 || playerY >= height) {
+            return;
+        }
+
+        int head = 0;
+        int tail = 0;
+        stamps[playerTile] = stamp;
+        distances[playerTile] = 0;
+        queue[tail++] = playerTile;
+        while (head < tail) {
+            int tile = queue[head++];
+            int distance = distances[tile] + 1;
+            if (distance > MAX_DISTANCE) {
+                break;
+            }
+            int x = tile % width;
+            int y = tile / width;
+            for (int direction = 0; direction < 4; direction++) {
+                int nextX = x + STEP_X[direction];
+                int nextY = y + STEP_Y[direction];
+                if (nextX < 0 || nextX >= width || nextY < 0 || nextY >= height) {
+                    continue;
+                }
+                int next = nextY * width + nextX;
+                if (stamps[next] != stamp && grid.isTerrainWalkable(next)) {
+                    stamps[next] = stamp;
+                    distances[next] = distance;
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+}
@@ -1,14 +1,17 @@
 package nl.rug.ai.oop.rpg.model.locations;
 
+import nl.rug.ai.oop.rpg.model.engine.EventBus;
 import nl.rug.ai.oop.rpg.model.engine.GameEngine;
+import nl.rug.ai.oop.rpg.model.engine.GameEvent;
+import nl.rug.ai.oop.rpg.model.engine.GameStorage;
+import nl.rug.ai.oop.rpg.model.engine.SaveTask;
 
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.*;
 import java.util.List;
+import java.util.function.Consumer;
 
 
 /**
@@ -39,17 +42,115 @@ public class GameLocation {
         NORTH, SOUTH, WEST, EAST
     }
 
-    private static final List<Entity> WALKABLE_ENTITIES = Arrays.asList(Entity.SAND, Entity.GRASS, Entity.FLOWERS, Entity.PATH, Entity.ROAD, Entity.GRAVEL, Entity.FLOOR);
+    /**
+     * Event posted when a new location has been loaded
+     */
+    public final class MapChanged extends GameEvent {
+        private MapChanged() {
+            super(GameLocation.this);
+        }
+    }
+
+    /**
+     * Event posted when the player has moved
+     */
+    public final class PositionChanged extends GameEvent {
+        private PositionChanged() {
+            super(GameLocation.this);
+        }
+
+        /**
+         * @return x and y coordinates of the player
+         */
+        public int[] getPlayerCoordinates() {
+            return playerCoordinates;
+        }
+    }
+
+    /**
+     * Event posted when the title of the location has changed language
+     */
+    public final class TitleChanged extends GameEvent {
+        private TitleChanged() {
+            super(GameLocation.this);
+        }
+
+        /**
+         * @return title of the location in the current language
+         */
+        public String getTitle() {
+            return GameLocation.this.getTitle();
+        }
+    }
+
+    /**
+     * Event posted when objects have been added to or removed from the map
+     */
+    public final class ObjectsChanged extends GameEvent {
+        private ObjectsChanged() {
+            super(GameLocation.this);
+        }
+    }
+
+    /**
+     * Event posted when the player has walked on an object
+     * A new event is posted at every step, so that every object reached is delivered, also when several steps are taken in one tick
+     */
+    public final class ObjectReached extends GameEvent {
+        private final LocationObject object;
+
+        private ObjectReached(LocationObject object) {
+            super(GameLocation.this);
+            this.object = object;
+        }
+
+        /**
+         * @return the object the player is standing on
+         */
+        public LocationObject getObject() {
+            return object;
+        }
+    }
+
+    /**
+     * Event posted when the player has bumped into an object that is not walkable
+     * A new event is posted at every bump, so that every object bumped into is delivered, also when several steps are taken in one tick
+     */
+    public final class ObjectBumped extends GameEvent {
+        private final LocationObject object;
+
+        private ObjectBumped(LocationObject object) {
+            super(GameLocation.this);
+            this.object = object;
+        }
+
+        /**
+         * @return the object the player bumped into
+         */
+        public LocationObject getObject() {
+            return object;
+        }
+    }
+
+    private static final EnumSet<Entity> WALKABLE_ENTITIES = EnumSet.of(Entity.SAND, Entity.GRASS, Entity.FLOWERS, Entity.PATH, Entity.ROAD, Entity.GRAVEL, Entity.FLOOR);
+    private final GameStorage storage;
     private GameEngine gameEngine;
     private Location location;
     private GameEngine.Language language = GameEngine.Language.ENGLISH;
     private final HashMap<GameEngine.Language, String> titleTranslations = new HashMap<>();
-    private final ArrayList<PropertyChangeListener> listeners = new ArrayList<>();
+    private EventBus events;
+    private final MapChanged mapChanged = new MapChanged();
+    private final PositionChanged positionChanged = new PositionChanged();
+    private final TitleChanged titleChanged = new TitleChanged();
+    private final ObjectsChanged objectsChanged = new ObjectsChanged();
     private final int[] dimensions = new int[2];
     private final int[] playerCoordinates = new int[2];
     private final int[] lastIslandCoords = {-1, -1};
-    private final List<LocationObject> objects = new ArrayList<>();
-    private Entity[][] map;
+    private final LocationObjectIndex objects = new LocationObjectIndex();
+    private ChunkedMap map;
+    private final EnumMap<Location, WalkabilityGrid> walkabilityGrids = new EnumMap<>(Location.class);
+    private PathFinder pathFinder;
+    private FlowField flowField;
     private boolean isLoadingMap = true;
     private boolean hasWaterBackground = false;
 
@@ -68,17 +169,33 @@ public class GameLocation {
     }
 
     /**
+     * Builds a copy of the whole map, loading all of its chunks.
+     * For large maps, {@link #getEntity(int, int)} should be used instead.
      * @return {@link Entity}[columns][rows] copy of the matrix representing the map
      */
     public Entity[][] getMap() {
         Entity[][] mapCopy = new Entity[dimensions[0]][dimensions[1]];
 
         for (int x = 0; x < dimensions[0]; x++) {
-            System.arraycopy(map[x], 0, mapCopy[x], 0, dimensions[1]);
+            for (int y = 0; y < dimensions[1]; y++) {
+                mapCopy[x][y] = map.getEntity(x, y);
+            }
         }
         return mapCopy;
     }
 
+    /**
+     * @param x x coordinate of the tile
+     * @param y y coordinate of the tile
+     * @return {@link Entity} at the given coordinates, or null if they are outside the map
+     */
+    public Entity getEntity(int x, int y) {
+        if (x < 0 || x >= dimensions[0] || y < 0 || y >= dimensions[1]) {
+            return null;
+        }
+        return map.getEntity(x, y);
+    }
+
     /**
      * Modifies the parameter location and loads the new map
      * @param location new location
@@ -97,78 +214,45 @@ public class GameLocation {
     }
 
     /**
-     * Modifies the language parameter and notifies the listeners
+     * Modifies the language parameter and notifies the subscribers
      * @param language new language of the game
      */
     public void updateLanguage(GameEngine.Language language) {
         this.language = language;
-        notifyListeners("language", getTitle());
+        post(titleChanged);
     }
 
     /**
-     * Loads the map matrix from a location file and places the player in the map, and notifies the listeners.
-     * The files must contain the width and height, the default x and y position of the player, the title in English and Dutch and a matrix of symbols representing the entities.
+     * Loads the map matrix from a location file and places the player in the map, and notifies the subscribers.
+     * The compiled location file is used when available, otherwise the text file is parsed (see {@link LocationLoader}).
+     * The map is read straight from the location file, whose pages are loaded around the player (see {@link ChunkedMap}), and shared with the other games using the same resources.
      * If the map is an island, waterBackground is set to true, otherwise false.
      * @param useDefaultCoordinates true if the user should be placed in the default position in the map, false if it should use playerCoordinates
      */
     private void loadLocation(boolean useDefaultCoordinates) {
-        try (Scanner fileInput = new Scanner(Objects.requireNonNull(GameLocation.class.getResourceAsStream("/locations/textfiles/" + String.valueOf(location).toLowerCase() + ".txt")))) {
-            dimensions[0] = fileInput.nextInt();
-            dimensions[1] = fileInput.nextInt();
-            fileInput.nextLine();
+        try {
+            map = ChunkedMap.get(location, storage);
+            LocationData data = map.data();
+            dimensions[0] = data.width();
+            dimensions[1] = data.height();
 
             if (useDefaultCoordinates) {
-                playerCoordinates[0] = fileInput.nextInt();
-                playerCoordinates[1] = fileInput.nextInt();
+                playerCoordinates[0] = data.defaultX();
+                playerCoordinates[1] = data.defaultY();
             }
-            fileInput.nextLine();
 
-            titleTranslations.put(GameEngine.Language.ENGLISH, fileInput.nextLine());
-            titleTranslations.put(GameEngine.Language.DUTCH, fileInput.nextLine());
+            titleTranslations.put(GameEngine.Language.ENGLISH, data.titleEN());
+            titleTranslations.put(GameEngine.Language.DUTCH, data.titleNL());
 
-            map = new Entity[dimensions[0]][dimensions[1]];
-
-            for (int y = 0; y < dimensions[1]; y++) {
-                String line = fileInput.nextLine();
-                for (int x = 0; x < dimensions[0]; x++) {
-                    map[x][y] = switch (line.substring(x, x + 1)) {
-                        case "-" -> Entity.SAND;
-                        case "#" -> Entity.GRASS;
-                        case "^" -> Entity.FLOWERS;
-                        case "|" -> Entity.TREE;
-                        case "/" -> Entity.BUSH;
-                        case "@" -> Entity.PLAYER_HOUSE;
-                        case "!" -> Entity.POTIONS;
-                        case "&" -> Entity.ARMORY;
-                        case "$" -> Entity.NPC_HOUSE;
-                        case "*" -> Entity.PATH;
-                        case "u" -> Entity.UNDERGROUND_STAIRS;
-                        case "_" -> Entity.ROAD;
-                        case "(" -> Entity.BUILDING1;
-                        case "[" -> Entity.BUILDING2;
-                        case "{" -> Entity.BUILDING3;
-                        case "%" -> Entity.GRAVEL;
-                        case "§" -> Entity.HQ;
-                        case "±" -> Entity.HQ_NON_CONNECTED;
-                        case "~" -> Entity.WALL;
-                        case "i" -> Entity.TELEPORT_ISLAND;
-                        case ":" -> Entity.FLOOR;
-                        case "I" -> Entity.TELEPORT_LEAVE_HOUSE;
-                        case ">" -> Entity.TABLE;
-                        case ")" -> Entity.TABLE_ARMORY;
-                        case "]" -> Entity.TABLE_POTIONS;
-                        default -> Entity.WATER;
-                    };
-                }
-            }
-        } catch (NullPointerException e) {
-            System.out.println("It was not possible to load the following location: " + String.valueOf(location).toLowerCase() + ".txt");
+            map.prefetchAround(playerCoordinates[0], playerCoordinates[1]);
+        } catch (IOException | RuntimeException e) {
+            System.out.println("It was not possible to load the following location: " + String.valueOf(location).toLowerCase());
             System.exit(-1);
         }
         hasWaterBackground = location == Location.ISLAND;
         isLoadingMap = false;
-        notifyListeners("map", getMap());
-        notifyListeners("playerCoords", getPlayerCoordinates());
+        post(mapChanged);
+        post(positionChanged);
     }
 
     /**
@@ -178,6 +262,37 @@ public class GameLocation {
         return playerCoordinates;
     }
 
+    /**
+     * @return the current {@link Location}
+     */
+    public Location getLocation() {
+        return location;
+    }
+
+    /**
+     * @return x and y coordinates of the player before entering a building, or -1 if the player has not entered a building
+     */
+    public int[] getLastIslandCoordinates() {
+        return lastIslandCoords;
+    }
+
+    /**
+     * Places the player at a previously saved position, loading the location if needed.
+     * @param location the location of the player
+     * @param x x coordinate of the player
+     * @param y y coordinate of the player
+     * @param lastIslandX x coordinate of the player before entering a building
+     * @param lastIslandY y coordinate of the player before entering a building
+     */
+    public void restorePosition(Location location, int x, int y, int lastIslandX, int lastIslandY) {
+        lastIslandCoords[0] = lastIslandX;
+        lastIslandCoords[1] = lastIslandY;
+        playerCoordinates[0] = x;
+        playerCoordinates[1] = y;
+        this.location = location;
+        loadLocation(false);
+    }
+
     /**
      * Enters a building on the island and saves the last coordinates of the player.
      * @param direction the direction of the movement
@@ -195,7 +310,7 @@ public class GameLocation {
      * Checks if the move is allowed and, if it is, moves the player one tile in the wanted direction.
      * If a portal is encountered, checks if the player has the requirements to enter the new location.
      * It is not allowed to move on non-walkable entities or objects.
-     * The listeners get notified if the player is on an object or is bumping into an object.
+     * The subscribers get notified if the player is on an object or is bumping into an object.
      * @param direction the direction of the movement
      */
     public void move(Direction direction) {
@@ -217,7 +332,8 @@ public class GameLocation {
             return;
         }
 
-        switch (map[newX][newY]) {
+        Entity entity = map.getEntity(newX, newY);
+        switch (entity) {
             case PLAYER_HOUSE -> enterBuilding(direction, Location.PLAYER_HOUSE);
             case NPC_HOUSE -> enterBuilding(direction, Location.NPC_HOUSE);
             case ARMORY -> enterBuilding(direction, Location.ARMORY);
@@ -234,7 +350,8 @@ public class GameLocation {
                 if (lastIslandCoords[0] != -1 && lastIslandCoords[1] != -1) {
                     playerCoordinates[0] = lastIslandCoords[0];
                     playerCoordinates[1] = lastIslandCoords[1];
-                    notifyListeners("playerCoords", getPlayerCoordinates());
+                    map.prefetchAround(playerCoordinates[0], playerCoordinates[1]);
+                    post(positionChanged);
                 }
             }
             case TELEPORT_ISLAND -> setLocation(Location.ISLAND);
@@ -242,14 +359,15 @@ public class GameLocation {
                 LocationObject objectNearby = getObjectAtCoordinates(newX, newY);
 
                 if (objectNearby != null && !objectNearby.walkable()) {
-                    notifyListeners("bumpingIntoObject", objectNearby);
-                } else if (WALKABLE_ENTITIES.contains(map[newX][newY])) {
+                    post(new ObjectBumped(objectNearby));
+                } else if (isWalkable(entity)) {
                     playerCoordinates[0] = newX;
                     playerCoordinates[1] = newY;
-                    notifyListeners("playerCoords", getPlayerCoordinates());
+                    map.prefetchAround(newX, newY);
+                    post(positionChanged);
                     if (objectNearby != null) {
                         gameEngine.setGameState(GameEngine.GameState.PICKUP);
-                        notifyListeners("objectAtCurrentCoordinates", objectNearby);
+                        post(new ObjectReached(objectNearby));
                     }
                 }
             }
@@ -267,33 +385,136 @@ public class GameLocation {
      * @param walkable true if it is possible to walk on the object, otherwise false
      */
     public void addObject(String reference, Object object, GameLocation.Location location, int x, int y, String imagePath, boolean walkable) {
-        objects.add(new LocationObject(location, object, reference, imagePath, x, y, walkable));
-        notifyListeners("objects", objects);
+        LocationObject locationObject = new LocationObject(location, object, reference, imagePath, x, y, walkable);
+        objects.add(locationObject);
+        updateWalkability(locationObject);
+        post(objectsChanged);
     }
 
     /**
      * @return list of {@link LocationObject} in the current location.
      */
     public ArrayList<LocationObject> getObjectsInCurrentLocation() {
-        ArrayList<LocationObject> objectsCopy = new ArrayList<>();
-        for (LocationObject object: objects) {
-            if (object.location() == location) {
-                objectsCopy.add(object);
-            }
-        }
-        return objectsCopy;
+        return objects.getAll(location);
+    }
+
+    /**
+     * Performs an action on every {@link LocationObject} of the current location inside a rectangle of tiles.
+     * It is meant for views that only display part of the map.
+     * @param minX first column of the rectangle
+     * @param minY first row of the rectangle
+     * @param maxX last column of the rectangle (inclusive)
+     * @param maxY last row of the rectangle (inclusive)
+     * @param action action to be performed on each object
+     */
+    public void forEachObjectInArea(int minX, int minY, int maxX, int maxY, Consumer<LocationObject> action) {
+        objects.forEachInArea(location, minX, minY, maxX, maxY, action);
     }
 
     /**
      * @return {@link LocationObject} at the given coordinates. If none is found, returns null.
      */
     private LocationObject getObjectAtCoordinates(int x, int y) {
-        for (LocationObject object: getObjectsInCurrentLocation()) {
-            if (object.x() == x  && object.y() == y) {
-                return object;
+        return objects.get(location, x, y);
+    }
+
+    /**
+     * @param x x coordinate of the tile
+     * @param y y coordinate of the tile
+     * @return the {@link LocationObject} the player would reach on the given tile of the current location, or null if there is none
+     */
+    public LocationObject getObjectAt(int x, int y) {
+        return getObjectAtCoordinates(x, y);
+    }
+
+    /**
+     * Finds the object on a tile of any location. Several threads can look objects up at the same time, as long as no object is changed meanwhile.
+     * @param location location of the tile
+     * @param x x coordinate of the tile
+     * @param y y coordinate of the tile
+     * @return the first {@link LocationObject} added on the tile, or null if there is none
+     */
+    public LocationObject getObjectAt(Location location, int x, int y) {
+        return objects.get(location, x, y);
+    }
+
+    /**
+     * @param entity an entity of the map
+     * @return true if the player can walk on the entity, otherwise false
+     */
+    static boolean isWalkable(Entity entity) {
+        return WALKABLE_ENTITIES.contains(entity);
+    }
+
+    /**
+     * @return {@link WalkabilityGrid} of the current location
+     */
+    WalkabilityGrid getWalkabilityGrid() {
+        return getWalkabilityGrid(location);
+    }
+
+    /**
+     * Gives the walkable tiles of a location, building them the first time they are needed.
+     * The map of a location never changes, hence the grid is kept when another location is loaded and only updated when objects change.
+     * The grids are not thread safe: they should be built on the thread of the model before being read by other threads.
+     * @param location the location
+     * @return {@link WalkabilityGrid} of the location, or null if the location could not be loaded
+     */
+    public WalkabilityGrid getWalkabilityGrid(Location location) {
+        WalkabilityGrid grid = walkabilityGrids.get(location);
+        if (grid == null) {
+            try {
+                grid = WalkabilityGrid.build(location == this.location ? map : ChunkedMap.get(location, storage), objects, location);
+            } catch (IOException | RuntimeException e) {
+                System.out.println("It was not possible to load the following location: " + String.valueOf(location).toLowerCase());
+                return null;
             }
+            walkabilityGrids.put(location, grid);
+        }
+        return grid;
+    }
+
+    /**
+     * Updates the tile of an object which has been added, moved or removed in the walkability grid of its location, if it has been built.
+     * @param object the object
+     */
+    private void updateWalkability(LocationObject object) {
+        WalkabilityGrid grid = walkabilityGrids.get(object.location());
+        if (grid == null) {
+            return;
+        }
+        LocationObject first = objects.get(object.location(), object.x(), object.y());
+        grid.setWalkable(object.x(), object.y(), grid.isTerrainWalkable(object.x(), object.y()) && (first == null || first.walkable()));
+    }
+
+    /**
+     * Searches the shortest path between two tiles of the current location, through walkable tiles only (see {@link PathFinder}).
+     * The path finder is shared, hence this method should only be called from the thread of the model;
+     * other threads should create their own {@link PathFinder}.
+     * @param startX x coordinate of the start tile
+     * @param startY y coordinate of the start tile
+     * @param goalX x coordinate of the goal tile
+     * @param goalY y coordinate of the goal tile
+     * @return {@link PathFinder} holding the path found, whose length is -1 if the goal cannot be reached
+     */
+    public PathFinder findPath(int startX, int startY, int goalX, int goalY) {
+        if (pathFinder == null) {
+            pathFinder = new PathFinder(this);
         }
-        return null;
+        pathFinder.findPath(startX, startY, goalX, goalY);
+        return pathFinder;
+    }
+
+    /**
+     * Gives the distances to the player in the current location, which the enemies follow to chase the player (see {@link FlowField}).
+     * The flow field is shared, hence it should only be used from the thread of the model.
+     * @return {@link FlowField} of the current location
+     */
+    public FlowField getFlowField() {
+        if (flowField == null) {
+            flowField = new FlowField(this);
+        }
+        return flowField;
     }
 
     /**
@@ -302,12 +523,29 @@ public class GameLocation {
      * @param storedObject the object stored in the {@link LocationObject}
      */
     public void removeObject(Object storedObject) {
-        for (LocationObject object: objects) {
-            if (storedObject.equals(object.object())) {
-                objects.remove(object);
-                notifyListeners("objects", objects);
-                return;
-            }
+        LocationObject object = objects.getByStoredObject(storedObject);
+        if (object != null) {
+            objects.remove(object);
+            updateWalkability(object);
+            post(objectsChanged);
+        }
+    }
+
+    /**
+     * Moves a previously added object to another tile of its location, e.g. an enemy chasing the player.
+     * @param storedObject the object stored in the {@link LocationObject}
+     * @param x new x coordinate of the object
+     * @param y new y coordinate of the object
+     */
+    public void moveObject(Object storedObject, int x, int y) {
+        LocationObject object = objects.getByStoredObject(storedObject);
+        if (object != null) {
+            LocationObject movedObject = new LocationObject(object.location(), object.object(), object.reference(), object.imagePath(), x, y, object.walkable());
+            objects.remove(object);
+            objects.add(movedObject);
+            updateWalkability(object);
+            updateWalkability(movedObject);
+            post(objectsChanged);
         }
     }
 
@@ -318,7 +556,8 @@ public class GameLocation {
         LocationObject object = getObjectAtCoordinates(playerCoordinates[0], playerCoordinates[1]);
         if (object != null) {
             objects.remove(object);
-            notifyListeners("objects", objects);
+            updateWalkability(object);
+            post(objectsChanged);
         }
     }
 
@@ -327,8 +566,18 @@ public class GameLocation {
      * If this is not possible, it loads the game with the default location and the default coordinates/
      */
     public GameLocation() {
+        this(GameStorage.DEFAULT);
+    }
+
+    /**
+     * Constructor of the GameLocation using the given files. It tries to load the information about the current location and the current position from a text file.
+     * If this is not possible, it loads the game with the default location and the default coordinates/
+     * @param storage storage containing the location files and the save files
+     */
+    public GameLocation(GameStorage storage) {
+        this.storage = storage;
         Properties properties = new Properties();
-        try (FileInputStream file = new FileInputStream("src/main/resources/saving_data/location.txt")) {
+        try (FileInputStream file = new FileInputStream(storage.getSavePath("location.txt"))) {
             properties.load(file);
             if (properties.containsKey("location") && properties.containsKey("playerX") && properties.containsKey("playerY") && properties.containsKey("lastIslandX") && properties.containsKey("lastIslandY")) {
                 this.location = Location.valueOf(properties.getProperty("location"));
@@ -359,37 +608,47 @@ public class GameLocation {
      * Saves the location and the current coordinates of the player to a text file.
      */
     public void save() {
+        try {
+            snapshot().write();
+        } catch (IOException | NullPointerException e) {
+            System.out.println("It was not possible to save location data");
+        }
+    }
+
+    /**
+     * Takes a snapshot of the location and the current coordinates of the player, which can be written on another thread.
+     * @return {@link SaveTask} snapshot of the location
+     */
+    public SaveTask snapshot() {
         Properties properties = new Properties();
         properties.setProperty("location", String.valueOf(location));
         properties.setProperty("lastIslandX", String.valueOf(lastIslandCoords[0]));
         properties.setProperty("lastIslandY", String.valueOf(lastIslandCoords[1]));
         properties.setProperty("playerX", String.valueOf(playerCoordinates[0]));
         properties.setProperty("playerY", String.valueOf(playerCoordinates[1]));
-        try (FileOutputStream file = new FileOutputStream("src/main/resources/saving_data/location.txt")) {
-            properties.store(file, "Current location and player coordinates");
-        } catch (IOException | NullPointerException e) {
-            System.out.println("It was not possible to save location data");
-        }
+        String path = storage.getSavePath("location.txt");
+        return () -> {
+            try (FileOutputStream file = new FileOutputStream(path)) {
+                properties.store(file, "Current location and player coordinates");
+            }
+        };
     }
 
     /**
-     * Adds a listener to property changes in the GameLocation
-     * @param listener listener to be added
+     * Sets the event bus through which the changes of the GameLocation are posted
+     * @param events event bus of the game
      */
-    public void addListener(PropertyChangeListener listener) {
-        listeners.add(listener);
+    public void setEventBus(EventBus events) {
+        this.events = events;
     }
 
     /**
-     * Notifies all the listeners of a change in a parameter of the model.
-     * @param propertyName the name of the changed parameter
-     * @param value the new value of the parameter
+     * Posts a change of the model, if the model is part of a game.
+     * @param event the event describing the change
      */
-    private void notifyListeners(String propertyName, Object value) {
-        Iterator<PropertyChangeListener> allListeners = listeners.iterator();
-        PropertyChangeEvent payload = new PropertyChangeEvent(this, propertyName, null, value);
-        while (allListeners.hasNext()) {
-            allListeners.next().propertyChange(payload);
+    private void post(GameEvent event) {
+        if (events != null) {
+            events.post(event);
         }
     }
 }
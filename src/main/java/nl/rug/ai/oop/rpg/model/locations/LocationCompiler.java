@@ -0,0 +1,36 @@
+package nl.rug.ai.oop.rpg.model.locations;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Converts the location text files into compiled location files, which are faster to load.
+ * Usage: LocationCompiler [text files folder] [compiled files folder]
+ * By default, src/main/resources/locations/textfiles is converted into src/main/resources/locations/compiled.
+ * The compiled files have to be generated again every time a text file or the entities are modified: until then, the loader ignores them and reads the text files.
+ *
+ * @version 1.0
+ */
+public class LocationCompiler {
+    public static void main(String[] args) throws IOException {
+        Path source = Path.of(args.length > 0 ? args[0] : "src/main/resources/locations/textfiles");
+        Path destination = Path.of(args.length > 1 ? args[1] : "src/main/resources/locations/compiled");
+        Files.createDirectories(destination);
+
+        for (GameLocation.Location location : GameLocation.Location.values()) {
+            String name = String.valueOf(location).toLowerCase();
+            Path textFile = source.resolve(name + ".txt");
+            if (!Files.exists(textFile)) {
+                System.out.println("No text file found for the following location: " + name);
+                continue;
+            }
+            try (OutputStream output = new FileOutputStream(destination.resolve(name + ".loc").toFile())) {
+                LocationLoader.compile(Files.readAllBytes(textFile), output);
+            }
+            System.out.println("Compiled " + textFile + " into " + destination.resolve(name + ".loc"));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package nl.rug.ai.oop.rpg.model.locations;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Content of a location file.
+ * It contains:
+ * <ul>
+ *     <li>int width - number of columns of the map</li>
+ *     <li>int height - number of rows of the map</li>
+ *     <li>int defaultX - default x coordinate of the player</li>
+ *     <li>int defaultY - default y coordinate of the player</li>
+ *     <li>{@link String} titleEN - title of the location in English</li>
+ *     <li>{@link String} titleNL - title of the location in Dutch</li>
+ *     <li>{@link ByteBuffer} tiles - one byte per tile, row by row, containing the ordinal of the {@link GameLocation.Entity}</li>
+ * </ul>
+ *
+ * @version 1.0
+ */
+public record LocationData(
+        int width,
+        int height,
+        int defaultX,
+        int defaultY,
+        String titleEN,
+        String titleNL,
+        ByteBuffer tiles
+) {
+    private static final GameLocation.Entity[] ENTITIES = GameLocation.Entity.values();
+
+    /**
+     * @param x x coordinate of the tile
+     * @param y y coordinate of the tile
+     * @return {@link GameLocation.Entity} at the given coordinates
+     */
+    public GameLocation.Entity getEntity(int x, int y) {
+        return ENTITIES[tiles.get(y * width + x)];
+    }
+}
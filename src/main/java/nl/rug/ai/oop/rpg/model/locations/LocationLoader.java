@@ -0,0 +1,338 @@
+package nl.rug.ai.oop.rpg.model.locations;
+
+import nl.rug.ai.oop.rpg.model.engine.GameStorage;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Scanner;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes location files.
+ * A location can be stored in two formats:
+ * <ul>
+ *     <li>text (/locations/textfiles/*.txt) - the source format, containing a matrix of symbols</li>
+ *     <li>compiled (/locations/compiled/*.loc) - a header followed by one byte per tile, which is memory-mapped when loaded</li>
+ * </ul>
+ * The compiled file starts with the magic number, the version, the checksum of the entity table, the length and checksum of the text file
+ * it was generated from, the width and height, the default x and y position of the player,
+ * and the English and Dutch title (each as a short length followed by UTF-8 bytes).
+ * A compiled file that was not generated from the current text file, or for the current entities, is ignored,
+ * so that an edited text file is never hidden by a stale compiled file (see {@link LocationCompiler} to generate the compiled files again).
+ *
+ * @version 1.0
+ */
+public final class LocationLoader {
+    private static final int MAGIC = 0x52504C43; // "RPLC"
+    private static final short VERSION = 2;
+
+    /**
+     * Size in bytes of the smallest header: magic number, version, entity table checksum, source length and checksum,
+     * dimensions, default position and the lengths of two empty titles
+     */
+    private static final int HEADER_SIZE = 4 + 2 + 3 * 4 + 4 * 4 + 2 * 2;
+
+    /**
+     * Position of the entity table checksum in the header, followed by the length and the checksum of the text file
+     */
+    private static final int SOURCE_OFFSET = 4 + 2;
+
+    /**
+     * Source length written in compiled files that were not generated from a text file, which never matches a text file
+     */
+    private static final int NO_SOURCE = -1;
+
+    /**
+     * Checksum of the names of the entities in their order.
+     * The tiles hold the ordinals of the entities, hence the compiled files are outdated as soon as the entities change.
+     */
+    private static final int ENTITY_TABLE = getEntityTableChecksum();
+
+    /**
+     * The loader only has static members
+     */
+    private LocationLoader() {
+    }
+
+    /**
+     * Loads a location from the resources of the game, preferring the compiled file and falling back to the text file.
+     * @param location the location to be loaded
+     * @return {@link LocationData} content of the location
+     * @throws IOException if none of the files can be read
+     */
+    public static LocationData load(GameLocation.Location location) throws IOException {
+        return load(location, GameStorage.DEFAULT);
+    }
+
+    /**
+     * Loads a location, preferring the compiled file and falling back to the text file.
+     * The text file is read instead of the compiled file if the compiled file was not generated from it,
+     * which is detected by comparing the length and checksum of the text file with the ones stored in the compiled file.
+     * @param location the location to be loaded
+     * @param storage storage containing the location files
+     * @return {@link LocationData} content of the location
+     * @throws IOException if none of the files can be read
+     */
+    public static LocationData load(GameLocation.Location location, GameStorage storage) throws IOException {
+        String name = String.valueOf(location).toLowerCase();
+        URL compiled = storage.getResource("/locations/compiled/" + name + ".loc");
+        byte[] source = null;
+        try (InputStream input = storage.openResource("/locations/textfiles/" + name + ".txt")) {
+            if (input != null) {
+                source = input.readAllBytes();
+            }
+        }
+        if (compiled != null) {
+            ByteBuffer buffer = readBuffer(compiled);
+            if (source == null || isCompiledFrom(buffer, source)) {
+                return readCompiled(buffer);
+            }
+            System.out.println("The compiled location was not generated from its text file, which is read instead: " + name);
+        }
+        if (source == null) {
+            throw new FileNotFoundException(name + ".txt");
+        }
+        return readText(new ByteArrayInputStream(source));
+    }
+
+    /**
+     * @param buffer buffer containing a compiled file, which is not moved
+     * @param source content of the text file
+     * @return true if the compiled file was generated from the text file, for the current entities
+     */
+    private static boolean isCompiledFrom(ByteBuffer buffer, byte[] source) {
+        int start = buffer.position();
+        return buffer.remaining() >= HEADER_SIZE
+                && buffer.getInt(start + SOURCE_OFFSET) == ENTITY_TABLE
+                && buffer.getInt(start + SOURCE_OFFSET + 4) == source.length
+                && buffer.getInt(start + SOURCE_OFFSET + 8) == getChecksum(source);
+    }
+
+    /**
+     * @param bytes bytes to be checked
+     * @return CRC-32 checksum of the bytes
+     */
+    private static int getChecksum(byte[] bytes) {
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes);
+        return (int) checksum.getValue();
+    }
+
+    /**
+     * @return checksum of the names of the entities, in the order of their ordinals
+     */
+    private static int getEntityTableChecksum() {
+        StringBuilder names = new StringBuilder();
+        for (GameLocation.Entity entity : GameLocation.Entity.values()) {
+            names.append(entity.name()).append('\n');
+        }
+        return getChecksum(names.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Reads a location from the text format.
+     * The file must contain the width and height, the default x and y position of the player, the title in English and Dutch and a matrix of symbols representing the entities.
+     * @param input stream of the text file
+     * @return {@link LocationData} content of the location
+     */
+    public static LocationData readText(InputStream input) {
+        Scanner fileInput = new Scanner(input, StandardCharsets.UTF_8);
+        int width = fileInput.nextInt();
+        int height = fileInput.nextInt();
+        fileInput.nextLine();
+        int defaultX = fileInput.nextInt();
+        int defaultY = fileInput.nextInt();
+        fileInput.nextLine();
+        String titleEN = fileInput.nextLine();
+        String titleNL = fileInput.nextLine();
+
+        byte[] tiles = new byte[width * height];
+        for (int y = 0; y < height; y++) {
+            String line = fileInput.nextLine();
+            for (int x = 0; x < width; x++) {
+                tiles[y * width + x] = (byte) getEntity(line.charAt(x)).ordinal();
+            }
+        }
+        return new LocationData(width, height, defaultX, defaultY, titleEN, titleNL, ByteBuffer.wrap(tiles).asReadOnlyBuffer());
+    }
+
+    /**
+     * Reads a location from the compiled format.
+     * If the file is on the file system it gets memory-mapped, otherwise (e.g. inside a jar) it is read in memory.
+     * @param resource URL of the compiled file
+     * @return {@link LocationData} content of the location
+     * @throws IOException if the file cannot be read or is not a compiled location
+     */
+    public static LocationData readCompiled(URL resource) throws IOException {
+        return readCompiled(readBuffer(resource));
+    }
+
+    /**
+     * @param resource URL of the compiled file
+     * @return buffer containing the file, memory-mapped if the file is on the file system
+     * @throws IOException if the file cannot be read
+     */
+    private static ByteBuffer readBuffer(URL resource) throws IOException {
+        if (resource.getProtocol().equals("file")) {
+            try (FileChannel channel = FileChannel.open(Path.of(resource.toURI()), StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        }
+        try (InputStream input = resource.openStream()) {
+            return ByteBuffer.wrap(input.readAllBytes()).asReadOnlyBuffer();
+        }
+    }
+
+    /**
+     * Reads a location from a buffer in the compiled format. The tiles are not copied.
+     * @param buffer buffer containing the compiled file
+     * @return {@link LocationData} content of the location
+     * @throws IOException if the buffer does not contain a compiled location for the current entities, or if it is truncated
+     */
+    public static LocationData readCompiled(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE) {
+            throw new IOException("The compiled location file is truncated");
+        }
+        if (buffer.getInt() != MAGIC || buffer.getShort() != VERSION) {
+            throw new IOException("Not a compiled location file");
+        }
+        if (buffer.getInt() != ENTITY_TABLE) {
+            throw new IOException("The compiled location file was generated for other entities");
+        }
+        // The length and checksum of the text file are only compared by load
+        buffer.getInt();
+        buffer.getInt();
+        int width = buffer.getInt();
+        int height = buffer.getInt();
+        int defaultX = buffer.getInt();
+        int defaultY = buffer.getInt();
+        String titleEN = readTitle(buffer);
+        String titleNL = readTitle(buffer);
+        if (width < 0 || height < 0 || buffer.remaining() != (long) width * height) {
+            throw new IOException("The compiled location file is truncated");
+        }
+        return new LocationData(width, height, defaultX, defaultY, titleEN, titleNL, buffer.slice());
+    }
+
+    /**
+     * Converts a text file into the compiled format, which records the length and checksum of the text file.
+     * @param source content of the text file
+     * @param output stream where the compiled file is written
+     * @throws IOException if it was not possible to write the file
+     */
+    public static void compile(byte[] source, OutputStream output) throws IOException {
+        writeCompiled(readText(new ByteArrayInputStream(source)), source.length, getChecksum(source), output);
+    }
+
+    /**
+     * Writes a location that has no text file in the compiled format.
+     * If a text file is added for the location later on, it is read instead of the compiled file.
+     * @param data content of the location
+     * @param output stream where the compiled file is written
+     * @throws IOException if it was not possible to write the file
+     */
+    public static void writeCompiled(LocationData data, OutputStream output) throws IOException {
+        writeCompiled(data, NO_SOURCE, 0, output);
+    }
+
+    /**
+     * @param data content of the location
+     * @param sourceLength length of the text file the location was read from
+     * @param sourceChecksum checksum of the text file the location was read from
+     * @param output stream where the compiled file is written
+     * @throws IOException if it was not possible to write the file
+     */
+    private static void writeCompiled(LocationData data, int sourceLength, int sourceChecksum, OutputStream output) throws IOException {
+        DataOutputStream file = new DataOutputStream(new BufferedOutputStream(output));
+        file.writeInt(MAGIC);
+        file.writeShort(VERSION);
+        file.writeInt(ENTITY_TABLE);
+        file.writeInt(sourceLength);
+        file.writeInt(sourceChecksum);
+        file.writeInt(data.width());
+        file.writeInt(data.height());
+        file.writeInt(data.defaultX());
+        file.writeInt(data.defaultY());
+        writeTitle(file, data.titleEN());
+        writeTitle(file, data.titleNL());
+        ByteBuffer tiles = data.tiles().duplicate();
+        tiles.rewind();
+        byte[] row = new byte[data.width()];
+        for (int y = 0; y < data.height(); y++) {
+            tiles.get(row);
+            file.write(row);
+        }
+        file.flush();
+    }
+
+    /**
+     * @param buffer buffer positioned at the title
+     * @return the title
+     * @throws IOException if the buffer ends before the title
+     */
+    private static String readTitle(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 2) {
+            throw new IOException("The compiled location file is truncated");
+        }
+        byte[] title = new byte[buffer.getShort() & 0xFFFF];
+        if (buffer.remaining() < title.length) {
+            throw new IOException("The compiled location file is truncated");
+        }
+        buffer.get(title);
+        return new String(title, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param file stream where the title is written
+     * @param title the title
+     * @throws IOException if it was not possible to write the title
+     */
+    private static void writeTitle(DataOutputStream file, String title) throws IOException {
+        byte[] bytes = title.getBytes(StandardCharsets.UTF_8);
+        file.writeShort(bytes.length);
+        file.write(bytes);
+    }
+
+    /**
+     * @param symbol symbol used in the text format
+     * @return {@link GameLocation.Entity} represented by the symbol
+     */
+    private static GameLocation.Entity getEntity(char symbol) {
+        return switch (symbol) {
+            case '-' -> GameLocation.Entity.SAND;
+            case '#' -> GameLocation.Entity.GRASS;
+            case '^' -> GameLocation.Entity.FLOWERS;
+            case '|' -> GameLocation.Entity.TREE;
+            case '/' -> GameLocation.Entity.BUSH;
+            case '@' -> GameLocation.Entity.PLAYER_HOUSE;
+            case '!' -> GameLocation.Entity.POTIONS;
+            case '&' -> GameLocation.Entity.ARMORY;
+            case '$' -> GameLocation.Entity.NPC_HOUSE;
+            case '*' -> GameLocation.Entity.PATH;
+            case 'u' -> GameLocation.Entity.UNDERGROUND_STAIRS;
+            case '_' -> GameLocation.Entity.ROAD;
+            case '(' -> GameLocation.Entity.BUILDING1;
+            case '[' -> GameLocation.Entity.BUILDING2;
+            case '{' -> GameLocation.Entity.BUILDING3;
+            case '%' -> GameLocation.Entity.GRAVEL;
+            case '§' -> GameLocation.Entity.HQ;
+            case '±' -> GameLocation.Entity.HQ_NON_CONNECTED;
+            case '~' -> GameLocation.Entity.WALL;
+            case 'i' -> GameLocation.Entity.TELEPORT_ISLAND;
+            case ':' -> GameLocation.Entity.FLOOR;
+            case 'I' -> GameLocation.Entity.TELEPORT_LEAVE_HOUSE;
+            case '>' -> GameLocation.Entity.TABLE;
+            case ')' -> GameLocation.Entity.TABLE_ARMORY;
+            case ']' -> GameLocation.Entity.TABLE_POTIONS;
+            default -> GameLocation.Entity.WATER;
+        };
+    }
+}
@@ -0,0 +1,149 @@
+package nl.rug.ai.oop.rpg.model.locations;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.function.Consumer;
+
+/**
+ * Spatial index of the {@link LocationObject}s added to the map.
+ * Objects are partitioned by {@link GameLocation.Location} and hashed by their coordinates packed in a long,
+ * so that adding, removing and finding the object on a tile do not depend on the number of objects.
+ * Objects are also indexed by the object they store, so that they can be removed after an interaction.
+ * When several objects are on the same tile, the first one added is returned.
+ *
+ * @version 1.0
+ */
+class LocationObjectIndex {
+    private final EnumMap<GameLocation.Location, HashMap<Long, ArrayList<LocationObject>>> tiles = new EnumMap<>(GameLocation.Location.class);
+    private final HashMap<Object, ArrayList<LocationObject>> storedObjects = new HashMap<>();
+
+    /**
+     * Adds an object to the index.
+     * @param object object to be added
+     */
+    void add(LocationObject object) {
+        tiles.computeIfAbsent(object.location(), location -> new HashMap<>())
+                .computeIfAbsent(getKey(object.x(), object.y()), key -> new ArrayList<>(1))
+                .add(object);
+        storedObjects.computeIfAbsent(object.object(), key -> new ArrayList<>(1)).add(object);
+    }
+
+    /**
+     * Removes an object from the index, if it is present.
+     * @param object object to be removed
+     */
+    void remove(LocationObject object) {
+        HashMap<Long, ArrayList<LocationObject>> locationTiles = tiles.get(object.location());
+        if (locationTiles != null) {
+            long key = getKey(object.x(), object.y());
+            ArrayList<LocationObject> tile = locationTiles.get(key);
+            if (tile != null && removeInstance(tile, object) && tile.isEmpty()) {
+                locationTiles.remove(key);
+            }
+        }
+        ArrayList<LocationObject> sameStoredObject = storedObjects.get(object.object());
+        if (sameStoredObject != null && removeInstance(sameStoredObject, object) && sameStoredObject.isEmpty()) {
+            storedObjects.remove(object.object());
+        }
+    }
+
+    /**
+     * @param storedObject the object stored in the {@link LocationObject}
+     * @return the first {@link LocationObject} added with the given stored object, or null if there is none
+     */
+    LocationObject getByStoredObject(Object storedObject) {
+        ArrayList<LocationObject> sameStoredObject = storedObjects.get(storedObject);
+        return sameStoredObject == null ? null : sameStoredObject.get(0);
+    }
+
+    /**
+     * @param location location of the tile
+     * @param x x coordinate of the tile
+     * @param y y coordinate of the tile
+     * @return the first {@link LocationObject} added on the tile, or null if there is none
+     */
+    LocationObject get(GameLocation.Location location, int x, int y) {
+        HashMap<Long, ArrayList<LocationObject>> locationTiles = tiles.get(location);
+        if (locationTiles == null) {
+            return null;
+        }
+        ArrayList<LocationObject> tile = locationTiles.get(getKey(x, y));
+        return tile == null ? null : tile.get(0);
+    }
+
+    /**
+     * @param location the location
+     * @return list of all the {@link LocationObject} in the location
+     */
+    ArrayList<LocationObject> getAll(GameLocation.Location location) {
+        ArrayList<LocationObject> objects = new ArrayList<>();
+        HashMap<Long, ArrayList<LocationObject>> locationTiles = tiles.get(location);
+        if (locationTiles != null) {
+            for (ArrayList<LocationObject> tile : locationTiles.values()) {
+                objects.addAll(tile);
+            }
+        }
+        return objects;
+    }
+
+    /**
+     * Performs an action on every object inside a rectangle of tiles.
+     * The rectangle is scanned tile by tile, unless it contains more tiles than the location contains occupied tiles.
+     * @param location the location
+     * @param minX first column of the rectangle
+     * @param minY first row of the rectangle
+     * @param maxX last column of the rectangle (inclusive)
+     * @param maxY last row of the rectangle (inclusive)
+     * @param action action to be performed on each object
+     */
+    void forEachInArea(GameLocation.Location location, int minX, int minY, int maxX, int maxY, Consumer<LocationObject> action) {
+        HashMap<Long, ArrayList<LocationObject>> locationTiles = tiles.get(location);
+        if (locationTiles == null || maxX < minX || maxY < minY) {
+            return;
+        }
+
+        if ((long) (maxX - minX + 1) * (maxY - minY + 1) <= locationTiles.size()) {
+            for (int x = minX; x <= maxX; x++) {
+                for (int y = minY; y <= maxY; y++) {
+                    ArrayList<LocationObject> tile = locationTiles.get(getKey(x, y));
+                    if (tile != null) {
+                        tile.forEach(action);
+                    }
+                }
+            }
+        } else {
+            for (ArrayList<LocationObject> tile : locationTiles.values()) {
+                LocationObject first = tile.get(0);
+                if (first.x() >= minX && first.x() <= maxX && first.y() >= minY && first.y() <= maxY) {
+                    tile.forEach(action);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the given instance from a list. Records with the same values are not removed.
+     * @param list list of objects
+     * @param object instance to be removed
+     * @return true if the instance was removed, otherwise false
+     */
+    private static boolean removeInstance(ArrayList<LocationObject> list, LocationObject object) {
+        for (int index = 0; index < list.size(); index++) {
+            if (list.get(index) == object) {
+                list.remove(index);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param x x coordinate of the tile
+     * @param y y coordinate of the tile
+     * @return key of the tile, with both coordinates packed in a long
+     */
+    private static long getKey(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+}
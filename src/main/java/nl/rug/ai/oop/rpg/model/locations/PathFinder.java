@@ -0,0 +1,306 @@
+package nl.rug.ai.oop.rpg.model.locations;
+
+import java.util.Arrays;
+
+/**
+ * A* search of the shortest path between two tiles of the current location, moving one tile north, south, west or east at a time.
+ * The tiles are tested in the {@link WalkabilityGrid} of the location, and the search does not allocate anything once its arrays
+ * have grown to the size of the map: the open set is a binary heap of tile indices, and the scores and the closed set are arrays
+ * indexed by tile which are not cleared between two searches, but stamped with the number of the search that wrote them.
+ * Hence hundreds of searches can be done at every tick, e.g. for the enemies.
+ * A path finder is not thread safe: every thread searching paths should have its own path finder.
+ *
+ * @version 1.0
+ */
+public final class PathFinder {
+    private static final int[] STEP_X = {0, 0, -1, 1};
+    private static final int[] STEP_Y = {-1, 1, 0, 0};
+
+    private final GameLocation gameLocation;
+
+    /* Per tile: number of the search (times 2, plus 1 once the tile is closed), cost from the start, previous tile and position in the heap */
+    private int[] stamps = new int[0];
+    private int[] costs = new int[0];
+    private int[] previous = new int[0];
+    private int[] heapPositions = new int[0];
+    private int stamp = 0;
+
+    /* Open set: tiles sorted by estimated length of the path through them, then by estimated distance left,
+       so that among equally short paths the one closest to the goal is followed first instead of exploring all of them */
+    private int[] heap = new int[0];
+    private long[] heapScores = new long[0];
+    private int heapSize = 0;
+
+    /* Tiles of the last path found, from the first step to the goal, and tile from which it starts */
+    private int[] path = new int[16];
+    private int pathStart = -1;
+    private int pathLength = -1;
+    private int pathWidth = 1;
+
+    /**
+     * Creates a path finder for the locations of a GameLocation model
+     * @param gameLocation the GameLocation model
+     */
+    public PathFinder(GameLocation gameLocation) {
+        this.gameLocation = gameLocation;
+    }
+
+    /**
+     * Searches the shortest path from a tile to another one in the current location.
+     * The start tile does not need to be walkable, e.g. if the player stands on an object, but all the other tiles of the path do.
+     * The steps of the path are then read with {@link #getStepX(int)}, {@link #getStepY(int)} and {@link #getDirection(int)}.
+     * @param startX x coordinate of the start tile
+     * @param startY y coordinate of the start tile
+     * @param goalX x coordinate of the goal tile
+     * @param goalY y coordinate of the goal tile
+     * @return number of steps of the path, 0 if the start is the goal, or -1 if the goal cannot be reached
+     */
+    public int findPath(int startX, int startY, int goalX, int goalY) {
+        WalkabilityGrid grid = gameLocation.getWalkabilityGrid();
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+        pathWidth = width;
+        pathLength = -1;
+        if (startX < 0 || startX >= width || startY < 0 || startY >= height) {
+            return -1;
+        }
+        if (startX == goalX && startY == goalY) {
+            pathLength = 0;
+            return 0;
+        }
+        if (!grid.isWalkable(goalX, goalY)) {
+            return -1;
+        }
+
+        prepare(width * height);
+        int start = startY * width + startX;
+        int goal = goalY * width + goalX;
+        int open = stamp;
+        int closed = stamp + 1;
+
+        stamps[start] = open;
+        costs[start] = 0;
+        previous[start] = -1;
+        push(start, score(0, distance(startX, startY, goalX, goalY)));
+
+        while (heapSize > 0) {
+            int tile = pop();
+            if (tile == goal) {
+                storePath(start, goal);
+                return pathLength;
+            }
+            stamps[tile] = closed;
+            int x = tile % width;
+            int y = tile / width;
+            int cost = costs[tile] + 1;
+            for (int direction = 0; direction < 4; direction++) {
+                int nextX = x + STEP_X[direction];
+                int nextY = y + STEP_Y[direction];
+                if (nextX < 0 || nextX >= width || nextY < 0 || nextY >= height) {
+                    continue;
+                }
+                int next = nextY * width + nextX;
+                if (stamps[next] == closed || !grid.isWalkable(next)) {
+                    continue;
+                }
+                if (stamps[next] != open) {
+                    stamps[next] = open;
+                    costs[next] = cost;
+                    previous[next] = tile;
+                    push(next, score(cost, distance(nextX, nextY, goalX, goalY)));
+                } else if (cost < costs[next]) {
+                    costs[next] = cost;
+                    previous[next] = tile;
+                    decrease(next, score(cost, distance(nextX, nextY, goalX, goalY)));
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return number of steps of the last path found, or -1 if no path was found
+     */
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    /**
+     * @param step index of the step in the last path found, 0 being the first tile after the start
+     * @return x coordinate of the tile reached by the step
+     */
+    public int getStepX(int step) {
+        return path[step] % pathWidth;
+    }
+
+    /**
+     * @param step index of the step in the last path found, 0 being the first tile after the start
+     * @return y coordinate of the tile reached by the step
+     */
+    public int getStepY(int step) {
+        return path[step] / pathWidth;
+    }
+
+    /**
+     * @param step index of the step in the last path found, 0 being the first tile after the start
+     * @return {@link GameLocation.Direction} of the move from the previous tile to the tile reached by the step
+     */
+    public GameLocation.Direction getDirection(int step) {
+        int from = step == 0 ? pathStart : path[step - 1];
+        int to = path[step];
+        if (to == from - pathWidth) {
+            return GameLocation.Direction.NORTH;
+        } else if (to == from + pathWidth) {
+            return GameLocation.Direction.SOUTH;
+        } else if (to == from - 1) {
+            return GameLocation.Direction.WEST;
+        }
+        return GameLocation.Direction.EAST;
+    }
+
+    /**
+     * Copies the path from the goal back to the start, reversed so that it goes from the start to the goal.
+     * @param start index of the start tile
+     * @param goal index of the goal tile
+     */
+    private void storePath(int start, int goal) {
+        int length = costs[goal];
+        if (path.length < length) {
+            path = new int[Math.max(length, path.length * 2)];
+        }
+        int tile = goal;
+        for (int step = length - 1; step >= 0; step--) {
+            path[step] = tile;
+            tile = previous[tile];
+        }
+        pathStart = start;
+        pathLength = length;
+    }
+
+    /**
+     * Starts a new search: grows the arrays to the number of tiles if needed and takes a new stamp,
+     * which invalidates everything written by the previous searches.
+     * @param tiles number of tiles of the map
+     */
+    private void prepare(int tiles) {
+        if (stamps.length < tiles) {
+            stamps = new int[tiles];
+            costs = new int[tiles];
+            previous = new int[tiles];
+            heapPositions = new int[tiles];
+            heap = new int[tiles];
+            heapScores = new long[tiles];
+            stamp = 0;
+        }
+        stamp += 2;
+        if (stamp < 0) {
+            Arrays.fill(stamps, 0);
+            stamp = 2;
+        }
+        heapSize = 0;
+    }
+
+    /**
+     * @return Manhattan distance between two tiles, which is the length of the shortest path if there is no obstacle
+     */
+    private static int distance(int x, int y, int goalX, int goalY) {
+        return Math.abs(goalX - x) + Math.abs(goalY - y);
+    }
+
+    /**
+     * @param cost length of the path from the start to a tile
+     * @param distance estimated distance from the tile to the goal
+     * @return score of the tile in the open set
+     */
+    private static long score(int cost, int distance) {
+        return ((long) (cost + distance) << 32) | distance;
+    }
+
+    /**
+     * Adds a tile to the open set.
+     * @param tile index of the tile
+     * @param score score of the tile, see {@link #score(int, int)}
+     */
+    private void push(int tile, long score) {
+        heap[heapSize] = tile;
+        heapScores[heapSize] = score;
+        heapPositions[tile] = heapSize;
+        siftUp(heapSize++);
+    }
+
+    /**
+     * Lowers the score of a tile of the open set, when a shorter way to it has been found.
+     * @param tile index of the tile
+     * @param score new score of the tile
+     */
+    private void decrease(int tile, long score) {
+        int position = heapPositions[tile];
+        heapScores[position] = score;
+        siftUp(position);
+    }
+
+    /**
+     * Removes the tile with the lowest score from the open set.
+     * @return index of the tile
+     */
+    private int pop() {
+        int tile = heap[0];
+        heapSize--;
+        if (heapSize > 0) {
+            move(heap[heapSize], heapScores[heapSize], 0);
+            siftDown(0);
+        }
+        return tile;
+    }
+
+    /**
+     * @param position position of an entry of the heap, moved up until its parent has a lower score
+     */
+    private void siftUp(int position) {
+        int tile = heap[position];
+        long score = heapScores[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (heapScores[parent] <= score) {
+                break;
+            }
+            move(heap[parent], heapScores[parent], position);
+            position = parent;
+        }
+        move(tile, score, position);
+    }
+
+    /**
+     * @param position position of an entry of the heap, moved down until its children have a higher score
+     */
+    private void siftDown(int position) {
+        int tile = heap[position];
+        long score = heapScores[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heapScores[child + 1] < heapScores[child]) {
+                child++;
+            }
+            if (heapScores[child] >= score) {
+                break;
+            }
+            move(heap[child], heapScores[child], position);
+            position = child;
+        }
+        move(tile, score, position);
+    }
+
+    /**
+     * @param tile index of a tile
+     * @param score score of the tile
+     * @param position position of the heap where the tile is stored
+     */
+    private void move(int tile, long score, int position) {
+        heap[position] = tile;
+        heapScores[position] = score;
+        heapPositions[tile] = position;
+    }
+}
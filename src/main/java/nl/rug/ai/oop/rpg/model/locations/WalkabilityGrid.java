@@ -0,0 +1,123 @@
+package nl.rug.ai.oop.rpg.model.locations;
+
+/**
+ * Bitset of the walkable tiles of a location, one bit per tile, row after row.
+ * A tile is walkable if its {@link GameLocation.Entity} is walkable and the first {@link LocationObject} on it, if any, is walkable,
+ * as in {@link GameLocation#move(GameLocation.Direction)}; buildings and teleports are not walkable, as they are not stepped on.
+ * The grid is built once per location and updated when objects are added, moved or removed,
+ * so that a path search tests a bit instead of looking the entity and the objects of a tile up.
+ * The grid also keeps the walkable terrain, which ignores the objects, for searches that should not depend on objects moving around;
+ * the terrain is shared with the other games using the same map, hence only the bits of the objects are kept per game.
+ * Outside of this package, the grid is read only; several threads can read it at the same time, as long as no object is changed meanwhile.
+ *
+ * @version 1.0
+ */
+public final class WalkabilityGrid {
+    private final int width;
+    private final int height;
+    private final long[] bits;
+    private final long[] terrain;
+
+    /**
+     * Creates a grid in which the walkable tiles are the walkable terrain
+     * @param width number of columns
+     * @param height number of rows
+     * @param terrain walkable terrain, which is not modified
+     */
+    private WalkabilityGrid(int width, int height, long[] terrain) {
+        this.width = width;
+        this.height = height;
+        this.bits = terrain.clone();
+        this.terrain = terrain;
+    }
+
+    /**
+     * Builds the grid of a location, from the shared terrain of its map (see {@link ChunkedMap#getTerrain()}).
+     * @param map entities of the location
+     * @param objects index of the objects
+     * @param location the location
+     * @return {@link WalkabilityGrid} grid of the location
+     */
+    static WalkabilityGrid build(ChunkedMap map, LocationObjectIndex objects, GameLocation.Location location) {
+        WalkabilityGrid grid = new WalkabilityGrid(map.data().width(), map.data().height(), map.getTerrain());
+        for (LocationObject object : objects.getAll(location)) {
+            if (!objects.get(location, object.x(), object.y()).walkable()) {
+                grid.setWalkable(object.x(), object.y(), false);
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * @return number of columns
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * @return number of rows
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @param x x coordinate of the tile
+     * @param y y coordinate of the tile
+     * @return true if the tile is inside the map and walkable, otherwise false
+     */
+    public boolean isWalkable(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height && isWalkable(y * width + x);
+    }
+
+    /**
+     * @param tile index of the tile, y * width + x
+     * @return true if the tile is walkable, otherwise false
+     */
+    boolean isWalkable(int tile) {
+        return (bits[tile >>> 6] & (1L << tile)) != 0;
+    }
+
+    /**
+     * @param x x coordinate of the tile
+     * @param y y coordinate of the tile
+     * @return true if the tile is inside the map and its entity is walkable, whatever objects are on it, otherwise false
+     */
+    public boolean isTerrainWalkable(int x, int y) {
+        return x >= 0 && x < width && y >= 0 && y < height && isTerrainWalkable(y * width + x);
+    }
+
+    /**
+     * @param tile index of the tile, y * width + x
+     * @return true if the entity of the tile is walkable, whatever objects are on it, otherwise false
+     */
+    boolean isTerrainWalkable(int tile) {
+        return (terrain[tile >>> 6] & (1L << tile)) != 0;
+    }
+
+    /**
+     * Updates a tile, e.g. when an object is added on it or removed from it. Tiles outside the map are ignored.
+     * @param x x coordinate of the tile
+     * @param y y coordinate of the tile
+     * @param walkable true if the tile is walkable, otherwise false
+     */
+    void setWalkable(int x, int y, boolean walkable) {
+        if (x < 0 || x >= width || y < 0 || y >= height) {
+            return;
+        }
+        int tile = y * width + x;
+        if (walkable) {
+            set(tile);
+        } else {
+            bits[tile >>> 6] &= ~(1L << tile);
+        }
+    }
+
+    /**
+     * @param tile index of the tile to be made walkable
+     */
+    private void set(int tile) {
+        bits[tile >>> 6] |= 1L << tile;
+    }
+}
@@ -2,10 +2,11 @@ package nl.rug.ai.oop.rpg.model.npc;
 
 import nl.rug.ai.oop.rpg.model.character.Character;
 import nl.rug.ai.oop.rpg.model.engine.GameEngine;
+import nl.rug.ai.oop.rpg.model.engine.GameEvent;
+import nl.rug.ai.oop.rpg.model.locations.FlowField;
 import nl.rug.ai.oop.rpg.model.locations.GameLocation;
+import nl.rug.ai.oop.rpg.model.locations.WalkabilityGrid;
 
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectOutputStream;
@@ -17,8 +18,40 @@ import java.util.*;
 public class Enemy extends Character {
     private int money;
     private Faction faction;
+    private GameLocation.Location location;
     private int x;
     private int y;
+    private int homeX;
+    private int homeY;
+    private transient EnemyChanged enemyChanged;
+    private transient SplittableRandom random; //stream of the attacks, created when first needed if none was given
+
+    /**
+     * Maximum distance from its home at which an enemy which is not chasing the player wanders
+     */
+    public static final int WANDER_DISTANCE = 4;
+    private static final GameLocation.Direction[] DIRECTIONS = GameLocation.Direction.values();
+
+    /**
+     * Event posted when the health, attack or defence of the enemy has changed
+     */
+    public final class EnemyChanged extends GameEvent {
+        private EnemyChanged() {
+            super(Enemy.this);
+        }
+
+        public int getHp() {
+            return health.getHp();
+        }
+
+        public HashMap<Faction, Integer> getAttack() {
+            return attack;
+        }
+
+        public int getDefence() {
+            return defence;
+        }
+    }
 
     public Enemy() {
         super();
@@ -30,6 +63,89 @@ public class Enemy extends Character {
         this.money = money;
     }
 
+    /**
+     * Places the enemy on a tile of the map, which becomes the home around which it wanders
+     * @param location location of the enemy
+     * @param x x coordinate of the enemy
+     * @param y y coordinate of the enemy
+     */
+    public void place(GameLocation.Location location, int x, int y) {
+        this.location = location;
+        this.x = x;
+        this.y = y;
+        this.homeX = x;
+        this.homeY = y;
+    }
+
+    /**
+     * Moves the enemy to another tile of its location, once its step has been accepted
+     * @param x x coordinate of the enemy
+     * @param y y coordinate of the enemy
+     */
+    public void setPosition(int x, int y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    public GameLocation.Location getLocation() {
+        return location;
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * Chooses the next step of the enemy, without moving it.
+     * In the location of the player, the enemy chases the player downhill on the flow field of the location.
+     * Otherwise, or if the player is out of reach, it wanders around its home, going back to it once it is more than
+     * {@link #WANDER_DISTANCE} tiles away. The enemy only steps on free walkable tiles.
+     * It only reads the models, hence the steps of several enemies can be chosen on different threads,
+     * as long as the walkability grid of the location and the flow field are up to date.
+     * @param gameLocation the GameLocation model
+     * @param grid walkable tiles of the location of the enemy
+     * @param random random number drawn for this enemy and this step
+     * @return {@link GameLocation.Direction} of the step, or null if the enemy stays on its tile
+     */
+    public GameLocation.Direction chooseStep(GameLocation gameLocation, WalkabilityGrid grid, long random) {
+        if (location == gameLocation.getLocation()) {
+            FlowField flowField = gameLocation.getFlowField();
+            int distance = flowField.getDistance(x, y);
+            if (distance >= 0) {
+                return flowField.getStepTowardsPlayer(x, y);
+            }
+        }
+
+        GameLocation.Direction direction;
+        if (Math.abs(homeX - x) + Math.abs(homeY - y) > WANDER_DISTANCE) {
+            if (homeX != x && (homeY == y || (random & 1) == 0)) {
+                direction = homeX < x ? GameLocation.Direction.WEST : GameLocation.Direction.EAST;
+            } else {
+                direction = homeY < y ? GameLocation.Direction.NORTH : GameLocation.Direction.SOUTH;
+            }
+        } else {
+            // One chance out of two to stay on the tile
+            int choice = (int) ((random >>> 1) & 7);
+            if (choice >= 4) {
+                return null;
+            }
+            direction = DIRECTIONS[choice];
+        }
+        int nextX = x + (direction == GameLocation.Direction.WEST ? -1 : direction == GameLocation.Direction.EAST ? 1 : 0);
+        int nextY = y + (direction == GameLocation.Direction.NORTH ? -1 : direction == GameLocation.Direction.SOUTH ? 1 : 0);
+        if (!grid.isWalkable(nextX, nextY) || gameLocation.getObjectAt(location, nextX, nextY) != null) {
+            return null;
+        }
+        if (location == gameLocation.getLocation() && nextX == gameLocation.getPlayerCoordinates()[0] && nextY == gameLocation.getPlayerCoordinates()[1]) {
+            return null;
+        }
+        return direction;
+    }
+
     public HashMap<Faction, Integer> attack() {
         HashMap<Faction, Integer> map = new HashMap<>();
         switch (this.faction) {
@@ -58,9 +174,20 @@ public class Enemy extends Character {
         return map;
     }
 
+    /**
+     * Sets the stream from which the enemy draws its attacks, e.g. the one of its game (see {@link nl.rug.ai.oop.rpg.model.engine.GameRandom})
+     * @param random the stream
+     */
+    public void setRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
     @Override
     public Faction getAttackType() {
-        return Faction.values()[new Random().nextInt(Faction.values().length)];
+        if (random == null) {
+            random = new SplittableRandom();
+        }
+        return Faction.values()[random.nextInt(Faction.values().length)];
     }
 
     public int getAttackStrength(Faction faction) {
@@ -81,18 +208,12 @@ public class Enemy extends Character {
     }
 
     protected void notifyListeners() {
-        PropertyChangeEvent health = new PropertyChangeEvent(
-                this, "health", null, this.health.getHp());
-        PropertyChangeEvent attack = new PropertyChangeEvent(
-                this, "attack", null, this.attack);
-        PropertyChangeEvent defense = new PropertyChangeEvent(
-                this, "defense", null, this.defence);
-        Iterator<PropertyChangeListener> allListeners = listeners.iterator();
-        while (allListeners.hasNext()) {
-            PropertyChangeListener listener = allListeners.next();
-            listener.propertyChange(health);
-            listener.propertyChange(attack);
-            listener.propertyChange(defense);
+        if (events == null) {
+            return;
+        }
+        if (enemyChanged == null) {
+            enemyChanged = new EnemyChanged();
         }
+        events.post(enemyChanged);
     }
 }
@@ -0,0 +1,224 @@
+package nl.rug.ai.oop.rpg.model.npc;
+
+import nl.rug.ai.oop.rpg.model.locations.GameLocation;
+import nl.rug.ai.oop.rpg.model.locations.WalkabilityGrid;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Simulation of the NPCs of all the locations, advanced one step at a time, also in the locations where the player is not.
+ * A step is done in two phases:
+ * first the enemies choose their steps in parallel on a fork/join pool, partitioned by location and by square region of
+ * {@link #REGION_SIZE} tiles, only reading the models; then the steps are applied on the thread of the model.
+ * When several enemies want to step on the same tile, possibly from different regions, the enemy added first gets it and the others wait,
+ * hence the result of a step does not depend on the order in which the regions were run.
+ * The random numbers of the enemies only depend on the seed, the number of the step and the enemy, for the same reason.
+ * Merchants do not move: they are only obstacles for the enemies.
+ *
+ * @version 1.0
+ */
+public final class NpcSimulation {
+    /**
+     * Width and height, in tiles, of the regions in which the enemies choose their steps in parallel
+     */
+    public static final int REGION_SIZE = 32;
+
+    /**
+     * Minimum number of enemies of a task of the pool; smaller groups of regions are run by a single task,
+     * and a simulation with at most that many enemies chooses their steps on the thread of the model, without the pool
+     */
+    private static final int MIN_ENEMIES_PER_TASK = 16;
+
+    private final GameLocation gameLocation;
+    private final List<Enemy> enemies;
+    private final ForkJoinPool pool;
+    private final long seed;
+    private long step = 0;
+
+    /* Per enemy, in the order of the enemies: direction of its next step, or null if it stays */
+    private GameLocation.Direction[] chosenSteps = new GameLocation.Direction[0];
+
+    /**
+     * Creates the simulation of some enemies, run on the common fork/join pool
+     * @param gameLocation the GameLocation model, in which the enemies have been added as objects
+     * @param enemies the enemies, in the order in which they win conflicting steps
+     * @param seed seed of the random numbers of the enemies
+     */
+    public NpcSimulation(GameLocation gameLocation, List<Enemy> enemies, long seed) {
+        this(gameLocation, enemies, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates the simulation of some enemies
+     * @param gameLocation the GameLocation model, in which the enemies have been added as objects
+     * @param enemies the enemies, in the order in which they win conflicting steps
+     * @param seed seed of the random numbers of the enemies
+     * @param pool pool running the regions
+     */
+    public NpcSimulation(GameLocation gameLocation, List<Enemy> enemies, long seed, ForkJoinPool pool) {
+        this.gameLocation = gameLocation;
+        this.enemies = enemies;
+        this.seed = seed;
+        this.pool = pool;
+    }
+
+    /**
+     * Advances all the enemies by one step. It should be called on the thread of the model, which waits for the regions to be run.
+     * With few enemies, the steps are chosen directly on the thread of the model, since handing them to the pool would cost more than choosing them.
+     */
+    public void step() {
+        int count = enemies.size();
+        if (count == 0) {
+            return;
+        }
+        if (chosenSteps.length < count) {
+            chosenSteps = new GameLocation.Direction[count];
+        }
+
+        /* The lazily built state is built here, so that the regions only read the models */
+        EnumMap<GameLocation.Location, WalkabilityGrid> grids = new EnumMap<>(GameLocation.Location.class);
+        for (int index = 0; index < count; index++) {
+            GameLocation.Location location = enemies.get(index).getLocation();
+            if (!grids.containsKey(location)) {
+                grids.put(location, gameLocation.getWalkabilityGrid(location));
+            }
+        }
+        int[] playerCoordinates = gameLocation.getPlayerCoordinates();
+        gameLocation.getFlowField().getDistance(playerCoordinates[0], playerCoordinates[1]);
+
+        if (count <= MIN_ENEMIES_PER_TASK) {
+            for (int index = 0; index < count; index++) {
+                chooseStep(index, grids);
+            }
+        } else {
+            ArrayList<int[]> regions = partition();
+            pool.invoke(new RegionTask(regions, 0, regions.size(), grids));
+        }
+        apply();
+        step++;
+    }
+
+    /**
+     * Groups the enemies by location and region
+     * @return indices of the enemies of every region, in the order of the enemies
+     */
+    private ArrayList<int[]> partition() {
+        HashMap<Long, ArrayList<Integer>> regionsByKey = new HashMap<>();
+        ArrayList<ArrayList<Integer>> regions = new ArrayList<>();
+        for (int index = 0; index < enemies.size(); index++) {
+            Enemy enemy = enemies.get(index);
+            long key = ((long) enemy.getLocation().ordinal() << 42) | ((long) (enemy.getX() / REGION_SIZE) << 21) | (enemy.getY() / REGION_SIZE);
+            ArrayList<Integer> region = regionsByKey.get(key);
+            if (region == null) {
+                region = new ArrayList<>();
+                regionsByKey.put(key, region);
+                regions.add(region);
+            }
+            region.add(index);
+        }
+        ArrayList<int[]> partition = new ArrayList<>(regions.size());
+        for (ArrayList<Integer> region : regions) {
+            partition.add(region.stream().mapToInt(Integer::intValue).toArray());
+        }
+        return partition;
+    }
+
+    /**
+     * Applies the chosen steps in the order of the enemies, so that the first enemy stepping on a tile gets it.
+     * An enemy cannot step on a tile which was taken at the beginning of the step, hence the enemies never swap tiles.
+     */
+    private void apply() {
+        HashSet<Long> takenTiles = new HashSet<>();
+        for (int index = 0; index < enemies.size(); index++) {
+            GameLocation.Direction direction = chosenSteps[index];
+            chosenSteps[index] = null;
+            if (direction == null) {
+                continue;
+            }
+            Enemy enemy = enemies.get(index);
+            int x = enemy.getX();
+            int y = enemy.getY();
+            switch (direction) {
+                case NORTH -> y--;
+                case SOUTH -> y++;
+                case WEST -> x--;
+                case EAST -> x++;
+            }
+            long tile = ((long) enemy.getLocation().ordinal() << 42) | ((long) x << 21) | y;
+            if (takenTiles.add(tile)) {
+                enemy.setPosition(x, y);
+                gameLocation.moveObject(enemy, x, y);
+            }
+        }
+    }
+
+    /**
+     * Chooses the next step of an enemy, only reading the models
+     * @param index index of the enemy
+     * @param grids walkable tiles of every location
+     */
+    private void chooseStep(int index, EnumMap<GameLocation.Location, WalkabilityGrid> grids) {
+        Enemy enemy = enemies.get(index);
+        WalkabilityGrid grid = grids.get(enemy.getLocation());
+        chosenSteps[index] = grid == null ? null : enemy.chooseStep(gameLocation, grid, random(index));
+    }
+
+    /**
+     * @param index index of the enemy
+     * @return random number of the enemy for the current step, mixed from the seed (see SplitMix64)
+     */
+    private long random(int index) {
+        long z = seed + step * 0x9E3779B97F4A7C15L + (index + 1) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Task choosing the steps of the enemies of a range of regions, split in two while it has enough enemies
+     */
+    private final class RegionTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final ArrayList<int[]> regions;
+        private final int from;
+        private final int to;
+        private final EnumMap<GameLocation.Location, WalkabilityGrid> grids;
+
+        /**
+         * @param regions indices of the enemies of every region
+         * @param from first region of the task
+         * @param to region after the last region of the task
+         * @param grids walkable tiles of every location
+         */
+        private RegionTask(ArrayList<int[]> regions, int from, int to, EnumMap<GameLocation.Location, WalkabilityGrid> grids) {
+            this.regions = regions;
+            this.from = from;
+            this.to = to;
+            this.grids = grids;
+        }
+
+        @Override
+        protected void compute() {
+            int enemyCount = 0;
+            for (int region = from; region < to; region++) {
+                enemyCount += regions.get(region).length;
+            }
+            if (to - from > 1 && enemyCount > MIN_ENEMIES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RegionTask(regions, from, middle, grids), new RegionTask(regions, middle, to, grids));
+                return;
+            }
+            for (int region = from; region < to; region++) {
+                for (int index : regions.get(region)) {
+                    chooseStep(index, grids);
+                }
+            }
+        }
+    }
+}
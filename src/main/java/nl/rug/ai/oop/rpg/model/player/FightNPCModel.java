@@ -2,7 +2,7 @@ package nl.rug.ai.oop.rpg.model.player;
 
 import nl.rug.ai.oop.rpg.model.character.Character;
 
-import java.util.Random;
+import java.util.SplittableRandom;
 
 /**
  * @author Otto Bervoets
@@ -14,6 +14,7 @@ public class FightNPCModel {
     private Character.Faction lastAttack = null;
     private int lastDamage = 0;
     private int npcMoney = 0;
+    private SplittableRandom random = new SplittableRandom(); //stream of the attacks of the default NPC
     private enum State {
         FIGHTING, FINISHED
     }
@@ -36,7 +37,6 @@ public class FightNPCModel {
         this.NPC = new Character() {
             @Override
             public Faction getAttackType() {
-                Random random = new Random();
                 int type = random.nextInt(3);
                 return Faction.values()[type];
             }
@@ -44,6 +44,14 @@ public class FightNPCModel {
             protected void notifyListeners() {}
         };
     }
+    /**
+     * Sets the stream from which the default NPC draws its attacks, e.g. the one of the game
+     * @param random the stream
+     */
+    public void setRandom(SplittableRandom random) {
+        this.random = random;
+    }
+
     private void resetMessageVariables() {
         lastState = "start";
         lastAttack = null;
@@ -121,12 +129,12 @@ public class FightNPCModel {
     }
 
     /**
-     * Evaluates which attack defeats the other
+     * Evaluates which attack defeats the other. Also used by the {@link FightSimulator}, so that simulated fights follow the same rules.
      * @param playerAttack the attack of the player
      * @param NPCAttack the attack of the NPC
      * @return 0 if the attacks are equal, 1 if the player wins, 2 if the NPC wins.
      */
-    private int whoWins(Character.Faction playerAttack, Character.Faction NPCAttack) {
+    static int whoWins(Character.Faction playerAttack, Character.Faction NPCAttack) {
         if(playerAttack == NPCAttack) {
             return 0; //attack is equal
         }
@@ -143,7 +151,7 @@ public class FightNPCModel {
      * @param attack2 The second attack
      * @return bool wether the first attack is stronger than the second.
      */
-    private boolean isStronger(Character.Faction attack1, Character.Faction attack2) {
+    private static boolean isStronger(Character.Faction attack1, Character.Faction attack2) {
         return ((attack1 == Character.Faction.FIRE && attack2 == Character.Faction.WOOD) ||
                 (attack1 == Character.Faction.WOOD && attack2 == Character.Faction.WATER) ||
                 (attack1 == Character.Faction.WATER && attack2 == Character.Faction.FIRE)
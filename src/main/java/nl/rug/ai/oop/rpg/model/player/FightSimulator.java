@@ -0,0 +1,321 @@
+package nl.rug.ai.oop.rpg.model.player;
+
+import nl.rug.ai.oop.rpg.model.character.Character;
+import nl.rug.ai.oop.rpg.model.character.Health;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Simulates many fights between the player and an enemy, in order to balance the enemies.
+ * Every round follows the rules of {@link FightNPCModel#playerAttack}: both fighters choose a random attack, the stronger attack
+ * wins the round and the loser takes damage through {@link Character#takeDamage}. Equal attacks do nothing.
+ * The fights run in parallel on a fork/join pool. Every task uses its own random stream, split from the seed in a fixed order,
+ * hence the same seed always gives the same results, whatever the number of threads.
+ *
+ * @version 1.0
+ */
+public final class FightSimulator {
+    /**
+     * Number of fights below which a task is not split anymore
+     */
+    private static final int FIGHTS_PER_TASK = 8192;
+    private final ForkJoinPool pool;
+    private final long seed;
+    private final int maxRounds;
+
+    /**
+     * Strengths and health of both fighters. Each fighter has the same strength for its three attacks.
+     */
+    public record FightParameters(int playerAttack, int playerDefence, int playerHp, int enemyAttack, int enemyDefence, int enemyHp) {
+    }
+
+    /**
+     * Results of the fights with the same parameters.
+     * roundHistogram[n] is the number of fights which ended after n rounds. Fights reaching the maximum number of rounds are unfinished,
+     * e.g. because no attack can go through the defence of the other fighter.
+     */
+    public record FightStatistics(FightParameters parameters, long fights, long playerWins, long enemyWins, long unfinished, long[] roundHistogram) {
+        /**
+         * @return share of the fights won by the player
+         */
+        public double playerWinRate() {
+            return (double) playerWins / fights;
+        }
+
+        /**
+         * @return share of the fights won by the enemy
+         */
+        public double enemyWinRate() {
+            return (double) enemyWins / fights;
+        }
+
+        /**
+         * @return average number of rounds of the finished fights
+         */
+        public double meanRounds() {
+            long rounds = 0;
+            for (int length = 0; length < roundHistogram.length; length++) {
+                rounds += length * roundHistogram[length];
+            }
+            return fights == unfinished ? 0 : (double) rounds / (fights - unfinished);
+        }
+
+        /**
+         * @param percentile percentile between 0 and 100
+         * @return smallest number of rounds such that the given percentage of the finished fights took at most this number of rounds
+         */
+        public int roundsPercentile(double percentile) {
+            long finished = fights - unfinished;
+            long count = 0;
+            for (int length = 0; length < roundHistogram.length; length++) {
+                count += roundHistogram[length];
+                if (count > 0 && count >= Math.ceil(finished * percentile / 100)) {
+                    return length;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Constructs a simulator running on the common fork/join pool.
+     * @param seed seed of the random streams
+     * @param maxRounds number of rounds after which a fight is counted as unfinished
+     */
+    public FightSimulator(long seed, int maxRounds) {
+        this(ForkJoinPool.commonPool(), seed, maxRounds);
+    }
+
+    /**
+     * Constructs a simulator.
+     * @param pool pool running the fights
+     * @param seed seed of the random streams
+     * @param maxRounds number of rounds after which a fight is counted as unfinished
+     */
+    public FightSimulator(ForkJoinPool pool, long seed, int maxRounds) {
+        this.pool = pool;
+        this.seed = seed;
+        this.maxRounds = maxRounds;
+    }
+
+    /**
+     * Lists all the combinations of the given values, which can then be simulated.
+     * @return every combination of the parameters, the enemy hp changing the fastest
+     */
+    public static List<FightParameters> sweep(int[] playerAttacks, int[] playerDefences, int[] playerHps, int[] enemyAttacks, int[] enemyDefences, int[] enemyHps) {
+        List<FightParameters> sweep = new ArrayList<>();
+        for (int playerAttack : playerAttacks) {
+            for (int playerDefence : playerDefences) {
+                for (int playerHp : playerHps) {
+                    for (int enemyAttack : enemyAttacks) {
+                        for (int enemyDefence : enemyDefences) {
+                            for (int enemyHp : enemyHps) {
+                                sweep.add(new FightParameters(playerAttack, playerDefence, playerHp, enemyAttack, enemyDefence, enemyHp));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return sweep;
+    }
+
+    /**
+     * Simulates the same number of fights for every set of parameters. All the sets are simulated in parallel.
+     * @param sweep the sets of parameters
+     * @param fights number of fights per set of parameters
+     * @return the statistics of every set, in the same order as the sweep
+     */
+    public List<FightStatistics> simulate(List<FightParameters> sweep, long fights) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<FightTask> tasks = new ArrayList<>();
+        for (FightParameters parameters : sweep) {
+            FightTask task = new FightTask(parameters, fights, random.split());
+            tasks.add(task);
+            pool.execute(task);
+        }
+        List<FightStatistics> statistics = new ArrayList<>();
+        for (FightTask task : tasks) {
+            Tally tally = task.join();
+            statistics.add(new FightStatistics(task.parameters, fights, tally.playerWins, tally.enemyWins, tally.unfinished, tally.roundHistogram));
+        }
+        return statistics;
+    }
+
+    /**
+     * @param statistics results of a simulation
+     * @return table of the win rates, one line per set of parameters
+     */
+    public static String winRateTable(List<FightStatistics> statistics) {
+        StringBuilder table = new StringBuilder(String.format("%s | %8s %8s %10s%n", header(), "player", "enemy", "unfinished"));
+        for (FightStatistics result : statistics) {
+            table.append(String.format("%s | %7.2f%% %7.2f%% %9.2f%%%n", row(result.parameters()),
+                    100 * result.playerWinRate(), 100 * result.enemyWinRate(), 100.0 * result.unfinished() / result.fights()));
+        }
+        return table.toString();
+    }
+
+    /**
+     * @param statistics results of a simulation
+     * @return table of the number of rounds of the finished fights, one line per set of parameters
+     */
+    public static String fightLengthTable(List<FightStatistics> statistics) {
+        StringBuilder table = new StringBuilder(String.format("%s | %6s %6s %6s %6s%n", header(), "mean", "median", "p90", "p99"));
+        for (FightStatistics result : statistics) {
+            table.append(String.format("%s | %6.2f %6d %6d %6d%n", row(result.parameters()),
+                    result.meanRounds(), result.roundsPercentile(50), result.roundsPercentile(90), result.roundsPercentile(99)));
+        }
+        return table.toString();
+    }
+
+    private static String header() {
+        return String.format("%6s %6s %6s %6s %6s %6s", "p.atk", "p.def", "p.hp", "e.atk", "e.def", "e.hp");
+    }
+
+    private static String row(FightParameters parameters) {
+        return String.format("%6d %6d %6d %6d %6d %6d", parameters.playerAttack(), parameters.playerDefence(), parameters.playerHp(),
+                parameters.enemyAttack(), parameters.enemyDefence(), parameters.enemyHp());
+    }
+
+    /**
+     * Runs a sweep around the strengths used in the game and prints the tables.
+     * Usage: FightSimulator [fights per set of parameters] [seed]
+     * @param args the optional number of fights and seed
+     */
+    public static void main(String[] args) {
+        long fights = args.length > 0 ? Long.parseLong(args[0]) : 100_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        List<FightParameters> sweep = sweep(new int[]{4, 6, 8, 10}, new int[]{0, 2}, new int[]{20},
+                new int[]{2, 4, 6}, new int[]{0, 2}, new int[]{10, 20, 30});
+        long start = System.nanoTime();
+        List<FightStatistics> statistics = new FightSimulator(seed, 1000).simulate(sweep, fights);
+        long duration = System.nanoTime() - start;
+        System.out.println("Win rates");
+        System.out.print(winRateTable(statistics));
+        System.out.println();
+        System.out.println("Fight lengths (rounds)");
+        System.out.print(fightLengthTable(statistics));
+        System.out.printf("%n%d fights in %d ms%n", fights * sweep.size(), duration / 1_000_000);
+    }
+
+    /**
+     * Results of part of the fights of one set of parameters
+     */
+    private static final class Tally {
+        private long playerWins;
+        private long enemyWins;
+        private long unfinished;
+        private final long[] roundHistogram;
+
+        private Tally(int maxRounds) {
+            roundHistogram = new long[maxRounds + 1];
+        }
+
+        private Tally merge(Tally other) {
+            playerWins += other.playerWins;
+            enemyWins += other.enemyWins;
+            unfinished += other.unfinished;
+            for (int length = 0; length < roundHistogram.length; length++) {
+                roundHistogram[length] += other.roundHistogram[length];
+            }
+            return this;
+        }
+    }
+
+    /**
+     * Task simulating fights with the same parameters, split in two halves as long as there are enough fights
+     */
+    private final class FightTask extends RecursiveTask<Tally> {
+        private static final long serialVersionUID = 1L;
+        private final FightParameters parameters;
+        private final long fights;
+        private final SplittableRandom random;
+
+        private FightTask(FightParameters parameters, long fights, SplittableRandom random) {
+            this.parameters = parameters;
+            this.fights = fights;
+            this.random = random;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (fights <= FIGHTS_PER_TASK) {
+                return fight();
+            }
+            FightTask firstHalf = new FightTask(parameters, fights / 2, random.split());
+            FightTask secondHalf = new FightTask(parameters, fights - fights / 2, random);
+            firstHalf.fork();
+            return secondHalf.compute().merge(firstHalf.join());
+        }
+
+        /**
+         * Plays all the fights of this task
+         * @return results of the fights
+         */
+        private Tally fight() {
+            Tally tally = new Tally(maxRounds);
+            SimulatedCharacter player = new SimulatedCharacter(parameters.playerAttack(), parameters.playerDefence(), random);
+            SimulatedCharacter enemy = new SimulatedCharacter(parameters.enemyAttack(), parameters.enemyDefence(), random);
+            for (long fight = 0; fight < fights; fight++) {
+                player.heal(parameters.playerHp());
+                enemy.heal(parameters.enemyHp());
+                int rounds = 0;
+                while (player.isAlive() && enemy.isAlive() && rounds < maxRounds) {
+                    rounds++;
+                    Character.Faction playerAttack = player.getAttackType();
+                    Character.Faction enemyAttack = enemy.getAttackType();
+                    switch (FightNPCModel.whoWins(playerAttack, enemyAttack)) {
+                        case 1 -> enemy.takeDamage(player.getAttackStrength(playerAttack));
+                        case 2 -> player.takeDamage(enemy.getAttackStrength(enemyAttack));
+                    }
+                }
+                if (!enemy.isAlive()) {
+                    tally.playerWins++;
+                } else if (!player.isAlive()) {
+                    tally.enemyWins++;
+                } else {
+                    tally.unfinished++;
+                    continue;
+                }
+                tally.roundHistogram[rounds]++;
+            }
+            return tally;
+        }
+    }
+
+    /**
+     * Fighter choosing its attacks from a random stream, without any listener
+     */
+    private static final class SimulatedCharacter extends Character {
+        private static final long serialVersionUID = 1L;
+        private static final Faction[] FACTIONS = Faction.values();
+        private final SplittableRandom random;
+
+        private SimulatedCharacter(int attackStrength, int defence, SplittableRandom random) {
+            this.random = random;
+            this.defence = defence;
+            attack.replaceAll((faction, strength) -> attackStrength);
+        }
+
+        /**
+         * Gives the fighter full health before a new fight
+         * @param hp health points of the fighter
+         */
+        private void heal(int hp) {
+            health = new Health(hp, hp);
+        }
+
+        @Override
+        public Faction getAttackType() {
+            return FACTIONS[random.nextInt(FACTIONS.length)];
+        }
+
+        @Override
+        protected void notifyListeners() {
+        }
+    }
+}
@@ -3,10 +3,13 @@ package nl.rug.ai.oop.rpg.model.player;
 import nl.rug.ai.oop.rpg.model.character.Character;
 import nl.rug.ai.oop.rpg.model.character.Health;
 import nl.rug.ai.oop.rpg.model.engine.GameEngine;
+import nl.rug.ai.oop.rpg.model.engine.GameEvent;
+import nl.rug.ai.oop.rpg.model.engine.GameStorage;
+import nl.rug.ai.oop.rpg.model.engine.SaveTask;
 
-import java.beans.PropertyChangeEvent;
-import java.beans.PropertyChangeListener;
 import java.io.*;
+import java.util.HashMap;
+import java.util.SplittableRandom;
 
 /**
  * @author Otto Bervoets
@@ -21,18 +24,129 @@ public class PlayerModel extends Character implements Serializable {
     private static final long serialVersionUID = 13L;
     private boolean playerBuild = false;
     final transient private FightNPCModel fightNPCModel;
+    final transient private GameStorage storage;
     public enum State {
         FIGHTING, WALKING, DEATH, BUILDING, WAIT_TO_CONTINUE
     }
 
     private volatile State state = State.WALKING;
 
+    /*
+     * The events are created once and posted again at every change. They are transient, hence a loaded player
+     * (only used to copy its values) has none, and neither does a snapshot, which has no event bus.
+     */
+    final transient private PlayerChanged playerChanged = new PlayerChanged();
+    final transient private FightChanged fightChanged = new FightChanged();
+    final transient private PlayerDied playerDied = new PlayerDied();
+    final transient private FightContinued fightContinued = new FightContinued();
+    final transient private FightReset fightReset = new FightReset();
+
+    /**
+     * Event posted when the properties of the player have changed. The texts are made when they are asked for,
+     * hence only once per delivery, with the values of the player at that moment.
+     */
+    public final class PlayerChanged extends GameEvent {
+        private PlayerChanged() {
+            super(PlayerModel.this);
+        }
+
+        public String getHealthText() {
+            return TextModel.healthText(health, true, false);
+        }
+
+        public HashMap<Faction, String> getAttackText() {
+            return TextModel.buttonText(attack);
+        }
+
+        public int getDefence() {
+            return defence;
+        }
+
+        public State getState() {
+            return state;
+        }
+
+        public int getMoney() {
+            return money;
+        }
+
+        public Faction getFaction() {
+            return faction;
+        }
+
+        public String getFactionText() {
+            return TextModel.factionText(faction);
+        }
+
+        public String getNameText() {
+            return TextModel.nameText(name);
+        }
+    }
+
+    /**
+     * Event posted when a fight has changed, together with a {@link PlayerChanged}
+     */
+    public final class FightChanged extends GameEvent {
+        private FightChanged() {
+            super(PlayerModel.this);
+        }
+
+        public String getNPCDescription() {
+            return TextModel.characterDescription(fightNPCModel.getNPC());
+        }
+
+        public String getPlayerDescription() {
+            return TextModel.characterDescription(PlayerModel.this);
+        }
+
+        public String getFightMessage() {
+            return fightNPCModel.getFightMessage();
+        }
+    }
+
+    /**
+     * Event posted when the player has died
+     */
+    public final class PlayerDied extends GameEvent {
+        private PlayerDied() {
+            super(PlayerModel.this);
+        }
+    }
+
+    /**
+     * Event posted when a fight is over and the player has to continue the game
+     */
+    public final class FightContinued extends GameEvent {
+        private FightContinued() {
+            super(PlayerModel.this);
+        }
+    }
+
+    /**
+     * Event posted when the player goes back to walking after a fight, so that the fight view can be reset
+     */
+    public final class FightReset extends GameEvent {
+        private FightReset() {
+            super(PlayerModel.this);
+        }
+    }
+
     /**
      * Constructs a player model. If a saved player is there this will be used. Otherwise, the player will
      * be constructed with default values. If this is the case, the view will be asked to set the name and faction
      */
     public PlayerModel() {
+        this(GameStorage.DEFAULT);
+    }
+
+    /**
+     * Constructs a player model using the given save files. If a saved player is there this will be used. Otherwise, the player will
+     * be constructed with default values. If this is the case, the view will be asked to set the name and faction
+     * @param storage the storage containing the save files
+     */
+    public PlayerModel(GameStorage storage) {
         super();
+        this.storage = storage;
         this.fightNPCModel = new FightNPCModel();
         PlayerModel savedPlayer = readPlayer();
         if(savedPlayer != null) {
@@ -51,6 +165,24 @@ public class PlayerModel extends Character implements Serializable {
         this.money = 15;
     }
 
+    /**
+     * Constructs a copy of a player, only used to take snapshots. The copy has no fight model and no listeners.
+     * @param player the player to copy
+     */
+    private PlayerModel(PlayerModel player) {
+        super();
+        this.fightNPCModel = null;
+        this.storage = player.storage;
+        this.attack = new HashMap<>(player.attack);
+        this.playerBuild = player.playerBuild;
+        this.faction = player.faction;
+        this.defence = player.defence;
+        this.health = new Health(player.health.getHp(), player.health.getMaxHp());
+        this.name = player.name;
+        this.money = player.money;
+        this.state = player.state;
+    }
+
     /**
      * Lets the player recover a health amount of amount
      * @param amount the amount to recover
@@ -195,6 +327,14 @@ public class PlayerModel extends Character implements Serializable {
         notifyListeners();
     }
 
+    /**
+     * Sets the stream from which the NPCs fought by the player draw their attacks, e.g. the one of the game
+     * @param random the stream
+     */
+    public void setRandom(SplittableRandom random) {
+        fightNPCModel.setRandom(random);
+    }
+
     /**
      * Performs a test fight with a default NPC as the NPC class is not yet functional
      */
@@ -252,6 +392,26 @@ public class PlayerModel extends Character implements Serializable {
         notifyListeners();
     }
 
+    /**
+     * Restores the statistics of the player from a save, used by the game engine when replaying the save journal.
+     * @param money the money of the player
+     * @param hp the current HP
+     * @param maxHp the max HP
+     * @param defence the defence of the player
+     * @param fireAttack the strength of the fire attack
+     * @param woodAttack the strength of the wood attack
+     * @param waterAttack the strength of the water attack
+     */
+    public void restoreStats(int money, int hp, int maxHp, int defence, int fireAttack, int woodAttack, int waterAttack) {
+        this.money = money;
+        this.health = new Health(hp, maxHp);
+        this.defence = defence;
+        attack.put(Faction.FIRE, fireAttack);
+        attack.put(Faction.WOOD, woodAttack);
+        attack.put(Faction.WATER, waterAttack);
+        notifyListeners();
+    }
+
     /**
      * Check whether the amount can be spend. Currently not used.
      * @param amount the amount to check
@@ -275,55 +435,32 @@ public class PlayerModel extends Character implements Serializable {
 
     }
     private void notifyListenersWalking() {
-        PropertyChangeEvent health = new PropertyChangeEvent(this, "health", null, TextModel.healthText(this.health, true, false));
-        PropertyChangeEvent attackText = new PropertyChangeEvent(this, "attackText", null, TextModel.buttonText(attack));
-        PropertyChangeEvent defense = new PropertyChangeEvent(this, "defense", null, this.defence);
-        PropertyChangeEvent state = new PropertyChangeEvent(this, "state", null, this.state);
-        PropertyChangeEvent money = new PropertyChangeEvent(this, "money", null, this.money);
-        PropertyChangeEvent faction = new PropertyChangeEvent(this, "faction", null, this.faction);
-        PropertyChangeEvent factionText = new PropertyChangeEvent(this, "factionText", null, TextModel.factionText(this.faction));
-        PropertyChangeEvent name = new PropertyChangeEvent(this, "name", null, TextModel.nameText(this.name));
-        for (PropertyChangeListener listener : listeners) {
-            listener.propertyChange(health);
-            listener.propertyChange(attackText);
-            listener.propertyChange(defense);
-            listener.propertyChange(state);
-            listener.propertyChange(money);
-            listener.propertyChange(faction);
-            listener.propertyChange(name);
-            listener.propertyChange(factionText);
-        }
+        post(playerChanged);
     }
 
     private void notifyListenersFighting(){
         notifyListenersWalking();
-        PropertyChangeEvent NPCdescription = new PropertyChangeEvent(this, "NPCdescription", null, TextModel.characterDescription(fightNPCModel.getNPC()));
-        PropertyChangeEvent playerDescription =  new PropertyChangeEvent(this, "playerDescription", null, TextModel.characterDescription(this));
-        PropertyChangeEvent fightMessage = new PropertyChangeEvent(this, "fightMessage", null, fightNPCModel.getFightMessage());
-        for (PropertyChangeListener listener : listeners) {
-            listener.propertyChange(NPCdescription);
-            listener.propertyChange(playerDescription);
-            listener.propertyChange(fightMessage);
-        }
+        post(fightChanged);
     }
     private void notifyListenersDeath() {
-        PropertyChangeEvent playerDeath = new PropertyChangeEvent(this, "playerDeath", null, "playerDeath");
-        for (PropertyChangeListener listener : listeners) {
-            listener.propertyChange(playerDeath);
-        }
+        post(playerDied);
     }
 
     private void notifyListenersContinue() {
         notifyListenersFighting();
-        PropertyChangeEvent continueGame = new PropertyChangeEvent(this, "continue", null, null);
-        for (PropertyChangeListener listener : listeners) {
-            listener.propertyChange(continueGame);
-        }
+        post(fightContinued);
     }
     private void notifyListenersResetFightView() {
-        PropertyChangeEvent setFightBack = new PropertyChangeEvent(this, "setFightBack", null, null);
-        for (PropertyChangeListener listener : listeners) {
-            listener.propertyChange(setFightBack);
+        post(fightReset);
+    }
+
+    /**
+     * Posts an event if the player is connected to an event bus
+     * @param event the event to post
+     */
+    private void post(GameEvent event) {
+        if (events != null) {
+            events.post(event);
         }
     }
 
@@ -332,17 +469,31 @@ public class PlayerModel extends Character implements Serializable {
      * Saves the player, using the write object function.
      */
     public void save(){
-        try (ObjectOutputStream output = new ObjectOutputStream(
-                new FileOutputStream("src/main/resources/saving_data/playerModel.txt"))){
-            output.writeObject(this);
+        try {
+            snapshot().write();
         } catch (IOException e) {
             e.printStackTrace();
             System.exit(0);
         }
     }
+
+    /**
+     * Takes a snapshot of the player, which can be written with the write object function on another thread.
+     * @return the snapshot of the player
+     */
+    public SaveTask snapshot() {
+        PlayerModel copy = new PlayerModel(this);
+        String path = storage.getSavePath("playerModel.txt");
+        return () -> {
+            try (ObjectOutputStream output = new ObjectOutputStream(
+                    new FileOutputStream(path))){
+                output.writeObject(copy);
+            }
+        };
+    }
     private PlayerModel readPlayer() {
         PlayerModel savedPlayer = null;
-        try (ObjectInputStream input = new ObjectInputStream(new FileInputStream("src/main/resources/saving_data/playerModel.txt"))) {
+        try (ObjectInputStream input = new ObjectInputStream(new FileInputStream(storage.getSavePath("playerModel.txt")))) {
             savedPlayer = (PlayerModel) input.readObject();
         } catch (FileNotFoundException e){
             System.out.println("No save file found, construct a new player");
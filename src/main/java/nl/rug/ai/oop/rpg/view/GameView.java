@@ -5,9 +5,11 @@ import nl.rug.ai.oop.rpg.controler.LocationController;
 import nl.rug.ai.oop.rpg.controler.ShopController;
 import nl.rug.ai.oop.rpg.controler.npc.EnemyController;
 import nl.rug.ai.oop.rpg.controler.player.PlayerController;
-import nl.rug.ai.oop.rpg.model.character.Character;
+import nl.rug.ai.oop.rpg.model.engine.EventBus;
 import nl.rug.ai.oop.rpg.model.engine.GameEngine;
+import nl.rug.ai.oop.rpg.model.locations.GameLocation;
 import nl.rug.ai.oop.rpg.model.locations.LocationObject;
+import nl.rug.ai.oop.rpg.model.player.PlayerModel;
 import nl.rug.ai.oop.rpg.view.Player.FightView;
 import nl.rug.ai.oop.rpg.view.Player.PlayerDeath;
 import nl.rug.ai.oop.rpg.view.inventory.BigInventoryView;
@@ -128,37 +130,32 @@ public class GameView extends JPanel {
     public void setup(PlayerController playerController, LocationController locationController, InventoryController inventoryController, EnemyController enemyController, ShopController potionsController, ShopController armoryController, GameEngine gameEngine){
         /* Sets up the other views */
         menuBarView.setup(gameEngine);
-        locationView.setup(gameEngine.getLocation(), locationController);
-        bigMapView.setup(gameEngine.getLocation());
-        inventoryView.setup(gameEngine.getInventory(), inventoryController);
-        bigInventoryView.setup(gameEngine.getInventory(), inventoryController);
+        EventBus events = gameEngine.getEvents();
+        locationView.setup(gameEngine.getLocation(), locationController, events);
+        bigMapView.setup(gameEngine.getLocation(), locationController, events);
+        inventoryView.setup(gameEngine.getInventory(), inventoryController, events);
+        bigInventoryView.setup(gameEngine.getInventory(), inventoryController, events);
         objectPickupView.setup(gameEngine, inventoryController);
-        fightView.setup(playerController, gameEngine.getPlayerModel());
-        shopViewPotions.setup(gameEngine.getPotions(), gameEngine.getInventory(), potionsController);
-        shopViewArmory.setup(gameEngine.getArmory(), gameEngine.getInventory(), armoryController);
+        fightView.setup(playerController, gameEngine.getPlayerModel(), events);
+        shopViewPotions.setup(gameEngine.getPotions(), gameEngine.getInventory(), potionsController, events);
+        shopViewArmory.setup(gameEngine.getArmory(), gameEngine.getInventory(), armoryController, events);
         playerDeath.setup(gameEngine);
 
-        /* Makes this view a listener of some models */
-        gameEngine.getPlayerModel().addListener(evt -> {
-            if (evt.getPropertyName().equals("faction")) {
-                locationView.setPlayerImage((Character.Faction) evt.getNewValue());
-                menuBarView.setFaction((Character.Faction) evt.getNewValue());
+        /* Makes this view a subscriber of some models */
+        events.subscribe(PlayerModel.PlayerChanged.class, gameEngine.getPlayerModel(), event -> {
+            if (event.getFaction() != null) {
+                locationView.setPlayerImage(event.getFaction());
+                menuBarView.setFaction(event.getFaction());
             }
         });
-        gameEngine.getLocation().addListener(evt -> {
-            if (evt.getPropertyName().equals("bumpingIntoObject")) {
-                LocationObject obj = (LocationObject) evt.getNewValue();
-                if (obj.reference().equals("Enemy")) {
-                    updateViewTo(GameEngine.GameState.FIGHTING);
-                    gameEngine.demoFight(); //Otto Bervoets: as the NPC class is still disfunctional, this atleast showcases a demo fight.
-                }
-            }
-        });
-        gameEngine.addListener(evt -> {
-            if (evt.getPropertyName().equals("gameState")) {
-                updateViewTo((GameEngine.GameState) evt.getNewValue());
+        events.subscribe(GameLocation.ObjectBumped.class, gameEngine.getLocation(), event -> {
+            LocationObject obj = event.getObject();
+            if (obj.reference().equals("Enemy")) {
+                updateViewTo(GameEngine.GameState.FIGHTING);
+                gameEngine.demoFight(); //Otto Bervoets: as the NPC class is still disfunctional, this atleast showcases a demo fight.
             }
         });
+        events.subscribe(GameEngine.GameStateChanged.class, event -> updateViewTo(event.getGameState()));
     }
 
     /**
@@ -12,7 +12,6 @@ import nl.rug.ai.oop.rpg.view.Player.BuildPlayerView;
 
 import javax.swing.*;
 import java.awt.*;
-import java.beans.PropertyChangeEvent;
 
 /**
  * Main view of the game. It allows switching between the game panel and the character selection panel.
@@ -55,18 +54,15 @@ public class MainView extends JPanel {
         buildPlayerView.setUp(playerBuilderController, gameEngine);
         gameView.setup(playerController, locationController, inventoryController, enemyController, potionsController, armoryController, gameEngine);
 
-        gameEngine.getPlayerModel().addListener(this::displayGame);
+        gameEngine.getEvents().subscribe(PlayerModel.PlayerChanged.class, gameEngine.getPlayerModel(), event -> displayGame(event.getState()));
     }
 
     /**
      * Method to display the game
      * @author Otto Bervoets
      */
-    private void displayGame(PropertyChangeEvent evt){
-        if(!evt.getPropertyName().equals("state")) {
-            return;
-        }
-        if (evt.getNewValue().equals(PlayerModel.State.BUILDING)) {
+    private void displayGame(PlayerModel.State state){
+        if (state.equals(PlayerModel.State.BUILDING)) {
             removeAll();
             add(buildPlayerView);
         } else {
@@ -3,6 +3,7 @@ package nl.rug.ai.oop.rpg.view;
 import nl.rug.ai.oop.rpg.controler.MenuBarController;
 import nl.rug.ai.oop.rpg.model.character.Character;
 import nl.rug.ai.oop.rpg.model.engine.GameEngine;
+import nl.rug.ai.oop.rpg.model.player.PlayerModel;
 import nl.rug.ai.oop.rpg.view.Player.PlayerMoving;
 import nl.rug.ai.oop.rpg.view.inventory.InventoryView;
 
@@ -132,18 +133,10 @@ public class MenuBarView extends JPanel {
      */
     public void setup(GameEngine gameEngine) {
         /* Player status */
-        playerMoving.setup(gameEngine.getPlayerModel());
+        playerMoving.setup(gameEngine.getPlayerModel(), gameEngine.getEvents());
 
-        gameEngine.addListener(evt -> {
-            if (evt.getPropertyName().equals("language")) {
-                updateLanguage((GameEngine.Language) evt.getNewValue());
-            }
-        });
-        gameEngine.getPlayerModel().addListener(evt -> {
-            if (evt.getPropertyName().equals("money")) {
-                updateMoney((int) evt.getNewValue());
-            }
-        });
+        gameEngine.getEvents().subscribe(GameEngine.LanguageChanged.class, event -> updateLanguage(event.getLanguage()));
+        gameEngine.getEvents().subscribe(PlayerModel.PlayerChanged.class, gameEngine.getPlayerModel(), event -> updateMoney(event.getMoney()));
 
         /* Adds controllers to the four functional buttons */
         MenuBarController mapLabelController = new MenuBarController(gameEngine, mapLabel, LabelType.MAP);
@@ -176,8 +169,7 @@ public class MenuBarView extends JPanel {
      * @param image Image to be added
      */
     private void addIcon(JLabel label, ImageIcon image) {
-        Image rescaled = image.getImage().getScaledInstance(this.getHeight()-20, this.getHeight()-20, Image.SCALE_DEFAULT);
-        label.setIcon(new ImageIcon(rescaled));
+        ScaledImageCache.setScaledIcon(label, image.getImage(), this.getHeight()-20, this.getHeight()-20);
         label.setHorizontalAlignment(JLabel.CENTER);
     }
 
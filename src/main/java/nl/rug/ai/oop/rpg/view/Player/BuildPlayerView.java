@@ -8,7 +8,6 @@ import nl.rug.ai.oop.rpg.view.MenuBarView;
 
 import javax.swing.*;
 import java.awt.*;
-import java.beans.PropertyChangeEvent;
 
 /**
  * @author Otto Bervoets
@@ -34,7 +33,7 @@ public class BuildPlayerView extends JPanel {
      * @param gameEngine We listen to the game engine to know the language.
      */
     public void setUp(PlayerBuilderController playerBuilderController, GameEngine gameEngine) {
-        gameEngine.addListener(this::changeLanguage);
+        gameEngine.getEvents().subscribe(GameEngine.LanguageChanged.class, event -> changeLanguage(event.getLanguage()));
         playerBuilderController.setjTextField(playerName);
         submitName.addActionListener(playerBuilderController);
         fire.addActionListener(playerBuilderController);
@@ -106,11 +105,8 @@ public class BuildPlayerView extends JPanel {
 
     }
 
-    private void changeLanguage(PropertyChangeEvent evt) {
-        if(!evt.getPropertyName().equals("language")) {
-            return;
-        }
-        switch ( (GameEngine.Language) evt.getNewValue()){
+    private void changeLanguage(GameEngine.Language language) {
+        switch (language){
             case ENGLISH -> setAllEnglish();
             case DUTCH -> setAllDutch();
         }
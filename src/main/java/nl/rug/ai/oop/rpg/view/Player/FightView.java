@@ -2,12 +2,12 @@ package nl.rug.ai.oop.rpg.view.Player;
 
 import nl.rug.ai.oop.rpg.controler.player.PlayerController;
 import nl.rug.ai.oop.rpg.model.character.Character;
+import nl.rug.ai.oop.rpg.model.engine.EventBus;
 import nl.rug.ai.oop.rpg.model.player.PlayerModel;
 import nl.rug.ai.oop.rpg.model.player.TextModel;
 
 import javax.swing.*;
 import java.awt.*;
-import java.beans.PropertyChangeEvent;
 import java.util.HashMap;
 
 /**
@@ -33,9 +33,13 @@ public class FightView extends JPanel {
      * Adds the appropriated listeners and controllers.
      * @param playerController The player controller listens to this view
      * @param playerModel This view listens to the player model.
+     * @param events The event bus through which the player model notifies this view.
      */
-    public void setup(PlayerController playerController, PlayerModel playerModel) {
-        playerModel.addListener(this::updatePlayerProperties);
+    public void setup(PlayerController playerController, PlayerModel playerModel, EventBus events) {
+        events.subscribe(PlayerModel.PlayerChanged.class, playerModel, event -> updateAttackButtons(event.getAttackText()));
+        events.subscribe(PlayerModel.FightChanged.class, playerModel, this::updateFight);
+        events.subscribe(PlayerModel.FightContinued.class, playerModel, event -> showContinueButton());
+        events.subscribe(PlayerModel.FightReset.class, playerModel, event -> resetFight());
         water.addActionListener(playerController);
         fire.addActionListener(playerController);
         wood.addActionListener(playerController);
@@ -78,28 +82,29 @@ public class FightView extends JPanel {
 
     }
 
-    private void updatePlayerProperties(PropertyChangeEvent evt) {
-        switch (evt.getPropertyName()) {
-            case "playerDescription" -> ownHealth.setText((String) evt.getNewValue());
-            case "NPCdescription" -> opponentHealth.setText((String) evt.getNewValue());
-            case "fightMessage" -> previousAttackRound.setText((String) evt.getNewValue());
-            case "attackText" -> {
-                HashMap<Character.Faction, String> buttonText = (HashMap<Character.Faction, String>) evt.getNewValue();
-                water.setText(buttonText.get(Character.Faction.WATER));
-                fire.setText(buttonText.get(Character.Faction.FIRE));
-                wood.setText(buttonText.get(Character.Faction.WOOD));
-            }
-            case "continue" -> {
-                remove(attackOptions);
-                continueGame.setText(TextModel.continueGame());
-                add(continueGame);
-            }
-            case "setFightBack" -> {
-                removeAll();
-                add(attackOptions);
-                add(previousAttackRound);
-                add(healthDisplay);            }
-        }
+    private void updateFight(PlayerModel.FightChanged fight) {
+        ownHealth.setText(fight.getPlayerDescription());
+        opponentHealth.setText(fight.getNPCDescription());
+        previousAttackRound.setText(fight.getFightMessage());
+    }
+
+    private void updateAttackButtons(HashMap<Character.Faction, String> buttonText) {
+        water.setText(buttonText.get(Character.Faction.WATER));
+        fire.setText(buttonText.get(Character.Faction.FIRE));
+        wood.setText(buttonText.get(Character.Faction.WOOD));
+    }
+
+    private void showContinueButton() {
+        remove(attackOptions);
+        continueGame.setText(TextModel.continueGame());
+        add(continueGame);
+    }
+
+    private void resetFight() {
+        removeAll();
+        add(attackOptions);
+        add(previousAttackRound);
+        add(healthDisplay);
     }
     private final static Dimension FRAME_DIMENSION = new Dimension(1024, 768);
     public static void main(String[] args) {
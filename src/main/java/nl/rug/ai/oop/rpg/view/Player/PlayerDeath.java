@@ -6,7 +6,6 @@ import nl.rug.ai.oop.rpg.model.player.TextModel;
 import nl.rug.ai.oop.rpg.view.MenuBarView;
 
 import javax.swing.*;
-import java.beans.PropertyChangeEvent;
 
 /**
  * @author Otto Bervoets
@@ -28,7 +27,7 @@ public class PlayerDeath extends JPanel {
      * @param gameEngine the instance of the current game engine.
      */
     public void setup(GameEngine gameEngine) {
-        gameEngine.addListener(this::updateText);
+        gameEngine.getEvents().subscribe(GameEngine.LanguageChanged.class, event -> updateText());
         language.addMouseListener(new MenuBarController(gameEngine, null, MenuBarView.LabelType.LANGUAGE));
         /*
         I think this way of checking the language is a bit cumbersome.
@@ -52,7 +51,7 @@ public class PlayerDeath extends JPanel {
 
     }
 
-    private void updateText(PropertyChangeEvent evt) {
+    private void updateText() {
         message.setText(TextModel.deathText());
         language.setText(TextModel.languageText());
     }
@@ -1,12 +1,12 @@
 package nl.rug.ai.oop.rpg.view.Player;
 
 import nl.rug.ai.oop.rpg.model.character.Character;
+import nl.rug.ai.oop.rpg.model.engine.EventBus;
 import nl.rug.ai.oop.rpg.model.player.PlayerModel;
 import nl.rug.ai.oop.rpg.model.player.TextModel;
 
 import javax.swing.*;
 import java.awt.*;
-import java.beans.PropertyChangeEvent;
 import java.util.HashMap;
 
 /**
@@ -26,9 +26,10 @@ public class PlayerMoving extends JPanel {
     /**
      * Listens to the state of the player
      * @param player the player model to listen to.
+     * @param events the event bus through which the player model notifies this view.
      */
-    public void setup(PlayerModel player) {
-        player.addListener(this::updateProperties);
+    public void setup(PlayerModel player, EventBus events) {
+        events.subscribe(PlayerModel.PlayerChanged.class, player, this::updateProperties);
     }
 
     /**
@@ -50,16 +51,12 @@ public class PlayerMoving extends JPanel {
         add(playerName);
     }
 
-    private void updateProperties(PropertyChangeEvent evt) {
-        switch (evt.getPropertyName()) {
-            case "health" -> this.health.setText((String) evt.getNewValue());
-            case "attackText" -> {
-                HashMap<Character.Faction, String> textHash = (HashMap<Character.Faction, String>) evt.getNewValue();
-                this.attack.setText(textHash.get(Character.Faction.FIRE) + textHash.get(Character.Faction.WATER) + textHash.get(Character.Faction.WOOD));
-            }
-            case "defense" -> this.defense.setText(TextModel.defenceText(Integer.parseInt(evt.getNewValue().toString())));
-            case "factionText" -> this.faction.setText(evt.getNewValue().toString());
-            case "name" -> this.playerName.setText(evt.getNewValue().toString());
-        }
+    private void updateProperties(PlayerModel.PlayerChanged player) {
+        this.health.setText(player.getHealthText());
+        HashMap<Character.Faction, String> textHash = player.getAttackText();
+        this.attack.setText(textHash.get(Character.Faction.FIRE) + textHash.get(Character.Faction.WATER) + textHash.get(Character.Faction.WOOD));
+        this.defense.setText(TextModel.defenceText(player.getDefence()));
+        this.faction.setText(player.getFactionText());
+        this.playerName.setText(player.getNameText());
     }
 }
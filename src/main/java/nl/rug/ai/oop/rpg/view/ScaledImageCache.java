@@ -0,0 +1,174 @@
+package nl.rug.ai.oop.rpg.view;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Process-wide cache of the images scaled to the size at which they are displayed, shared by all the views.
+ * An image is scaled only once per size, eagerly and in a format compatible with the screen, so that it is drawn as fast as possible
+ * and a resize of the window or a switch of view only has to look the scaled images up instead of scaling them again.
+ * Scaled images are keyed by source image (the same {@link Image} object, as images loaded from the same resource are shared by the toolkit)
+ * and by size, and the least recently used ones are dropped once the cache holds more than {@link #MAX_BYTES} of pixels.
+ *
+ * @version 1.0
+ */
+public final class ScaledImageCache {
+    /**
+     * Maximum amount of memory taken by the scaled images, in bytes
+     */
+    private static final long MAX_BYTES = 32L * 1024 * 1024;
+
+    private static final LinkedHashMap<Key, BufferedImage> IMAGES = new LinkedHashMap<>(64, 0.75f, true);
+    private static long bytes = 0;
+
+    /**
+     * Source image and size of a scaled image
+     * @param source the source image, compared by identity
+     * @param width width of the scaled image
+     * @param height height of the scaled image
+     * @param isSmooth true if the image is smoothed, false for pixel art
+     */
+    private record Key(Image source, int width, int height, boolean isSmooth) {
+    }
+
+    /**
+     * The cache only has static members
+     */
+    private ScaledImageCache() {
+    }
+
+    /**
+     * Returns an image scaled without smoothing, as the pixel art of the game was by {@link Image#SCALE_DEFAULT}.
+     * @param source the image to be scaled
+     * @param width width of the scaled image, or a negative value to keep the aspect ratio
+     * @param height height of the scaled image, or a negative value to keep the aspect ratio
+     * @return the scaled image, or the source image if it cannot be scaled (e.g. an empty size)
+     */
+    public static Image getScaledImage(Image source, int width, int height) {
+        return getScaledImage(source, width, height, false);
+    }
+
+    /**
+     * Returns an image scaled to a size, scaling it only the first time it is requested at that size.
+     * @param source the image to be scaled
+     * @param width width of the scaled image, or a negative value to keep the aspect ratio
+     * @param height height of the scaled image, or a negative value to keep the aspect ratio
+     * @param isSmooth true to smooth the image, as {@link Image#SCALE_SMOOTH}, false to keep the pixels sharp
+     * @return the scaled image, or the source image if it cannot be scaled (e.g. an empty size)
+     */
+    public static synchronized Image getScaledImage(Image source, int width, int height, boolean isSmooth) {
+        int sourceWidth = source.getWidth(null);
+        int sourceHeight = source.getHeight(null);
+        if (sourceWidth <= 0 || sourceHeight <= 0 || width == 0 || height == 0 || (width < 0 && height < 0)) {
+            return source;
+        }
+        if (width < 0) {
+            width = Math.max(1, sourceWidth * height / sourceHeight);
+        } else if (height < 0) {
+            height = Math.max(1, sourceHeight * width / sourceWidth);
+        }
+        Key key = new Key(source, width, height, isSmooth);
+        BufferedImage scaled = IMAGES.get(key);
+        if (scaled == null) {
+            scaled = scale(source, width, height, isSmooth);
+            IMAGES.put(key, scaled);
+            bytes += getBytes(scaled);
+            evict();
+        }
+        return scaled;
+    }
+
+    /**
+     * Returns an icon of an image scaled without smoothing, e.g. for a label.
+     * @param source the image to be scaled
+     * @param width width of the scaled image
+     * @param height height of the scaled image
+     * @return the icon of the scaled image
+     */
+    public static ImageIcon getScaledIcon(Image source, int width, int height) {
+        return new ImageIcon(getScaledImage(source, width, height, false));
+    }
+
+    /**
+     * Sets the icon of a label to an image scaled without smoothing.
+     * The icon is only replaced if the scaled image is not already displayed, so that laying the views out again does not repaint the labels.
+     * @param label the label
+     * @param source the image to be scaled
+     * @param width width of the scaled image
+     * @param height height of the scaled image
+     */
+    public static void setScaledIcon(JLabel label, Image source, int width, int height) {
+        Image scaled = getScaledImage(source, width, height, false);
+        if (!(label.getIcon() instanceof ImageIcon icon && icon.getImage() == scaled)) {
+            label.setIcon(new ImageIcon(scaled));
+        }
+    }
+
+    /**
+     * Drops the least recently used images until the cache fits in its memory budget.
+     * The most recent image is always kept, even if it is larger than the budget.
+     */
+    private static void evict() {
+        Iterator<Map.Entry<Key, BufferedImage>> iterator = IMAGES.entrySet().iterator();
+        while (bytes > MAX_BYTES && IMAGES.size() > 1) {
+            bytes -= getBytes(iterator.next().getValue());
+            iterator.remove();
+        }
+    }
+
+    /**
+     * @param image a scaled image
+     * @return approximate memory taken by the pixels of the image
+     */
+    private static long getBytes(BufferedImage image) {
+        return 4L * image.getWidth() * image.getHeight();
+    }
+
+    /**
+     * @param source the image to be scaled
+     * @param width width of the scaled image
+     * @param height height of the scaled image
+     * @param isSmooth true to smooth the image
+     * @return a copy of the image at the given size, compatible with the screen
+     */
+    private static BufferedImage scale(Image source, int width, int height, boolean isSmooth) {
+        Image image = source;
+        int currentWidth = source.getWidth(null);
+        int currentHeight = source.getHeight(null);
+        if (isSmooth) {
+            // Bilinear interpolation only looks at the 4 nearest pixels, hence a large reduction is done in halves to keep the quality
+            while (currentWidth / 2 >= width && currentHeight / 2 >= height) {
+                currentWidth /= 2;
+                currentHeight /= 2;
+                image = draw(image, currentWidth, currentHeight, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            }
+        }
+        return draw(image, width, height, isSmooth ? RenderingHints.VALUE_INTERPOLATION_BILINEAR : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+    }
+
+    /**
+     * @param image the image to be drawn
+     * @param width width of the new image
+     * @param height height of the new image
+     * @param interpolation interpolation rendering hint
+     * @return a new image containing the image stretched to its size
+     */
+    private static BufferedImage draw(Image image, int width, int height, Object interpolation) {
+        BufferedImage drawn;
+        if (GraphicsEnvironment.isHeadless()) {
+            drawn = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        } else {
+            drawn = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+                    .createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        }
+        Graphics2D graphics = drawn.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+        graphics.drawImage(image, 0, 0, width, height, null);
+        graphics.dispose();
+        return drawn;
+    }
+}
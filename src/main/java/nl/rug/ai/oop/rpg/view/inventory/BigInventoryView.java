@@ -1,8 +1,11 @@
 package nl.rug.ai.oop.rpg.view.inventory;
 
 import nl.rug.ai.oop.rpg.controler.InventoryController;
+import nl.rug.ai.oop.rpg.model.engine.EventBus;
 import nl.rug.ai.oop.rpg.model.engine.GameEngine;
 import nl.rug.ai.oop.rpg.model.inventory.BagInventory;
+import nl.rug.ai.oop.rpg.model.inventory.Inventory;
+import nl.rug.ai.oop.rpg.view.ScaledImageCache;
 
 import javax.swing.*;
 import java.awt.*;
@@ -24,6 +27,8 @@ public class BigInventoryView extends JPanel {
     private final JPanel clothingView, itemView, description;
     private final JLabel message1, message2, message3, message4, message5;
     private ArrayList<JLabel> currentClothes = new ArrayList<>();
+    private ArrayList<BagInventory.ItemRecord> currentClothingRecords = new ArrayList<>();
+    private int clothingIconSize = 0;
 
     /* Strings */
     private String nameString = "Name";
@@ -50,10 +55,9 @@ public class BigInventoryView extends JPanel {
             message3.setFont(textDescription);
             message4.setFont(textDescription);
             message5.setFont(textDescription);
-            for (JLabel currentClothing : currentClothes) {
-                ImageIcon imageIcon = (ImageIcon) currentClothing.getIcon();
-                Image rescaled = imageIcon.getImage().getScaledInstance(this.getHeight() / 7, this.getHeight() / 7, Image.SCALE_DEFAULT);
-                currentClothing.setIcon(new ImageIcon(rescaled));
+            if (clothingIconSize != this.getHeight() / 7) {
+                clothingIconSize = this.getHeight() / 7;
+                updateClothingIcons();
             }
         }
     }
@@ -108,19 +112,13 @@ public class BigInventoryView extends JPanel {
      * Method to set up this view as a listener of the inventory so that it can update accordingly.
      * @param inventory Inventory of the game
      * @param inventoryController Inventory controller of the player's inventory
+     * @param events Event bus through which the inventory notifies this view
      */
-    public void setup(BagInventory inventory, InventoryController inventoryController) {
+    public void setup(BagInventory inventory, InventoryController inventoryController, EventBus events) {
         this.inventoryController = inventoryController;
-        inventory.addListener(evt -> {
-            switch(evt.getPropertyName()) {
-                case "languageChange" ->
-                    updateLanguage((GameEngine.Language) evt.getNewValue());
-                case "inspectedItemChange" ->
-                    updateDisplayedItem((BagInventory.ItemRecord) evt.getNewValue());
-                case "clothingChange" ->
-                    updateClothing((ArrayList<BagInventory.ItemRecord>) evt.getNewValue());
-            }
-        });
+        events.subscribe(Inventory.LanguageChanged.class, inventory, event -> updateLanguage(event.getLanguage()));
+        events.subscribe(BagInventory.InspectedItemChanged.class, inventory, event -> updateDisplayedItem(event.getItemRecord()));
+        events.subscribe(BagInventory.ClothingChanged.class, inventory, event -> updateClothing(event.getClothingRecords()));
         updateClothing(inventory.getCurrentArrayOfClothingRecords());
     }
 
@@ -177,19 +175,13 @@ public class BigInventoryView extends JPanel {
      */
     private void updateClothing(ArrayList<BagInventory.ItemRecord> newValue) {
         ArrayList<JLabel> clothes = new ArrayList<>();
+        ArrayList<BagInventory.ItemRecord> clothingRecords = new ArrayList<>();
         clothingView.removeAll();
         if (newValue != null) {
             clothingView.add(Box.createVerticalGlue());
             for (int index = 0; index < newValue.size(); ++index) {
                 if (newValue.get(index) != null) {
-                    ImageIcon clothingImage = newValue.get(index).item().getItemImage();
-                    JLabel clothesLabel;
-                    if (this.getHeight() == 0) {
-                        clothesLabel = new JLabel(clothingImage);
-                    } else {
-                        Image rescaled = clothingImage.getImage().getScaledInstance(this.getHeight()/7, this.getHeight()/7, Image.SCALE_DEFAULT);
-                        clothesLabel = new JLabel(new ImageIcon(rescaled));
-                    }
+                    JLabel clothesLabel = new JLabel();
                     clothesLabel.setAlignmentX(CENTER_ALIGNMENT);
                     int finalIndex = index;
                     clothesLabel.addMouseListener(new MouseAdapter() {
@@ -199,15 +191,32 @@ public class BigInventoryView extends JPanel {
                         }
                     });
                     clothes.add(clothesLabel);
+                    clothingRecords.add(newValue.get(index));
                     clothingView.add(clothesLabel);
                 }
             }
             clothingView.add(Box.createVerticalGlue());
         }
         this.currentClothes = clothes;
+        this.currentClothingRecords = clothingRecords;
+        updateClothingIcons();
         revalidate();
     }
 
+    /**
+     * Method to set the images of the worn clothes at the current size
+     * The images are scaled once per size and shared with the other views, see {@link ScaledImageCache}
+     */
+    private void updateClothingIcons() {
+        for (int index = 0; index < currentClothes.size(); ++index) {
+            if (clothingIconSize == 0) {
+                currentClothes.get(index).setIcon(currentClothingRecords.get(index).item().getItemImage());
+            } else {
+                ScaledImageCache.setScaledIcon(currentClothes.get(index), currentClothingRecords.get(index).item().getItemImage().getImage(), clothingIconSize, clothingIconSize);
+            }
+        }
+    }
+
     /**
      * Method to update the language of the panel
      * @param language Language to switch the panel to
@@ -1,14 +1,18 @@
 package nl.rug.ai.oop.rpg.view.inventory;
 
 import nl.rug.ai.oop.rpg.controler.InventoryController;
+import nl.rug.ai.oop.rpg.model.engine.EventBus;
 import nl.rug.ai.oop.rpg.model.engine.GameEngine;
 import nl.rug.ai.oop.rpg.model.inventory.BagInventory;
+import nl.rug.ai.oop.rpg.model.inventory.Inventory;
+import nl.rug.ai.oop.rpg.view.ScaledImageCache;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 import static nl.rug.ai.oop.rpg.view.GameView.MAIN_LIGHT_COLOR;
@@ -21,13 +25,12 @@ import static nl.rug.ai.oop.rpg.view.GameView.MAIN_DARK_COLOR;
  */
 public class InventoryView extends JPanel {
     private final static int INVENTORY_BOX_DIMENSION = 90;
+    private final static ImageIcon LEFT_ARROW_IMAGE = new ImageIcon(Objects.requireNonNull(InventoryView.class.getResource("/inventory/navigationbar/leftarrow.png")));
+    private final static ImageIcon RIGHT_ARROW_IMAGE = new ImageIcon(Objects.requireNonNull(InventoryView.class.getResource("/inventory/navigationbar/rightarrow.png")));
     private InventoryController inventoryController;
 
     /* Weapon Display */
-    private final JPanel weaponDisplay;
-    //Stored in an array list to avoid remaking the items' associated JPanel each time revalidate is called.
-    private final ArrayList<JPanel> weapons = new ArrayList<>();
-    private final GridLayout inventoryLayout;
+    private final ItemGrid weaponDisplay;
     private int panel = 0;
     private int rows = 1;
     private int columns = 1;
@@ -41,7 +44,8 @@ public class InventoryView extends JPanel {
     /* Colours */
     private final Color secondaryDarkColor = new Color(210, 90, 86);
     private final Color secondaryLightColor = new Color(222, 90, 86);
-    private ArrayList<BagInventory.ItemRecord> inventoryContent;
+    //Copy of the items of the inventory, kept up to date with the changes of the inventory
+    private final ArrayList<BagInventory.ItemRecord> inventoryContent = new ArrayList<>();
 
     /**
      * Sets the new dimensions for the shown elements of the inventory view each time revalidate is called.
@@ -59,25 +63,14 @@ public class InventoryView extends JPanel {
     /**
      * Method to invalidate the weapon display.
      * Makes the invalidate function less long.
-     * The border of the display is resized each time to cover the area not covered by the displayed items.
+     * Only the number of boxes changes, the boxes are painted by the display when they are visible.
      */
     private void invalidateWeaponDisplay() {
         if (this.getHeight() > 0) { // So that there is no height = 0 error when the panel is created
             rows = (this.getHeight() * 3 / 4) / INVENTORY_BOX_DIMENSION;
             columns = Math.min(this.getWidth() / INVENTORY_BOX_DIMENSION, 15);
-            inventoryLayout.setRows(rows);
-            inventoryLayout.setColumns(columns);
-
-            weaponDisplay.removeAll();
-            weaponDisplay.setBorder(BorderFactory.createMatteBorder((((this.getHeight() * 3) / 4)-(INVENTORY_BOX_DIMENSION *rows))/2,(this.getWidth()-(INVENTORY_BOX_DIMENSION *columns))/2,(((this.getHeight()*3)/4)-(INVENTORY_BOX_DIMENSION *rows))/2, (this.getWidth()-(INVENTORY_BOX_DIMENSION *columns))/2 , MAIN_DARK_COLOR));
-            for (int index = 0; index < rows * columns; ++index) {
-                if (index + panel * rows * columns < weapons.size()) {
-                    weaponDisplay.add(weapons.get(index + panel * rows * columns));
-                } else {
-                    weaponDisplay.add(makeEmptyBox());
-                }
-            }
             lastIndex = rows * columns + panel * rows * columns - 1;
+            weaponDisplay.repaint();
         }
     }
 
@@ -117,10 +110,7 @@ public class InventoryView extends JPanel {
         setLayout(new BorderLayout());
 
         /* Weapon display */
-        this.weaponDisplay = new JPanel();
-        this.inventoryLayout = new GridLayout(rows,columns);
-        weaponDisplay.setLayout(inventoryLayout);
-        weaponDisplay.setBackground(MAIN_DARK_COLOR);
+        this.weaponDisplay = new ItemGrid();
         add(weaponDisplay, BorderLayout.CENTER);
 
         /* Navigation */
@@ -137,81 +127,160 @@ public class InventoryView extends JPanel {
     /* Weapon display */
 
     /**
-     * Method to make en empty box in the weapon display for when there is no item.
-     * Belongs to weapon display.
-     * @return {@link JPanel} Empty box of the weapon display
+     * Display of the items of the current panel, as a grid of boxes.
+     * The boxes are painted directly instead of being made of panels, and only the boxes in the area to be repainted are painted,
+     * so that a change of the inventory only repaints the boxes which have changed.
+     * A box contains the item name, the item quantity and the item image, and can be clicked to inspect the item.
      */
-    private JPanel makeEmptyBox() {
-        JPanel gridBox = new JPanel();
-        gridBox.setLayout(new BoxLayout(gridBox, BoxLayout.Y_AXIS));
-        gridBox.setBackground(MAIN_LIGHT_COLOR);
-        gridBox.setBorder(BorderFactory.createLineBorder(MAIN_DARK_COLOR, 5, false));
-        return gridBox;
-    }
+    private class ItemGrid extends JComponent {
+        private static final long serialVersionUID = 1L;
+        private static final int BORDER = 5;
+        private static final int TITLE_HEIGHT = 15;
+        private static final int NAME_WIDTH = 60;
+        private static final int IMAGE_SIZE = 55;
+
+        /**
+         * Generates a grid of items, which inspects the clicked item
+         */
+        private ItemGrid() {
+            setOpaque(true);
+            setFont(UIManager.getFont("Label.font"));
+            addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    BagInventory.ItemRecord itemRecord = getRecordAt(e.getX(), e.getY());
+                    if (itemRecord != null) {
+                        inventoryController.setInspectedItem(itemRecord.item());
+                    }
+                }
+            });
+            addMouseMotionListener(new MouseAdapter() {
+                @Override
+                public void mouseMoved(MouseEvent e) {
+                    setCursor(new Cursor(getRecordAt(e.getX(), e.getY()) != null ? Cursor.HAND_CURSOR : Cursor.DEFAULT_CURSOR));
+                }
+            });
+        }
 
-    /**
-     * Method to make en weapon box in the weapon display for when there is an item.
-     * Can be clicked to display the item's description and enable performing actions on
-     * the clicked item.
-     * Belongs to weapon display.
-     * @return {@link JPanel} Weapon box of the weapon display
-     */
-    private JPanel makeWeaponBox(JPanel gridBox, BagInventory.ItemRecord itemRecord) {
-        /* Title */
-        gridBox.add(makeTitle(itemRecord));
-
-        // Box Image
-        JPanel weaponImage = new JPanel();
-        weaponImage.setBackground(MAIN_LIGHT_COLOR);
-        weaponImage.setMaximumSize(new Dimension(80,60));
-        ImageIcon sword = itemRecord.item().getItemImage();
-        Image swordRescaled = sword.getImage().getScaledInstance(55,55, Image.SCALE_DEFAULT);
-        JLabel box = new JLabel(new ImageIcon(swordRescaled));
-
-        weaponImage.add(box);
-        gridBox.add(weaponImage);
-
-        weaponImage.setCursor(new Cursor(Cursor.HAND_CURSOR));
-        weaponImage.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseClicked(MouseEvent e) {
-                inventoryController.setInspectedItem(itemRecord.item());
+        /**
+         * @return x coordinate of the first box, the boxes being centered in the display
+         */
+        private int getGridX() {
+            return (getWidth() - INVENTORY_BOX_DIMENSION * columns) / 2;
+        }
+
+        /**
+         * @return y coordinate of the first box, the boxes being centered in the display
+         */
+        private int getGridY() {
+            return (getHeight() - INVENTORY_BOX_DIMENSION * rows) / 2;
+        }
+
+        /**
+         * @param x x coordinate in the display
+         * @param y y coordinate in the display
+         * @return the record of the item whose box is at these coordinates, or null if there is no item
+         */
+        private BagInventory.ItemRecord getRecordAt(int x, int y) {
+            int column = Math.floorDiv(x - getGridX(), INVENTORY_BOX_DIMENSION);
+            int row = Math.floorDiv(y - getGridY(), INVENTORY_BOX_DIMENSION);
+            if (column < 0 || column >= columns || row < 0 || row >= rows) {
+                return null;
             }
-        });
-        return gridBox;
-    }
+            int index = panel * rows * columns + row * columns + column;
+            return index < inventoryContent.size() ? inventoryContent.get(index) : null;
+        }
 
-    /**
-     * Method to make a weapon box title.
-     * Contains the weapon name and quantity.
-     * Belongs to weapon display -> weapon box.
-     * @return {@link JPanel} Weapon title of the weapon box
-     */
-    private JPanel makeTitle(BagInventory.ItemRecord itemRecord) {
-        // Box Title
-        JPanel title = new JPanel();
-        title.setPreferredSize(new Dimension(90, 20));
-        title.setMaximumSize(new Dimension(90, 20));
-        title.setLayout(new BoxLayout(title, BoxLayout.X_AXIS));
-        title.setBackground(secondaryDarkColor);
-
-        // Label for weapon name
-        JLabel name = new JLabel(itemRecord.item().getName());
-        name.setBorder(BorderFactory.createEmptyBorder(0,2,0,0));
-        name.setPreferredSize(new Dimension(60,20));
-        name.setMaximumSize(new Dimension(60,20));
-        title.add(name);
-
-        //Label for weapon quantity
-        JLabel quantity = new JLabel(String.valueOf(itemRecord.quantity()));
-        quantity.setHorizontalAlignment(JLabel.CENTER);
-        quantity.setBackground(secondaryLightColor);
-        quantity.setOpaque(true);
-        quantity.setPreferredSize(new Dimension(20,20));
-        quantity.setMaximumSize(new Dimension(20,20));
-        title.add(quantity);
-
-        return title;
+        /**
+         * Repaints the boxes of the items from an index of the inventory, e.g. after an item has been inserted or removed
+         * @param fromIndex index of the first item which has changed
+         * @param toIndex index of the last item which has changed, or -1 for all the items after the first one
+         */
+        private void repaintItems(int fromIndex, int toIndex) {
+            int firstIndex = panel * rows * columns;
+            int from = Math.max(fromIndex - firstIndex, 0);
+            int to = toIndex < 0 ? rows * columns - 1 : Math.min(toIndex - firstIndex, rows * columns - 1);
+            if (columns == 0 || from > to) {
+                return;
+            }
+            int firstRow = from / columns;
+            int lastRow = to / columns;
+            int x = getGridX();
+            int y = getGridY() + firstRow * INVENTORY_BOX_DIMENSION;
+            if (firstRow == lastRow) {
+                repaint(x + (from % columns) * INVENTORY_BOX_DIMENSION, y, (to - from + 1) * INVENTORY_BOX_DIMENSION, INVENTORY_BOX_DIMENSION);
+            } else {
+                repaint(x, y, columns * INVENTORY_BOX_DIMENSION, (lastRow - firstRow + 1) * INVENTORY_BOX_DIMENSION);
+            }
+        }
+
+        /**
+         * Paints the background and the boxes intersecting the area to be repainted
+         * @param g the graphics
+         */
+        @Override
+        protected void paintComponent(Graphics g) {
+            Rectangle clip = g.getClipBounds();
+            if (clip == null) {
+                clip = new Rectangle(0, 0, getWidth(), getHeight());
+            }
+            g.setColor(MAIN_DARK_COLOR);
+            g.fillRect(clip.x, clip.y, clip.width, clip.height);
+            if (rows <= 0 || columns <= 0) {
+                return;
+            }
+            int gridX = getGridX();
+            int gridY = getGridY();
+            int firstColumn = Math.max(Math.floorDiv(clip.x - gridX, INVENTORY_BOX_DIMENSION), 0);
+            int lastColumn = Math.min(Math.floorDiv(clip.x + clip.width - 1 - gridX, INVENTORY_BOX_DIMENSION), columns - 1);
+            int firstRow = Math.max(Math.floorDiv(clip.y - gridY, INVENTORY_BOX_DIMENSION), 0);
+            int lastRow = Math.min(Math.floorDiv(clip.y + clip.height - 1 - gridY, INVENTORY_BOX_DIMENSION), rows - 1);
+            int firstIndex = panel * rows * columns;
+            for (int row = firstRow; row <= lastRow; ++row) {
+                for (int column = firstColumn; column <= lastColumn; ++column) {
+                    int index = firstIndex + row * columns + column;
+                    paintBox(g, gridX + column * INVENTORY_BOX_DIMENSION, gridY + row * INVENTORY_BOX_DIMENSION,
+                            index < inventoryContent.size() ? inventoryContent.get(index) : null);
+                }
+            }
+        }
+
+        /**
+         * Paints a box of the grid
+         * @param g the graphics
+         * @param x x coordinate of the box
+         * @param y y coordinate of the box
+         * @param itemRecord the item in the box, or null for an empty box
+         */
+        private void paintBox(Graphics g, int x, int y, BagInventory.ItemRecord itemRecord) {
+            int inner = INVENTORY_BOX_DIMENSION - 2 * BORDER;
+            g.setColor(MAIN_LIGHT_COLOR);
+            g.fillRect(x + BORDER, y + BORDER, inner, inner);
+            if (itemRecord == null || itemRecord.item() == null) {
+                return;
+            }
+            int titleX = x + BORDER;
+            int titleY = y + BORDER;
+
+            /* Title */
+            g.setColor(secondaryDarkColor);
+            g.fillRect(titleX, titleY, NAME_WIDTH, TITLE_HEIGHT);
+            g.setColor(secondaryLightColor);
+            g.fillRect(titleX + NAME_WIDTH, titleY, inner - NAME_WIDTH, TITLE_HEIGHT);
+            g.setColor(getForeground());
+            g.setFont(getFont());
+            FontMetrics metrics = g.getFontMetrics();
+            int baseline = titleY + (TITLE_HEIGHT - metrics.getHeight()) / 2 + metrics.getAscent();
+            Graphics nameGraphics = g.create(titleX, titleY, NAME_WIDTH, TITLE_HEIGHT);
+            nameGraphics.drawString(itemRecord.item().getName(), 2, baseline - titleY);
+            nameGraphics.dispose();
+            String quantity = String.valueOf(itemRecord.quantity());
+            g.drawString(quantity, titleX + NAME_WIDTH + (inner - NAME_WIDTH - metrics.stringWidth(quantity)) / 2, baseline);
+
+            /* Image */
+            g.drawImage(ScaledImageCache.getScaledImage(itemRecord.item().getItemImage().getImage(), IMAGE_SIZE, IMAGE_SIZE), x + (INVENTORY_BOX_DIMENSION - IMAGE_SIZE) / 2,
+                    titleY + TITLE_HEIGHT + BORDER, null);
+        }
     }
 
 
@@ -340,14 +409,8 @@ public class InventoryView extends JPanel {
      * Belongs to weapon navigation -> arrow box -> arrow.
      */
     private void addArrow(JLabel arrowLabel, boolean isLeftArrow) {
-        ImageIcon arrow;
-        if (isLeftArrow) {
-            arrow = new ImageIcon(Objects.requireNonNull(InventoryView.class.getResource("/inventory/navigationbar/leftarrow.png")));
-        } else {
-            arrow = new ImageIcon(Objects.requireNonNull(InventoryView.class.getResource("/inventory/navigationbar/rightarrow.png")));
-        }
-        Image rescaledArrow = arrow.getImage().getScaledInstance(this.getHeight()/4 + 20,this.getHeight()/4, Image.SCALE_DEFAULT);
-        arrowLabel.setIcon(new ImageIcon(rescaledArrow));
+        ImageIcon arrow = isLeftArrow ? LEFT_ARROW_IMAGE : RIGHT_ARROW_IMAGE;
+        ScaledImageCache.setScaledIcon(arrowLabel, arrow.getImage(), this.getHeight()/4 + 20, this.getHeight()/4);
         arrowLabel.setHorizontalAlignment(JLabel.CENTER);
     }
 
@@ -358,21 +421,23 @@ public class InventoryView extends JPanel {
     private void changePanel(boolean isLeftArrow) {
         if (isLeftArrow) {
             if (panel == 0) {
-                if (weapons.size() % (rows * columns) == 0) {
-                    panel = weapons.size() / (rows * columns) - 1;
+                if (inventoryContent.size() % (rows * columns) == 0) {
+                    panel = Math.max(inventoryContent.size() / (rows * columns) - 1, 0);
                 } else {
-                    panel = weapons.size() / (rows * columns);
+                    panel = inventoryContent.size() / (rows * columns);
                 }
             } else {
                 --panel;
             }
         } else {
-            if (lastIndex+1 < weapons.size()) {
+            if (lastIndex+1 < inventoryContent.size()) {
                 ++panel;
             } else {
                 panel = 0;
             }
         }
+        lastIndex = rows * columns + panel * rows * columns - 1;
+        weaponDisplay.repaint();
     }
 
 
@@ -380,17 +445,14 @@ public class InventoryView extends JPanel {
      * Method to set up this view as a listener of the inventory.
      * @param inventory Shop inventory of products
      * @param inventoryController Controller of the player's inventory
+     * @param events Event bus through which the inventory notifies this view
      */
-    public void setup(BagInventory inventory, InventoryController inventoryController) {
+    public void setup(BagInventory inventory, InventoryController inventoryController, EventBus events) {
         this.inventoryController = inventoryController;
         updateInventoryContent(inventory.getCurrentArrayOfItemRecords());
-        inventory.addListener(evt -> {
-            switch (evt.getPropertyName()) {
-                case "languageChange" -> updateLanguage((GameEngine.Language) evt.getNewValue());
-                case "inventoryChange" -> updateInventoryContent((ArrayList<BagInventory.ItemRecord>) evt.getNewValue());
-                case "inspectedItemChange" -> updateDisplayedItem((BagInventory.ItemRecord) evt.getNewValue());
-            }
-        });
+        events.subscribe(Inventory.LanguageChanged.class, inventory, event -> updateLanguage(event.getLanguage()));
+        events.subscribe(BagInventory.ContentChanged.class, inventory, event -> applyInventoryChanges(event.getChanges(), event.getItemRecords()));
+        events.subscribe(BagInventory.InspectedItemChanged.class, inventory, event -> updateDisplayedItem(event.getItemRecord()));
     }
 
     /**
@@ -398,12 +460,48 @@ public class InventoryView extends JPanel {
      * @param newValue New updated inventory
      */
     private void updateInventoryContent(ArrayList<BagInventory.ItemRecord> newValue) {
-        this.inventoryContent = newValue;
-        weapons.clear();
-        for (BagInventory.ItemRecord item:newValue) {
-            weapons.add(makeWeaponBox(makeEmptyBox(), item));
+        inventoryContent.clear();
+        inventoryContent.addAll(newValue);
+        weaponDisplay.repaint();
+    }
+
+    /**
+     * Method to apply the changes of the inventory to the inventory content, repainting only the boxes which have changed.
+     * If the changes do not lead to the current inventory, e.g. because some were made before this view was set up,
+     * the whole inventory content is updated instead: this is detected by a change whose index is not in the inventory content,
+     * or by an inventory content whose size differs from the current inventory once all the changes are applied.
+     * @param changes Changes of the inventory since the last update
+     * @param newValue New updated inventory
+     */
+    private void applyInventoryChanges(List<BagInventory.ItemChange> changes, ArrayList<BagInventory.ItemRecord> newValue) {
+        for (BagInventory.ItemChange change : changes) {
+            int index = change.index();
+            boolean isIndexValid = switch (change.kind()) {
+                case INSERTED -> index >= 0 && index <= inventoryContent.size();
+                case UPDATED, REMOVED -> index >= 0 && index < inventoryContent.size();
+            };
+            if (!isIndexValid) {
+                updateInventoryContent(newValue);
+                return;
+            }
+            switch (change.kind()) {
+                case INSERTED -> {
+                    inventoryContent.add(index, change.record());
+                    weaponDisplay.repaintItems(index, -1);
+                }
+                case UPDATED -> {
+                    inventoryContent.set(index, change.record());
+                    weaponDisplay.repaintItems(index, index);
+                }
+                case REMOVED -> {
+                    inventoryContent.remove(index);
+                    weaponDisplay.repaintItems(index, -1);
+                }
+            }
+        }
+        if (inventoryContent.size() != newValue.size()) {
+            updateInventoryContent(newValue);
         }
-        revalidate();
     }
 
     /**
@@ -427,7 +525,7 @@ public class InventoryView extends JPanel {
             use.setText("gebruik");
             discard.setText("weggooien");
         }
-        updateInventoryContent(inventoryContent);
+        weaponDisplay.repaint();
         revalidate();
     }
 }
\ No newline at end of file
@@ -2,9 +2,12 @@ package nl.rug.ai.oop.rpg.view.inventory;
 
 import nl.rug.ai.oop.rpg.controler.InventoryController;
 import nl.rug.ai.oop.rpg.model.engine.GameEngine;
+import nl.rug.ai.oop.rpg.model.inventory.Inventory;
 import nl.rug.ai.oop.rpg.model.inventory.Item;
+import nl.rug.ai.oop.rpg.model.locations.GameLocation;
 import nl.rug.ai.oop.rpg.model.locations.LocationObject;
 import nl.rug.ai.oop.rpg.view.GameView;
+import nl.rug.ai.oop.rpg.view.ScaledImageCache;
 
 import javax.swing.*;
 import java.awt.*;
@@ -118,16 +121,8 @@ public class ObjectPickupView extends JPanel {
      * Method to set up this view as a listener of the inventory and the location so that it can update accordingly
      */
     public void setup(GameEngine gameEngine, InventoryController inventoryController) {
-        gameEngine.getInventory().addListener(evt -> {
-            if (evt.getPropertyName().equals("languageChange")){
-                updateLanguage((GameEngine.Language)evt.getNewValue());
-            }
-        });
-        gameEngine.getLocation().addListener(evt -> {
-            if (evt.getPropertyName().equals("objectAtCurrentCoordinates")) {
-                updateItemToDisplay((LocationObject)evt.getNewValue());
-            }
-        });
+        gameEngine.getEvents().subscribe(Inventory.LanguageChanged.class, gameEngine.getInventory(), event -> updateLanguage(event.getLanguage()));
+        gameEngine.getEvents().subscribe(GameLocation.ObjectReached.class, gameEngine.getLocation(), event -> updateItemToDisplay(event.getObject()));
         ignore.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
@@ -151,8 +146,7 @@ public class ObjectPickupView extends JPanel {
     public void updateItemToDisplay(LocationObject object) {
         this.item = (Item) object.object();
         ImageIcon itemImage = item.getItemImage();
-        Image rescaled = itemImage.getImage().getScaledInstance(100, 100, Image.SCALE_DEFAULT);
-        this.itemLabel = new JLabel(new ImageIcon(rescaled));
+        this.itemLabel = new JLabel(ScaledImageCache.getScaledIcon(itemImage.getImage(), 100, 100));
         itemLabel.setVerticalAlignment(JLabel.CENTER);
         itemImagePanel.add(itemLabel, BorderLayout.CENTER);
     }
@@ -1,12 +1,14 @@
 package nl.rug.ai.oop.rpg.view.inventory;
 
 import nl.rug.ai.oop.rpg.controler.ShopController;
+import nl.rug.ai.oop.rpg.model.engine.EventBus;
 import nl.rug.ai.oop.rpg.model.engine.GameEngine;
 import nl.rug.ai.oop.rpg.model.inventory.BagInventory;
 import nl.rug.ai.oop.rpg.model.inventory.Inventory;
 import nl.rug.ai.oop.rpg.model.inventory.Item;
 import nl.rug.ai.oop.rpg.model.inventory.ProductInventory;
 import nl.rug.ai.oop.rpg.view.GameView;
+import nl.rug.ai.oop.rpg.view.ScaledImageCache;
 
 import javax.swing.*;
 import java.awt.*;
@@ -30,10 +32,11 @@ public class ShopView extends JPanel {
     private final ArrayList<ImageIcon> shopItemsImage = new ArrayList<>();
     private final ArrayList<JLabel> shopItems = new ArrayList<>();
     private final JLabel exit;
-    private final JLabel possibleAction, price, actionImage;
+    private final JLabel possibleAction, price, tradeMessage, actionImage;
     private final JPanel goods;
-    private String buyString, sellString, goldString;
+    private String buyString, sellString, goldString, stockString, soldOutString, notEnoughGoldString, cannotSellString;
     private Item displayedItem;
+    private int displayedStock;
 
     /**
      * Sets the new dimensions for the shown elements of the shop view each time revalidate is called.
@@ -42,23 +45,15 @@ public class ShopView extends JPanel {
         super.invalidate();
         if (this.getHeight() > 0) {
 
-            /* Selected item image */
-            if (actionImage.getIcon() != null) {
-                ImageIcon image = (ImageIcon) actionImage.getIcon();
-                Image rescaled = image.getImage().getScaledInstance(this.getHeight() / 10, this.getHeight() / 10, Image.SCALE_DEFAULT);
-                actionImage.setIcon(new ImageIcon(rescaled));
+            /* Selected item image, scaled from the original image so that it does not lose quality */
+            if (actionImage.getIcon() != null && displayedItem != null) {
+                ScaledImageCache.setScaledIcon(actionImage, displayedItem.getItemImage().getImage(), this.getHeight() / 10, this.getHeight() / 10);
             }
 
             /* Shop item images */
-            if (!shopItems.isEmpty()) {
-                goods.removeAll();
-                for (JLabel label:shopItems) {
-                    ImageIcon weaponImage = shopItemsImage.get(shopItems.indexOf(label));
-                    int imageSize = Math.min(this.getHeight() / 10, this.getWidth() / 25);
-                    Image weaponRescaled = weaponImage.getImage().getScaledInstance(imageSize, imageSize, Image.SCALE_DEFAULT);
-                    label.setIcon(new ImageIcon(weaponRescaled));
-                    goods.add(label);
-                }
+            int imageSize = Math.min(this.getHeight() / 10, this.getWidth() / 25);
+            for (int index = 0; index < shopItems.size(); ++index) {
+                ScaledImageCache.setScaledIcon(shopItems.get(index), shopItemsImage.get(index).getImage(), imageSize, imageSize);
             }
         }
     }
@@ -89,6 +84,7 @@ public class ShopView extends JPanel {
         /* Bottom */
         this.possibleAction = new JLabel(" ");
         this.price = new JLabel(" ");
+        this.tradeMessage = new JLabel(" ");
         this.actionImage = new JLabel(" ");
         add(makeItemConcerned(), BorderLayout.SOUTH);
 
@@ -128,6 +124,11 @@ public class ShopView extends JPanel {
         itemConcerned.add(price);
         itemConcerned.add(Box.createVerticalStrut(10));
 
+        // Result of the last trade, if it failed
+        tradeMessage.setAlignmentX(CENTER_ALIGNMENT);
+        itemConcerned.add(tradeMessage);
+        itemConcerned.add(Box.createVerticalStrut(10));
+
         // Image
         actionImage.setAlignmentX(CENTER_ALIGNMENT);
         itemConcerned.add(actionImage);
@@ -138,26 +139,19 @@ public class ShopView extends JPanel {
     /**
      * Method to set up this view as a listener of the inventory and the player model.
      * Adds mouse adapters to the labels to buy an item and exit the store
+     * If a trade fails, the reason is shown under the price
      * @param inventory Shop inventory of products
      * @param playerInventory Inventory of the game's player
      * @param shopController Controller of the shop
+     * @param events Event bus through which the inventories notify this view
      */
-    public void setup (ProductInventory inventory, Inventory playerInventory, ShopController shopController) {
+    public void setup (ProductInventory inventory, Inventory playerInventory, ShopController shopController, EventBus events) {
         this.shopController = shopController;
         updateShopItems(inventory.getCurrentArrayOfProductRecords());
 
-        inventory.addListener(evt -> {
-            if (evt.getPropertyName().equals("inspectedItemChange")) {
-                updateDisplayedItem((ProductInventory.ProductRecord) evt.getNewValue());
-            } else if (evt.getPropertyName().equals("languageChange")) {
-                updateShopLanguage((GameEngine.Language)evt.getNewValue());
-            }
-        });
-        playerInventory.addListener(evt -> {
-            if (evt.getPropertyName().equals("inspectedItemChange")) {
-                updateDisplayedItem((BagInventory.ItemRecord) evt.getNewValue());
-            }
-        });
+        events.subscribe(ProductInventory.InspectedItemChanged.class, inventory, event -> updateDisplayedItem(event.getProductRecord(), event.getStock()));
+        events.subscribe(Inventory.LanguageChanged.class, inventory, event -> updateShopLanguage(event.getLanguage()));
+        events.subscribe(BagInventory.InspectedItemChanged.class, playerInventory, event -> updateDisplayedItem(event.getItemRecord()));
 
         exit.addMouseListener(new MouseAdapter() {
             @Override
@@ -168,10 +162,15 @@ public class ShopView extends JPanel {
         possibleAction.addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
+                if (displayedItem == null) {
+                    return;
+                }
                 if (possibleAction.getText().equals("Buy") || possibleAction.getText().equals("Kopen")) {
-                    shopController.buyFromMerchant(displayedItem);
-                } else {
-                    shopController.sellToMerchant(displayedItem);
+                    if (!shopController.buyFromMerchant(displayedItem)) {
+                        tradeMessage.setText(shopController.getStock(displayedItem) == 0 ? soldOutString : notEnoughGoldString);
+                    }
+                } else if (!shopController.sellToMerchant(displayedItem)) {
+                    tradeMessage.setText(cannotSellString);
                 }
             }
         });
@@ -182,16 +181,21 @@ public class ShopView extends JPanel {
     /**
      * Method to update the displayed item that can be either bought by the player or sold by the merchant
      * depending on where the item comes from.
-     * Here it is overloaded to be used for products from the merchant that can be sold to the player.
+     * Here it is overloaded to be used for products from the merchant that can be sold to the player, with the number of copies in stock.
      * @param newValue New displayed item
+     * @param stock Number of copies of the item the merchant still has
      */
-    private void updateDisplayedItem(ProductInventory.ProductRecord newValue) {
+    private void updateDisplayedItem(ProductInventory.ProductRecord newValue, int stock) {
+        if (displayedItem != newValue.item()) {
+            tradeMessage.setText(" ");
+        }
         this.displayedItem = newValue.item();
+        this.displayedStock = stock;
         if (possibleAction.getBorder() == null) {
             possibleAction.setBorder(BorderFactory.createLineBorder(Color.BLACK,3));
         }
         possibleAction.setText(buyString);
-        price.setText(displayedItem.getPrice() + goldString);
+        price.setText(getBuyPriceText());
         actionImage.setIcon(newValue.item().getItemImage());
         revalidate();
     }
@@ -204,6 +208,9 @@ public class ShopView extends JPanel {
      * @param newValue New displayed item
      */
     private void updateDisplayedItem(BagInventory.ItemRecord newValue) {
+        if (displayedItem != newValue.item()) {
+            tradeMessage.setText(" ");
+        }
         this.displayedItem = newValue.item();
         if (newValue.item() == null) {
             possibleAction.setText(" ");
@@ -221,6 +228,13 @@ public class ShopView extends JPanel {
         revalidate();
     }
 
+    /**
+     * @return {@link String} Price of the displayed product and the number of copies in stock
+     */
+    private String getBuyPriceText() {
+        return displayedItem.getPrice() + goldString + ", " + displayedStock + stockString;
+    }
+
     /**
      * Method used to show all the shop items.
      * Their labels and images are stored in an array list for later resizing.
@@ -254,17 +268,26 @@ public class ShopView extends JPanel {
             buyString = "Buy";
             sellString = "Sell";
             goldString = " gold";
+            stockString = " in stock";
+            soldOutString = "Sold out";
+            notEnoughGoldString = "Not enough gold";
+            cannotSellString = "This item cannot be sold";
         } else {
             exit.setText("Uitgang");
             buyString = "Kopen";
             sellString = "Verkopen";
             goldString = " goud";
+            stockString = " op voorraad";
+            soldOutString = "Uitverkocht";
+            notEnoughGoldString = "Niet genoeg goud";
+            cannotSellString = "Dit voorwerp kan niet verkocht worden";
         }
+        tradeMessage.setText(" ");
 
         /* Changes the possible action label according to what action can be done */
         if (possibleAction.getText().equals("Kopen") || possibleAction.getText().equals("Buy")) {
             possibleAction.setText(buyString);
-            price.setText(displayedItem.getPrice() + goldString);
+            price.setText(getBuyPriceText());
         } else if (possibleAction.getText().equals("Verkopen") || possibleAction.getText().equals("Sell")) {
             possibleAction.setText(sellString);
             price.setText(displayedItem.getPrice()*3/4 + goldString);
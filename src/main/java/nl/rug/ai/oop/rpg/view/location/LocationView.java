@@ -2,26 +2,56 @@ package nl.rug.ai.oop.rpg.view.location;
 
 import nl.rug.ai.oop.rpg.controler.LocationController;
 import nl.rug.ai.oop.rpg.model.character.Character;
+import nl.rug.ai.oop.rpg.model.engine.EventBus;
 import nl.rug.ai.oop.rpg.model.locations.GameLocation;
 import nl.rug.ai.oop.rpg.model.locations.LocationObject;
 
 import java.awt.*;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.image.BufferedImage;
+import java.util.HashSet;
 
 
 /**
  * Map view. It only displays one part of the map, with the player always in the center.
  * Custom {@link LocationObject} are also shown, and it is possible to interact with them.
+ * The terrain is drawn in layers: the tiles around the visible window are rendered once at the size of the screen pixels
+ * in an off-screen image, which is then copied on every frame. The objects, the player and the title are drawn on top of it.
+ * While the player walks from one tile to the next one, the map is scrolled smoothly at every frame of the game loop.
  *
  * @author Luca Colli
  * @version 1.0
  */
 public class LocationView extends Map {
-    private Image[][] objectImages;
+    private static final int TILE_SIZE = 60;
+    private static final int TITLE_HEIGHT = 40;
+
+    /**
+     * Number of tiles rendered in the terrain layer around each side of the visible window
+     */
+    private static final int LAYER_MARGIN = 4;
+
+    private GameLocation gameLocation;
     private Image[] backgroundImages;
     private Image playerImage;
     private String title;
     private boolean hasBackground;
 
+    /* Position of the player on screen relative to its tile, in tiles, while it is walking */
+    private double stepOffsetX, stepOffsetY;
+
+    /* Visible window, in tiles: the tiles from (firstCol, firstRow) included to (endCol, endRow) excluded, drawn from (deltaX, deltaY) */
+    private int firstCol, firstRow, endCol, endRow, deltaX, deltaY;
+
+    /* Terrain layer, covering layerColumns x layerRows tiles from (layerFirstCol, layerFirstRow), with tiles of layerTilePixels pixels */
+    private BufferedImage terrainLayer;
+    private int layerFirstCol, layerFirstRow, layerColumns, layerRows, layerTilePixels;
+
+    /* Objects in the visible window when the objects were last looked up, and the window in which they were looked up */
+    private HashSet<LocationObject> visibleObjects = new HashSet<>();
+    private final Rectangle visibleObjectsArea = new Rectangle();
+
     /**
      * Loads the player image from a file.
      */
@@ -43,18 +73,6 @@ public class LocationView extends Map {
         backgroundImages[1] = loadImage("/locations/tiles/island/water2.png");
     }
 
-    /**
-     * Loads the objects images from a file.
-     * @param gameLocation model
-     */
-    private void setObjectImages(GameLocation gameLocation) {
-        objectImages = new Image[gameLocation.getDimensions()[0]][gameLocation.getDimensions()[1]];
-
-        for (LocationObject object : gameLocation.getObjectsInCurrentLocation()) {
-            objectImages[object.x()][object.y()] = loadImage(object.imagePath());
-        }
-    }
-
     /**
      * Constructor of LocationView. Sets the default background color and loads the background and player images.
      */
@@ -64,52 +82,231 @@ public class LocationView extends Map {
     }
 
     /**
-     * Sets the default values of the view, and adds property change listeners and the key listener.
+     * Sets the default values of the view, subscribes to the changes of the location and adds the key listener.
      * @param gameLocation location model
      * @param locationController location controller
+     * @param events event bus through which the changes of the model are received
      */
-    public void setup(GameLocation gameLocation, LocationController locationController) {
+    public void setup(GameLocation gameLocation, LocationController locationController, EventBus events) {
+        this.gameLocation = gameLocation;
         setGameLocationImages(gameLocation);
         updateLocation(gameLocation);
-        gameLocation.addListener(evt -> {
-            switch (evt.getPropertyName()) {
-                case "map" -> updateLocation(gameLocation);
-                case "objects" -> updateObjects(gameLocation);
-                case "playerCoords" -> {
-                    playerCoordinates = (int[]) evt.getNewValue();
-                    repaint();
-                }
-                case "language" -> {
-                    title = (String) evt.getNewValue();
-                    repaint();
-                }
-            }
+        events.subscribe(GameLocation.MapChanged.class, gameLocation, event -> {
+            updateLocation(gameLocation);
+            repaint();
         });
-        this.addKeyListener(locationController);
+        events.subscribe(GameLocation.ObjectsChanged.class, gameLocation, event -> repaintChangedObjects());
+        events.subscribe(GameLocation.PositionChanged.class, gameLocation, event -> {
+            playerCoordinates = event.getPlayerCoordinates();
+            // The map is scrolled, hence the whole view changes
+            updateVisibleObjects();
+            repaint();
+        });
+        events.subscribe(GameLocation.TitleChanged.class, gameLocation, event -> {
+            title = event.getTitle();
+            repaint(0, 0, getWidth(), TITLE_HEIGHT);
+        });
+        if (locationController != null) {
+            this.addKeyListener(locationController);
+            this.addFocusListener(new FocusAdapter() {
+                @Override
+                public void focusLost(FocusEvent e) {
+                    locationController.releaseKeys();
+                }
+            });
+            locationController.addFrameListener(alpha -> renderFrame(locationController.getStepOffset(alpha)));
+        }
         this.setFocusable(true);
     }
 
+    /**
+     * Repaints the map if the player has moved on screen since the last frame
+     * @param stepOffset x and y offsets, in tiles, from the tile of the player to the position of the player on screen
+     */
+    private void renderFrame(double[] stepOffset) {
+        if (stepOffset[0] != stepOffsetX || stepOffset[1] != stepOffsetY) {
+            stepOffsetX = stepOffset[0];
+            stepOffsetY = stepOffset[1];
+            repaint();
+        }
+    }
+
     /**
      * Updates the current location
      * @param gameLocation model
      */
     private void updateLocation(GameLocation gameLocation) {
         setGameLocationImages(gameLocation);
-        setObjectImages(gameLocation);
         this.playerCoordinates = gameLocation.getPlayerCoordinates();
         this.title = gameLocation.getTitle();
         this.hasBackground = gameLocation.hasWaterBackground();
+        this.terrainLayer = null;
+        updateVisibleObjects();
     }
 
+    /**
+     * Computes the window of tiles visible around the player, for the current size of the view.
+     * The window has one more tile on each side, which becomes visible while the map is scrolled during a step.
+     */
+    private void updateVisibleWindow() {
+        firstCol = playerCoordinates[0] - (getWidth() / 2) / TILE_SIZE - 2;
+        firstRow = playerCoordinates[1] - (getHeight() / 2) / TILE_SIZE - 2;
+
+        endCol = firstCol + getWidth() / TILE_SIZE + 4;
+        endRow = firstRow + getHeight() / TILE_SIZE + 4;
+
+        deltaX = (getWidth() / 2 % TILE_SIZE) - 5 * TILE_SIZE / 2;
+        deltaY = (getHeight() / 2 % TILE_SIZE) - 5 * TILE_SIZE / 2;
+    }
 
     /**
-     * Updates the object images
-     * @param gameLocation model
+     * @return x coordinate in the view of the first column of the window, taking into account the scrolling of the current step
+     */
+    private int getOriginX() {
+        return deltaX - (int) Math.round(stepOffsetX * TILE_SIZE);
+    }
+
+    /**
+     * @return y coordinate in the view of the first row of the window, taking into account the scrolling of the current step
+     */
+    private int getOriginY() {
+        return deltaY - (int) Math.round(stepOffsetY * TILE_SIZE);
+    }
+
+    /**
+     * Looks up the objects in the visible window again, after the window has moved.
+     */
+    private void updateVisibleObjects() {
+        updateVisibleWindow();
+        visibleObjects = findObjects(firstCol, firstRow, endCol, endRow);
+        visibleObjectsArea.setBounds(firstCol, firstRow, endCol - firstCol, endRow - firstRow);
+    }
+
+    /**
+     * @return the objects in the tiles from (fromCol, fromRow) included to (toCol, toRow) excluded
      */
-    private void updateObjects(GameLocation gameLocation) {
-        setObjectImages(gameLocation);
+    private HashSet<LocationObject> findObjects(int fromCol, int fromRow, int toCol, int toRow) {
+        HashSet<LocationObject> objects = new HashSet<>();
+        gameLocation.forEachObjectInArea(fromCol, fromRow, toCol - 1, toRow - 1, objects::add);
+        return objects;
     }
 
+    /**
+     * Repaints only the tiles of the objects which have been added or removed in the visible window.
+     * If the window has changed since the objects were last looked up (e.g. the view has been resized), the whole view is repainted.
+     */
+    private void repaintChangedObjects() {
+        updateVisibleWindow();
+        HashSet<LocationObject> objects = findObjects(firstCol, firstRow, endCol, endRow);
+        if (!visibleObjectsArea.equals(new Rectangle(firstCol, firstRow, endCol - firstCol, endRow - firstRow))) {
+            updateVisibleObjects();
+            repaint();
+            return;
+        }
+        for (LocationObject object : objects) {
+            if (!visibleObjects.contains(object)) {
+                repaint(getTileBounds(object.x(), object.y()));
+            }
+        }
+        for (LocationObject object : visibleObjects) {
+            if (!objects.contains(object)) {
+                repaint(getTileBounds(object.x(), object.y()));
+            }
+        }
+        visibleObjects = objects;
+    }
+
+    /**
+     * @return bounds of a tile of the visible window in the view
+     */
+    private Rectangle getTileBounds(int col, int row) {
+        return new Rectangle((col - firstCol) * TILE_SIZE + getOriginX(), (row - firstRow) * TILE_SIZE + getOriginY(), TILE_SIZE, TILE_SIZE);
+    }
+
+    /**
+     * Makes sure that the terrain layer contains the visible window.
+     * If the window has only moved out of the layer, the layer is shifted and only the tiles that became part of it are rendered.
+     * Otherwise (new location, resized view or new screen scale) the whole layer is rendered again.
+     * @param tilePixels size of a tile in screen pixels
+     */
+    private void updateTerrainLayer(int tilePixels) {
+        int newFirstCol = firstCol - LAYER_MARGIN;
+        int newFirstRow = firstRow - LAYER_MARGIN;
+        if (terrainLayer == null || layerTilePixels != tilePixels || layerColumns != endCol - firstCol + 2 * LAYER_MARGIN || layerRows != endRow - firstRow + 2 * LAYER_MARGIN) {
+            layerColumns = endCol - firstCol + 2 * LAYER_MARGIN;
+            layerRows = endRow - firstRow + 2 * LAYER_MARGIN;
+            layerTilePixels = tilePixels;
+            GraphicsConfiguration configuration = getGraphicsConfiguration();
+            terrainLayer = configuration != null
+                    ? configuration.createCompatibleImage(layerColumns * tilePixels, layerRows * tilePixels)
+                    : new BufferedImage(layerColumns * tilePixels, layerRows * tilePixels, BufferedImage.TYPE_INT_RGB);
+            moveTerrainLayer(newFirstCol, newFirstRow, layerColumns, layerRows);
+            return;
+        }
+        if (firstCol >= layerFirstCol && firstRow >= layerFirstRow && endCol <= layerFirstCol + layerColumns && endRow <= layerFirstRow + layerRows) {
+            return;
+        }
+        moveTerrainLayer(newFirstCol, newFirstRow, layerFirstCol - newFirstCol, layerFirstRow - newFirstRow);
+    }
+
+    /**
+     * Moves the terrain layer to a new position, keeping the tiles that are still part of it.
+     * @param newFirstCol first column of the layer
+     * @param newFirstRow first row of the layer
+     * @param shiftCols number of columns the content of the layer is shifted to the right
+     * @param shiftRows number of rows the content of the layer is shifted down
+     */
+    private void moveTerrainLayer(int newFirstCol, int newFirstRow, int shiftCols, int shiftRows) {
+        Graphics2D g = terrainLayer.createGraphics();
+        layerFirstCol = newFirstCol;
+        layerFirstRow = newFirstRow;
+        int layerEndCol = layerFirstCol + layerColumns;
+        int layerEndRow = layerFirstRow + layerRows;
+        if (Math.abs(shiftCols) >= layerColumns || Math.abs(shiftRows) >= layerRows) {
+            renderTerrain(g, layerFirstCol, layerFirstRow, layerEndCol, layerEndRow);
+        } else {
+            g.copyArea(0, 0, terrainLayer.getWidth(), terrainLayer.getHeight(), shiftCols * layerTilePixels, shiftRows * layerTilePixels);
+            if (shiftCols > 0) {
+                renderTerrain(g, layerFirstCol, layerFirstRow, layerFirstCol + shiftCols, layerEndRow);
+            } else if (shiftCols < 0) {
+                renderTerrain(g, layerEndCol + shiftCols, layerFirstRow, layerEndCol, layerEndRow);
+            }
+            if (shiftRows > 0) {
+                renderTerrain(g, layerFirstCol, layerFirstRow, layerEndCol, layerFirstRow + shiftRows);
+            } else if (shiftRows < 0) {
+                renderTerrain(g, layerFirstCol, layerEndRow + shiftRows, layerEndCol, layerEndRow);
+            }
+        }
+        g.dispose();
+    }
+
+    /**
+     * Renders the tiles from (fromCol, fromRow) included to (toCol, toRow) excluded in the terrain layer.
+     * If some tiles are out of the map, a background is rendered instead.
+     * @param g graphics object of the terrain layer
+     */
+    private void renderTerrain(Graphics2D g, int fromCol, int fromRow, int toCol, int toRow) {
+        int x = (fromCol - layerFirstCol) * layerTilePixels;
+        int y = (fromRow - layerFirstRow) * layerTilePixels;
+        g.setColor(getBackground());
+        g.fillRect(x, y, (toCol - fromCol) * layerTilePixels, (toRow - fromRow) * layerTilePixels);
+        for (int col = fromCol; col < toCol; col++) {
+            for (int row = fromRow; row < toRow; row++) {
+                Image tileImage = null;
+                if (row >= 0 && col >= 0 && col < columns && row < rows) {
+                    tileImage = getTileImage(col, row);
+                } else if (hasBackground) {
+                    int backgroundVariation = (col + row) % 2 == 0 ? 0 : 1;
+                    tileImage = backgroundImages[backgroundVariation];
+                }
+                if (tileImage != null) {
+                    g.drawImage(tileImage, (col - layerFirstCol) * layerTilePixels, (row - layerFirstRow) * layerTilePixels, layerTilePixels, layerTilePixels, null);
+                }
+            }
+        }
+    }
+
+
     /**
      * Draws a white title with a black shadow
      * @param g graphics object
@@ -132,44 +329,47 @@ public class LocationView extends Map {
 
     /**
      * Paints the component adding a map with tile size = 60 and centered according to the current player coordinates.
-     * If some parts of the panel are out of the view, a background is printed instead.
-     * Custom objects, the player and the title are also added on the map.
+     * While the player walks, the map is shifted by the offset of the step, so that the player stays in the center.
+     * The visible part of the terrain layer is copied in one operation, at the scale of the screen, hence the tiles are not
+     * scaled again on every frame. Only the part of the view that needs to be repainted (the clip) is drawn:
+     * the custom objects are found with a rectangle query on the tiles of the clip.
+     * The player and the title are drawn on top of the objects.
      * @param g the <code>Graphics</code> object to protect
      */
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
 
-        int tileSize = 60;
-        int firstCol = playerCoordinates[0] - (getWidth() / 2) / tileSize - 1;
-        int firstRow = playerCoordinates[1] - (getHeight() / 2) / tileSize - 1;
+        updateVisibleWindow();
+        double scale = ((Graphics2D) g).getTransform().getScaleX();
+        updateTerrainLayer(Math.max(1, (int) Math.round(TILE_SIZE * scale)));
 
-        int numberOfColumns = firstCol + getWidth() / tileSize + 2;
-        int numberOfRows = firstRow + getHeight() / tileSize + 2;
+        g.clipRect(0, 0, getWidth(), getHeight());
 
-        int deltaX = (getWidth() / 2 % tileSize) - 3 * tileSize / 2;
-        int deltaY = (getHeight() / 2 % tileSize) - 3 * tileSize / 2;
+        int originX = getOriginX();
+        int originY = getOriginY();
 
-        g.clipRect(0, 0, getWidth(), getHeight());
+        // Terrain
+        int visibleColumns = endCol - firstCol;
+        int visibleRows = endRow - firstRow;
+        int sourceX = (firstCol - layerFirstCol) * layerTilePixels;
+        int sourceY = (firstRow - layerFirstRow) * layerTilePixels;
+        g.drawImage(terrainLayer, originX, originY, originX + visibleColumns * TILE_SIZE, originY + visibleRows * TILE_SIZE,
+                sourceX, sourceY, sourceX + visibleColumns * layerTilePixels, sourceY + visibleRows * layerTilePixels, null);
 
-        // Grid
-        for (int col = firstCol; col < numberOfColumns; col++) {
-            for (int row = firstRow; row < numberOfRows; row++) {
-                if (row >= 0 && col >= 0 && col < images.length && row < images[0].length) {
-                    g.drawImage(images[col][row], (col - firstCol) * tileSize + deltaX, (row - firstRow) * tileSize + deltaY, tileSize, tileSize, null);
-                    if (objectImages[col][row] != null) {
-                        g.drawImage(objectImages[col][row], (col - firstCol) * tileSize + tileSize / 4 + deltaX, (row - firstRow) * tileSize + tileSize / 4 + deltaY, tileSize / 2, tileSize / 2, null);
-                    }
-                } else if (hasBackground) {
-                    int backgroundVariation = (col + row) % 2 == 0 ? 0 : 1;
-                    Image backgroundImage = backgroundImages[backgroundVariation];
-                    g.drawImage(backgroundImage, (col - firstCol) * tileSize + deltaX, (row - firstRow) * tileSize + deltaY, tileSize, tileSize, null);
-                }
-            }
+        // Objects
+        Rectangle clip = g.getClipBounds();
+        int clipFirstCol = Math.max(firstCol, firstCol + Math.floorDiv(clip.x - originX, TILE_SIZE));
+        int clipFirstRow = Math.max(firstRow, firstRow + Math.floorDiv(clip.y - originY, TILE_SIZE));
+        int clipEndCol = Math.min(endCol, firstCol + Math.floorDiv(clip.x + clip.width - originX - 1, TILE_SIZE) + 1);
+        int clipEndRow = Math.min(endRow, firstRow + Math.floorDiv(clip.y + clip.height - originY - 1, TILE_SIZE) + 1);
+        if (clipFirstCol < clipEndCol && clipFirstRow < clipEndRow) {
+            gameLocation.forEachObjectInArea(clipFirstCol, clipFirstRow, clipEndCol - 1, clipEndRow - 1, object ->
+                    g.drawImage(loadImage(object.imagePath()), (object.x() - firstCol) * TILE_SIZE + TILE_SIZE / 4 + originX, (object.y() - firstRow) * TILE_SIZE + TILE_SIZE / 4 + originY, TILE_SIZE / 2, TILE_SIZE / 2, null));
         }
 
         // Player
-        g.drawImage(playerImage, (playerCoordinates[0] - firstCol) * tileSize + 3 + deltaX, (playerCoordinates[1] - firstRow) * tileSize + 2 + deltaY, tileSize - 6, tileSize - 6, null);
+        g.drawImage(playerImage, (playerCoordinates[0] - firstCol) * TILE_SIZE + 3 + deltaX, (playerCoordinates[1] - firstRow) * TILE_SIZE + 2 + deltaY, TILE_SIZE - 6, TILE_SIZE - 6, null);
 
         // Title
         drawTitle(g);
@@ -2,13 +2,11 @@ package nl.rug.ai.oop.rpg.view.location;
 
 import nl.rug.ai.oop.rpg.model.locations.GameLocation;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
-import java.io.IOException;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Objects;
 
 
 /**
@@ -22,9 +20,32 @@ public abstract class Map extends JPanel {
     private final static List<GameLocation.Entity> ENTITIES_LINKING_PATHS = Arrays.asList(GameLocation.Entity.PATH, GameLocation.Entity.ROAD, GameLocation.Entity.SAND, GameLocation.Entity.HQ);
 
     /**
-     * Matrix of images [columns][rows] representing all the structural entities in the current location.
+     * Width and height, in tiles, of a chunk of resolved tile images, which is the size of the chunks of the model
      */
-    protected Image[][] images;
+    protected static final int CHUNK_SIZE = 32;
+    private static final int RESIDENT_CHUNKS = 64;
+
+    /**
+     * Resolved tile images of the most recently painted chunks, by chunk key, each as an array of rows
+     */
+    private final LinkedHashMap<Long, Image[]> tileImageChunks = new LinkedHashMap<>(RESIDENT_CHUNKS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(java.util.Map.Entry<Long, Image[]> eldest) {
+            return size() > RESIDENT_CHUNKS;
+        }
+    };
+    private long lastChunkKey = -1;
+    private Image[] lastChunk;
+
+    /**
+     * Location model whose structural entities are displayed.
+     */
+    private GameLocation gameLocation;
+
+    /**
+     * Number of columns and rows of the current location.
+     */
+    protected int columns, rows;
 
     /**
      * Current coordinates of the player
@@ -32,39 +53,34 @@ public abstract class Map extends JPanel {
     protected int[] playerCoordinates;
 
     /**
-     * Tries to load an image from the resources folder with the given path.
+     * Loads an image from the resources folder with the given path. Images are shared through the {@link TileCache}.
      * @param resource path of the image
      * @return the image or, if this is not possible, null
      */
     protected Image loadImage(String resource) {
-        try {
-            return ImageIO.read(Objects.requireNonNull(getClass().getResource(resource)));
-        } catch (IOException | NullPointerException e) {
-            System.out.println("It was not possible to load the following resource: " + resource);
-            return null;
-        }
+        return TileCache.getImage(resource);
     }
 
     /**
      * Returns all the directions in which a path or road should have connections.
-     * @param entities matrix of entities representing the map
-     * @param x x coordinate of the entity
-     * @param y y coordinate of the entity
+     * @param entities entities of a chunk with a border of one tile, row after row
+     * @param index index of the path or road in the entities
+     * @param stride length of a row of the entities
      * @return the partial path string representing the directions
      */
-    private String getPathDirections(GameLocation.Entity[][] entities, int x, int y) {
+    private static String getPathDirections(GameLocation.Entity[] entities, int index, int stride) {
         String path = "";
 
-        if (x > 0 && ENTITIES_LINKING_PATHS.contains(entities[x - 1][y])) {
+        if (ENTITIES_LINKING_PATHS.contains(entities[index - 1])) {
             path += "w";
         }
-        if (y > 0 && (ENTITIES_LINKING_PATHS.contains(entities[x][y - 1]) || ENTITIES_NORTH_OF_PATH.contains(entities[x][y - 1]))) {
+        if (ENTITIES_LINKING_PATHS.contains(entities[index - stride]) || ENTITIES_NORTH_OF_PATH.contains(entities[index - stride])) {
             path += "n";
         }
-        if (x < entities.length - 1 && ENTITIES_LINKING_PATHS.contains(entities[x + 1][y])) {
+        if (ENTITIES_LINKING_PATHS.contains(entities[index + 1])) {
             path += "e";
         }
-        if (y < entities[0].length - 1 && ENTITIES_LINKING_PATHS.contains(entities[x][y + 1])) {
+        if (ENTITIES_LINKING_PATHS.contains(entities[index + stride])) {
             path += "s";
         }
 
@@ -72,48 +88,81 @@ public abstract class Map extends JPanel {
     }
 
     /**
-     * Loads the structural entities images from a file.
-     * When possible, different images of the same tile are alternated, in order to have a more diverse map.
+     * Sets the location whose structural entities are displayed.
+     * The matrix of entities is not copied: the tiles are looked up in the chunks of the model when they are first painted.
+     * The tile images resolved for the previous location are discarded.
      * @param gameLocation model
      */
     protected void setGameLocationImages(GameLocation gameLocation) {
-        images = new Image[gameLocation.getDimensions()[0]][gameLocation.getDimensions()[1]];
-        GameLocation.Entity[][] entities = gameLocation.getMap();
-
-        for (int x = 0; x < gameLocation.getDimensions()[0]; x++) {
-            for (int y = 0; y < gameLocation.getDimensions()[1]; y++) {
-                boolean showVariation = (y + x) % 2 == 0;
-
-                String resource = switch (entities[x][y]) {
-                    case GRASS -> showVariation ? "/locations/tiles/island/grass1.png" : "/locations/tiles/island/grass2.png";
-                    case SAND -> showVariation ? "/locations/tiles/island/sand1.png" : "/locations/tiles/island/sand2.png";
-                    case WATER -> showVariation ? "/locations/tiles/island/water1.png" : "/locations/tiles/island/water2.png";
-                    case FLOWERS -> showVariation ? "/locations/tiles/island/flowers1.png" : "/locations/tiles/island/flowers2.png";
-                    case TREE -> showVariation ? "/locations/tiles/island/tree1.png" : "/locations/tiles/island/tree2.png";
-                    case BUSH -> showVariation ? "/locations/tiles/island/bush1.png" : "/locations/tiles/island/bush2.png";
-                    case PLAYER_HOUSE -> "/locations/tiles/island/house-player.png";
-                    case ARMORY -> "/locations/tiles/island/house-armory.png";
-                    case POTIONS -> "/locations/tiles/island/house-potions.png";
-                    case NPC_HOUSE -> "/locations/tiles/island/house-npc.png";
-                    case PATH -> "/locations/tiles/island/path-" + getPathDirections(entities, x, y) + ".png";
-                    case UNDERGROUND_STAIRS -> "/locations/tiles/island/underground.png";
-                    case WALL -> "/locations/tiles/underground/wall.png";
-                    case ROAD -> "/locations/tiles/underground/blackroad-" + getPathDirections(entities, x, y) + ".png";
-                    case HQ, HQ_NON_CONNECTED -> "/locations/tiles/underground/hq.png";
-                    case BUILDING1 -> "/locations/tiles/underground/building1.png";
-                    case BUILDING2 -> "/locations/tiles/underground/building2.png";
-                    case BUILDING3 -> "/locations/tiles/underground/building3.png";
-                    case GRAVEL -> showVariation ? "/locations/tiles/underground/gravel1.png" : "/locations/tiles/underground/gravel2.png";
-                    case TELEPORT_ISLAND -> "/locations/tiles/underground/teleport.png";
-                    case FLOOR -> "/locations/tiles/island/floor.png";
-                    case TELEPORT_LEAVE_HOUSE -> "/locations/tiles/island/teleport-floor.png";
-                    case TABLE -> showVariation ? "/locations/tiles/island/table1.png" : "/locations/tiles/island/table2.png";
-                    case TABLE_ARMORY -> showVariation ? "/locations/tiles/island/table-armory1.png" : "/locations/tiles/island/table-armory2.png";
-                    case TABLE_POTIONS -> showVariation ? "/locations/tiles/island/table-potions1.png" : "/locations/tiles/island/table-potions2.png";
+        this.gameLocation = gameLocation;
+        tileImageChunks.clear();
+        lastChunkKey = -1;
+        lastChunk = null;
+        this.columns = gameLocation.getDimensions()[0];
+        this.rows = gameLocation.getDimensions()[1];
+    }
+
+    /**
+     * Returns the image of the structural entity at the given coordinates.
+     * When possible, different images of the same tile are alternated, in order to have a more diverse map.
+     * The images are resolved a chunk at a time (see {@link #resolveChunk(int, int)}) and kept for the most recently painted chunks,
+     * so that painting a tile again is an array lookup.
+     * @param x x coordinate of the tile, inside the map
+     * @param y y coordinate of the tile, inside the map
+     * @return the image of the tile or, if this is not possible, null
+     */
+    protected Image getTileImage(int x, int y) {
+        long key = ((long) (x / CHUNK_SIZE) << 32) | (y / CHUNK_SIZE);
+        if (key != lastChunkKey) {
+            Image[] chunk = tileImageChunks.get(key);
+            if (chunk == null) {
+                chunk = resolveChunk(x / CHUNK_SIZE, y / CHUNK_SIZE);
+                tileImageChunks.put(key, chunk);
+            }
+            lastChunkKey = key;
+            lastChunk = chunk;
+        }
+        return lastChunk[(y % CHUNK_SIZE) * CHUNK_SIZE + x % CHUNK_SIZE];
+    }
+
+    /**
+     * Resolves the images of the tiles of a chunk. The entities of the chunk and of the tiles around it are looked up once,
+     * then the image of every tile is chosen from its entity, its variation and, for paths and roads, its neighbours.
+     * The images are decoded only once and shared through the {@link TileCache}.
+     * @param chunkX x coordinate of the chunk
+     * @param chunkY y coordinate of the chunk
+     * @return the images of the tiles of the chunk, as an array of rows; tiles outside the map have no image
+     */
+    private Image[] resolveChunk(int chunkX, int chunkY) {
+        int stride = CHUNK_SIZE + 2;
+        int firstX = chunkX * CHUNK_SIZE;
+        int firstY = chunkY * CHUNK_SIZE;
+        GameLocation.Entity[] entities = new GameLocation.Entity[stride * stride];
+        for (int y = 0; y < stride; y++) {
+            for (int x = 0; x < stride; x++) {
+                entities[y * stride + x] = gameLocation.getEntity(firstX + x - 1, firstY + y - 1);
+            }
+        }
+
+        Image[] chunk = new Image[CHUNK_SIZE * CHUNK_SIZE];
+        for (int y = 0; y < CHUNK_SIZE; y++) {
+            for (int x = 0; x < CHUNK_SIZE; x++) {
+                int index = (y + 1) * stride + x + 1;
+                GameLocation.Entity entity = entities[index];
+                if (entity == null) {
+                    continue;
+                }
+                boolean showVariation = (firstY + y + firstX + x) % 2 == 0;
+
+                String variation = switch (entity) {
+                    case GRASS, SAND, WATER, FLOWERS, TREE, BUSH, GRAVEL, TABLE, TABLE_ARMORY, TABLE_POTIONS -> showVariation ? "1" : "2";
+                    case PATH, ROAD -> getPathDirections(entities, index, stride);
+                    default -> "";
                 };
 
-                images[x][y] = loadImage(resource);
+                chunk[y * CHUNK_SIZE + x] = TileCache.getTile(entity, variation);
             }
         }
+        return chunk;
     }
 }
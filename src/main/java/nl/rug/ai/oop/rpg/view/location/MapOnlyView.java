@@ -1,38 +1,119 @@
 package nl.rug.ai.oop.rpg.view.location;
 
+import nl.rug.ai.oop.rpg.controler.LocationController;
+import nl.rug.ai.oop.rpg.model.engine.EventBus;
 import nl.rug.ai.oop.rpg.model.locations.GameLocation;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
 
 
 /**
- * Map only view. It displays the entire map, without allowing any actions.
+ * Map only view. It displays the entire map, and the player can be sent to a tile by clicking on it.
+ * The tiles are rendered once in an off-screen image, which is only rendered again when the location or the size of the tiles changes.
  *
  * @author Luca Colli
  * @version 1.0
  */
 public class MapOnlyView extends Map {
+    /* Whole map, with tiles of mapImageTilePixels pixels */
+    private BufferedImage mapImage;
+    private int mapImageTilePixels;
 
     /**
      * Sets the default values of the view, and adds listeners to changes in the map or in the player location.
+     * A click on a tile sends the player to it, if a controller is given.
      * @param gameLocation {@link GameLocation} model
+     * @param locationController location controller, or null if the map is only displayed
+     * @param events {@link EventBus} through which the changes of the model are received
      */
-    public void setup(GameLocation gameLocation) {
+    public void setup(GameLocation gameLocation, LocationController locationController, EventBus events) {
         this.setBackground(new Color(185, 122, 86));
         setGameLocationImages(gameLocation);
         this.playerCoordinates = gameLocation.getPlayerCoordinates();
 
-        gameLocation.addListener(evt -> {
-            switch (evt.getPropertyName()) {
-                case "map" -> setGameLocationImages(gameLocation);
-                case "playerCoords" -> this.playerCoordinates = gameLocation.getPlayerCoordinates();
-            }
+        events.subscribe(GameLocation.MapChanged.class, gameLocation, event -> {
+            setGameLocationImages(gameLocation);
+            mapImage = null;
+        });
+        events.subscribe(GameLocation.PositionChanged.class, gameLocation, event -> {
+            this.playerCoordinates = event.getPlayerCoordinates();
+            repaint();
         });
+
+        if (locationController != null) {
+            this.addMouseListener(new MouseAdapter() {
+                @Override
+                public void mouseClicked(MouseEvent e) {
+                    int tileSize = getTileSize();
+                    if (tileSize == 0) {
+                        return;
+                    }
+                    int x = Math.floorDiv(e.getX() - getDeltaX(tileSize), tileSize);
+                    int y = Math.floorDiv(e.getY() - getDeltaY(tileSize), tileSize);
+                    if (x >= 0 && x < columns && y >= 0 && y < rows) {
+                        locationController.walkTo(x, y);
+                    }
+                }
+            });
+        }
     }
 
     /**
-     * Paints the map matrix and the position of the player on the component.
      * The size of a tile is the biggest possible to fit the window.
      * This is calculated using the following proportion: width/height = cols/rows.
+     * @return size of a tile in pixels
+     */
+    private int getTileSize() {
+        if (getWidth() < (getHeight() * columns / rows)) {
+            return Math.floorDiv(getWidth(), columns);
+        }
+        return Math.floorDiv(getHeight(), rows);
+    }
+
+    /**
+     * @param tileSize size of a tile in pixels
+     * @return horizontal offset of the map, which is centred in the component
+     */
+    private int getDeltaX(int tileSize) {
+        return (getWidth() - tileSize * columns) / 2;
+    }
+
+    /**
+     * @param tileSize size of a tile in pixels
+     * @return vertical offset of the map, which is centred in the component
+     */
+    private int getDeltaY(int tileSize) {
+        return (getHeight() - tileSize * rows) / 2;
+    }
+
+    /**
+     * Renders the whole map in the off-screen image, a chunk of tiles after the other,
+     * so that every chunk of the model is looked up only once.
+     * @param tilePixels size of a tile in screen pixels
+     */
+    private void renderMapImage(int tilePixels) {
+        mapImageTilePixels = tilePixels;
+        mapImage = new BufferedImage(columns * tilePixels, rows * tilePixels, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = mapImage.createGraphics();
+        for (int chunkRow = 0; chunkRow < rows; chunkRow += CHUNK_SIZE) {
+            for (int chunkCol = 0; chunkCol < columns; chunkCol += CHUNK_SIZE) {
+                for (int row = chunkRow; row < Math.min(rows, chunkRow + CHUNK_SIZE); row++) {
+                    for (int col = chunkCol; col < Math.min(columns, chunkCol + CHUNK_SIZE); col++) {
+                        g.drawImage(getTileImage(col, row), col * tilePixels, row * tilePixels, tilePixels, tilePixels, null);
+                    }
+                }
+            }
+        }
+        g.dispose();
+    }
+
+    /**
+     * Paints the map matrix and the position of the player on the component.
+     * The size of a tile is the biggest possible to fit the window (see {@link #getTileSize()}).
+     * The map is copied from the off-screen image, rendered at the scale of the screen, which is only rendered again
+     * when the location or the size of the tiles has changed.
      * The player is represented as a red circle.
      * @param g the <code>Graphics</code> object to protect
      */
@@ -40,23 +121,22 @@ public class MapOnlyView extends Map {
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
 
-        int tileSize;
-        if (getWidth() < (getHeight() * images.length / images[0].length)) {
-            tileSize = Math.floorDiv(getWidth(), images.length);
-        } else {
-            tileSize = Math.floorDiv(getHeight(), images[0].length);
+        int tileSize = getTileSize();
+        if (tileSize == 0) {
+            return;
         }
+        int deltaX = getDeltaX(tileSize);
+        int deltaY = getDeltaY(tileSize);
 
-        int deltaX = (getWidth() - tileSize * images.length) / 2;
-        int deltaY = (getHeight() - tileSize * images[0].length) / 2;
+        double scale = ((Graphics2D) g).getTransform().getScaleX();
+        int tilePixels = Math.max(1, (int) Math.round(tileSize * scale));
+        if (mapImage == null || mapImageTilePixels != tilePixels) {
+            renderMapImage(tilePixels);
+        }
 
         g.clipRect(0, 0, getWidth(), getHeight());
 
-        for (int col = 0; col < images.length; col++) {
-            for (int row = 0; row < images[0].length; row++) {
-                g.drawImage(images[col][row], col * tileSize + deltaX, row * tileSize + deltaY, tileSize, tileSize, null);
-            }
-        }
+        g.drawImage(mapImage, deltaX, deltaY, columns * tileSize, rows * tileSize, null);
 
         g.setColor(Color.RED);
         g.fillOval(playerCoordinates[0] * tileSize + 2 + deltaX, playerCoordinates[1] * tileSize + 2 + deltaY, tileSize - 4, tileSize - 4);
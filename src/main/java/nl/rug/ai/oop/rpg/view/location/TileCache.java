@@ -0,0 +1,103 @@
+package nl.rug.ai.oop.rpg.view.location;
+
+import nl.rug.ai.oop.rpg.model.locations.GameLocation;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Objects;
+
+
+/**
+ * Process-wide cache of the decoded map images.
+ * Every PNG is read only once and the same {@link Image} is shared by all the {@link Map} views,
+ * so that switching location only consists in filling the matrix of images.
+ * Tiles are keyed by {@link GameLocation.Entity} and variation, where the variation is either
+ * the alternative image number or the directions of a path.
+ *
+ * @version 1.0
+ */
+final class TileCache {
+    private static final HashMap<String, Image> IMAGES = new HashMap<>();
+    private static final EnumMap<GameLocation.Entity, HashMap<String, Image>> TILES = new EnumMap<>(GameLocation.Entity.class);
+
+    /**
+     * The cache only has static members
+     */
+    private TileCache() {
+    }
+
+    /**
+     * Returns the image at the given path, reading it from the resources folder only the first time it is requested.
+     * A resource that could not be loaded is remembered as well, so that it is not read again.
+     * @param resource path of the image
+     * @return the image or, if this is not possible, null
+     */
+    static synchronized Image getImage(String resource) {
+        if (IMAGES.containsKey(resource)) {
+            return IMAGES.get(resource);
+        }
+        Image image;
+        try {
+            image = ImageIO.read(Objects.requireNonNull(TileCache.class.getResource(resource)));
+        } catch (IOException | NullPointerException e) {
+            System.out.println("It was not possible to load the following resource: " + resource);
+            image = null;
+        }
+        IMAGES.put(resource, image);
+        return image;
+    }
+
+    /**
+     * Returns the image of a structural entity.
+     * @param entity the entity to be displayed
+     * @param variation "1" or "2" for entities with alternated images, the path directions for paths and roads, otherwise ""
+     * @return the image or, if this is not possible, null
+     */
+    static synchronized Image getTile(GameLocation.Entity entity, String variation) {
+        HashMap<String, Image> variations = TILES.computeIfAbsent(entity, key -> new HashMap<>());
+        Image tile = variations.get(variation);
+        if (tile == null && !variations.containsKey(variation)) {
+            tile = getImage(getTileResource(entity, variation));
+            variations.put(variation, tile);
+        }
+        return tile;
+    }
+
+    /**
+     * @param entity the entity to be displayed
+     * @param variation the variation of the entity
+     * @return path of the image representing the entity
+     */
+    private static String getTileResource(GameLocation.Entity entity, String variation) {
+        return switch (entity) {
+            case GRASS -> "/locations/tiles/island/grass" + variation + ".png";
+            case SAND -> "/locations/tiles/island/sand" + variation + ".png";
+            case WATER -> "/locations/tiles/island/water" + variation + ".png";
+            case FLOWERS -> "/locations/tiles/island/flowers" + variation + ".png";
+            case TREE -> "/locations/tiles/island/tree" + variation + ".png";
+            case BUSH -> "/locations/tiles/island/bush" + variation + ".png";
+            case PLAYER_HOUSE -> "/locations/tiles/island/house-player.png";
+            case ARMORY -> "/locations/tiles/island/house-armory.png";
+            case POTIONS -> "/locations/tiles/island/house-potions.png";
+            case NPC_HOUSE -> "/locations/tiles/island/house-npc.png";
+            case PATH -> "/locations/tiles/island/path-" + variation + ".png";
+            case UNDERGROUND_STAIRS -> "/locations/tiles/island/underground.png";
+            case WALL -> "/locations/tiles/underground/wall.png";
+            case ROAD -> "/locations/tiles/underground/blackroad-" + variation + ".png";
+            case HQ, HQ_NON_CONNECTED -> "/locations/tiles/underground/hq.png";
+            case BUILDING1 -> "/locations/tiles/underground/building1.png";
+            case BUILDING2 -> "/locations/tiles/underground/building2.png";
+            case BUILDING3 -> "/locations/tiles/underground/building3.png";
+            case GRAVEL -> "/locations/tiles/underground/gravel" + variation + ".png";
+            case TELEPORT_ISLAND -> "/locations/tiles/underground/teleport.png";
+            case FLOOR -> "/locations/tiles/island/floor.png";
+            case TELEPORT_LEAVE_HOUSE -> "/locations/tiles/island/teleport-floor.png";
+            case TABLE -> "/locations/tiles/island/table" + variation + ".png";
+            case TABLE_ARMORY -> "/locations/tiles/island/table-armory" + variation + ".png";
+            case TABLE_POTIONS -> "/locations/tiles/island/table-potions" + variation + ".png";
+        };
+    }
+}
@@ -1,5 +1,6 @@
 package nl.rug.ai.oop.rpg.view.npc.fight_graphic_panel;
 
+import nl.rug.ai.oop.rpg.view.ScaledImageCache;
 import nl.rug.ai.oop.rpg.view.npc.fight_graphic_panel.AnimatedPanel;
 
 import javax.swing.*;
@@ -20,7 +21,7 @@ public class FightNpcPanel extends JPanel {
         this.setBounds(0,0,1000,600);
         String imagePath = getClass().getResource("/photos/bright.png").getPath();
         Image image = new ImageIcon(imagePath).getImage();
-        bgImage = image.getScaledInstance(1000, -1, Image.SCALE_SMOOTH);
+        bgImage = ScaledImageCache.getScaledImage(image, 1000, -1, true);
         this.setBackground(Color.BLACK);
         this.setLayout(new GridLayout(3, 1));
 
@@ -116,9 +117,9 @@ public class FightNpcPanel extends JPanel {
     }
 
     private ImageIcon addStretchedImageIcon(String imagePath, int width, int height) {
-        return new ImageIcon(new ImageIcon(
+        return new ImageIcon(ScaledImageCache.getScaledImage(new ImageIcon(
                 getClass().getResource(imagePath).getPath()).
-                getImage().getScaledInstance(width, height, Image.SCALE_SMOOTH));
+                getImage(), width, height, true));
     }
 
     private void fillProgressbar(JProgressBar progressBar, int value) {